@@ -0,0 +1,70 @@
+/**
+ * Builds the pizzas and orders the benchmarks run against, the same for every run of the same seed,
+ * and the helpers the heap and disk benchmarks share.
+ */
+package com.github.bishopl.pizzatime.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingAmount;
+import com.github.bishopl.pizzatime.model.ToppingType;
+
+final class Benchmarks {
+    private static final PizzaSize[] PIZZA_SIZES = PizzaSize.values();
+    private static final ToppingType[] TOPPING_TYPES = ToppingType.values();
+    private static final ToppingAmount[] TOPPING_AMOUNTS = ToppingAmount.values();
+
+    private Benchmarks() {
+    }
+
+    /**
+     * Returns a pizza of a random size with up to four random toppings.
+     * @param seed the seed, so every run builds the same pizza
+     * @return the pizza
+     */
+    static Pizza randomPizza(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<PizzaTopping> toppings = new ArrayList<>();
+        int toppingCount = random.nextInt(5);
+        for (int i = 0; i < toppingCount; i++) {
+            toppings.add(new PizzaTopping(TOPPING_TYPES[random.nextInt(TOPPING_TYPES.length)],
+                    TOPPING_AMOUNTS[random.nextInt(TOPPING_AMOUNTS.length)]));
+        }
+        return new Pizza(PIZZA_SIZES[random.nextInt(PIZZA_SIZES.length)], toppings);
+    }
+
+    /**
+     * Returns the heap in use once the garbage is collected, as near as System.gc gets.
+     * @return the used heap in bytes
+     */
+    static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Deletes a directory and everything in it.
+     * @param directory the directory to delete
+     * @throws IOException if something in it can't be deleted
+     */
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Measures writing and reading a pizza order as JSON, configured like the web app's ObjectMapper.
+ */
+package com.github.bishopl.pizzatime.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JsonBenchmark {
+
+    @Param({ "1", "10" })
+    private int pizzaCount;
+
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private PizzaOrder order;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        writer = objectMapper.writerFor(PizzaOrder.class);
+        reader = objectMapper.readerFor(PizzaOrder.class);
+        order = new PizzaOrder();
+        for (int i = 0; i < pizzaCount; i++) {
+            order.addPizza(Benchmarks.randomPizza(i));
+        }
+        json = writer.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] serializePizzaOrder() throws IOException {
+        return writer.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public PizzaOrder deserializePizzaOrder() throws IOException {
+        return reader.readValue(json);
+    }
+}
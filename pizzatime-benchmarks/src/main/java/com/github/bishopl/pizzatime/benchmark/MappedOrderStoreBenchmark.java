@@ -0,0 +1,105 @@
+/**
+ * Compares one to three million two-pizza orders in the in-memory store and in the memory-mapped store:
+ * how fast each reads an order back, how long a full GC takes with the orders held, and the heap they retain,
+ * reported as the retainedBytes counter of the full GC.
+ */
+package com.github.bishopl.pizzatime.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingType;
+import com.github.bishopl.pizzatime.store.ConcurrentOrderStore;
+import com.github.bishopl.pizzatime.store.MappedOrderStore;
+import com.github.bishopl.pizzatime.store.OrderStore;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappedOrderStoreBenchmark {
+
+    @Param({ "memory", "mapped" })
+    private String store;
+
+    @Param({ "1000000", "2000000", "3000000" })
+    private int orderCount;
+
+    private Path directory;
+    private OrderStore orderStore;
+    private long retainedBytes;
+    private long reads;
+
+    /**
+     * The heap the orders retain, reported next to the full GC time.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public long retainedBytes;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        if (store.equals("mapped")) {
+            directory = Files.createTempDirectory("mapped-benchmark");
+            orderStore = new MappedOrderStore(directory.resolve("orders"));
+        } else {
+            orderStore = new ConcurrentOrderStore();
+        }
+        long before = Benchmarks.usedHeap();
+        for (long id = 0; id < orderCount; id++) {
+            Pizza pizza = new Pizza(PizzaSize.LARGE);
+            pizza.addTopping(new PizzaTopping(ToppingType.PEPPERONI));
+            orderStore.put(new PizzaOrder(id, new ArrayList<>(List.of(pizza, new Pizza()))));
+        }
+        retainedBytes = Benchmarks.usedHeap() - before;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (orderStore instanceof MappedOrderStore mappedOrderStore) {
+            mappedOrderStore.close();
+            Benchmarks.deleteDirectory(directory);
+        }
+    }
+
+    @Benchmark
+    public PizzaOrder get() {
+        return orderStore.get((reads++ * 7919L) % orderCount);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public void fullGc(Heap heap) {
+        System.gc();
+        heap.retainedBytes = retainedBytes;
+    }
+}
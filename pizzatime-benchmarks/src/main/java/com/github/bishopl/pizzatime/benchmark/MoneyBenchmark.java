@@ -0,0 +1,95 @@
+/**
+ * Compares pricing every topping at every amount as double, as long cents, as long cents read from a table
+ * computed once like PriceCatalog does, and as BigDecimal.
+ */
+package com.github.bishopl.pizzatime.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bishopl.pizzatime.model.Money;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MoneyBenchmark {
+    private final double[] doublePrices = { 1.0, 1.5, 1.5, 1.5, 1.5, 1.0, 1.0, 1.0, 1.0, 1.0 };
+    private final double[] doubleMultipliers = { 0.5, 1.0, 1.5 };
+    private final long[] centPrices = { 100, 150, 150, 150, 150, 100, 100, 100, 100, 100 };
+    private final long[] multipliers = { 500, 1000, 1500 };
+    private final BigDecimal[] decimalPrices = new BigDecimal[centPrices.length];
+    private final BigDecimal[] decimalMultipliers = new BigDecimal[multipliers.length];
+    private final long[] precomputed = new long[centPrices.length * multipliers.length];
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < centPrices.length; i++) {
+            decimalPrices[i] = BigDecimal.valueOf(centPrices[i], Money.SCALE);
+        }
+        for (int i = 0; i < multipliers.length; i++) {
+            decimalMultipliers[i] = BigDecimal.valueOf(multipliers[i], Money.MULTIPLIER_SCALE);
+        }
+        for (int i = 0; i < centPrices.length; i++) {
+            for (int j = 0; j < multipliers.length; j++) {
+                precomputed[i * multipliers.length + j] = Money.multiply(centPrices[i], multipliers[j]);
+            }
+        }
+    }
+
+    @Benchmark
+    public double sumDoubles() {
+        double total = 0;
+        for (double price : doublePrices) {
+            for (double multiplier : doubleMultipliers) {
+                total += price * multiplier;
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long sumCents() {
+        long total = 0;
+        for (long price : centPrices) {
+            for (long multiplier : multipliers) {
+                total += Money.multiply(price, multiplier);
+            }
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long sumPrecomputedCents() {
+        long total = 0;
+        for (long price : precomputed) {
+            total += price;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal sumDecimals() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal price : decimalPrices) {
+            for (BigDecimal multiplier : decimalMultipliers) {
+                total = total.add(price.multiply(multiplier).setScale(Money.SCALE, RoundingMode.HALF_EVEN));
+            }
+        }
+        return total;
+    }
+}
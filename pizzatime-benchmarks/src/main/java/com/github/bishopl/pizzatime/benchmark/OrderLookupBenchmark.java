@@ -0,0 +1,65 @@
+/**
+ * Measures looking up an order by id as the store grows, with lookups spread over every stored order
+ * so the larger stores also pay for cache misses.
+ */
+package com.github.bishopl.pizzatime.benchmark;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx4g")
+public class OrderLookupBenchmark {
+    private static final int LOOKUP_IDS = 1 << 16;
+
+    @Param({ "1000", "100000", "1000000" })
+    private int orderCount;
+
+    private PizzaOrderService pizzaOrderService;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pizzaOrderService = new PizzaOrderService();
+        for (long id = 1; id <= orderCount; id++) {
+            pizzaOrderService.createPizzaOrder(id, List.of(Benchmarks.randomPizza(id)));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new long[LOOKUP_IDS];
+        for (int i = 0; i < LOOKUP_IDS; i++) {
+            ids[i] = 1 + random.nextInt(orderCount);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Benchmark
+    public PizzaOrder getPizzaOrderById(Cursor cursor) {
+        long id = ids[cursor.next++ & (LOOKUP_IDS - 1)];
+        return pizzaOrderService.getPizzaOrderById(id);
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Compares the heap a pizza with three toppings takes in the packed representation against the layout Pizza had
+ * before, a size field plus an ArrayList of PizzaTopping objects. Everything each benchmark allocates is the pizza
+ * it returns, so run it with the GC profiler, -Djmh.args="PizzaMemory -prof gc", and read the bytes per pizza
+ * from gc.alloc.rate.norm.
+ */
+package com.github.bishopl.pizzatime.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingAmount;
+import com.github.bishopl.pizzatime.model.ToppingType;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PizzaMemoryBenchmark {
+    private int packed;
+
+    /**
+     * The layout Pizza had before toppings were packed.
+     */
+    public static final class ListPizza {
+        final PizzaSize pizzaSize;
+        final List<PizzaTopping> toppings;
+
+        ListPizza(PizzaSize pizzaSize, List<PizzaTopping> toppings) {
+            this.pizzaSize = pizzaSize;
+            this.toppings = toppings;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        Pizza pizza = new Pizza(PizzaSize.LARGE);
+        pizza.addTopping(new PizzaTopping(ToppingType.PEPPERONI, ToppingAmount.EXTRA));
+        pizza.addTopping(new PizzaTopping(ToppingType.ONIONS, ToppingAmount.LIGHT));
+        packed = pizza.getPackedConfiguration();
+    }
+
+    @Benchmark
+    public ListPizza listPizza() {
+        List<PizzaTopping> toppings = new ArrayList<>();
+        toppings.add(new PizzaTopping(ToppingType.CHEESE));
+        toppings.add(new PizzaTopping(ToppingType.PEPPERONI, ToppingAmount.EXTRA));
+        toppings.add(new PizzaTopping(ToppingType.ONIONS, ToppingAmount.LIGHT));
+        return new ListPizza(PizzaSize.LARGE, toppings);
+    }
+
+    @Benchmark
+    public Pizza packedPizza() {
+        return Pizza.fromPackedConfiguration(packed);
+    }
+}
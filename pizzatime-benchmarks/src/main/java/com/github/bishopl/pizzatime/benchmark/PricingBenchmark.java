@@ -0,0 +1,91 @@
+/**
+ * Measures a full reprice of an order, and of a single pizza, as orders grow. The topping toggles compare
+ * repricing the whole order after each change with the running total PizzaOrder keeps by applying the delta.
+ */
+package com.github.bishopl.pizzatime.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingType;
+import com.github.bishopl.pizzatime.pricing.OrderPricing;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PricingBenchmark {
+
+    @Param({ "1", "10", "100" })
+    private int pizzaCount;
+
+    private final PizzaTopping ham = new PizzaTopping(ToppingType.HAM);
+    private PizzaOrder order;
+    private Pizza pizza;
+    private int toggles;
+
+    @Setup
+    public void setUp() {
+        order = new PizzaOrder();
+        for (int i = 0; i < pizzaCount; i++) {
+            order.addPizza(Benchmarks.randomPizza(i));
+        }
+        pizza = order.getPizzas().get(pizzaCount - 1);
+    }
+
+    @Benchmark
+    public double calculatePriceOfOrder() {
+        return PizzaOrderService.calculatePriceOfOrder(order);
+    }
+
+    @Benchmark
+    public double getPricePerPizza() {
+        return PizzaOrderService.getPricePerPizza(pizza);
+    }
+
+    @Benchmark
+    public long toggleToppingWithFullReprice() {
+        Pizza toggled = order.getPizzas().get(toggles % pizzaCount);
+        if (addsTopping()) {
+            toggled.addTopping(ham);
+        } else {
+            toggled.removeTopping(ham);
+        }
+        return OrderPricing.calculatePriceOfOrderCents(order);
+    }
+
+    @Benchmark
+    public long toggleToppingWithDelta() {
+        int pizzaIndex = toggles % pizzaCount;
+        if (addsTopping()) {
+            order.updatePizza(pizzaIndex, toggled -> toggled.addTopping(ham));
+        } else {
+            order.updatePizza(pizzaIndex, toggled -> toggled.removeTopping(ham));
+        }
+        return order.getTotalCostCents();
+    }
+
+    /**
+     * Adds on every other pass over the pizzas and removes on the rest, so every toggle changes the price.
+     */
+    private boolean addsTopping() {
+        return (toggles++ / pizzaCount & 1) == 0;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Compares recovery time against order count when replaying the whole log and when loading a snapshot
+ * plus a short log tail. Each order is created, changed three times and half are checked out, so the log
+ * holds several records per order while the snapshot holds one image. The log is filled once per trial and
+ * every iteration recovers it into a fresh service.
+ */
+package com.github.bishopl.pizzatime.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingType;
+import com.github.bishopl.pizzatime.service.OrderExpiry;
+import com.github.bishopl.pizzatime.service.OrderLog;
+import com.github.bishopl.pizzatime.service.OrderRecovery;
+import com.github.bishopl.pizzatime.service.OrderSnapshotService;
+import com.github.bishopl.pizzatime.service.PizzaOrderCounterService;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+import com.github.bishopl.pizzatime.store.ConcurrentOrderStore;
+import com.github.bishopl.pizzatime.wal.Durability;
+import com.github.bishopl.pizzatime.wal.WriteAheadLog;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RecoveryBenchmark {
+    private static final int TAIL_CHANGES = 1_000;
+
+    @Param({ "10000", "100000", "1000000" })
+    private int orderCount;
+
+    @Param({ "false", "true" })
+    private boolean snapshot;
+
+    private Path directory;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("recovery-benchmark");
+        try (OrderLog orderLog = openLog()) {
+            PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), OrderExpiry.disabled(), orderLog);
+            PizzaOrderCounterService counterService = new PizzaOrderCounterService();
+            for (int i = 0; i < orderCount; i++) {
+                long id = counterService.getNextOrderNumber();
+                service.createPizzaOrder(id, new ArrayList<>(List.of(new Pizza())));
+                service.addPizzaTopping(id, 0, new PizzaTopping(ToppingType.HAM));
+                service.createPizza(id);
+                service.addPizzaTopping(id, 1, new PizzaTopping(ToppingType.OLIVES));
+                if (i % 2 == 0) {
+                    service.checkout(id);
+                }
+            }
+            if (snapshot) {
+                new OrderSnapshotService(orderLog, service, counterService).takeSnapshot();
+            }
+            for (long id = 1; id <= TAIL_CHANGES; id += 2) {
+                service.createPizza(id + 1);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Benchmarks.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public PizzaOrderService recover() throws IOException {
+        try (OrderLog orderLog = openLog()) {
+            PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), OrderExpiry.disabled(), orderLog);
+            new OrderRecovery(orderLog, service, new PizzaOrderCounterService()).recover();
+            return service;
+        }
+    }
+
+    private OrderLog openLog() throws IOException {
+        return new OrderLog(new WriteAheadLog(directory, Durability.ASYNC, 10, 64L << 20));
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Measures the read time and hit ratio of the tiered order store for heap budgets holding 5%, 20% and 50% of
+ * one million orders, when 90% of reads go to the newest 10% of orders, like a day where orders are worked on
+ * for a while after they are created and then left alone. The store is filled with the same reads going on,
+ * and the hits and misses of the reads measured are reported as counters next to the read time.
+ */
+package com.github.bishopl.pizzatime.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.store.MappedOrderStore;
+import com.github.bishopl.pizzatime.store.TieredOrderStore;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TieredOrderStoreBenchmark {
+    private static final int ORDERS = 1_000_000;
+
+    @Param({ "5", "20", "50" })
+    private int budgetPercent;
+
+    private Path directory;
+    private TieredOrderStore orderStore;
+    private SplittableRandom random;
+
+    /**
+     * The hits and misses of the reads in one iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Reads {
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        long orderBytes = new PizzaOrder(0L, pizzas()).estimateRetainedBytes();
+        directory = Files.createTempDirectory("tiered-benchmark");
+        orderStore = new TieredOrderStore(orderBytes * ORDERS / 100 * budgetPercent,
+                new MappedOrderStore(directory.resolve("spilled")));
+        random = new SplittableRandom(budgetPercent);
+        for (long id = 0; id < ORDERS; id++) {
+            orderStore.put(new PizzaOrder(id, pizzas()));
+            if (id > 0) {
+                orderStore.get(pick(random, id));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        orderStore.close();
+        Benchmarks.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public PizzaOrder get(Reads reads) {
+        long hits = orderStore.getHits();
+        PizzaOrder pizzaOrder = orderStore.get(pick(random, ORDERS));
+        if (orderStore.getHits() > hits) {
+            reads.hits++;
+        } else {
+            reads.misses++;
+        }
+        return pizzaOrder;
+    }
+
+    /**
+     * Picks one of the newest tenth of the orders nine times in ten, and any order otherwise.
+     */
+    private static long pick(SplittableRandom random, long orderCount) {
+        long recent = Math.max(1, orderCount / 10);
+        return random.nextInt(10) < 9 ? orderCount - 1 - random.nextLong(recent) : random.nextLong(orderCount);
+    }
+
+    private static List<Pizza> pizzas() {
+        List<Pizza> pizzas = new ArrayList<>();
+        pizzas.add(new Pizza());
+        pizzas.add(new Pizza());
+        return pizzas;
+    }
+}
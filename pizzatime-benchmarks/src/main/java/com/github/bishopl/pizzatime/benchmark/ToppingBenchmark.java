@@ -0,0 +1,49 @@
+/**
+ * Measures adding and removing a topping on a pizza, the UI's most frequent change.
+ */
+package com.github.bishopl.pizzatime.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingType;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ToppingBenchmark {
+    private final PizzaTopping ham = new PizzaTopping(ToppingType.HAM);
+
+    private Pizza pizza;
+
+    @Setup
+    public void setUp() {
+        pizza = new Pizza();
+    }
+
+    /**
+     * Adds then removes the same topping, so the pizza is the same before every call.
+     */
+    @Benchmark
+    public long addAndRemoveTopping() {
+        pizza.addTopping(ham);
+        long withHam = pizza.getSubtotalCents();
+        pizza.removeTopping(ham);
+        return withHam + pizza.getSubtotalCents();
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Measures logged changes per second for each durability, with every benchmark thread appending to one log and
+ * waiting for its change like a request does. With SYNC, concurrent waits share an fsync, so throughput should
+ * grow with the threads rather than stay pinned at one change per fsync: compare -Djmh.args="WriteAheadLog -t 1"
+ * with -t 64.
+ */
+package com.github.bishopl.pizzatime.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.wal.Durability;
+import com.github.bishopl.pizzatime.wal.OrderLogRecord;
+import com.github.bishopl.pizzatime.wal.WriteAheadLog;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class WriteAheadLogBenchmark {
+
+    @Param({ "SYNC", "BATCHED", "ASYNC" })
+    private Durability durability;
+
+    private Path directory;
+    private WriteAheadLog log;
+    private byte[] record;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("wal-benchmark");
+        log = new WriteAheadLog(directory, durability, 10, 64L << 20);
+        record = OrderLogRecord.encodeOrder(new PizzaOrder(1, List.of(new Pizza(), new Pizza())));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        log.close();
+        Benchmarks.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public long appendAndAwaitDurable() {
+        long lsn = log.append(record);
+        log.awaitDurable(lsn);
+        return lsn;
+    }
+}
@@ -0,0 +1,321 @@
+/**
+ * An append-only log of newline-delimited records, kept as a run of segment files in one directory, for consumers
+ * that tail it from an offset. A record's offset is the log position it starts at, so the offset just past the
+ * last record read is where the next read starts. Segment files are named after the offset they start at.
+ *
+ * Appending hands the record to the SegmentedLog writer thread, which forces every batch it writes to disk and
+ * only then moves the end of the log forward. Readers therefore never see a record that a crash could take back,
+ * and offsets handed out stay valid across restarts, for as long as their segment is kept. Once the log holds
+ * more than the retained bytes, the writer deletes the oldest segments each time it starts a new one.
+ *
+ * Reads hand out a Batch, a run of whole records within one segment file, so it can be sent from the file as it is
+ * without reading it onto the heap. Files are only open while a read or a transfer is running, so the log holds
+ * no more than the segment being written open. Opening the log cuts off anything after the last complete record.
+ */
+package com.github.bishopl.pizzatime.changes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import com.github.bishopl.pizzatime.wal.SegmentedLog;
+
+public class ChangeLog extends SegmentedLog {
+    /**
+     * The largest record accepted, not counting its newline.
+     */
+    public static final int MAX_RECORD_BYTES = 1 << 24;
+
+    private static final byte NEWLINE = '\n';
+    private static final int SCAN_BYTES = 1 << 12;
+
+    private final long retainedBytes;
+
+    /**
+     * Opens the change log in a directory, creating it if needed, and starts its writer thread.
+     * Every segment is kept.
+     * @param directory the directory holding the segment files
+     * @param segmentBytes the size at which the writer starts a new segment
+     * @throws IOException if the log can't be opened
+     */
+    public ChangeLog(Path directory, long segmentBytes) throws IOException {
+        this(directory, segmentBytes, Long.MAX_VALUE);
+    }
+
+    /**
+     * Opens the change log in a directory, creating it if needed, and starts its writer thread.
+     * New records go at the end of the last segment, after cutting off any partial record a crash left there.
+     * @param directory the directory holding the segment files
+     * @param segmentBytes the size at which the writer starts a new segment
+     * @param retainedBytes how much of the log to keep, older segments are deleted as new ones start
+     * @throws IOException if the log can't be opened
+     */
+    public ChangeLog(Path directory, long segmentBytes, long retainedBytes) throws IOException {
+        super(directory, "change log", ".changes", segmentBytes, 2, 0);
+        if (retainedBytes < 1) {
+            throw new IllegalArgumentException("retainedBytes must be positive: " + retainedBytes);
+        }
+        this.retainedBytes = retainedBytes;
+        startWriter();
+    }
+
+    /**
+     * A run of whole records read from one segment file.
+     */
+    public static final class Batch {
+        private final Path file;
+        private final long offset;
+        private final long filePosition;
+        private final long length;
+
+        private Batch(Path file, long offset, long filePosition, long length) {
+            this.file = file;
+            this.offset = offset;
+            this.filePosition = filePosition;
+            this.length = length;
+        }
+
+        /**
+         * Returns the offset of the first record in the batch.
+         * @return the offset the batch starts at
+         */
+        public long getOffset() {
+            return offset;
+        }
+
+        /**
+         * Returns the offset just past the batch, where the next read should start.
+         * @return the offset the batch ends at
+         */
+        public long getNextOffset() {
+            return offset + length;
+        }
+
+        /**
+         * Returns the size of the batch.
+         * @return the number of bytes in the batch
+         */
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Checks if the batch holds no records.
+         * @return true if the read was at the end of the log, false otherwise
+         */
+        public boolean isEmpty() {
+            return length == 0;
+        }
+
+        /**
+         * Returns the segment file holding the batch.
+         * @return the segment file
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * Returns where in the segment file the batch starts.
+         * @return the position in the file
+         */
+        public long getFilePosition() {
+            return filePosition;
+        }
+
+        /**
+         * Writes the batch to a channel straight from the file, which the operating system does without
+         * copying it through user space when the channel is a socket or another file.
+         * @param target the channel to write to, left open
+         * @throws IOException if the batch can't be read or written, or its segment has been deleted since
+         */
+        public void transferTo(WritableByteChannel target) throws IOException {
+            if (length == 0) {
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long position = filePosition;
+                long end = filePosition + length;
+                while (position < end) {
+                    position += channel.transferTo(position, end - position, target);
+                }
+            }
+        }
+    }
+
+    /**
+     * Queues a record to be written. Returns straight away unless the writer is MAX_QUEUED_BYTES behind.
+     * Records are written in the order they are appended, each followed by a newline.
+     * @param record the record, which must not contain a newline
+     * @return the offset just past the record, which readers can read up to once getEndOffset reaches it
+     * @throws UncheckedIOException if the log has failed, in which case nothing more can be appended
+     * @throws IllegalStateException if the log is closed
+     */
+    public long append(byte[] record) {
+        if (record.length == 0 || record.length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Record must be between 1 and " + MAX_RECORD_BYTES + " bytes: " + record.length);
+        }
+        for (byte b : record) {
+            if (b == NEWLINE) {
+                throw new IllegalArgumentException("Record must not contain a newline");
+            }
+        }
+        byte[] line = Arrays.copyOf(record, record.length + 1);
+        line[record.length] = NEWLINE;
+        return enqueue(line);
+    }
+
+    /**
+     * Reads the whole records starting at an offset, up to a given size and never past the end of a segment.
+     * A record bigger than the size is still returned whole, on its own, so reads always move forward.
+     * @param offset the offset of a record, or the end of the log
+     * @param maxBytes the most bytes to return, unless the first record is bigger
+     * @return the records, or an empty batch if the offset is the end of the log
+     * @throws IllegalArgumentException if the offset is not where a record starts, or its segment has been deleted
+     * @throws IOException if the segment can't be read
+     */
+    public Batch read(long offset, int maxBytes) throws IOException {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive: " + maxBytes);
+        }
+        long end = getEndOffset();
+        long[] starts = segmentStarts();
+        if (offset < starts[0] || offset > end) {
+            throw new IllegalArgumentException("Offset " + offset + " is outside the change log, which runs from "
+                    + starts[0] + " to " + end);
+        }
+        int index = Arrays.binarySearch(starts, offset);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        // An offset at the end of a full segment is the start of the next one, or the end of the log
+        long start = starts[index];
+        long segmentEnd = index + 1 < starts.length ? starts[index + 1] : end;
+        if (offset == segmentEnd) {
+            return new Batch(segmentPath(start), offset, offset - start, 0);
+        }
+        try (FileChannel channel = FileChannel.open(segmentPath(start), StandardOpenOption.READ)) {
+            if (offset > start && readByte(channel, offset - start - 1) != NEWLINE) {
+                throw new IllegalArgumentException("Offset " + offset + " is not the start of a change");
+            }
+            long from = offset - start;
+            long limit = Math.min(segmentEnd, offset + maxBytes) - start;
+            long to = limit;
+            if (limit < segmentEnd - start) {
+                long lastNewline = lastNewlineBefore(channel, from, limit);
+                to = lastNewline >= from ? lastNewline + 1 : nextNewlineFrom(channel, limit) + 1;
+            }
+            return new Batch(segmentPath(start), offset, from, to - from);
+        }
+    }
+
+    /**
+     * Deletes the segments that have fallen out of the retained bytes, once the writer starts a new one.
+     */
+    @Override
+    protected void onSegmentStarted(long startOffset) throws IOException {
+        if (startOffset > retainedBytes) {
+            deleteSegmentsBefore(startOffset - retainedBytes);
+        }
+    }
+
+    /**
+     * Keeps everything up to the last newline in the segment.
+     */
+    @Override
+    protected long validLength(Path file, long startOffset, long size) throws IOException {
+        if (size == 0) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return lastNewlineBefore(channel, 0, size) + 1;
+        }
+    }
+
+    /****************************
+     * Reader methods           *
+     *****************************/
+
+    private static byte readByte(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        if (channel.read(buffer, position) < 1) {
+            throw new IOException("Change log segment ends before " + position);
+        }
+        return buffer.get(0);
+    }
+
+    /**
+     * Finds the last newline in a range of a file, reading it backwards a little at a time.
+     * @return the position of the newline, or from - 1 if there is none
+     */
+    private static long lastNewlineBefore(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BYTES);
+        long end = to;
+        while (end > from) {
+            long start = Math.max(from, end - SCAN_BYTES);
+            buffer.clear().limit((int) (end - start));
+            readFully(channel, buffer, start);
+            for (int i = buffer.limit() - 1; i >= 0; i--) {
+                if (buffer.get(i) == NEWLINE) {
+                    return start + i;
+                }
+            }
+            end = start;
+        }
+        return from - 1;
+    }
+
+    /**
+     * Finds the first newline at or after a position. Segments always end with one, so there always is one.
+     */
+    private static long nextNewlineFrom(FileChannel channel, long from) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BYTES);
+        long start = from;
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, start);
+            if (read < 1) {
+                throw new IOException("Change log segment has no newline after " + from);
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == NEWLINE) {
+                    return start + i;
+                }
+            }
+            start += read;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Change log segment ends before " + (position + buffer.limit()));
+            }
+        }
+    }
+
+    /****************************
+     * Getters                  *
+     *****************************/
+
+    /**
+     * Returns how much of the log is kept before the oldest segments are deleted.
+     * @return the retained bytes, Long.MAX_VALUE if every segment is kept
+     */
+    public long getRetainedBytes() {
+        return retainedBytes;
+    }
+
+    /**
+     * Returns the offset just past the last record forced to disk, the furthest a read can go.
+     * @return the end of the log
+     */
+    public long getEndOffset() {
+        return getSyncedOffset();
+    }
+}
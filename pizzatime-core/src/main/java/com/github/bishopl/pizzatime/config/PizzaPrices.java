@@ -0,0 +1,30 @@
+package com.github.bishopl.pizzatime.config;
+
+/**
+ * This class represents the base prices for pizzas of different sizes.
+ * Prices are read from the current PriceCatalog.
+ */
+import com.github.bishopl.pizzatime.model.Money;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+
+public class PizzaPrices {
+
+    /**
+     * Returns the base price for a pizza of a given size.
+     * @param pizzaSize the size of the pizza
+     * @return the base price of the pizza
+     */
+    public static double getBasePrice(PizzaSize pizzaSize) {
+        return Money.toDouble(getBasePriceCents(pizzaSize));
+    }
+
+    /**
+     * Returns the base price in cents for a pizza of a given size.
+     * @param pizzaSize the size of the pizza
+     * @return the base price of the pizza in cents
+     */
+    public static long getBasePriceCents(PizzaSize pizzaSize) {
+        return PriceCatalog.current().getBasePriceCents(pizzaSize);
+    }
+
+}
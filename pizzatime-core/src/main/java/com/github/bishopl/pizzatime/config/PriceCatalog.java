@@ -0,0 +1,194 @@
+/**
+ * An immutable, versioned snapshot of every price, backed by arrays of cents indexed by enum ordinal.
+ * The current snapshot is swapped atomically, so pricing reads never lock, box or allocate,
+ * and an order priced under one version can tell when the prices have since changed.
+ * Topping prices are multiplied and rounded once per snapshot, so a lookup is a single array read.
+ * Catalogs aren't persisted, so versions start from the boot time in milliseconds rather than from 1: an order
+ * recovered from an earlier run then never names the current catalog's version and is repriced on its next change.
+ */
+package com.github.bishopl.pizzatime.config;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.github.bishopl.pizzatime.model.Money;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.ToppingAmount;
+import com.github.bishopl.pizzatime.model.ToppingType;
+
+@JsonPropertyOrder({ "version", "basePrices", "toppingPrices", "multipliers" })
+public final class PriceCatalog {
+    private static final PizzaSize[] SIZES = PizzaSize.values();
+    private static final ToppingType[] TOPPINGS = ToppingType.values();
+    private static final ToppingAmount[] AMOUNTS = ToppingAmount.values();
+
+    private static final AtomicReference<PriceCatalog> CURRENT = new AtomicReference<>(defaults(System.currentTimeMillis()));
+
+    private final long version;
+    private final long[] basePrices;
+    private final long[] toppingPrices;
+    private final long[] multipliers;
+    // Rounded price of every topping at every amount, indexed by type ordinal * AMOUNTS.length + amount ordinal
+    private final long[] toppingAmountPrices;
+
+    private PriceCatalog(long version, long[] basePrices, long[] toppingPrices, long[] multipliers) {
+        this.version = version;
+        this.basePrices = basePrices;
+        this.toppingPrices = toppingPrices;
+        this.multipliers = multipliers;
+        this.toppingAmountPrices = new long[TOPPINGS.length * AMOUNTS.length];
+        for (ToppingType type : TOPPINGS) {
+            for (ToppingAmount amount : AMOUNTS) {
+                toppingAmountPrices[type.ordinal() * AMOUNTS.length + amount.ordinal()] =
+                        Money.multiply(toppingPrices[type.ordinal()], multipliers[amount.ordinal()]);
+            }
+        }
+    }
+
+    /**
+     * Returns the catalog that prices are currently read from.
+     * @return the current price catalog
+     */
+    public static PriceCatalog current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Installs a new catalog version made of the current prices overridden by a price list.
+     * @param priceList the prices to change, missing entries keep their current price
+     * @return the newly installed catalog
+     * @throws IllegalArgumentException if any price or multiplier is negative
+     */
+    public static PriceCatalog install(PriceList priceList) {
+        while (true) {
+            PriceCatalog previous = CURRENT.get();
+            long[] basePrices = merge(previous.basePrices, priceList.getBasePrices(), Money.SCALE);
+            long[] toppingPrices = merge(previous.toppingPrices, priceList.getToppingPrices(), Money.SCALE);
+            long[] multipliers = merge(previous.multipliers, priceList.getMultipliers(), Money.MULTIPLIER_SCALE);
+            PriceCatalog next = new PriceCatalog(previous.version + 1, basePrices, toppingPrices, multipliers);
+            if (CURRENT.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Installs a new catalog version holding the built-in default prices.
+     * @return the newly installed catalog
+     */
+    public static PriceCatalog restoreDefaults() {
+        while (true) {
+            PriceCatalog previous = CURRENT.get();
+            PriceCatalog next = defaults(previous.version + 1);
+            if (CURRENT.compareAndSet(previous, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Returns the version of this catalog. Every install gets a higher version than the one it replaced,
+     * and the first catalog of a run starts from the time it booted, past the versions of earlier runs.
+     * @return the version of this catalog
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the base price in cents for a pizza of a given size.
+     * @param pizzaSize the size of the pizza
+     * @return the base price of the pizza in cents
+     */
+    public long getBasePriceCents(PizzaSize pizzaSize) {
+        return basePrices[pizzaSize.ordinal()];
+    }
+
+    /**
+     * Returns the price in cents of a topping based on its type and amount.
+     * @param toppingType the type of topping
+     * @param toppingAmount the amount of topping
+     * @return the price of the topping in cents
+     */
+    public long getToppingPriceCents(ToppingType toppingType, ToppingAmount toppingAmount) {
+        return toppingAmountPrices[toppingType.ordinal() * AMOUNTS.length + toppingAmount.ordinal()];
+    }
+
+    /**
+     * Returns the base prices by pizza size, for display.
+     * @return the base prices by pizza size
+     */
+    public Map<PizzaSize, BigDecimal> getBasePrices() {
+        return toMap(basePrices, SIZES, PizzaSize.class, Money.SCALE);
+    }
+
+    /**
+     * Returns the regular topping prices by topping type, for display.
+     * @return the topping prices by topping type
+     */
+    public Map<ToppingType, BigDecimal> getToppingPrices() {
+        return toMap(toppingPrices, TOPPINGS, ToppingType.class, Money.SCALE);
+    }
+
+    /**
+     * Returns the multipliers by topping amount, for display.
+     * @return the multipliers by topping amount
+     */
+    public Map<ToppingAmount, BigDecimal> getMultipliers() {
+        return toMap(multipliers, AMOUNTS, ToppingAmount.class, Money.MULTIPLIER_SCALE);
+    }
+
+    private static PriceCatalog defaults(long version) {
+        long[] basePrices = new long[SIZES.length];
+        basePrices[PizzaSize.SMALL.ordinal()] = 400;
+        basePrices[PizzaSize.MEDIUM.ordinal()] = 900;
+        basePrices[PizzaSize.LARGE.ordinal()] = 1400;
+
+        long[] toppingPrices = new long[TOPPINGS.length];
+        toppingPrices[ToppingType.CHEESE.ordinal()] = 100;
+        toppingPrices[ToppingType.PEPPERONI.ordinal()] = 150;
+        toppingPrices[ToppingType.HAM.ordinal()] = 150;
+        toppingPrices[ToppingType.SAUSAGE.ordinal()] = 150;
+        toppingPrices[ToppingType.BACON.ordinal()] = 150;
+        toppingPrices[ToppingType.MUSHROOMS.ordinal()] = 100;
+        toppingPrices[ToppingType.OLIVES.ordinal()] = 100;
+        toppingPrices[ToppingType.ONIONS.ordinal()] = 100;
+        toppingPrices[ToppingType.PEPPERS.ordinal()] = 100;
+        toppingPrices[ToppingType.PINEAPPLES.ordinal()] = 100;
+
+        long[] multipliers = new long[AMOUNTS.length];
+        multipliers[ToppingAmount.LIGHT.ordinal()] = 500;
+        multipliers[ToppingAmount.REGULAR.ordinal()] = 1000;
+        multipliers[ToppingAmount.EXTRA.ordinal()] = 1500;
+
+        return new PriceCatalog(version, basePrices, toppingPrices, multipliers);
+    }
+
+    private static <E extends Enum<E>> long[] merge(long[] current, Map<E, BigDecimal> changes, int scale) {
+        long[] merged = current.clone();
+        if (changes == null) {
+            return merged;
+        }
+        for (Map.Entry<E, BigDecimal> change : changes.entrySet()) {
+            BigDecimal price = change.getValue();
+            if (price == null || price.signum() < 0) {
+                throw new IllegalArgumentException("Invalid price for " + change.getKey() + ": " + price);
+            }
+            merged[change.getKey().ordinal()] = scale == Money.SCALE
+                    ? Money.fromDecimal(price)
+                    : Money.multiplierFromDecimal(price);
+        }
+        return merged;
+    }
+
+    private static <E extends Enum<E>> Map<E, BigDecimal> toMap(long[] values, E[] keys, Class<E> type, int scale) {
+        Map<E, BigDecimal> map = new EnumMap<>(type);
+        for (E key : keys) {
+            map.put(key, BigDecimal.valueOf(values[key.ordinal()], scale));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * A set of prices as read from a price file or sent to the admin endpoint.
+ * Any missing entry keeps its current price when the list is installed into the PriceCatalog.
+ */
+package com.github.bishopl.pizzatime.config;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.ToppingAmount;
+import com.github.bishopl.pizzatime.model.ToppingType;
+
+public class PriceList {
+    private Map<PizzaSize, BigDecimal> basePrices = new EnumMap<>(PizzaSize.class);
+    private Map<ToppingType, BigDecimal> toppingPrices = new EnumMap<>(ToppingType.class);
+    private Map<ToppingAmount, BigDecimal> multipliers = new EnumMap<>(ToppingAmount.class);
+
+    /**
+     * Returns the base price of each pizza size.
+     * @return the base prices by pizza size
+     */
+    public Map<PizzaSize, BigDecimal> getBasePrices() {
+        return basePrices;
+    }
+
+    /**
+     * Sets the base price of each pizza size.
+     * @param basePrices the base prices by pizza size
+     */
+    public void setBasePrices(Map<PizzaSize, BigDecimal> basePrices) {
+        this.basePrices = basePrices;
+    }
+
+    /**
+     * Returns the regular price of each topping type.
+     * @return the topping prices by topping type
+     */
+    public Map<ToppingType, BigDecimal> getToppingPrices() {
+        return toppingPrices;
+    }
+
+    /**
+     * Sets the regular price of each topping type.
+     * @param toppingPrices the topping prices by topping type
+     */
+    public void setToppingPrices(Map<ToppingType, BigDecimal> toppingPrices) {
+        this.toppingPrices = toppingPrices;
+    }
+
+    /**
+     * Returns the price multiplier of each topping amount.
+     * @return the multipliers by topping amount
+     */
+    public Map<ToppingAmount, BigDecimal> getMultipliers() {
+        return multipliers;
+    }
+
+    /**
+     * Sets the price multiplier of each topping amount.
+     * @param multipliers the multipliers by topping amount
+     */
+    public void setMultipliers(Map<ToppingAmount, BigDecimal> multipliers) {
+        this.multipliers = multipliers;
+    }
+}
@@ -1,8 +1,8 @@
 package com.github.bishopl.pizzatime.config;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.math.BigDecimal;
 
+import com.github.bishopl.pizzatime.model.Money;
 import com.github.bishopl.pizzatime.model.PizzaTopping;
 import com.github.bishopl.pizzatime.model.ToppingType;
 import com.github.bishopl.pizzatime.model.ToppingAmount;
@@ -10,31 +10,10 @@ import com.github.bishopl.pizzatime.model.ToppingAmount;
 /**
  * This class represents the prices and multipliers for different toppings.
  * It provides methods to get and set the prices and multipliers for each topping amount.
+ * Prices are read from the current PriceCatalog, setting a price installs a new catalog version.
  */
 public class ToppingPrices {
-    private static final Map<ToppingType, Double> PRICES = new HashMap<>();
-    private static final Map<ToppingAmount, Double> MULTIPLIERS = new HashMap<>();
 
-    static {
-        PRICES.put(ToppingType.CHEESE, 1.0);
-        PRICES.put(ToppingType.PEPPERONI, 1.5);
-        PRICES.put(ToppingType.HAM, 1.5);
-        PRICES.put(ToppingType.SAUSAGE, 1.5);
-        PRICES.put(ToppingType.BACON, 1.5);
-        PRICES.put(ToppingType.MUSHROOMS, 1.0);
-        PRICES.put(ToppingType.OLIVES, 1.0);
-        PRICES.put(ToppingType.ONIONS, 1.0);
-        PRICES.put(ToppingType.PEPPERS, 1.0);
-        PRICES.put(ToppingType.PINEAPPLES, 1.0);
-    }
-
-    static {
-        MULTIPLIERS.put(ToppingAmount.LIGHT, 0.5);
-        MULTIPLIERS.put(ToppingAmount.REGULAR, 1.0);
-        MULTIPLIERS.put(ToppingAmount.EXTRA, 1.5);
-    }    
-       
-      
     /**
      * Calculates the price of a topping based on its type and amount.
      * @param toppingType the type of topping
@@ -42,7 +21,27 @@ public class ToppingPrices {
      * @return the price of the topping
      */
     public static double getPrice(ToppingType toppingType, ToppingAmount toppingAmount) {
-        return PRICES.get(toppingType) * getMultiplier(toppingAmount);
+        return Money.toDouble(getPriceCents(toppingType, toppingAmount));
+    }
+
+    /**
+     * Calculates the price in cents of a topping based on its type and amount.
+     * @param toppingType the type of topping
+     * @param toppingAmount the amount of topping
+     * @return the price of the topping in cents
+     */
+    public static long getPriceCents(ToppingType toppingType, ToppingAmount toppingAmount) {
+        return PriceCatalog.current().getToppingPriceCents(toppingType, toppingAmount);
+    }
+
+    /**
+     * Returns the price in cents of a pizza topping based on its type and amount.
+     *
+     * @param topping the PizzaTopping object containing the topping type and amount
+     * @return the price of the topping in cents
+     */
+    public static long getPriceCents(PizzaTopping topping) {
+        return getPriceCents(topping.getToppingType(), topping.getToppingAmount());
     }
 
     /**
@@ -66,26 +65,17 @@ public class ToppingPrices {
         return getPrice(toppingType, ToppingAmount.REGULAR);
     }
 
-    /**
-     * Returns the multiplier for a given ToppingAmount.
-     *
-     * @param toppingAmount the ToppingAmount to get the multiplier for
-     * @return the multiplier for the given ToppingAmount
-     */
-    private static double getMultiplier(ToppingAmount toppingAmount) {
-        return MULTIPLIERS.get(toppingAmount);
-    }
-    
     /**
      * Sets the price for a given ToppingType.
      *
      * @param toppingType the ToppingType to set the price for
      * @param price the price to set for the ToppingType
      */
-    // public static void setPrice(ToppingType toppingType, double price) {
-    //     PRICES.put(toppingType, price);
-    // }
-
+    public static void setPrice(ToppingType toppingType, double price) {
+        PriceList priceList = new PriceList();
+        priceList.getToppingPrices().put(toppingType, BigDecimal.valueOf(price));
+        PriceCatalog.install(priceList);
+    }
 
     /**
      * Sets the multiplier for a given ToppingAmount.
@@ -93,8 +83,10 @@ public class ToppingPrices {
      * @param toppingAmount the ToppingAmount to set the multiplier for
      * @param multiplier the multiplier to set for the ToppingAmount
      */
-    // public static void setMultiplier(ToppingAmount toppingAmount, double multiplier) {
-    //     MULTIPLIERS.put(toppingAmount, multiplier);
-    // }
+    public static void setMultiplier(ToppingAmount toppingAmount, double multiplier) {
+        PriceList priceList = new PriceList();
+        priceList.getMultipliers().put(toppingAmount, BigDecimal.valueOf(multiplier));
+        PriceCatalog.install(priceList);
+    }
   
 }
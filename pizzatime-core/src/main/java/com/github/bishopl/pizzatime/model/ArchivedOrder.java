@@ -0,0 +1,125 @@
+/**
+ * An immutable, compact encoding of a checked out pizza order.
+ * Each pizza is kept as its packed size and toppings, so an archived order is a handful of longs and one int per pizza,
+ * and it keeps the total and price version it was checked out with no matter how prices change afterwards.
+ */
+package com.github.bishopl.pizzatime.model;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public final class ArchivedOrder {
+    private static final int NO_PIZZA = -1;
+    // With compressed oops: the object and its pizza array header, plus two store slots at the store's load factor
+    private static final long BASE_BYTES = 64 + 16 + 24;
+    private static final OrderState[] ORDER_STATES = OrderState.values();
+
+    private final long id;
+    private final long dateMillis;
+    private final long totalCost;
+    private final long priceVersion;
+    private final long version;
+    private final byte state;
+    private final int[] pizzas;
+
+    private ArchivedOrder(long id, long dateMillis, long totalCost, long priceVersion, long version, OrderState state,
+                          int[] pizzas) {
+        this.id = id;
+        this.version = version;
+        this.dateMillis = dateMillis;
+        this.totalCost = totalCost;
+        this.priceVersion = priceVersion;
+        this.state = (byte) state.ordinal();
+        this.pizzas = pizzas;
+    }
+
+    /**
+     * Encodes a checked out pizza order.
+     * @param pizzaOrder the pizza order to encode
+     * @return the archived order
+     * @throws IllegalStateException if the order is still open
+     */
+    public static ArchivedOrder of(PizzaOrder pizzaOrder) {
+        if (pizzaOrder.getState() == OrderState.OPEN) {
+            throw new IllegalStateException("Pizza order " + pizzaOrder.getId() + " is OPEN");
+        }
+        List<Pizza> orderPizzas = pizzaOrder.getPizzas();
+        int[] packed = new int[orderPizzas.size()];
+        for (int i = 0; i < packed.length; i++) {
+            Pizza pizza = orderPizzas.get(i);
+            packed[i] = pizza == null ? NO_PIZZA : pizza.getPackedConfiguration();
+        }
+        return new ArchivedOrder(pizzaOrder.getId(), pizzaOrder.getDate().getTime(), pizzaOrder.getTotalCostCents(),
+                pizzaOrder.getPriceVersion(), pizzaOrder.getVersion(), pizzaOrder.getState(), packed);
+    }
+
+    /**
+     * Returns a copy of this archived order in a new state, at the next version.
+     * @param newState the new state
+     * @return the archived order in the new state
+     */
+    public ArchivedOrder withState(OrderState newState) {
+        return new ArchivedOrder(id, dateMillis, totalCost, priceVersion, version + 1, newState, pizzas);
+    }
+
+    /**
+     * Decodes the archived order into a frozen PizzaOrder.
+     * @return the pizza order, which rejects any change
+     */
+    public PizzaOrder toPizzaOrder() {
+        List<Pizza> decoded = new ArrayList<>(pizzas.length);
+        for (int packed : pizzas) {
+            decoded.add(packed == NO_PIZZA ? null : Pizza.fromPackedConfiguration(packed));
+        }
+        return new PizzaOrder(id, new Date(dateMillis), decoded, totalCost, priceVersion, getState(), version);
+    }
+
+    /**
+     * Returns the id of the archived order.
+     * @return the id of the archived order
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the version of the archived order.
+     * @return the version of the archived order
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the state of the archived order.
+     * @return the state of the archived order
+     */
+    public OrderState getState() {
+        return ORDER_STATES[state];
+    }
+
+    /**
+     * Returns the total cost the order was checked out with.
+     * @return the total cost in cents
+     */
+    public long getTotalCostCents() {
+        return totalCost;
+    }
+
+    /**
+     * Returns the number of pizzas in the archived order.
+     * @return the number of pizzas
+     */
+    public int getPizzaCount() {
+        return pizzas.length;
+    }
+
+    /**
+     * Estimates the heap the archived order takes, including its slot in the archive.
+     * @return the estimated size in bytes
+     */
+    public long estimateRetainedBytes() {
+        return BASE_BYTES + 4L * pizzas.length;
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Represents the outcome of a bulk order import: how many lines were read, imported and rejected,
+ * the first rejected lines with their reasons, and the sustained import rate.
+ */
+package com.github.bishopl.pizzatime.model;
+
+import java.util.List;
+
+public class ImportReport {
+
+    /**
+     * A rejected line of an import and the reason it was rejected.
+     */
+    public static class LineError {
+        private final long line;
+        private final String message;
+
+        /**
+         * Constructs a new LineError.
+         * @param line the 1-based line number
+         * @param message the reason the line was rejected
+         */
+        public LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        /**
+         * Returns the 1-based line number.
+         * @return the line number
+         */
+        public long getLine() {
+            return line;
+        }
+
+        /**
+         * Returns the reason the line was rejected.
+         * @return the reason
+         */
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    private final long linesRead;
+    private final long imported;
+    private final long failed;
+    private final List<LineError> errors;
+    private final long elapsedMillis;
+    private final double ordersPerSecond;
+
+    /**
+     * Constructs a new ImportReport.
+     * @param linesRead the number of non-blank lines read
+     * @param imported the number of orders imported
+     * @param failed the number of lines rejected
+     * @param errors the first rejected lines, at most a fixed number of them
+     * @param elapsedNanos the time the import took in nanoseconds
+     */
+    public ImportReport(long linesRead, long imported, long failed, List<LineError> errors, long elapsedNanos) {
+        this.linesRead = linesRead;
+        this.imported = imported;
+        this.failed = failed;
+        this.errors = List.copyOf(errors);
+        this.elapsedMillis = elapsedNanos / 1_000_000;
+        this.ordersPerSecond = elapsedNanos > 0 ? imported * 1e9 / elapsedNanos : 0;
+    }
+
+    /**
+     * Returns the number of non-blank lines read.
+     * @return the number of lines read
+     */
+    public long getLinesRead() {
+        return linesRead;
+    }
+
+    /**
+     * Returns the number of orders imported.
+     * @return the number of orders imported
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * Returns the number of lines rejected, including those not listed in the errors.
+     * @return the number of lines rejected
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Returns the first rejected lines and their reasons.
+     * @return the rejected lines
+     */
+    public List<LineError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Returns the time the import took.
+     * @return the elapsed time in milliseconds
+     */
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * Returns the number of orders imported per second over the whole import.
+     * @return the import rate
+     */
+    public double getOrdersPerSecond() {
+        return ordersPerSecond;
+    }
+}
@@ -0,0 +1,102 @@
+/**
+ * Fixed-point money arithmetic on long cents.
+ * Amounts are plain longs holding minor units, so pricing never allocates and sums never drift.
+ * Multipliers are longs holding thousandths, and multiplying rounds half-even to the nearest cent.
+ */
+package com.github.bishopl.pizzatime.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public final class Money {
+    public static final int SCALE = 2;
+    public static final int MULTIPLIER_SCALE = 3;
+    public static final long MULTIPLIER_ONE = 1000;
+
+    private Money() {
+    }
+
+    /**
+     * Converts a decimal amount to cents, rounding half-even past the second decimal place.
+     * @param amount the amount in currency units
+     * @return the amount in cents
+     */
+    public static long fromDecimal(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts a double amount to cents, rounding half-even past the second decimal place.
+     * Only meant for configuration and compatibility, pricing itself never touches doubles.
+     * @param amount the amount in currency units
+     * @return the amount in cents
+     */
+    public static long fromDouble(double amount) {
+        return fromDecimal(BigDecimal.valueOf(amount));
+    }
+
+    /**
+     * Converts a decimal multiplier to thousandths, rounding half-even past the third decimal place.
+     * @param multiplier the multiplier, e.g. 1.5
+     * @return the multiplier in thousandths, e.g. 1500
+     */
+    public static long multiplierFromDecimal(BigDecimal multiplier) {
+        return multiplier.setScale(MULTIPLIER_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Multiplies an amount by a multiplier, rounding half-even to the nearest cent.
+     * @param cents the amount in cents
+     * @param multiplier the multiplier in thousandths
+     * @return the product in cents
+     */
+    public static long multiply(long cents, long multiplier) {
+        long product = Math.multiplyExact(cents, multiplier);
+        if (product < 0) {
+            return -multiply(-cents, multiplier);
+        }
+        long quotient = product / MULTIPLIER_ONE;
+        long remainder = product % MULTIPLIER_ONE;
+        if (remainder * 2 > MULTIPLIER_ONE || (remainder * 2 == MULTIPLIER_ONE && (quotient & 1) == 1)) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    /**
+     * Converts cents to a double, for callers that still expect one.
+     * @param cents the amount in cents
+     * @return the amount in currency units
+     */
+    public static double toDouble(long cents) {
+        return cents / 100.0;
+    }
+
+    /**
+     * Converts cents to an exact decimal.
+     * @param cents the amount in cents
+     * @return the amount in currency units
+     */
+    public static BigDecimal toDecimal(long cents) {
+        return BigDecimal.valueOf(cents, SCALE);
+    }
+
+    /**
+     * Formats cents as a plain decimal with two places, e.g. 1250 as "12.50".
+     * @param cents the amount in cents
+     * @return the formatted amount
+     */
+    public static String format(long cents) {
+        long units = Math.abs(cents / 100);
+        long fraction = Math.abs(cents % 100);
+        StringBuilder builder = new StringBuilder(24);
+        if (cents < 0) {
+            builder.append('-');
+        }
+        builder.append(units).append('.');
+        if (fraction < 10) {
+            builder.append('0');
+        }
+        return builder.append(fraction).toString();
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * Reads an exact JSON number with up to two decimal places, as written by MoneySerializer, back into long cents.
+ */
+package com.github.bishopl.pizzatime.model;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+public class MoneyDeserializer extends StdDeserializer<Long> {
+
+    public MoneyDeserializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return Money.fromDecimal(parser.getDecimalValue());
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Money.fromDecimal(new BigDecimal(parser.getText().trim()));
+            } catch (NumberFormatException e) {
+                return (Long) context.handleWeirdStringValue(Long.class, parser.getText(), "not a money amount");
+            }
+        }
+        return (Long) context.handleUnexpectedToken(Long.class, parser);
+    }
+}
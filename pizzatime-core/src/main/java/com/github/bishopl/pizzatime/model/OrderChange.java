@@ -0,0 +1,137 @@
+/**
+ * Represents one entry of the change feed: what was done to a pizza order, and the order right after it.
+ * Changes made by a single request carry the operation they applied, so a consumer can follow an order from its
+ * changes alone, and every change carries the whole order, so a consumer can also just keep the latest one.
+ */
+package com.github.bishopl.pizzatime.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+@JsonPropertyOrder({"type", "orderId", "version", "time", "operations", "order"})
+public class OrderChange {
+
+    /**
+     * The kinds of change in the feed.
+     */
+    public enum Type {
+        CREATED,
+        PIZZA_ADDED,
+        PIZZA_DELETED,
+        SIZE_CHANGED,
+        TOPPING_ADDED,
+        TOPPING_REMOVED,
+        TOPPINGS_REPLACED,
+        BATCH_APPLIED,
+        CHECKED_OUT,
+        FULFILLED,
+        DELETED,
+        EXPIRED
+    }
+
+    private final Type type;
+    private final long orderId;
+    private final long version;
+    private final long time;
+    private final List<OrderOperation> operations;
+    private final PizzaOrder order;
+
+    /**
+     * Constructs a new OrderChange.
+     * @param type the kind of change
+     * @param orderId the ID of the changed pizza order
+     * @param version the version of the pizza order right after the change
+     * @param time when the change was made, in milliseconds since the epoch
+     * @param operations the operations the change applied, empty unless it changed an open order's pizzas
+     * @param order the pizza order after the change, or as it was when it was deleted or expired
+     */
+    @JsonCreator
+    public OrderChange(@JsonProperty("type") Type type,
+                       @JsonProperty("orderId") long orderId,
+                       @JsonProperty("version") long version,
+                       @JsonProperty("time") long time,
+                       @JsonProperty("operations") List<OrderOperation> operations,
+                       @JsonProperty("order") PizzaOrder order) {
+        this.type = type;
+        this.orderId = orderId;
+        this.version = version;
+        this.time = time;
+        this.operations = operations == null ? List.of() : operations;
+        this.order = order;
+    }
+
+    /**
+     * Returns the kind of change an update applying some operations is.
+     * @param operations the operations the update applied
+     * @return the kind of change of the only operation, or BATCH_APPLIED for any other number of operations
+     */
+    public static Type typeOf(List<OrderOperation> operations) {
+        if (operations.size() != 1) {
+            return Type.BATCH_APPLIED;
+        }
+        return switch (operations.get(0).getType()) {
+            case ADD_PIZZA -> Type.PIZZA_ADDED;
+            case DELETE_PIZZA -> Type.PIZZA_DELETED;
+            case SET_SIZE -> Type.SIZE_CHANGED;
+            case ADD_TOPPING -> Type.TOPPING_ADDED;
+            case REMOVE_TOPPING -> Type.TOPPING_REMOVED;
+            case SET_TOPPINGS -> Type.TOPPINGS_REPLACED;
+        };
+    }
+
+    /**
+     * Returns the kind of change.
+     * @return the kind of change
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the ID of the changed pizza order, serialized as a string like PizzaOrder's.
+     * @return the ID of the pizza order
+     */
+    @JsonSerialize(using = ToStringSerializer.class)
+    public long getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Returns the version of the pizza order right after the change.
+     * @return the version of the pizza order
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns when the change was made.
+     * @return the time in milliseconds since the epoch
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the operations the change applied.
+     * @return the operations, empty unless the change was to an open order's pizzas
+     */
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public List<OrderOperation> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Returns the pizza order after the change, or as it was when it was deleted or expired.
+     * @return the pizza order
+     */
+    public PizzaOrder getOrder() {
+        return order;
+    }
+}
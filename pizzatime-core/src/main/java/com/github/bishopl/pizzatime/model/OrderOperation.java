@@ -0,0 +1,161 @@
+/**
+ * Represents one change in a batch of changes to a pizza order.
+ * The fields used depend on the operation: "pizza" is the pizza index, "size" is used by SET_SIZE,
+ * "topping" by ADD_TOPPING and REMOVE_TOPPING, and "toppings" by SET_TOPPINGS.
+ */
+package com.github.bishopl.pizzatime.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class OrderOperation {
+
+    /**
+     * The kinds of change a batch can make.
+     */
+    public enum Type {
+        ADD_PIZZA,
+        DELETE_PIZZA,
+        SET_SIZE,
+        ADD_TOPPING,
+        REMOVE_TOPPING,
+        SET_TOPPINGS
+    }
+
+    @JsonProperty("op")
+    private Type type;
+
+    @JsonProperty("pizza")
+    private int pizzaIndex;
+
+    @JsonProperty("size")
+    private PizzaSize pizzaSize;
+
+    @JsonProperty("topping")
+    private PizzaTopping topping;
+
+    @JsonProperty("toppings")
+    private List<PizzaTopping> toppings;
+
+    /**
+     * Constructs a new, empty OrderOperation.
+     */
+    public OrderOperation() {
+    }
+
+    /**
+     * Constructs a new OrderOperation of a given type on a given pizza.
+     * @param type the kind of change
+     * @param pizzaIndex the index of the pizza to change
+     */
+    public OrderOperation(Type type, int pizzaIndex) {
+        this.type = type;
+        this.pizzaIndex = pizzaIndex;
+    }
+
+    /**
+     * Returns an operation that adds a new pizza to the end of the order.
+     * @return the operation
+     */
+    public static OrderOperation addPizza() {
+        return new OrderOperation(Type.ADD_PIZZA, -1);
+    }
+
+    /**
+     * Returns an operation that deletes a pizza.
+     * @param pizzaIndex the index of the pizza
+     * @return the operation
+     */
+    public static OrderOperation deletePizza(int pizzaIndex) {
+        return new OrderOperation(Type.DELETE_PIZZA, pizzaIndex);
+    }
+
+    /**
+     * Returns an operation that sets the size of a pizza.
+     * @param pizzaIndex the index of the pizza
+     * @param pizzaSize the new size
+     * @return the operation
+     */
+    public static OrderOperation setSize(int pizzaIndex, PizzaSize pizzaSize) {
+        OrderOperation operation = new OrderOperation(Type.SET_SIZE, pizzaIndex);
+        operation.pizzaSize = pizzaSize;
+        return operation;
+    }
+
+    /**
+     * Returns an operation that adds a topping to a pizza.
+     * @param pizzaIndex the index of the pizza
+     * @param topping the topping to add
+     * @return the operation
+     */
+    public static OrderOperation addTopping(int pizzaIndex, PizzaTopping topping) {
+        OrderOperation operation = new OrderOperation(Type.ADD_TOPPING, pizzaIndex);
+        operation.topping = topping;
+        return operation;
+    }
+
+    /**
+     * Returns an operation that removes a topping from a pizza.
+     * @param pizzaIndex the index of the pizza
+     * @param topping the topping to remove
+     * @return the operation
+     */
+    public static OrderOperation removeTopping(int pizzaIndex, PizzaTopping topping) {
+        OrderOperation operation = new OrderOperation(Type.REMOVE_TOPPING, pizzaIndex);
+        operation.topping = topping;
+        return operation;
+    }
+
+    /**
+     * Returns an operation that replaces the toppings of a pizza.
+     * @param pizzaIndex the index of the pizza
+     * @param toppings the new toppings
+     * @return the operation
+     */
+    public static OrderOperation setToppings(int pizzaIndex, List<PizzaTopping> toppings) {
+        OrderOperation operation = new OrderOperation(Type.SET_TOPPINGS, pizzaIndex);
+        operation.toppings = toppings;
+        return operation;
+    }
+
+    /**
+     * Returns the kind of change.
+     * @return the kind of change
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the index of the pizza to change, unused by ADD_PIZZA.
+     * @return the index of the pizza
+     */
+    public int getPizzaIndex() {
+        return pizzaIndex;
+    }
+
+    /**
+     * Returns the new size for SET_SIZE.
+     * @return the new size
+     */
+    public PizzaSize getPizzaSize() {
+        return pizzaSize;
+    }
+
+    /**
+     * Returns the topping for ADD_TOPPING and REMOVE_TOPPING.
+     * @return the topping
+     */
+    public PizzaTopping getTopping() {
+        return topping;
+    }
+
+    /**
+     * Returns the new toppings for SET_TOPPINGS.
+     * @return the new toppings
+     */
+    public List<PizzaTopping> getToppings() {
+        return toppings;
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * An enum representing the states of a pizza order.
+ * OPEN orders can be changed, CHECKED_OUT orders are priced and frozen, and FULFILLED orders have been handed over.
+ * Orders only move forward, OPEN to CHECKED_OUT to FULFILLED.
+ */
+package com.github.bishopl.pizzatime.model;
+
+public enum OrderState {
+    OPEN,
+    CHECKED_OUT,
+    FULFILLED
+}
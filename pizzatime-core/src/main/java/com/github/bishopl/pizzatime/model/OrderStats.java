@@ -0,0 +1,68 @@
+/**
+ * Represents a snapshot of counters for the pizza orders held by the shop.
+ */
+package com.github.bishopl.pizzatime.model;
+
+public class OrderStats {
+    private final int liveOrders;
+    private final int archivedOrders;
+    private final int fulfilledOrders;
+    private final long expiredOrders;
+    private final int trackedOrders;
+
+    /**
+     * Constructs a new OrderStats.
+     * @param liveOrders the number of open orders currently held
+     * @param archivedOrders the number of checked out orders in the archive
+     * @param fulfilledOrders the number of archived orders that have been fulfilled
+     * @param expiredOrders the number of orders expired since startup
+     * @param trackedOrders the number of orders waiting in the expiry wheel
+     */
+    public OrderStats(int liveOrders, int archivedOrders, int fulfilledOrders, long expiredOrders, int trackedOrders) {
+        this.liveOrders = liveOrders;
+        this.archivedOrders = archivedOrders;
+        this.fulfilledOrders = fulfilledOrders;
+        this.expiredOrders = expiredOrders;
+        this.trackedOrders = trackedOrders;
+    }
+
+    /**
+     * Returns the number of open orders currently held.
+     * @return the number of live orders
+     */
+    public int getLiveOrders() {
+        return liveOrders;
+    }
+
+    /**
+     * Returns the number of checked out orders in the archive.
+     * @return the number of archived orders
+     */
+    public int getArchivedOrders() {
+        return archivedOrders;
+    }
+
+    /**
+     * Returns the number of archived orders that have been fulfilled. The rest are waiting to be.
+     * @return the number of fulfilled orders
+     */
+    public int getFulfilledOrders() {
+        return fulfilledOrders;
+    }
+
+    /**
+     * Returns the number of orders expired since startup.
+     * @return the number of expired orders
+     */
+    public long getExpiredOrders() {
+        return expiredOrders;
+    }
+
+    /**
+     * Returns the number of orders waiting in the expiry wheel.
+     * @return the number of tracked orders
+     */
+    public int getTrackedOrders() {
+        return trackedOrders;
+    }
+}
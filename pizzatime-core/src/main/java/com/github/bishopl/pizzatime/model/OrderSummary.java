@@ -0,0 +1,122 @@
+/**
+ * Represents a compact view of a pizza order after a change: its version, state, total cost and pizza count,
+ * plus the one pizza that changed, if the change touched a single pizza.
+ * Its size does not depend on how many pizzas the order holds.
+ */
+package com.github.bishopl.pizzatime.model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({"id", "version", "state", "totalCost", "pizzaCount", "pizzaIndex", "pizza"})
+public class OrderSummary {
+    private final long id;
+    private final long version;
+    private final OrderState state;
+    private final long totalCost;
+    private final int pizzaCount;
+    private final Integer pizzaIndex;
+    private final Pizza pizza;
+
+    private OrderSummary(long id, long version, OrderState state, long totalCost, int pizzaCount, Integer pizzaIndex, Pizza pizza) {
+        this.id = id;
+        this.version = version;
+        this.state = state;
+        this.totalCost = totalCost;
+        this.pizzaCount = pizzaCount;
+        this.pizzaIndex = pizzaIndex;
+        this.pizza = pizza;
+    }
+
+    /**
+     * Summarizes a pizza order, including one of its pizzas.
+     * The version is read first, so the rest of the summary is never older than the version it reports.
+     * @param pizzaOrder the pizza order to summarize
+     * @param pizzaIndex the index of the pizza to include, or null to include no pizza
+     * @return the summary
+     */
+    public static OrderSummary of(PizzaOrder pizzaOrder, Integer pizzaIndex) {
+        long version = pizzaOrder.getVersion();
+        List<Pizza> pizzas = pizzaOrder.getPizzas();
+        Pizza pizza = null;
+        if (pizzaIndex != null && pizzaIndex >= 0 && pizzaIndex < pizzas.size()) {
+            pizza = pizzas.get(pizzaIndex);
+        } else {
+            pizzaIndex = null;
+        }
+        return new OrderSummary(pizzaOrder.getId(), version, pizzaOrder.getState(), pizzaOrder.getTotalCostCents(),
+                pizzas.size(), pizzaIndex, pizza);
+    }
+
+    /**
+     * Summarizes a pizza order without any of its pizzas.
+     * @param pizzaOrder the pizza order to summarize
+     * @return the summary
+     */
+    public static OrderSummary of(PizzaOrder pizzaOrder) {
+        return of(pizzaOrder, null);
+    }
+
+    /**
+     * Returns the id of the pizza order, serialized as a string like PizzaOrder's.
+     * @return the id of the pizza order
+     */
+    @JsonSerialize(using = ToStringSerializer.class)
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Returns the version of the pizza order.
+     * @return the version of the pizza order
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the state of the pizza order.
+     * @return the state of the pizza order
+     */
+    public OrderState getState() {
+        return state;
+    }
+
+    /**
+     * Returns the total cost of the pizza order in cents, serialized as an exact decimal.
+     * @return the total cost in cents
+     */
+    @JsonSerialize(using = MoneySerializer.class)
+    public long getTotalCost() {
+        return totalCost;
+    }
+
+    /**
+     * Returns the number of pizzas in the order.
+     * @return the number of pizzas
+     */
+    public int getPizzaCount() {
+        return pizzaCount;
+    }
+
+    /**
+     * Returns the index of the included pizza.
+     * @return the index of the pizza, or null if no pizza is included
+     */
+    public Integer getPizzaIndex() {
+        return pizzaIndex;
+    }
+
+    /**
+     * Returns the included pizza.
+     * @return the pizza, or null if no pizza is included
+     */
+    public Pizza getPizza() {
+        return pizza;
+    }
+}
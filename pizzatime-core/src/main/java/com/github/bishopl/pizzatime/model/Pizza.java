@@ -0,0 +1,280 @@
+/**
+ * Represents a pizza object, with toppings and a size.
+ * The whole configuration is packed into one int: two bits per topping type (0 for none, otherwise
+ * the amount ordinal plus one) followed by the size ordinal. Adding, removing and updating a topping
+ * is a bit operation, and a reader always sees a consistent pizza because it reads a single field.
+ */
+package com.github.bishopl.pizzatime.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.github.bishopl.pizzatime.config.PizzaPrices;
+import com.github.bishopl.pizzatime.config.PriceCatalog;
+import com.github.bishopl.pizzatime.config.ToppingPrices;
+
+@JsonPropertyOrder({ "size", "toppings" })
+public class Pizza {
+    private static final ToppingType[] TOPPING_TYPES = ToppingType.values();
+    private static final ToppingAmount[] TOPPING_AMOUNTS = ToppingAmount.values();
+    private static final PizzaSize[] PIZZA_SIZES = PizzaSize.values();
+
+    private static final int BITS_PER_TOPPING = 2;
+    private static final int TOPPING_MASK = (1 << BITS_PER_TOPPING) - 1;
+    private static final int SIZE_SHIFT = TOPPING_TYPES.length * BITS_PER_TOPPING;
+    private static final int ALL_TOPPINGS_MASK = (1 << SIZE_SHIFT) - 1;
+
+    private volatile int packed;
+
+    // Price of the base plus every topping, moved by the difference on each change instead of recomputed
+    private long subtotalCents;
+
+    /**
+     * Constructs a new Pizza of a certain size and with a list of PizzaToppings.
+     * 
+     * @param pizzaSize the size of the pizza
+     * @param toppings  the list of toppings on the pizza
+     */
+    public Pizza(PizzaSize pizzaSize, List<PizzaTopping> toppings) {
+        this.packed = pizzaSize.ordinal() << SIZE_SHIFT;
+        for (PizzaTopping topping : toppings) {
+            this.packed = withTopping(this.packed, topping.getToppingType(), topping.getToppingAmount());
+        }
+        reprice();
+    }
+
+    /**
+     * Constructs a new Pizza of a certain size with default topping.
+     * 
+     * @param pizzaSize the size of the pizza
+     */
+    public Pizza(PizzaSize pizzaSize) {
+        this(pizzaSize, List.of(new PizzaTopping()));
+    }
+
+    /**
+     * Constructs a default Pizza. Medium Size, Only Cheese.
+     */
+    public Pizza() {
+        this(PizzaSize.MEDIUM);
+    }
+
+    /**
+     * Constructs a Pizza from its packed configuration.
+     * 
+     * @param packed the packed configuration, as returned by getPackedConfiguration
+     * @return the pizza
+     */
+    public static Pizza fromPackedConfiguration(int packed) {
+        int sizeOrdinal = packed >>> SIZE_SHIFT;
+        if (sizeOrdinal >= PIZZA_SIZES.length) {
+            throw new IllegalArgumentException("Invalid packed pizza: " + Integer.toHexString(packed));
+        }
+        Pizza pizza = new Pizza(PIZZA_SIZES[sizeOrdinal], List.of());
+        pizza.packed = packed;
+        pizza.reprice();
+        return pizza;
+    }
+
+    /**
+     * Returns a copy of the pizza with the same configuration and cached price.
+     * 
+     * @return the copy
+     */
+    public Pizza copy() {
+        Pizza copy = new Pizza(sizeOf(packed), List.of());
+        copy.packed = this.packed;
+        copy.subtotalCents = this.subtotalCents;
+        return copy;
+    }
+
+    /**
+     * Sets the size of the pizza.
+     * 
+     * @param pizzaSize
+     */
+    @JsonProperty("size")
+    public void setPizzaSize(PizzaSize pizzaSize) {
+        int current = this.packed;
+        subtotalCents += PizzaPrices.getBasePriceCents(pizzaSize) - PizzaPrices.getBasePriceCents(sizeOf(current));
+        this.packed = (current & ALL_TOPPINGS_MASK) | (pizzaSize.ordinal() << SIZE_SHIFT);
+    }
+
+    /**
+     * Returns the size of the pizza.
+     * 
+     * @return the size of the pizza
+     */
+    @JsonProperty("size")
+    public PizzaSize getPizzaSize() {
+        return sizeOf(packed);
+    }
+
+    /**
+     * Adds a topping to the pizza. If the topping already exists, updates its
+     * amount.
+     * 
+     * @param topping the topping to add or update
+     */
+    public void addTopping(PizzaTopping topping) {
+        int current = this.packed;
+        ToppingType type = topping.getToppingType();
+        ToppingAmount existingAmount = amountOf(current, type);
+
+        if (existingAmount != null) {
+            subtotalCents -= ToppingPrices.getPriceCents(type, existingAmount);
+        }
+        subtotalCents += ToppingPrices.getPriceCents(type, topping.getToppingAmount());
+        this.packed = withTopping(current, type, topping.getToppingAmount());
+    }
+
+    /**
+     * Adds a topping to the pizza. If the topping already exists, updates its
+     * amount.
+     * 
+     * @param toppings a list of toppings to add or update
+     */
+    public void setTopping(List<PizzaTopping> toppings) {
+        for(PizzaTopping t : toppings) {
+            addTopping(t);
+        }
+    }
+
+    /**
+     * Removes a topping from the pizza.
+     * 
+     * @param topping the topping to remove
+     */
+    public void removeTopping(PizzaTopping topping) {
+        int current = this.packed;
+        ToppingType type = topping.getToppingType();
+        ToppingAmount existingAmount = amountOf(current, type);
+
+        if (existingAmount != null) {
+            subtotalCents -= ToppingPrices.getPriceCents(type, existingAmount);
+            this.packed = current & ~(TOPPING_MASK << shiftOf(type));
+        }
+    }
+
+    /**
+     * Returns the topping of a given type on the pizza.
+     * 
+     * @param toppingType the type of topping
+     * @return the topping, or null if the pizza doesn't have it
+     */
+    public PizzaTopping getTopping(ToppingType toppingType) {
+        ToppingAmount amount = amountOf(packed, toppingType);
+        return amount == null ? null : new PizzaTopping(toppingType, amount);
+    }
+
+    /**
+     * Returns the list of toppings on the pizza, in ToppingType order.
+     * The list is a read-only copy, change toppings through addTopping and removeTopping.
+     * 
+     * @return the list of toppings on the pizza
+     */
+    @JsonProperty("toppings")
+    public List<PizzaTopping> getToppings() {
+        int current = this.packed;
+        if ((current & ALL_TOPPINGS_MASK) == 0) {
+            return Collections.emptyList();
+        }
+        List<PizzaTopping> toppings = new ArrayList<>(Integer.bitCount(current & ALL_TOPPINGS_MASK));
+        for (ToppingType type : TOPPING_TYPES) {
+            ToppingAmount amount = amountOf(current, type);
+            if (amount != null) {
+                toppings.add(new PizzaTopping(type, amount));
+            }
+        }
+        return Collections.unmodifiableList(toppings);
+    }
+
+    /**
+     * Replaces every topping on the pizza. Used when a pizza is read from JSON.
+     * 
+     * @param toppings the new list of toppings
+     */
+    @JsonProperty("toppings")
+    private void replaceToppings(List<PizzaTopping> toppings) {
+        int next = this.packed & ~ALL_TOPPINGS_MASK;
+        for (PizzaTopping topping : toppings) {
+            next = withTopping(next, topping.getToppingType(), topping.getToppingAmount());
+        }
+        this.packed = next;
+        reprice();
+    }
+
+    /**
+     * Returns the whole configuration of the pizza packed into one int.
+     * 
+     * @return the packed configuration
+     */
+    @JsonIgnore
+    public int getPackedConfiguration() {
+        return packed;
+    }
+
+    /**
+     * Returns the cached price of the pizza in cents, kept current by every change to its size or toppings.
+     * 
+     * @return the price of the pizza in cents
+     */
+    @JsonIgnore
+    public long getSubtotalCents() {
+        return subtotalCents;
+    }
+
+    /**
+     * Recomputes the price of the pizza from scratch and caches it.
+     * Only needed when the prices themselves change or to verify the cached value.
+     * 
+     * @return the price of the pizza in cents
+     */
+    public long reprice() {
+        return reprice(PriceCatalog.current());
+    }
+
+    /**
+     * Recomputes the price of the pizza from scratch with a given price catalog and caches it.
+     * 
+     * @param catalog the price catalog to price the pizza with
+     * @return the price of the pizza in cents
+     */
+    public long reprice(PriceCatalog catalog) {
+        int current = this.packed;
+        long price = catalog.getBasePriceCents(sizeOf(current));
+
+        for (ToppingType type : TOPPING_TYPES) {
+            ToppingAmount amount = amountOf(current, type);
+            if (amount != null) {
+                price += catalog.getToppingPriceCents(type, amount);
+            }
+        }
+
+        this.subtotalCents = price;
+        return price;
+    }
+
+    private static int shiftOf(ToppingType type) {
+        return type.ordinal() * BITS_PER_TOPPING;
+    }
+
+    private static PizzaSize sizeOf(int packed) {
+        return PIZZA_SIZES[packed >>> SIZE_SHIFT];
+    }
+
+    private static ToppingAmount amountOf(int packed, ToppingType type) {
+        int bits = (packed >>> shiftOf(type)) & TOPPING_MASK;
+        return bits == 0 ? null : TOPPING_AMOUNTS[bits - 1];
+    }
+
+    private static int withTopping(int packed, ToppingType type, ToppingAmount amount) {
+        int shift = shiftOf(type);
+        return (packed & ~(TOPPING_MASK << shift)) | ((amount.ordinal() + 1) << shift);
+    }
+
+}
@@ -0,0 +1,329 @@
+/**
+ * Represents a pizza order, which contains a list of pizzas and the current time, and after checkout, the id and total cost will be added to order
+ */
+package com.github.bishopl.pizzatime.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Date;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.github.bishopl.pizzatime.config.PriceCatalog;
+
+public class PizzaOrder {
+    // With compressed oops: the order, its date, its pizza list with lock and array header, and two store slots
+    private static final long BASE_BYTES = 72 + 24 + 24 + 16 + 16 + 24;
+    // A packed pizza plus its reference in the pizza array
+    private static final long BYTES_PER_PIZZA = 24 + 4;
+
+    private long id;
+    private Date date;
+    private List<Pizza> pizzas;
+    private long totalCost;
+    private long priceVersion;
+    private volatile long lastTouched;
+    private volatile OrderState state;
+    private volatile long version;
+
+    /**
+     * Constructs a new PizzaOrder with an empty list of pizzas and a date of the current time.
+     */
+    public PizzaOrder() {
+        this.id = -1;
+        this.date = new Date();
+        this.pizzas = new CopyOnWriteArrayList<>();
+        this.totalCost = 0;
+        this.priceVersion = PriceCatalog.current().getVersion();
+        this.lastTouched = System.currentTimeMillis();
+        this.state = OrderState.OPEN;
+        this.version = 1;
+    }
+
+    /**
+     * Constructs a new PizzaOrder with a list of pizzas added and a date of the current time.
+     * The pizzas are copied into a copy-on-write list, so the order can be read while it is being changed.
+     */
+    public PizzaOrder(List<Pizza> pizzas){
+        this();
+        if (pizzas != null) {
+            for (Pizza pizza : pizzas) {
+                addPizza(pizza);
+            }
+        }
+    }
+
+    /**
+     * Constructs a new PizzaOrder with a list of pizzas, current date, and global id.
+     */
+    public PizzaOrder(long id, List<Pizza> pizzas){
+        this(pizzas);
+        this.id = id;
+    }
+
+    /**
+     * Constructs a frozen PizzaOrder from its archived parts, keeping the total it was checked out with.
+     */
+    PizzaOrder(long id, Date date, List<Pizza> pizzas, long totalCost, long priceVersion, OrderState state, long version) {
+        this.id = id;
+        this.date = date;
+        this.pizzas = new CopyOnWriteArrayList<>(pizzas);
+        this.totalCost = totalCost;
+        this.priceVersion = priceVersion;
+        this.lastTouched = date.getTime();
+        this.state = state;
+        this.version = version;
+    }
+    
+    /**
+     * Rebuilds a pizza order exactly as it was saved, with its own total, price version, state and version.
+     * Used when orders are recovered from disk. An open order can be changed again, any other is frozen.
+     * @param id the id of the pizza order
+     * @param date the date of the pizza order
+     * @param pizzas the pizzas in the order
+     * @param totalCost the total cost in cents
+     * @param priceVersion the version of the price catalog the total was calculated with
+     * @param state the state of the pizza order
+     * @param version the version of the pizza order
+     * @return the pizza order
+     */
+    public static PizzaOrder restore(long id, Date date, List<Pizza> pizzas, long totalCost, long priceVersion,
+                                     OrderState state, long version) {
+        return new PizzaOrder(id, date, pizzas, totalCost, priceVersion, state, version);
+    }
+    
+    /**
+     * Returns a copy of the pizza order, with copies of its pizzas, that changes to the original don't reach.
+     * @return the copy
+     */
+    public PizzaOrder copy() {
+        List<Pizza> copiedPizzas = new ArrayList<>(this.pizzas.size());
+        for (Pizza pizza : this.pizzas) {
+            copiedPizzas.add(pizza == null ? null : pizza.copy());
+        }
+        PizzaOrder copy = new PizzaOrder(this.id, this.date, copiedPizzas, this.totalCost, this.priceVersion, this.state, this.version);
+        copy.lastTouched = this.lastTouched;
+        return copy;
+    }
+
+    /**
+     * Returns the date of the pizza order.
+     * @return the date of the pizza order
+     */
+    public Date getDate() {
+        return this.date;
+    }
+
+    /**
+     * Returns the total cost of the pizza order, for callers that still expect a double.
+     * @return the total cost of the pizza order
+     */
+    @JsonIgnore
+    public double getTotalCost() {
+        return Money.toDouble(this.totalCost);
+    }
+
+    /**
+     * Sets the total cost of the pizza order, rounded to the nearest cent.
+     * @param totalCost the total cost of the pizza order
+     */
+    public void setTotalCost(double totalCost) {
+        this.totalCost = Money.fromDouble(totalCost);
+    }
+
+    /**
+     * Returns the total cost of the pizza order in cents.
+     * Serialized as an exact decimal "totalCost".
+     * @return the total cost of the pizza order in cents
+     */
+    @JsonProperty("totalCost")
+    @JsonSerialize(using = MoneySerializer.class)
+    public long getTotalCostCents() {
+        return this.totalCost;
+    }
+
+    /**
+     * Sets the total cost of the pizza order in cents. 
+     * Calcultated in PizzaOrderService
+     * @param totalCost the total cost of the pizza order in cents
+     */
+    @JsonIgnore
+    public void setTotalCostCents(long totalCost) {
+        this.totalCost = totalCost;
+    }
+
+    /**
+     * Reads the exact decimal "totalCost" back into cents, the reverse of getTotalCostCents.
+     * @param totalCost the total cost of the pizza order in cents
+     */
+    @JsonProperty("totalCost")
+    @JsonDeserialize(using = MoneyDeserializer.class)
+    private void readTotalCost(long totalCost) {
+        this.totalCost = totalCost;
+    }
+
+    /**
+     * Returns the version of the price catalog the total cost was calculated with.
+     * @return the price catalog version
+     */
+    public long getPriceVersion() {
+        return this.priceVersion;
+    }
+
+    /**
+     * Sets the version of the price catalog the total cost was calculated with.
+     * Calcultated in PizzaOrderService
+     * @param priceVersion the price catalog version
+     */
+    public void setPriceVersion(long priceVersion) {
+        this.priceVersion = priceVersion;
+    }
+
+    /**
+     * Returns the last time the pizza order was read or changed.
+     * @return the last-touch time in milliseconds
+     */
+    @JsonIgnore
+    public long getLastTouched() {
+        return this.lastTouched;
+    }
+
+    /**
+     * Marks the pizza order as touched at the current time, which pushes back its idle expiry.
+     */
+    public void touch() {
+        this.lastTouched = System.currentTimeMillis();
+    }
+
+    /**
+     * Sets the last time the pizza order was read or changed.
+     * @param lastTouched the last-touch time in milliseconds
+     */
+    public void setLastTouched(long lastTouched) {
+        this.lastTouched = lastTouched;
+    }
+
+    /**
+     * Returns the id of the pizza order.
+     * Serialized as a string, since generated ids go past the 2^53 a JavaScript number holds exactly.
+     * @return the id of the pizza order
+     */
+    @JsonSerialize(using = ToStringSerializer.class)
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * Sets the id of the pizza order.
+     * Calcultated in PizzaOrderCounterService
+     * @param id the id of the pizza order
+     */
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns the state of the pizza order.
+     * @return the state of the pizza order
+     */
+    public OrderState getState() {
+        return this.state;
+    }
+
+    /**
+     * Returns the version of the pizza order, which goes up by one with every change.
+     * @return the version of the pizza order
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Moves the pizza order to its next version. Called once a change has been fully applied,
+     * so anyone who reads the version first and the contents after sees contents at least that new.
+     * @return the new version
+     */
+    public long bumpVersion() {
+        return ++this.version;
+    }
+
+    /**
+     * Adds a pizza to the existing order.
+     * @param Pizza the pizza to add
+     */
+    public void addPizza(Pizza pizza) {
+        requireOpen();
+        this.pizzas.add(pizza);
+        this.totalCost += subtotalOf(pizza);
+    }
+
+    /**
+     * Removes a pizza from the existing order.
+     * @param Pizza the pizza to remove
+     */
+    public void removePizza(Pizza pizza) {
+        requireOpen();
+        if (this.pizzas.remove(pizza)) {
+            this.totalCost -= subtotalOf(pizza);
+        }
+    }
+
+    /**
+     * Applies a change to one pizza in the order and moves the total cost by the change in that pizza's price.
+     * @param pizzaIndex the index of the pizza to change
+     * @param change the change to apply to the pizza
+     */
+    public void updatePizza(int pizzaIndex, Consumer<Pizza> change) {
+        requireOpen();
+        Pizza pizza = this.pizzas.get(pizzaIndex);
+        long before = pizza.getSubtotalCents();
+        change.accept(pizza);
+        this.totalCost += pizza.getSubtotalCents() - before;
+    }
+
+    private static long subtotalOf(Pizza pizza) {
+        return pizza == null ? 0 : pizza.getSubtotalCents();
+    }
+
+    /**
+     * Returns the list of pizzas in the order.
+     * @return the list of pizzas in the order
+     */
+    public List<Pizza> getPizzas() {
+        return this.pizzas;
+    }
+
+    /**
+     * Checks out the order, after which it can no longer be changed.
+     * The total cost should be calculated before checking out.
+     * @throws IllegalStateException if the order is not open
+     */
+    public void checkOut() {
+        requireOpen();
+        this.state = OrderState.CHECKED_OUT;
+    }
+
+    /**
+     * Estimates the heap the pizza order takes, including its slot in the order store.
+     * @return the estimated size in bytes
+     */
+    public long estimateRetainedBytes() {
+        return BASE_BYTES + BYTES_PER_PIZZA * this.pizzas.size();
+    }
+
+    /**
+     * Throws if the order can no longer be changed.
+     * @throws IllegalStateException if the order is not open
+     */
+    private void requireOpen() {
+        if (this.state != OrderState.OPEN) {
+            throw new IllegalStateException("Pizza order " + this.id + " is " + this.state);
+        }
+    }
+
+}
@@ -79,4 +79,14 @@ public class PizzaTopping {
         PizzaTopping other = (PizzaTopping) obj;
         return this.toppingType == other.toppingType;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns a hash code consistent with equals, based only on toppingType.
+     * 
+     * @return the hash code of this topping
+     */
+    @Override
+    public int hashCode() {
+        return toppingType == null ? 0 : toppingType.hashCode();
+    }
+}
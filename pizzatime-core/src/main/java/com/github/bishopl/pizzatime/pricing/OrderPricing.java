@@ -0,0 +1,91 @@
+/**
+ * Prices pizzas and pizza orders against the current price catalog.
+ * Has no dependencies beyond the model and the catalog, so terminals and batch jobs can price orders in-process.
+ */
+package com.github.bishopl.pizzatime.pricing;
+
+import java.util.List;
+
+import com.github.bishopl.pizzatime.config.PriceCatalog;
+import com.github.bishopl.pizzatime.model.Money;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+public final class OrderPricing {
+
+    private OrderPricing() {
+    }
+
+    /**
+     * Calculates the price of a given pizza order from scratch, refreshing every cached subtotal.
+     * Mutations keep the cached total current by applying deltas, so this only runs at checkout,
+     * after the price catalog changes, or when the cached total needs verifying.
+     * @param pizzaOrder the pizza order to calculate the price of
+     * @return the price of the pizza order in cents
+     */
+    public static long calculatePriceOfOrderCents(PizzaOrder pizzaOrder) {
+        PriceCatalog catalog = PriceCatalog.current();
+        List<Pizza> pizzas = pizzaOrder.getPizzas();
+        long total = 0;
+
+        for (Pizza pizza : pizzas) {
+            total += pizza.reprice(catalog);
+        }
+
+        pizzaOrder.setTotalCostCents(total);
+        pizzaOrder.setPriceVersion(catalog.getVersion());
+        return total;
+    }
+
+    /**
+     * Calculates the price of a given pizza order from scratch, for callers that still expect a double.
+     * @param pizzaOrder the pizza order to calculate the price of
+     * @return the price of the pizza order
+     * @see #calculatePriceOfOrderCents(PizzaOrder)
+     */
+    public static double calculatePriceOfOrder(PizzaOrder pizzaOrder) {
+        return Money.toDouble(calculatePriceOfOrderCents(pizzaOrder));
+    }
+
+    /**
+     * Calculates the price of a given pizza from scratch.
+     * @param pizza the pizza to calculate the price of
+     * @return the price of the pizza in cents
+     */
+    public static long getPricePerPizzaCents(Pizza pizza) {
+        return pizza.reprice();
+    }
+
+    /**
+     * Calculates the price of a given pizza from scratch, for callers that still expect a double.
+     * @param pizza the pizza to calculate the price of
+     * @return the price of the pizza
+     * @see #getPricePerPizzaCents(Pizza)
+     */
+    public static double getPricePerPizza(Pizza pizza) {
+        return Money.toDouble(getPricePerPizzaCents(pizza));
+    }
+
+    /**
+     * Recalculates a pizza order from scratch if the price catalog changed since it was last priced.
+     * @param pizzaOrder the pizza order to check
+     * @return true if the order was repriced, false if its prices were current
+     */
+    public static boolean repriceIfStale(PizzaOrder pizzaOrder) {
+        if (pizzaOrder.getPriceVersion() != PriceCatalog.current().getVersion()) {
+            calculatePriceOfOrderCents(pizzaOrder);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks the cached total of a pizza order against a full recalculation, correcting it if they differ.
+     * @param pizzaOrder the pizza order to verify
+     * @return true if the cached total was correct, false otherwise
+     */
+    public static boolean verifyPriceOfOrder(PizzaOrder pizzaOrder) {
+        long cachedTotal = pizzaOrder.getTotalCostCents();
+        return calculatePriceOfOrderCents(pizzaOrder) == cachedTotal;
+    }
+}
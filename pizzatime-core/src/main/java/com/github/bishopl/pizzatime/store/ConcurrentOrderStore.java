@@ -0,0 +1,49 @@
+/**
+ * The default in-memory OrderStore, backed by a LongConcurrentMap so lookups are O(1) and never box the order id.
+ */
+package com.github.bishopl.pizzatime.store;
+
+import java.util.function.Consumer;
+
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+public class ConcurrentOrderStore implements OrderStore {
+    private final LongConcurrentMap<PizzaOrder> orders;
+
+    /**
+     * Constructs a new, empty ConcurrentOrderStore.
+     */
+    public ConcurrentOrderStore() {
+        this.orders = new LongConcurrentMap<>();
+    }
+
+    @Override
+    public PizzaOrder get(long orderId) {
+        return orders.get(orderId);
+    }
+
+    @Override
+    public PizzaOrder put(PizzaOrder pizzaOrder) {
+        return orders.put(pizzaOrder.getId(), pizzaOrder);
+    }
+
+    @Override
+    public PizzaOrder remove(long orderId) {
+        return orders.remove(orderId);
+    }
+
+    @Override
+    public boolean contains(long orderId) {
+        return orders.containsKey(orderId);
+    }
+
+    @Override
+    public int size() {
+        return orders.size();
+    }
+
+    @Override
+    public void forEach(Consumer<PizzaOrder> action) {
+        orders.forEachValue(action);
+    }
+}
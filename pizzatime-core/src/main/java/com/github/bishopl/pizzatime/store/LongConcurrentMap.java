@@ -0,0 +1,305 @@
+/**
+ * A concurrent hash map keyed by primitive longs.
+ * Keys are spread across independently locked segments, each an open addressing table with linear probing,
+ * so lookups never box the key and never block behind writers to other segments.
+ */
+package com.github.bishopl.pizzatime.store;
+
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+public class LongConcurrentMap<V> {
+    private static final int DEFAULT_SEGMENTS = 64;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    private final Segment<V>[] segments;
+    private final int segmentShift;
+
+    /**
+     * Constructs a new LongConcurrentMap with the default number of segments.
+     */
+    public LongConcurrentMap() {
+        this(DEFAULT_SEGMENTS);
+    }
+
+    /**
+     * Constructs a new LongConcurrentMap.
+     * @param concurrencyLevel the expected number of concurrent writers, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public LongConcurrentMap(int concurrencyLevel) {
+        int count = Integer.highestOneBit(Math.max(1, concurrencyLevel - 1)) << 1;
+        this.segments = new Segment[count];
+        this.segmentShift = 64 - Integer.numberOfTrailingZeros(count);
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>();
+        }
+    }
+
+    /**
+     * Returns the value mapped to a given key.
+     * @param key the key to look up
+     * @return the mapped value, or null if there is none
+     */
+    public V get(long key) {
+        long hash = hash(key);
+        return segmentFor(hash).get(key, hash);
+    }
+
+    /**
+     * Checks if a given key is mapped.
+     * @param key the key to look up
+     * @return true if the key has a value, false otherwise
+     */
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps a key to a value, replacing any existing mapping.
+     * @param key the key
+     * @param value the value, must not be null
+     * @return the previous value, or null if there was none
+     */
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        long hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, false);
+    }
+
+    /**
+     * Maps a key to a value only if the key is not already mapped.
+     * @param key the key
+     * @param value the value, must not be null
+     * @return the existing value, or null if the new value was stored
+     */
+    public V putIfAbsent(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        long hash = hash(key);
+        return segmentFor(hash).put(key, hash, value, true);
+    }
+
+    /**
+     * Removes the mapping for a given key.
+     * @param key the key to remove
+     * @return the removed value, or null if the key was not mapped
+     */
+    public V remove(long key) {
+        long hash = hash(key);
+        return segmentFor(hash).remove(key, hash);
+    }
+
+    /**
+     * Returns the number of mappings. Not a point-in-time snapshot while writers are active.
+     * @return the number of mappings
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size;
+        }
+        return size;
+    }
+
+    /**
+     * Passes every value to an action, one segment at a time.
+     * Each segment's values are copied under its read lock and handed over after the lock is released,
+     * so a slow action never blocks writers and memory is bounded by the largest segment.
+     * Weakly consistent: values added or removed during the walk may or may not be seen.
+     * @param action the action to run for each value
+     */
+    public void forEachValue(Consumer<? super V> action) {
+        Object[] buffer = new Object[INITIAL_SEGMENT_CAPACITY];
+        for (Segment<V> segment : segments) {
+            buffer = segment.copyValues(buffer);
+            for (int i = 0; i < buffer.length && buffer[i] != null; i++) {
+                V value = Segment.cast(buffer[i]);
+                buffer[i] = null;
+                action.accept(value);
+            }
+        }
+    }
+
+    private Segment<V> segmentFor(long hash) {
+        return segments[(int) (hash >>> segmentShift)];
+    }
+
+    /**
+     * Finalizer from SplitMix64, so sequential ids spread evenly over segments and slots.
+     */
+    private static long hash(long key) {
+        long h = key;
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+
+    private static final class Table {
+        final long[] keys;
+        final Object[] values;
+        final int mask;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.mask = capacity - 1;
+        }
+    }
+
+    private static final class Segment<V> {
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table = new Table(INITIAL_SEGMENT_CAPACITY);
+        private volatile int size;
+
+        V get(long key, long hash) {
+            long stamp = lock.tryOptimisticRead();
+            Object value = find(table, key, hash);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    value = find(table, key, hash);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return cast(value);
+        }
+
+        V put(long key, long hash, V value, boolean onlyIfAbsent) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int i = (int) hash & t.mask;
+                while (t.values[i] != null) {
+                    if (t.keys[i] == key) {
+                        Object previous = t.values[i];
+                        if (!onlyIfAbsent) {
+                            t.values[i] = value;
+                        }
+                        return cast(previous);
+                    }
+                    i = (i + 1) & t.mask;
+                }
+                t.keys[i] = key;
+                t.values[i] = value;
+                size++;
+                // Keep the load factor at or below one half so probe chains stay short
+                if (size * 2 > t.keys.length) {
+                    table = resize(t);
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        V remove(long key, long hash) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int i = (int) hash & t.mask;
+                while (t.values[i] != null) {
+                    if (t.keys[i] == key) {
+                        Object removed = t.values[i];
+                        shiftBack(t, i);
+                        size--;
+                        return cast(removed);
+                    }
+                    i = (i + 1) & t.mask;
+                }
+                return null;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        /**
+         * Copies the values into the buffer, or a bigger one if it is too small, followed by a null if there is room.
+         */
+        Object[] copyValues(Object[] buffer) {
+            long stamp = lock.readLock();
+            try {
+                Table t = table;
+                if (buffer.length < size) {
+                    buffer = new Object[Integer.highestOneBit(size) << 1];
+                }
+                int count = 0;
+                for (Object value : t.values) {
+                    if (value != null) {
+                        buffer[count++] = value;
+                    }
+                }
+                if (count < buffer.length) {
+                    buffer[count] = null;
+                }
+                return buffer;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Backward shift deletion, keeps every probe chain contiguous without tombstones.
+         */
+        private static void shiftBack(Table t, int hole) {
+            t.values[hole] = null;
+            int j = hole;
+            while (true) {
+                j = (j + 1) & t.mask;
+                if (t.values[j] == null) {
+                    return;
+                }
+                int ideal = (int) hash(t.keys[j]) & t.mask;
+                boolean staysPut = hole <= j ? (hole < ideal && ideal <= j) : (hole < ideal || ideal <= j);
+                if (!staysPut) {
+                    t.keys[hole] = t.keys[j];
+                    t.values[hole] = t.values[j];
+                    t.values[j] = null;
+                    hole = j;
+                }
+            }
+        }
+
+        private static Table resize(Table old) {
+            Table t = new Table(old.keys.length << 1);
+            for (int i = 0; i < old.keys.length; i++) {
+                if (old.values[i] != null) {
+                    int j = (int) hash(old.keys[i]) & t.mask;
+                    while (t.values[j] != null) {
+                        j = (j + 1) & t.mask;
+                    }
+                    t.keys[j] = old.keys[i];
+                    t.values[j] = old.values[i];
+                }
+            }
+            return t;
+        }
+
+        /**
+         * Probes at most one full lap, an optimistic read may observe a table mid-update.
+         */
+        private static Object find(Table t, long key, long hash) {
+            int i = (int) hash & t.mask;
+            for (int probes = 0; probes <= t.mask; probes++) {
+                Object value = t.values[i];
+                if (value == null) {
+                    return null;
+                }
+                if (t.keys[i] == key) {
+                    return value;
+                }
+                i = (i + 1) & t.mask;
+            }
+            return null;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <V> V cast(Object value) {
+            return (V) value;
+        }
+    }
+}
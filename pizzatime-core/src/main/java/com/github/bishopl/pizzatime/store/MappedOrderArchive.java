@@ -0,0 +1,65 @@
+/**
+ * An OrderArchive kept off the heap in a MappedOrderStore, for days with millions of checked out orders.
+ * Each archived order is stored as the frozen order it decodes to and encoded again when it is read,
+ * so a read costs a decode but the archive takes no heap per order beyond its index entry.
+ */
+package com.github.bishopl.pizzatime.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import com.github.bishopl.pizzatime.model.ArchivedOrder;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+public class MappedOrderArchive extends OrderArchive implements Closeable {
+    private final MappedOrderStore orders;
+
+    /**
+     * Constructs a new MappedOrderArchive keeping its orders in a given store.
+     * @param orders the store holding the archived orders
+     */
+    public MappedOrderArchive(MappedOrderStore orders) {
+        this.orders = orders;
+    }
+
+    @Override
+    public ArchivedOrder get(long orderId) {
+        PizzaOrder pizzaOrder = orders.get(orderId);
+        return pizzaOrder == null ? null : ArchivedOrder.of(pizzaOrder);
+    }
+
+    @Override
+    public void put(ArchivedOrder archivedOrder) {
+        orders.put(archivedOrder.toPizzaOrder());
+    }
+
+    @Override
+    public boolean contains(long orderId) {
+        return orders.contains(orderId);
+    }
+
+    @Override
+    public int size() {
+        return orders.size();
+    }
+
+    @Override
+    public void forEach(Consumer<ArchivedOrder> action) {
+        orders.forEach(pizzaOrder -> action.accept(ArchivedOrder.of(pizzaOrder)));
+    }
+
+    @Override
+    public long estimateHeapBytes() {
+        return orders.estimateHeapBytes();
+    }
+
+    /**
+     * Forces every archived order out to the file and closes it.
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        orders.close();
+    }
+}
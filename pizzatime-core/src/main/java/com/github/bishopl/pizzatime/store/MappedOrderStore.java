@@ -0,0 +1,764 @@
+/**
+ * An OrderStore that keeps pizza orders off the heap, as fixed-layout records in a memory-mapped file, so heap use
+ * and GC pauses stay flat however many orders are stored, and the orders are still there after a restart.
+ * Orders are decoded into PizzaOrder objects only when they are read and encoded again when they are put, so a
+ * change to an order read from this store only counts once it is put back.
+ *
+ * Each 128-byte slot holds an order's id, date, total, price version, version, last-touch time, state and up to
+ * 15 packed pizzas, and bigger orders chain continuation slots of 15 more each. The only heap per order is its
+ * entry in a primitive id-to-slot index. Readers never lock: a slot's sequence number is odd while the slot is
+ * written, and a read that saw it move starts again. Writers to the same order are serialized by a lock stripe.
+ * The file grows a chunk at a time, and the index is rebuilt from it when it is opened again.
+ * Writes reach the file through the OS page cache, so they outlive the process but not the machine,
+ * use the write-ahead log for that.
+ */
+package com.github.bishopl.pizzatime.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+import com.github.bishopl.pizzatime.model.OrderState;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+public class MappedOrderStore implements OrderStore, Closeable {
+    private static final int MAGIC = 0x505A4F53;
+    private static final int FORMAT = 1;
+    private static final int DEFAULT_CHUNK_BYTES = 1 << 26;
+    private static final int LOCK_STRIPES = 64;
+    private static final int NO_PIZZA = -1;
+    private static final long ANY_ID = Long.MIN_VALUE;
+    private static final OrderState[] ORDER_STATES = OrderState.values();
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * The size of one slot, slot 0 of the file holds its header instead of an order.
+     */
+    public static final int SLOT_BYTES = 128;
+
+    // Where each field sits in a slot
+    private static final int SEQUENCE = 0;
+    private static final int ID = 8;
+    private static final int DATE = 16;
+    private static final int TOTAL_COST = 24;
+    private static final int PRICE_VERSION = 32;
+    private static final int VERSION = 40;
+    private static final int LAST_TOUCHED = 48;
+    private static final int KIND = 56;
+    private static final int STATE = 57;
+    private static final int PIZZA_COUNT = 60;
+    private static final int NEXT = 64;
+    private static final int PIZZAS = 68;
+
+    /**
+     * The number of packed pizzas an order's own slot holds, and each continuation slot after it.
+     */
+    public static final int PIZZAS_PER_SLOT = (SLOT_BYTES - PIZZAS) / 4;
+
+    private static final byte FREE = 0;
+    private static final byte HEAD = 1;
+    private static final byte CONTINUATION = 2;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final int chunkBytes;
+    private final int slotsPerChunkShift;
+    private final SlotIndex index = new SlotIndex();
+    private final Object[] stripes = new Object[LOCK_STRIPES];
+    private final Object allocationLock = new Object();
+    private volatile MappedByteBuffer[] chunks;
+    private volatile int highWater;
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+    private int tornSlots;
+    private volatile boolean closed;
+
+    /**
+     * Opens or creates a MappedOrderStore in a file, growing 64 MB at a time.
+     * @param file the file holding the orders
+     * @throws IOException if the file can't be opened or isn't an order store
+     */
+    public MappedOrderStore(Path file) throws IOException {
+        this(file, DEFAULT_CHUNK_BYTES);
+    }
+
+    /**
+     * Opens or creates a MappedOrderStore in a file, rebuilding the index from any orders already in it.
+     * A slot caught half written when the process died is dropped.
+     * @param file the file holding the orders
+     * @param chunkBytes how much the file is mapped and grown by at a time, a power of two of at least two slots
+     * @throws IOException if the file can't be opened or isn't an order store
+     */
+    public MappedOrderStore(Path file, int chunkBytes) throws IOException {
+        if (Integer.bitCount(chunkBytes) != 1 || chunkBytes < 2 * SLOT_BYTES) {
+            throw new IllegalArgumentException("Chunk size must be a power of two of at least " + 2 * SLOT_BYTES + " bytes: " + chunkBytes);
+        }
+        this.file = file;
+        this.chunkBytes = chunkBytes;
+        this.slotsPerChunkShift = Integer.numberOfTrailingZeros(chunkBytes / SLOT_BYTES);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = channel.size();
+            if (size > 0) {
+                // Checked before mapping, which would grow a file that isn't ours
+                ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+                channel.read(header, 0);
+                if (header.position() < 12 || header.getInt(0) != MAGIC || header.getInt(4) != FORMAT
+                        || header.getInt(8) != SLOT_BYTES) {
+                    throw new IOException(file + " is not an order store");
+                }
+            }
+            int chunkCount = (int) Math.max(1, (size + chunkBytes - 1) / chunkBytes);
+            MappedByteBuffer[] mapped = new MappedByteBuffer[chunkCount];
+            for (int i = 0; i < chunkCount; i++) {
+                mapped[i] = map(i);
+            }
+            this.chunks = mapped;
+            if (size == 0) {
+                mapped[0].putInt(0, MAGIC);
+                mapped[0].putInt(4, FORMAT);
+                mapped[0].putInt(8, SLOT_BYTES);
+            }
+            rebuild();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public PizzaOrder get(long orderId) {
+        requireOpen();
+        while (true) {
+            int slot = index.get(orderId);
+            if (slot <= 0) {
+                return null;
+            }
+            PizzaOrder pizzaOrder = read(slot, orderId);
+            if (pizzaOrder != null) {
+                return pizzaOrder;
+            }
+            // The slot was freed or reused after the lookup, so the index has moved on too
+        }
+    }
+
+    @Override
+    public PizzaOrder put(PizzaOrder pizzaOrder) {
+        requireOpen();
+        long orderId = pizzaOrder.getId();
+        int[] packed = pack(pizzaOrder.getPizzas());
+        synchronized (stripeFor(orderId)) {
+            int slot = index.get(orderId);
+            // Continuations are written before the slot points at them, and the old ones freed after
+            int next = writeContinuations(packed);
+            if (slot > 0) {
+                PizzaOrder replaced = read(slot, orderId);
+                int oldNext = chunkOf(slot).getInt(offsetOf(slot) + NEXT);
+                writeHead(slot, pizzaOrder, packed, next);
+                releaseChain(oldNext);
+                return replaced;
+            }
+            slot = allocate();
+            writeHead(slot, pizzaOrder, packed, next);
+            index.put(orderId, slot);
+            return null;
+        }
+    }
+
+    @Override
+    public PizzaOrder remove(long orderId) {
+        requireOpen();
+        synchronized (stripeFor(orderId)) {
+            int slot = index.get(orderId);
+            if (slot <= 0) {
+                return null;
+            }
+            PizzaOrder removed = read(slot, orderId);
+            free(orderId, slot);
+            return removed;
+        }
+    }
+
+    /**
+     * Removes the pizza order with a given ID without decoding it first.
+     * @param orderId the ID of the pizza order
+     * @return true if the pizza order was removed, false if there was none
+     */
+    public boolean delete(long orderId) {
+        requireOpen();
+        synchronized (stripeFor(orderId)) {
+            int slot = index.get(orderId);
+            if (slot <= 0) {
+                return false;
+            }
+            free(orderId, slot);
+            return true;
+        }
+    }
+
+    @Override
+    public boolean contains(long orderId) {
+        requireOpen();
+        return index.get(orderId) > 0;
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void forEach(Consumer<PizzaOrder> action) {
+        requireOpen();
+        int end = highWater;
+        for (int slot = 1; slot < end; slot++) {
+            PizzaOrder pizzaOrder = read(slot, ANY_ID);
+            if (pizzaOrder != null) {
+                action.accept(pizzaOrder);
+            }
+        }
+    }
+
+    /**
+     * Marks a stored pizza order as touched now and writes the new last-touch time back to its slot.
+     * @param pizzaOrder the pizza order that was just read
+     */
+    @Override
+    public void touch(PizzaOrder pizzaOrder) {
+        pizzaOrder.touch();
+        requireOpen();
+        long orderId = pizzaOrder.getId();
+        synchronized (stripeFor(orderId)) {
+            int slot = index.get(orderId);
+            if (slot > 0) {
+                LONGS.setOpaque(chunkOf(slot), offsetOf(slot) + LAST_TOUCHED, pizzaOrder.getLastTouched());
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap taken by the store, which is only its index, however many orders are stored.
+     * @return the estimated size in bytes
+     */
+    @Override
+    public long estimateHeapBytes() {
+        return index.estimateBytes();
+    }
+
+    /**
+     * Forces every change made so far out to the file.
+     */
+    public void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Forces every change out to the file and closes it. The store can't be used afterwards.
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        force();
+        closed = true;
+        channel.close();
+    }
+
+    /**
+     * Returns the file the orders are kept in.
+     * @return the file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the size the file has grown to.
+     * @return the mapped size in bytes
+     */
+    public long getMappedBytes() {
+        return (long) chunks.length * chunkBytes;
+    }
+
+    /**
+     * Returns the number of half-written slots dropped when the store was opened.
+     * @return the number of torn slots
+     */
+    public int getTornSlots() {
+        return tornSlots;
+    }
+
+    /****************************
+     * Slot reads and writes    *
+     *****************************/
+
+    /**
+     * Reads the order in a slot without locking, starting again whenever a writer got in the way.
+     * @param expectedId the order the caller looked up, or ANY_ID for whichever order is there
+     * @return the pizza order, or null if the slot holds no order or a different one
+     */
+    private PizzaOrder read(int slot, long expectedId) {
+        MappedByteBuffer chunk = chunkOf(slot);
+        int offset = offsetOf(slot);
+        while (true) {
+            long sequence = (long) LONGS.getAcquire(chunk, offset + SEQUENCE);
+            if ((sequence & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            byte kind = chunk.get(offset + KIND);
+            long id = chunk.getLong(offset + ID);
+            int pizzaCount = chunk.getInt(offset + PIZZA_COUNT);
+            if (!unchanged(chunk, offset, sequence)) {
+                continue;
+            }
+            if (kind != HEAD || (expectedId != ANY_ID && id != expectedId)) {
+                return null;
+            }
+            if (pizzaCount < 0) {
+                throw new IllegalStateException("Slot " + slot + " of " + file + " is damaged");
+            }
+            long dateMillis = chunk.getLong(offset + DATE);
+            long totalCost = chunk.getLong(offset + TOTAL_COST);
+            long priceVersion = chunk.getLong(offset + PRICE_VERSION);
+            long version = chunk.getLong(offset + VERSION);
+            long lastTouched = chunk.getLong(offset + LAST_TOUCHED);
+            byte state = chunk.get(offset + STATE);
+            int[] packed = readPizzas(chunk, offset, pizzaCount);
+            if (!unchanged(chunk, offset, sequence)) {
+                continue;
+            }
+            if (packed == null || state < 0 || state >= ORDER_STATES.length) {
+                throw new IllegalStateException("Slot " + slot + " of " + file + " is damaged");
+            }
+            List<Pizza> pizzas = new ArrayList<>(packed.length);
+            for (int configuration : packed) {
+                pizzas.add(configuration == NO_PIZZA ? null : Pizza.fromPackedConfiguration(configuration));
+            }
+            PizzaOrder pizzaOrder = PizzaOrder.restore(id, new Date(dateMillis), pizzas, totalCost, priceVersion,
+                    ORDER_STATES[state], version);
+            pizzaOrder.setLastTouched(lastTouched);
+            return pizzaOrder;
+        }
+    }
+
+    /**
+     * Reads an order's packed pizzas from its slot and continuations.
+     * @return the packed pizzas, or null if the chain doesn't hold them, which a retried read may still fix
+     */
+    private int[] readPizzas(MappedByteBuffer headChunk, int headOffset, int pizzaCount) {
+        int[] packed = new int[pizzaCount];
+        MappedByteBuffer chunk = headChunk;
+        int offset = headOffset;
+        int read = 0;
+        while (true) {
+            int inSlot = Math.min(PIZZAS_PER_SLOT, pizzaCount - read);
+            for (int i = 0; i < inSlot; i++) {
+                packed[read++] = chunk.getInt(offset + PIZZAS + 4 * i);
+            }
+            if (read == pizzaCount) {
+                return packed;
+            }
+            int next = chunk.getInt(offset + NEXT);
+            if (next <= 0 || next >= highWater) {
+                return null;
+            }
+            chunk = chunkOf(next);
+            offset = offsetOf(next);
+        }
+    }
+
+    /**
+     * Checks that nobody wrote a slot since its sequence number was read, after the reads before it.
+     */
+    private static boolean unchanged(MappedByteBuffer chunk, int offset, long sequence) {
+        VarHandle.loadLoadFence();
+        return (long) LONGS.getOpaque(chunk, offset + SEQUENCE) == sequence;
+    }
+
+    /**
+     * Writes an order into its own slot, between two bumps of the slot's sequence number.
+     * Must be called while holding the order's lock stripe.
+     */
+    private void writeHead(int slot, PizzaOrder pizzaOrder, int[] packed, int next) {
+        MappedByteBuffer chunk = chunkOf(slot);
+        int offset = offsetOf(slot);
+        long sequence = (long) LONGS.getOpaque(chunk, offset + SEQUENCE);
+        LONGS.setOpaque(chunk, offset + SEQUENCE, sequence + 1);
+        VarHandle.storeStoreFence();
+        chunk.putLong(offset + ID, pizzaOrder.getId());
+        chunk.putLong(offset + DATE, pizzaOrder.getDate().getTime());
+        chunk.putLong(offset + TOTAL_COST, pizzaOrder.getTotalCostCents());
+        chunk.putLong(offset + PRICE_VERSION, pizzaOrder.getPriceVersion());
+        chunk.putLong(offset + VERSION, pizzaOrder.getVersion());
+        chunk.putLong(offset + LAST_TOUCHED, pizzaOrder.getLastTouched());
+        chunk.put(offset + KIND, HEAD);
+        chunk.put(offset + STATE, (byte) pizzaOrder.getState().ordinal());
+        chunk.putInt(offset + PIZZA_COUNT, packed.length);
+        chunk.putInt(offset + NEXT, next);
+        int inSlot = Math.min(PIZZAS_PER_SLOT, packed.length);
+        for (int i = 0; i < inSlot; i++) {
+            chunk.putInt(offset + PIZZAS + 4 * i, packed[i]);
+        }
+        LONGS.setRelease(chunk, offset + SEQUENCE, sequence + 2);
+    }
+
+    /**
+     * Frees an order's slot and continuations. Must be called while holding the order's lock stripe.
+     */
+    private void free(long orderId, int slot) {
+        MappedByteBuffer chunk = chunkOf(slot);
+        int offset = offsetOf(slot);
+        int next = chunk.getInt(offset + NEXT);
+        // Out of the index first, so readers that still reach the slot go back to the index and miss
+        index.remove(orderId);
+        long sequence = (long) LONGS.getOpaque(chunk, offset + SEQUENCE);
+        LONGS.setOpaque(chunk, offset + SEQUENCE, sequence + 1);
+        VarHandle.storeStoreFence();
+        chunk.put(offset + KIND, FREE);
+        LONGS.setRelease(chunk, offset + SEQUENCE, sequence + 2);
+        releaseChain(next);
+        release(slot);
+    }
+
+    /**
+     * Writes the pizzas that don't fit in an order's own slot into new continuation slots, last first.
+     * Nobody can reach them until the order's slot points at the first.
+     * @return the first continuation slot, or 0 if every pizza fits in the order's own slot
+     */
+    private int writeContinuations(int[] packed) {
+        int next = 0;
+        int lastStart = (packed.length - 1) / PIZZAS_PER_SLOT * PIZZAS_PER_SLOT;
+        for (int start = lastStart; start >= PIZZAS_PER_SLOT; start -= PIZZAS_PER_SLOT) {
+            int slot = allocate();
+            MappedByteBuffer chunk = chunkOf(slot);
+            int offset = offsetOf(slot);
+            chunk.put(offset + KIND, CONTINUATION);
+            chunk.putInt(offset + NEXT, next);
+            int inSlot = Math.min(PIZZAS_PER_SLOT, packed.length - start);
+            for (int i = 0; i < inSlot; i++) {
+                chunk.putInt(offset + PIZZAS + 4 * i, packed[start + i]);
+            }
+            next = slot;
+        }
+        return next;
+    }
+
+    /**
+     * Frees a chain of continuation slots nobody points at any more.
+     */
+    private void releaseChain(int next) {
+        while (next > 0) {
+            MappedByteBuffer chunk = chunkOf(next);
+            int offset = offsetOf(next);
+            int following = chunk.getInt(offset + NEXT);
+            chunk.put(offset + KIND, FREE);
+            release(next);
+            next = following;
+        }
+    }
+
+    private static int[] pack(List<Pizza> pizzas) {
+        Object[] snapshot = pizzas.toArray();
+        int[] packed = new int[snapshot.length];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = snapshot[i] == null ? NO_PIZZA : ((Pizza) snapshot[i]).getPackedConfiguration();
+        }
+        return packed;
+    }
+
+    /****************************
+     * Slot allocation          *
+     *****************************/
+
+    /**
+     * Hands out a free slot, growing the file by a chunk when every slot is taken.
+     */
+    private int allocate() {
+        synchronized (allocationLock) {
+            if (freeCount > 0) {
+                return freeSlots[--freeCount];
+            }
+            int slot = highWater;
+            MappedByteBuffer[] current = chunks;
+            if (slot >= current.length << slotsPerChunkShift) {
+                if ((long) (current.length + 1) << slotsPerChunkShift > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Order store " + file + " is full");
+                }
+                MappedByteBuffer[] grown = Arrays.copyOf(current, current.length + 1);
+                try {
+                    grown[current.length] = map(current.length);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not grow order store " + file, e);
+                }
+                chunks = grown;
+            }
+            highWater = slot + 1;
+            return slot;
+        }
+    }
+
+    private void release(int slot) {
+        synchronized (allocationLock) {
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    /**
+     * Indexes every whole order in the file and frees every other slot.
+     */
+    private void rebuild() {
+        int slotCount = chunks.length << slotsPerChunkShift;
+        highWater = slotCount;
+        BitSet live = new BitSet(slotCount);
+        List<Integer> chain = new ArrayList<>();
+        for (int slot = 1; slot < slotCount; slot++) {
+            MappedByteBuffer chunk = chunkOf(slot);
+            int offset = offsetOf(slot);
+            if (chunk.get(offset + KIND) != HEAD) {
+                continue;
+            }
+            long orderId = chunk.getLong(offset + ID);
+            if ((chunk.getLong(offset + SEQUENCE) & 1) != 0 || !collectChain(chunk, offset, slotCount, live, chain)
+                    || index.get(orderId) > 0) {
+                // Even again, and past any number a reader could have seen
+                chunk.putLong(offset + SEQUENCE, (chunk.getLong(offset + SEQUENCE) | 1) + 1);
+                chunk.put(offset + KIND, FREE);
+                tornSlots++;
+                continue;
+            }
+            index.put(orderId, slot);
+            live.set(slot);
+            for (int continuation : chain) {
+                live.set(continuation);
+            }
+        }
+        int last = live.length() - 1;
+        highWater = Math.max(1, last + 1);
+        for (int slot = last - 1; slot >= 1; slot--) {
+            if (!live.get(slot)) {
+                chunkOf(slot).put(offsetOf(slot) + KIND, FREE);
+                release(slot);
+            }
+        }
+    }
+
+    /**
+     * Follows an order's continuation slots when the store is opened.
+     * @return true if the chain holds every pizza the order says it has, false if it was cut short
+     */
+    private boolean collectChain(MappedByteBuffer chunk, int offset, int slotCount, BitSet live, List<Integer> chain) {
+        chain.clear();
+        int pizzaCount = chunk.getInt(offset + PIZZA_COUNT);
+        if (pizzaCount < 0) {
+            return false;
+        }
+        int next = chunk.getInt(offset + NEXT);
+        for (int remaining = pizzaCount - PIZZAS_PER_SLOT; remaining > 0; remaining -= PIZZAS_PER_SLOT) {
+            if (next <= 0 || next >= slotCount || live.get(next) || chain.contains(next)
+                    || chunkOf(next).get(offsetOf(next) + KIND) != CONTINUATION) {
+                return false;
+            }
+            chain.add(next);
+            next = chunkOf(next).getInt(offsetOf(next) + NEXT);
+        }
+        return true;
+    }
+
+    private MappedByteBuffer map(int chunk) throws IOException {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, (long) chunk * chunkBytes, chunkBytes);
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        return mapped;
+    }
+
+    private MappedByteBuffer chunkOf(int slot) {
+        return chunks[slot >>> slotsPerChunkShift];
+    }
+
+    private int offsetOf(int slot) {
+        return (slot & ((1 << slotsPerChunkShift) - 1)) * SLOT_BYTES;
+    }
+
+    private Object stripeFor(long orderId) {
+        return stripes[(int) (SlotIndex.hash(orderId) >>> 58) & (LOCK_STRIPES - 1)];
+    }
+
+    private void requireOpen() {
+        if (closed) {
+            throw new IllegalStateException("Order store " + file + " is closed");
+        }
+    }
+
+    /**
+     * Maps order ids to slots in two primitive arrays, an open addressing table with linear probing.
+     * Lookups read optimistically and only take the read lock if a writer got in the way.
+     */
+    private static final class SlotIndex {
+        private static final int EMPTY = 0;
+        private static final int REMOVED = -1;
+
+        private final StampedLock lock = new StampedLock();
+        private volatile Table table = new Table(1024);
+        private volatile int size;
+        private int used;
+
+        private static final class Table {
+            final long[] keys;
+            final int[] slots;
+
+            Table(int capacity) {
+                this.keys = new long[capacity];
+                this.slots = new int[capacity];
+            }
+        }
+
+        static long hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return h ^ (h >>> 32);
+        }
+
+        int get(long key) {
+            long stamp = lock.tryOptimisticRead();
+            int slot = find(table, key);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    slot = find(table, key);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return slot;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long estimateBytes() {
+            return (long) table.keys.length * (Long.BYTES + Integer.BYTES);
+        }
+
+        void put(long key, int slot) {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                int mask = current.keys.length - 1;
+                int free = -1;
+                for (int i = (int) hash(key) & mask; ; i = (i + 1) & mask) {
+                    int existing = current.slots[i];
+                    if (existing == EMPTY) {
+                        if (free < 0) {
+                            free = i;
+                            used++;
+                        }
+                        break;
+                    }
+                    if (existing == REMOVED) {
+                        if (free < 0) {
+                            free = i;
+                        }
+                    } else if (current.keys[i] == key) {
+                        current.slots[i] = slot;
+                        return;
+                    }
+                }
+                current.keys[free] = key;
+                current.slots[free] = slot;
+                size++;
+                if (used * 2 > current.keys.length) {
+                    resize();
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void remove(long key) {
+            long stamp = lock.writeLock();
+            try {
+                Table current = table;
+                int mask = current.keys.length - 1;
+                for (int i = (int) hash(key) & mask; current.slots[i] != EMPTY; i = (i + 1) & mask) {
+                    if (current.slots[i] > 0 && current.keys[i] == key) {
+                        current.slots[i] = REMOVED;
+                        size--;
+                        return;
+                    }
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        private static int find(Table current, long key) {
+            long[] keys = current.keys;
+            int[] slots = current.slots;
+            int mask = keys.length - 1;
+            // Bounded, a racing writer can't send an optimistic read round forever
+            for (int probes = 0, i = (int) hash(key) & mask; probes < keys.length; probes++, i = (i + 1) & mask) {
+                int slot = slots[i];
+                if (slot == EMPTY) {
+                    return EMPTY;
+                }
+                if (slot > 0 && keys[i] == key) {
+                    return slot;
+                }
+            }
+            return EMPTY;
+        }
+
+        /**
+         * Copies the live entries into a new table, dropping removed markers. The table doubles unless
+         * it was mostly removed markers, in which case it is just cleaned.
+         */
+        private void resize() {
+            Table old = table;
+            Table grown = new Table(size * 4 > old.keys.length ? old.keys.length * 2 : old.keys.length);
+            int mask = grown.keys.length - 1;
+            for (int j = 0; j < old.keys.length; j++) {
+                if (old.slots[j] > 0) {
+                    int i = (int) hash(old.keys[j]) & mask;
+                    while (grown.slots[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    grown.keys[i] = old.keys[j];
+                    grown.slots[i] = old.slots[j];
+                }
+            }
+            table = grown;
+            used = size;
+        }
+    }
+}
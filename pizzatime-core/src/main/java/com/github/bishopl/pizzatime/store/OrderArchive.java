@@ -0,0 +1,67 @@
+/**
+ * Storage for checked out pizza orders, keyed by order id.
+ * Archived orders are immutable and compactly encoded, so the working OrderStore only holds open orders
+ * and archived reads never take an order lock.
+ */
+package com.github.bishopl.pizzatime.store;
+
+import java.util.function.Consumer;
+
+import com.github.bishopl.pizzatime.model.ArchivedOrder;
+
+public class OrderArchive {
+    private final LongConcurrentMap<ArchivedOrder> orders = new LongConcurrentMap<>();
+
+    /**
+     * Returns the archived order with a given ID.
+     * @param orderId the ID of the archived order
+     * @return the archived order, or null if there is none
+     */
+    public ArchivedOrder get(long orderId) {
+        return orders.get(orderId);
+    }
+
+    /**
+     * Archives an order under its own ID, replacing any archived order with the same ID.
+     * @param archivedOrder the archived order to store
+     */
+    public void put(ArchivedOrder archivedOrder) {
+        orders.put(archivedOrder.getId(), archivedOrder);
+    }
+
+    /**
+     * Checks if an order with a given ID is archived.
+     * @param orderId the ID of the order
+     * @return true if the order is archived, false otherwise
+     */
+    public boolean contains(long orderId) {
+        return orders.containsKey(orderId);
+    }
+
+    /**
+     * Returns the number of archived orders.
+     * @return the number of archived orders
+     */
+    public int size() {
+        return orders.size();
+    }
+
+    /**
+     * Passes every archived order to an action without holding up writers.
+     * Weakly consistent: orders archived during the walk may or may not be seen.
+     * @param action the action to run for each archived order
+     */
+    public void forEach(Consumer<ArchivedOrder> action) {
+        orders.forEachValue(action);
+    }
+
+    /**
+     * Estimates the heap taken by the archived orders, by walking them.
+     * @return the estimated size in bytes
+     */
+    public long estimateHeapBytes() {
+        long[] bytes = new long[1];
+        orders.forEachValue(archivedOrder -> bytes[0] += archivedOrder.estimateRetainedBytes());
+        return bytes[0];
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Storage for pizza orders, keyed by order id.
+ * Implementations must be safe to call from concurrent request threads.
+ */
+package com.github.bishopl.pizzatime.store;
+
+import java.util.function.Consumer;
+
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+public interface OrderStore {
+
+    /**
+     * Returns the pizza order with a given ID.
+     * @param orderId the ID of the pizza order
+     * @return the pizza order, or null if there is none
+     */
+    PizzaOrder get(long orderId);
+
+    /**
+     * Stores a pizza order under its own ID, replacing any order with the same ID.
+     * @param pizzaOrder the pizza order to store
+     * @return the replaced pizza order, or null if there was none
+     */
+    PizzaOrder put(PizzaOrder pizzaOrder);
+
+    /**
+     * Removes the pizza order with a given ID.
+     * @param orderId the ID of the pizza order
+     * @return the removed pizza order, or null if there was none
+     */
+    PizzaOrder remove(long orderId);
+
+    /**
+     * Checks if a pizza order with a given ID is stored.
+     * @param orderId the ID of the pizza order
+     * @return true if the pizza order is stored, false otherwise
+     */
+    boolean contains(long orderId);
+
+    /**
+     * Returns the number of stored pizza orders.
+     * @return the number of stored pizza orders
+     */
+    int size();
+
+    /**
+     * Passes every stored pizza order to an action without holding up writers.
+     * Weakly consistent: orders stored or removed during the walk may or may not be seen.
+     * @param action the action to run for each pizza order
+     */
+    void forEach(Consumer<PizzaOrder> action);
+
+    /**
+     * Marks a stored pizza order as touched now, which pushes back its idle expiry.
+     * Stores that hand out copies of their orders write the new last-touch time back as well.
+     * @param pizzaOrder the pizza order that was just read from this store
+     */
+    default void touch(PizzaOrder pizzaOrder) {
+        pizzaOrder.touch();
+    }
+
+    /**
+     * Estimates the heap taken by the stored pizza orders, by walking them unless the store keeps count.
+     * @return the estimated size in bytes
+     */
+    default long estimateHeapBytes() {
+        long[] bytes = new long[1];
+        forEach(pizzaOrder -> bytes[0] += pizzaOrder.estimateRetainedBytes());
+        return bytes[0];
+    }
+}
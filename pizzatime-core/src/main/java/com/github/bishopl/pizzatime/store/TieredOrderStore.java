@@ -0,0 +1,408 @@
+/**
+ * An OrderStore with a heap budget: recently used orders stay on the heap as live objects, and once they take more
+ * than the budget the coldest are spilled to a MappedOrderStore on disk. A spilled order is faulted back onto the
+ * heap the next time it is read, so callers never see which tier an order was in.
+ *
+ * Hot orders are picked for spilling by CLOCK: every read sets an order's reference bit, and the clock hand sweeps
+ * the hot orders, clearing bits, until it finds one that wasn't read since it last passed. New orders start without
+ * the bit, so a burst of orders nobody reads again can't push out the ones being worked on. Heap use is counted with
+ * PizzaOrder#estimateRetainedBytes when an order is put or faulted in, so put changed orders back to keep it right.
+ * Hits read one map and set one bit. Moving an order between tiers holds its lock stripe, writes the order to its new
+ * tier before dropping it from the old one, and is reported to running walks, so readers always find it in one tier
+ * and a walk never misses it.
+ */
+package com.github.bishopl.pizzatime.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+public class TieredOrderStore implements OrderStore, Closeable {
+    private static final int LOCK_STRIPES = 64;
+    // The entry, its slot in the hot map and its place on the clock
+    private static final long ENTRY_BYTES = 32 + 16 + 4;
+
+    private final long maxHotBytes;
+    private final MappedOrderStore coldStore;
+    private final LongConcurrentMap<Entry> hotOrders = new LongConcurrentMap<>();
+    private final Object[] stripes = new Object[LOCK_STRIPES];
+    private final AtomicLong hotBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder spills = new LongAdder();
+    private final List<SpillLog> walks = new CopyOnWriteArrayList<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final ReentrantLock clockLock = new ReentrantLock();
+    private Entry[] clock = new Entry[1024];
+    private int clockSize;
+    private int hand;
+
+    /**
+     * A hot order and its reference bit.
+     */
+    private static final class Entry {
+        final long orderId;
+        volatile PizzaOrder pizzaOrder;
+        volatile long bytes;
+        volatile boolean referenced;
+        int clockIndex;
+
+        Entry(PizzaOrder pizzaOrder, boolean referenced) {
+            this.orderId = pizzaOrder.getId();
+            this.pizzaOrder = pizzaOrder;
+            this.bytes = bytesOf(pizzaOrder);
+            this.referenced = referenced;
+        }
+    }
+
+    /**
+     * The orders spilled while a walk ran, which the walk looks up again once it is done.
+     */
+    private static final class SpillLog {
+        private long[] orderIds = new long[16];
+        private int count;
+
+        synchronized void add(long orderId) {
+            if (count == orderIds.length) {
+                orderIds = Arrays.copyOf(orderIds, count * 2);
+            }
+            orderIds[count++] = orderId;
+        }
+
+        synchronized long[] toArray() {
+            return Arrays.copyOf(orderIds, count);
+        }
+    }
+
+    /**
+     * Constructs a new TieredOrderStore.
+     * @param maxHotBytes the heap the hot orders may take, as estimated by PizzaOrder#estimateRetainedBytes
+     * @param coldStore the store spilled orders are kept in, any orders already in it start out cold
+     */
+    public TieredOrderStore(long maxHotBytes, MappedOrderStore coldStore) {
+        if (maxHotBytes < 0) {
+            throw new IllegalArgumentException("Heap budget must not be negative: " + maxHotBytes);
+        }
+        this.maxHotBytes = maxHotBytes;
+        this.coldStore = coldStore;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Returns the pizza order with a given ID, faulting it back onto the heap if it was spilled.
+     * @param orderId the ID of the pizza order
+     * @return the pizza order, or null if there is none
+     */
+    @Override
+    public PizzaOrder get(long orderId) {
+        Entry entry = hotOrders.get(orderId);
+        if (entry != null) {
+            entry.referenced = true;
+            hits.increment();
+            return entry.pizzaOrder;
+        }
+        PizzaOrder pizzaOrder;
+        synchronized (stripeFor(orderId)) {
+            entry = hotOrders.get(orderId);
+            if (entry != null) {
+                entry.referenced = true;
+                hits.increment();
+                return entry.pizzaOrder;
+            }
+            pizzaOrder = coldStore.get(orderId);
+            if (pizzaOrder == null) {
+                return null;
+            }
+            misses.increment();
+            addHot(new Entry(pizzaOrder, true));
+            coldStore.delete(orderId);
+        }
+        spillOverBudget();
+        return pizzaOrder;
+    }
+
+    @Override
+    public PizzaOrder put(PizzaOrder pizzaOrder) {
+        long orderId = pizzaOrder.getId();
+        PizzaOrder replaced;
+        synchronized (stripeFor(orderId)) {
+            Entry entry = hotOrders.get(orderId);
+            if (entry != null) {
+                replaced = entry.pizzaOrder;
+                long bytes = bytesOf(pizzaOrder);
+                hotBytes.addAndGet(bytes - entry.bytes);
+                entry.pizzaOrder = pizzaOrder;
+                entry.bytes = bytes;
+                entry.referenced = true;
+            } else {
+                // Not read yet, so an order nobody comes back to is the first to go
+                addHot(new Entry(pizzaOrder, false));
+                replaced = coldStore.remove(orderId);
+            }
+        }
+        spillOverBudget();
+        return replaced;
+    }
+
+    @Override
+    public PizzaOrder remove(long orderId) {
+        synchronized (stripeFor(orderId)) {
+            Entry entry = hotOrders.remove(orderId);
+            if (entry != null) {
+                removeFromClock(entry);
+                return entry.pizzaOrder;
+            }
+            return coldStore.remove(orderId);
+        }
+    }
+
+    @Override
+    public boolean contains(long orderId) {
+        if (hotOrders.containsKey(orderId) || coldStore.contains(orderId)) {
+            return true;
+        }
+        // Both checks can fall between the two halves of a move, so a miss is checked again under the stripe
+        synchronized (stripeFor(orderId)) {
+            return hotOrders.containsKey(orderId) || coldStore.contains(orderId);
+        }
+    }
+
+    @Override
+    public int size() {
+        return hotOrders.size() + coldStore.size();
+    }
+
+    /**
+     * Passes every stored pizza order to an action, cold orders first and then hot ones, without faulting any in.
+     * Orders spilled while the walk runs are looked up again at the end, so an order that is neither
+     * put nor removed during the walk is always seen, and an order that moved may be seen twice.
+     * @param action the action to run for each pizza order
+     */
+    @Override
+    public void forEach(Consumer<PizzaOrder> action) {
+        SpillLog spilled = new SpillLog();
+        walks.add(spilled);
+        try {
+            // Faulting in writes the hot tier before leaving the cold one, so cold first never misses it
+            coldStore.forEach(action);
+            hotOrders.forEachValue(entry -> action.accept(entry.pizzaOrder));
+        } finally {
+            walks.remove(spilled);
+        }
+        for (long orderId : spilled.toArray()) {
+            PizzaOrder pizzaOrder = peek(orderId);
+            if (pizzaOrder != null) {
+                action.accept(pizzaOrder);
+            }
+        }
+    }
+
+    /**
+     * Estimates the heap taken by the hot orders and the cold store's index, without walking either.
+     * @return the estimated size in bytes
+     */
+    @Override
+    public long estimateHeapBytes() {
+        return hotBytes.get() + coldStore.estimateHeapBytes();
+    }
+
+    /**
+     * Closes the cold store.
+     * @throws IOException if the cold store can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        coldStore.close();
+    }
+
+    /**
+     * Returns the number of reads served from the heap.
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of reads that faulted a spilled order back in from disk.
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of orders spilled to disk to stay under the heap budget.
+     * @return the number of spills
+     */
+    public long getSpills() {
+        return spills.sum();
+    }
+
+    /**
+     * Returns the estimated heap taken by the hot orders.
+     * @return the estimated size in bytes
+     */
+    public long getHotBytes() {
+        return hotBytes.get();
+    }
+
+    /**
+     * Returns the heap the hot orders may take.
+     * @return the heap budget in bytes
+     */
+    public long getMaxHotBytes() {
+        return maxHotBytes;
+    }
+
+    /**
+     * Returns the number of orders on the heap.
+     * @return the number of hot orders
+     */
+    public int getHotOrders() {
+        return hotOrders.size();
+    }
+
+    /**
+     * Returns the number of orders spilled to disk.
+     * @return the number of cold orders
+     */
+    public int getColdOrders() {
+        return coldStore.size();
+    }
+
+    /****************************
+     * Spilling                 *
+     *****************************/
+
+    /**
+     * Spills the coldest orders until the hot ones fit the budget. Only one thread spills at a time,
+     * and it keeps going until the budget is met, so callers who find it busy just carry on.
+     * Must not be called while holding a lock stripe.
+     */
+    private void spillOverBudget() {
+        if (hotBytes.get() <= maxHotBytes || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while (hotBytes.get() > maxHotBytes) {
+                Entry victim = nextVictim();
+                if (victim == null) {
+                    return;
+                }
+                spill(victim);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Moves the clock hand to the next order that wasn't read since the hand last passed it.
+     * @return the order to spill, or null if there are no hot orders
+     */
+    private Entry nextVictim() {
+        clockLock.lock();
+        try {
+            // Two turns clear every bit, so the sweep always ends
+            for (int swept = 0; swept <= 2 * clockSize; swept++) {
+                if (hand >= clockSize) {
+                    hand = 0;
+                }
+                Entry entry = clock[hand++];
+                if (!entry.referenced) {
+                    return entry;
+                }
+                entry.referenced = false;
+            }
+            return null;
+        } finally {
+            clockLock.unlock();
+        }
+    }
+
+    /**
+     * Writes a hot order to the cold store and drops it from the heap, unless it was removed or read since it was picked.
+     */
+    private void spill(Entry victim) {
+        synchronized (stripeFor(victim.orderId)) {
+            if (hotOrders.get(victim.orderId) != victim) {
+                return;
+            }
+            if (victim.referenced) {
+                return;
+            }
+            coldStore.put(victim.pizzaOrder);
+            for (SpillLog walk : walks) {
+                walk.add(victim.orderId);
+            }
+            hotOrders.remove(victim.orderId);
+            removeFromClock(victim);
+            spills.increment();
+        }
+    }
+
+    /**
+     * Returns an order from whichever tier holds it, without faulting it in.
+     */
+    private PizzaOrder peek(long orderId) {
+        synchronized (stripeFor(orderId)) {
+            Entry entry = hotOrders.get(orderId);
+            return entry != null ? entry.pizzaOrder : coldStore.get(orderId);
+        }
+    }
+
+    /**
+     * Puts a new hot order on the heap and on the clock. Must be called while holding the order's lock stripe.
+     */
+    private void addHot(Entry entry) {
+        hotOrders.put(entry.orderId, entry);
+        hotBytes.addAndGet(entry.bytes);
+        clockLock.lock();
+        try {
+            if (clockSize == clock.length) {
+                clock = Arrays.copyOf(clock, clockSize * 2);
+            }
+            entry.clockIndex = clockSize;
+            clock[clockSize++] = entry;
+        } finally {
+            clockLock.unlock();
+        }
+    }
+
+    /**
+     * Takes an order off the clock, moving the last order into its place.
+     * Must be called while holding the order's lock stripe, after it left the hot map.
+     */
+    private void removeFromClock(Entry entry) {
+        hotBytes.addAndGet(-entry.bytes);
+        clockLock.lock();
+        try {
+            Entry last = clock[--clockSize];
+            clock[entry.clockIndex] = last;
+            last.clockIndex = entry.clockIndex;
+            clock[clockSize] = null;
+        } finally {
+            clockLock.unlock();
+        }
+    }
+
+    private static long bytesOf(PizzaOrder pizzaOrder) {
+        return pizzaOrder.estimateRetainedBytes() + ENTRY_BYTES;
+    }
+
+    private Object stripeFor(long orderId) {
+        long h = orderId * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 58) & (LOCK_STRIPES - 1)];
+    }
+}
@@ -0,0 +1,14 @@
+/**
+ * An enum representing how far a write-ahead log record must get before the change it records is acknowledged.
+ * SYNC waits until the record is forced to disk, so an acknowledged change survives a power cut.
+ * BATCHED waits until the record is written to the operating system, which survives the process crashing,
+ * and forces the log every sync interval. ASYNC doesn't wait at all, a crash may lose up to one sync interval.
+ * Concurrent SYNC writers share each force, so the cost of a force is spread over every request waiting on it.
+ */
+package com.github.bishopl.pizzatime.wal;
+
+public enum Durability {
+    SYNC,
+    BATCHED,
+    ASYNC
+}
@@ -0,0 +1,128 @@
+/**
+ * A write-ahead log record for one pizza order, in a compact binary form.
+ * A change to an order is logged as an image of the whole order after the change, so replaying records in log order
+ * and keeping the last image of each order rebuilds the store, and replaying a record twice does no harm.
+ * Each pizza is its packed configuration, so an image is 46 bytes plus 4 per pizza.
+ * Deleting or expiring an order is logged as a removal of its id.
+ */
+package com.github.bishopl.pizzatime.wal;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.github.bishopl.pizzatime.model.OrderState;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+public final class OrderLogRecord {
+    private static final byte ORDER = 1;
+    private static final byte REMOVED = 2;
+    private static final int NO_PIZZA = -1;
+    private static final int IMAGE_BYTES = 1 + 8 * 5 + 1 + 4;
+    private static final OrderState[] ORDER_STATES = OrderState.values();
+
+    private final long orderId;
+    private final PizzaOrder pizzaOrder;
+
+    private OrderLogRecord(long orderId, PizzaOrder pizzaOrder) {
+        this.orderId = orderId;
+        this.pizzaOrder = pizzaOrder;
+    }
+
+    /**
+     * Encodes an image of a pizza order. Must be called while the order can't change.
+     * @param pizzaOrder the pizza order
+     * @return the encoded record
+     */
+    public static byte[] encodeOrder(PizzaOrder pizzaOrder) {
+        List<Pizza> pizzas = pizzaOrder.getPizzas();
+        ByteBuffer buffer = ByteBuffer.allocate(IMAGE_BYTES + 4 * pizzas.size());
+        buffer.put(ORDER)
+                .putLong(pizzaOrder.getId())
+                .putLong(pizzaOrder.getVersion())
+                .putLong(pizzaOrder.getDate().getTime())
+                .putLong(pizzaOrder.getTotalCostCents())
+                .putLong(pizzaOrder.getPriceVersion())
+                .put((byte) pizzaOrder.getState().ordinal())
+                .putInt(pizzas.size());
+        for (Pizza pizza : pizzas) {
+            buffer.putInt(pizza == null ? NO_PIZZA : pizza.getPackedConfiguration());
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Encodes the removal of a pizza order.
+     * @param orderId the id of the removed pizza order
+     * @return the encoded record
+     */
+    public static byte[] encodeRemoval(long orderId) {
+        return ByteBuffer.allocate(1 + 8).put(REMOVED).putLong(orderId).array();
+    }
+
+    /**
+     * Decodes a record.
+     * @param payload the encoded record
+     * @return the record
+     * @throws IllegalArgumentException if the record is not a valid order log record
+     */
+    public static OrderLogRecord decode(ByteBuffer payload) {
+        try {
+            byte type = payload.get();
+            long orderId = payload.getLong();
+            if (type == REMOVED) {
+                return new OrderLogRecord(orderId, null);
+            }
+            if (type != ORDER) {
+                throw new IllegalArgumentException("Unknown order log record type " + type);
+            }
+            long version = payload.getLong();
+            long dateMillis = payload.getLong();
+            long totalCost = payload.getLong();
+            long priceVersion = payload.getLong();
+            OrderState state = ORDER_STATES[payload.get()];
+            int pizzaCount = payload.getInt();
+            if (pizzaCount < 0 || pizzaCount > payload.remaining() / 4) {
+                throw new IllegalArgumentException("Order log record has " + pizzaCount + " pizzas");
+            }
+            List<Pizza> pizzas = new ArrayList<>(pizzaCount);
+            for (int i = 0; i < pizzaCount; i++) {
+                int packed = payload.getInt();
+                pizzas.add(packed == NO_PIZZA ? null : Pizza.fromPackedConfiguration(packed));
+            }
+            return new OrderLogRecord(orderId, PizzaOrder.restore(orderId, new Date(dateMillis), pizzas, totalCost,
+                    priceVersion, state, version));
+        } catch (RuntimeException e) {
+            if (e instanceof IllegalArgumentException) {
+                throw e;
+            }
+            throw new IllegalArgumentException("Malformed order log record", e);
+        }
+    }
+
+    /**
+     * Returns the id of the pizza order the record is about.
+     * @return the id of the pizza order
+     */
+    public long getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Checks if the record removes the pizza order.
+     * @return true if the order was deleted or expired, false if the record holds an image of it
+     */
+    public boolean isRemoval() {
+        return pizzaOrder == null;
+    }
+
+    /**
+     * Returns the image of the pizza order.
+     * @return the pizza order as it was after the change, or null for a removal
+     */
+    public PizzaOrder getPizzaOrder() {
+        return pizzaOrder;
+    }
+}
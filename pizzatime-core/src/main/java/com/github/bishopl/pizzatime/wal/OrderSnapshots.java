@@ -0,0 +1,238 @@
+/**
+ * Point-in-time snapshots of every pizza order, kept next to the write-ahead log so restarts only replay its tail.
+ * A snapshot is fuzzy: it records the log position it starts from, then walks the orders while they keep changing.
+ * Any change the walk misses, or catches half done, was logged after that position, so loading the snapshot and
+ * replaying the log from its position always ends at the same state as the log alone.
+ *
+ * Each snapshot file holds a header with its log position and the last order number issued, one order image per
+ * order in the same binary form as the log, and a CRC32C of the whole file. It is written to a temporary file,
+ * forced and renamed into place, so a crash never leaves a half-written snapshot under a snapshot name.
+ * The newest two are kept, so a damaged newest snapshot falls back to the one before it.
+ */
+package com.github.bishopl.pizzatime.wal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+public class OrderSnapshots {
+    private static final int MAGIC = 0x505A534E;
+    private static final int FORMAT = 1;
+    private static final int KEPT_SNAPSHOTS = 2;
+    private static final int BUFFER_BYTES = 1 << 16;
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("\\d{20}\\.snap");
+
+    private final Path directory;
+
+    /**
+     * Describes a snapshot on disk.
+     * @param file the snapshot file
+     * @param lsn the log position the snapshot starts from, replay the log after it
+     * @param lastOrderId the last order number issued when the snapshot started
+     * @param orderCount the number of orders in the snapshot
+     */
+    public record Snapshot(Path file, long lsn, long lastOrderId, long orderCount) {
+    }
+
+    /**
+     * Constructs a new OrderSnapshots keeping its files in a directory.
+     * @param directory the directory holding the snapshot files
+     */
+    public OrderSnapshots(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Writes a snapshot, then deletes all but the newest snapshots.
+     * @param lsn the log position the snapshot starts from, taken before the walk begins
+     * @param lastOrderId the last order number issued, taken before the walk begins
+     * @param walk passes every pizza order to the consumer it is given
+     * @return the snapshot written
+     * @throws IOException if the snapshot can't be written
+     */
+    public Snapshot write(long lsn, long lastOrderId, Consumer<Consumer<PizzaOrder>> walk) throws IOException {
+        Files.createDirectories(directory);
+        Path file = snapshotPath(lsn);
+        Path tempFile = directory.resolve(file.getFileName() + ".tmp");
+        CRC32C checksum = new CRC32C();
+        long[] orderCount = new long[1];
+        try (OutputStream fileOut = Files.newOutputStream(tempFile)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileOut, checksum), BUFFER_BYTES));
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(lsn);
+            out.writeLong(lastOrderId);
+            try {
+                walk.accept(pizzaOrder -> {
+                    byte[] image = OrderLogRecord.encodeOrder(pizzaOrder);
+                    try {
+                        out.writeInt(image.length);
+                        out.write(image);
+                    } catch (IOException e) {
+                        throw new SnapshotWriteException(e);
+                    }
+                    orderCount[0]++;
+                });
+            } catch (SnapshotWriteException e) {
+                throw e.getCause();
+            }
+            out.writeInt(0);
+            out.writeLong(orderCount[0]);
+            out.flush();
+            // The checksum covers everything before it
+            new DataOutputStream(fileOut).writeInt((int) checksum.getValue());
+        }
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+
+        List<Long> snapshots = listSnapshots();
+        for (int i = 0; i < snapshots.size() - KEPT_SNAPSHOTS; i++) {
+            Files.deleteIfExists(snapshotPath(snapshots.get(i)));
+        }
+        return new Snapshot(file, lsn, lastOrderId, orderCount[0]);
+    }
+
+    /**
+     * Loads the newest snapshot that reads back whole, falling back to older ones if newer ones are damaged.
+     * @param action receives every order in the snapshot
+     * @return the snapshot loaded, or null if there is none
+     * @throws IOException if the directory can't be read
+     */
+    public Snapshot load(Consumer<PizzaOrder> action) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        List<Long> snapshots = listSnapshots();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path file = snapshotPath(snapshots.get(i));
+            // Check the whole file before handing over any order, so a damaged snapshot changes nothing
+            if (read(file, null) != null) {
+                return read(file, action);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the log position every kept snapshot starts after, log records before it are no longer needed.
+     * @return the log position of the oldest kept snapshot, or 0 if there is none
+     * @throws IOException if the directory can't be read
+     */
+    public long getOldestKeptLsn() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        List<Long> snapshots = listSnapshots();
+        return snapshots.isEmpty() ? 0 : snapshots.get(0);
+    }
+
+    /**
+     * Reads a snapshot file.
+     * @return the snapshot, or null if the file is damaged
+     */
+    private static Snapshot read(Path file, Consumer<PizzaOrder> action) throws IOException {
+        long size = Files.size(file);
+        CRC32C checksum = new CRC32C();
+        try (InputStream fileIn = new BufferedInputStream(Files.newInputStream(file), BUFFER_BYTES)) {
+            // Everything but the trailing checksum goes through the CRC
+            DataInputStream in = new DataInputStream(new CheckedInputStream(fileIn, checksum));
+            long remaining = size - 4;
+            if (remaining < 24 + 12 || in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                return null;
+            }
+            long lsn = in.readLong();
+            long lastOrderId = in.readLong();
+            remaining -= 24;
+            long orderCount = 0;
+            while (true) {
+                int length = in.readInt();
+                remaining -= 4;
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || length > remaining - 12) {
+                    return null;
+                }
+                byte[] image = new byte[length];
+                in.readFully(image);
+                remaining -= length;
+                if (action != null) {
+                    action.accept(OrderLogRecord.decode(ByteBuffer.wrap(image)).getPizzaOrder());
+                }
+                orderCount++;
+            }
+            if (remaining != 8 || in.readLong() != orderCount) {
+                return null;
+            }
+            int expected = new DataInputStream(fileIn).readInt();
+            if ((int) checksum.getValue() != expected) {
+                return null;
+            }
+            return new Snapshot(file, lsn, lastOrderId, orderCount);
+        } catch (EOFException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void forceDirectory() {
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory, the snapshot contents are still forced
+        }
+    }
+
+    private Path snapshotPath(long lsn) {
+        return directory.resolve(String.format("%020d.snap", lsn));
+    }
+
+    private List<Long> listSnapshots() throws IOException {
+        List<Long> snapshots = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> SNAPSHOT_NAME.matcher(name).matches())
+                    .map(name -> Long.parseLong(name.substring(0, 20)))
+                    .sorted()
+                    .forEach(snapshots::add);
+        }
+        return snapshots;
+    }
+
+    /**
+     * Carries an IOException out of the order walk, which can't throw checked exceptions.
+     */
+    private static class SnapshotWriteException extends RuntimeException {
+        SnapshotWriteException(IOException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized IOException getCause() {
+            return (IOException) super.getCause();
+        }
+    }
+}
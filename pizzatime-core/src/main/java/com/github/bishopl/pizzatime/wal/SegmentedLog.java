@@ -0,0 +1,530 @@
+/**
+ * The base of the append-only logs kept as a run of segment files in one directory: the write-ahead log and
+ * the change log. A position in the log is an offset, and segment files are named after the offset they start at.
+ * Subclasses decide how entries are framed and read back, this class queues them, writes them and forces them.
+ *
+ * Appending only queues the entry, so it never touches the disk on the caller's thread. A single writer thread
+ * drains the queue, writes everything queued since its last pass in one go, and forces it to disk either at once
+ * or once the sync interval is up. If the disk falls so far behind that MAX_QUEUED_BYTES are waiting,
+ * appending blocks until the writer catches up, so the queue can't eat the heap.
+ *
+ * Segments the log no longer needs are dropped with deleteSegmentsBefore. The segment being written never is.
+ */
+package com.github.bishopl.pizzatime.wal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+public abstract class SegmentedLog implements Closeable {
+    /**
+     * The most bytes queued for the writer before appending blocks.
+     */
+    public static final int MAX_QUEUED_BYTES = 1 << 24;
+
+    private static final int WRITE_BUFFER_BYTES = 1 << 18;
+
+    private final Path directory;
+    private final String name;
+    private final String extension;
+    private final Pattern segmentName;
+    private final long segmentBytes;
+    private final long syncIntervalNanos;
+    private final long truncatedBytes;
+    private final Thread writer;
+
+    // Entries waiting for the writer, and the offset just past the last one queued
+    private final Object queueLock = new Object();
+    private List<byte[]> queue = new ArrayList<>();
+    private long queuedBytes;
+    private long appendedOffset;
+    private volatile boolean closing;
+
+    // How far the writer has got, and who is waiting for it to get further
+    private final Object waiterLock = new Object();
+    private final List<Waiter> waiters = new ArrayList<>();
+    private volatile long writtenOffset;
+    private volatile long syncedOffset;
+    private volatile long syncCount;
+    private volatile IOException failure;
+
+    // The segments on disk, grown by the writer and trimmed by deleteSegmentsBefore
+    private final Object segmentLock = new Object();
+    private volatile long[] segmentStarts;
+
+    // Only touched by the writer thread once it has started
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES);
+    private FileChannel segment;
+    private long segmentStart;
+    private long segmentPosition;
+    private long lastSyncNanos;
+
+    /**
+     * A callback waiting for the log to be forced past an offset.
+     */
+    private record Waiter(long offset, Runnable callback) {
+    }
+
+    /**
+     * Opens the log in a directory, creating it if needed. New entries go at the end of the last segment,
+     * after cutting off whatever validLength doesn't accept there. Subclasses call startWriter once they are set up.
+     * @param directory the directory holding the segment files
+     * @param name what the log is called in thread names and errors, such as "change log"
+     * @param extension the extension of the segment files, such as ".changes"
+     * @param segmentBytes the size at which the writer starts a new segment
+     * @param minSegmentBytes the smallest segmentBytes that holds an entry
+     * @param syncIntervalNanos how long written entries may wait to be forced to disk, 0 to force every write
+     * @throws IOException if the log can't be opened
+     */
+    protected SegmentedLog(Path directory, String name, String extension, long segmentBytes, long minSegmentBytes,
+                           long syncIntervalNanos) throws IOException {
+        if (segmentBytes < minSegmentBytes || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentBytes must be between " + minSegmentBytes
+                    + " and " + Integer.MAX_VALUE + ": " + segmentBytes);
+        }
+        this.directory = directory;
+        this.name = name;
+        this.extension = extension;
+        this.segmentName = Pattern.compile("\\d{20}" + Pattern.quote(extension));
+        this.segmentBytes = segmentBytes;
+        this.syncIntervalNanos = syncIntervalNanos;
+
+        Files.createDirectories(directory);
+        long[] starts = listSegments();
+        if (starts.length == 0) {
+            starts = new long[] { 0 };
+            this.segment = FileChannel.open(segmentPath(0), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            forceDirectory();
+            this.truncatedBytes = 0;
+        } else {
+            this.segmentStart = starts[starts.length - 1];
+            Path lastSegment = segmentPath(segmentStart);
+            long size = Files.size(lastSegment);
+            long validEnd = validLength(lastSegment, segmentStart, size);
+            this.segment = FileChannel.open(lastSegment, StandardOpenOption.WRITE);
+            if (validEnd < size) {
+                segment.truncate(validEnd);
+                segment.force(true);
+            }
+            this.truncatedBytes = size - validEnd;
+        }
+        this.segmentStarts = starts;
+        this.segmentPosition = segment.size();
+        segment.position(segmentPosition);
+        this.appendedOffset = segmentStart + segmentPosition;
+        this.writtenOffset = appendedOffset;
+        this.syncedOffset = appendedOffset;
+        this.lastSyncNanos = System.nanoTime();
+
+        this.writer = new Thread(this::runWriter, name.replace(' ', '-') + "-writer");
+        writer.setDaemon(true);
+    }
+
+    /**
+     * Finds how much of the last segment holds whole entries, when the log is opened. Called from the
+     * constructor, so it must not rely on the subclass's fields.
+     * @param file the segment file
+     * @param startOffset the offset the segment starts at
+     * @param size the size of the file
+     * @return the number of bytes at the start of the file to keep
+     * @throws IOException if the segment can't be read
+     */
+    protected abstract long validLength(Path file, long startOffset, long size) throws IOException;
+
+    /**
+     * Called on the writer thread after each pass, and once the log fails or closes. Does nothing unless overridden.
+     */
+    protected void onProgress() {
+    }
+
+    /**
+     * Called on the writer thread once it has moved on to a new segment. Does nothing unless overridden.
+     * @param startOffset the offset the new segment starts at
+     * @throws IOException if the log should fail
+     */
+    protected void onSegmentStarted(long startOffset) throws IOException {
+    }
+
+    /**
+     * Starts the writer thread. Subclasses call it at the end of their constructor.
+     */
+    protected final void startWriter() {
+        writer.start();
+    }
+
+    /**
+     * Queues an entry to be written as it is. Returns straight away unless the writer is MAX_QUEUED_BYTES behind.
+     * Entries are written in the order they are queued.
+     * @param entry the framed entry
+     * @return the offset just past the entry
+     * @throws UncheckedIOException if the log has failed, in which case nothing more can be appended
+     * @throws IllegalStateException if the log is closed
+     */
+    protected final long enqueue(byte[] entry) {
+        synchronized (queueLock) {
+            while (queuedBytes >= MAX_QUEUED_BYTES && failure == null && !closing) {
+                try {
+                    queueLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for the " + name));
+                }
+            }
+            throwIfFailed();
+            if (closing) {
+                throw new IllegalStateException(describe() + " " + directory + " is closed");
+            }
+            queue.add(entry);
+            queuedBytes += entry.length;
+            appendedOffset += entry.length;
+            if (queue.size() == 1) {
+                queueLock.notify();
+            }
+            return appendedOffset;
+        }
+    }
+
+    /**
+     * Runs a callback once the log is forced to disk past an offset. The callback runs on the writer thread,
+     * so it must return quickly, and it also runs when the log closes or fails, so whoever waits is never left hanging.
+     * @param offset the offset to wait past
+     * @param callback the callback to run
+     * @return true if the callback will run later, false if the log is already past the offset and it was not kept
+     */
+    public boolean runWhenPast(long offset, Runnable callback) {
+        synchronized (waiterLock) {
+            if (syncedOffset > offset || closing || failure != null) {
+                return false;
+            }
+            waiters.add(new Waiter(offset, callback));
+            return true;
+        }
+    }
+
+    /**
+     * Drops a callback added with runWhenPast that is no longer needed.
+     * @param callback the callback to drop
+     */
+    public void cancel(Runnable callback) {
+        synchronized (waiterLock) {
+            waiters.removeIf(waiter -> waiter.callback() == callback);
+        }
+    }
+
+    /**
+     * Deletes every segment that ends at or before a given offset. The segment being written is never deleted.
+     * @param offset the offset before which entries are no longer needed
+     * @return the number of segments deleted
+     * @throws IOException if a segment can't be deleted
+     */
+    public int deleteSegmentsBefore(long offset) throws IOException {
+        long[] dropped;
+        synchronized (segmentLock) {
+            long[] starts = segmentStarts;
+            int count = 0;
+            while (count + 1 < starts.length && starts[count + 1] <= offset) {
+                count++;
+            }
+            dropped = Arrays.copyOf(starts, count);
+            segmentStarts = Arrays.copyOfRange(starts, count, starts.length);
+        }
+        // Readers go by segmentStarts, so none start on a segment once it is dropped from there
+        for (long start : dropped) {
+            Files.deleteIfExists(segmentPath(start));
+        }
+        return dropped.length;
+    }
+
+    /**
+     * Stops accepting entries, waits for the writer to write and force everything already queued, and closes the log.
+     * @throws IOException if the log failed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (queueLock) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+            queueLock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        wakeWaiters(Long.MAX_VALUE);
+        onProgress();
+        segment.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Throws if the writer has failed.
+     * @throws UncheckedIOException wrapping the writer's failure
+     */
+    protected final void throwIfFailed() {
+        IOException writeFailure = failure;
+        if (writeFailure != null) {
+            throw new UncheckedIOException(describe() + " " + directory + " has failed", writeFailure);
+        }
+    }
+
+    /**
+     * Returns the path of the segment starting at an offset.
+     * @param startOffset the offset the segment starts at
+     * @return the segment file
+     */
+    protected final Path segmentPath(long startOffset) {
+        return directory.resolve(String.format("%020d", startOffset) + extension);
+    }
+
+    /**
+     * Returns the offsets the segments on disk start at, oldest first. The array must not be changed.
+     * @return the segment starts
+     */
+    protected final long[] segmentStarts() {
+        return segmentStarts;
+    }
+
+    /****************************
+     * Writer methods           *
+     *****************************/
+
+    private void runWriter() {
+        List<byte[]> batch = new ArrayList<>();
+        try {
+            boolean stop = false;
+            while (!stop) {
+                synchronized (queueLock) {
+                    while (queue.isEmpty() && !closing) {
+                        long syncDueNanos = syncedOffset < writtenOffset ? lastSyncNanos + syncIntervalNanos - System.nanoTime() : -1;
+                        if (syncedOffset < writtenOffset && syncDueNanos <= 0) {
+                            break;
+                        }
+                        queueLock.wait(syncDueNanos < 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(syncDueNanos)));
+                    }
+                    List<byte[]> swap = queue;
+                    queue = batch;
+                    batch = swap;
+                    stop = closing && batch.isEmpty();
+                    if (queuedBytes >= MAX_QUEUED_BYTES) {
+                        queueLock.notifyAll();
+                    }
+                    queuedBytes = 0;
+                }
+                write(batch);
+                batch.clear();
+                if (syncedOffset < writtenOffset && (stop || System.nanoTime() - lastSyncNanos >= syncIntervalNanos)) {
+                    sync();
+                }
+                wakeWaiters(syncedOffset);
+                onProgress();
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException(describe() + " writer was interrupted"));
+        }
+    }
+
+    /**
+     * Marks the log as failed and wakes everyone waiting on it, so they throw instead of waiting forever.
+     */
+    private void fail(IOException e) {
+        failure = e;
+        synchronized (queueLock) {
+            queueLock.notifyAll();
+        }
+        wakeWaiters(Long.MAX_VALUE);
+        onProgress();
+    }
+
+    /**
+     * Runs and drops every callback waiting for the log to pass an offset below a given one.
+     */
+    private void wakeWaiters(long offset) {
+        List<Runnable> due = new ArrayList<>();
+        synchronized (waiterLock) {
+            waiters.removeIf(waiter -> {
+                if (waiter.offset() < offset) {
+                    due.add(waiter.callback());
+                    return true;
+                }
+                return false;
+            });
+        }
+        for (Runnable callback : due) {
+            callback.run();
+        }
+    }
+
+    /**
+     * Writes a batch of entries through the write buffer, starting a new segment whenever the current one is full.
+     */
+    private void write(List<byte[]> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return;
+        }
+        for (byte[] entry : entries) {
+            long bufferedEnd = segmentPosition + writeBuffer.position() + entry.length;
+            if (bufferedEnd > segmentBytes && segmentPosition + writeBuffer.position() > 0) {
+                flushBuffer();
+                startSegment();
+            }
+            if (entry.length > writeBuffer.remaining()) {
+                flushBuffer();
+                if (entry.length > writeBuffer.capacity()) {
+                    writeFully(ByteBuffer.wrap(entry));
+                    continue;
+                }
+            }
+            writeBuffer.put(entry);
+        }
+        flushBuffer();
+        writtenOffset = segmentStart + segmentPosition;
+    }
+
+    private void flushBuffer() throws IOException {
+        writeBuffer.flip();
+        writeFully(writeBuffer);
+        writeBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            segmentPosition += segment.write(buffer);
+        }
+    }
+
+    /**
+     * Forces the full segment to disk and moves on to a new one starting where it ended.
+     */
+    private void startSegment() throws IOException {
+        segment.force(false);
+        writtenOffset = segmentStart + segmentPosition;
+        syncedOffset = writtenOffset;
+        segment.close();
+        segmentStart += segmentPosition;
+        segmentPosition = 0;
+        segment = FileChannel.open(segmentPath(segmentStart), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        forceDirectory();
+        synchronized (segmentLock) {
+            long[] starts = segmentStarts;
+            long[] grown = Arrays.copyOf(starts, starts.length + 1);
+            grown[starts.length] = segmentStart;
+            segmentStarts = grown;
+        }
+        onSegmentStarted(segmentStart);
+    }
+
+    private void sync() throws IOException {
+        long offset = writtenOffset;
+        segment.force(false);
+        syncedOffset = offset;
+        lastSyncNanos = System.nanoTime();
+        syncCount++;
+    }
+
+    /**
+     * Forces the directory entry of a new segment to disk where the platform allows it.
+     */
+    private void forceDirectory() {
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory, the segment contents are still forced
+        }
+    }
+
+    private long[] listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(fileName -> segmentName.matcher(fileName).matches())
+                    .mapToLong(fileName -> Long.parseLong(fileName.substring(0, 20)))
+                    .sorted()
+                    .toArray();
+        }
+    }
+
+    private String describe() {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /****************************
+     * Getters                  *
+     *****************************/
+
+    /**
+     * Returns the directory holding the segment files.
+     * @return the log directory
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the offset the oldest segment kept starts at.
+     * @return the start of the log
+     */
+    public long getStartOffset() {
+        return segmentStarts[0];
+    }
+
+    /**
+     * Returns the offset just past the last entry appended, which may not be written yet.
+     * @return the end of the log once the writer catches up
+     */
+    public long getAppendedOffset() {
+        synchronized (queueLock) {
+            return appendedOffset;
+        }
+    }
+
+    /**
+     * Returns the offset just past the last entry handed to the operating system.
+     * @return the written offset
+     */
+    public long getWrittenOffset() {
+        return writtenOffset;
+    }
+
+    /**
+     * Returns the offset up to which the log is known to be forced to disk.
+     * @return the synced offset
+     */
+    public long getSyncedOffset() {
+        return syncedOffset;
+    }
+
+    /**
+     * Returns the number of times the writer has forced the log to disk, not counting segment changes.
+     * Appended entries divided by syncs gives the average group commit size.
+     * @return the number of syncs
+     */
+    public long getSyncCount() {
+        return syncCount;
+    }
+
+    /**
+     * Returns the number of bytes of a partial entry cut off the end of the log when it was opened.
+     * @return the number of bytes cut off, 0 if the log was closed cleanly
+     */
+    public long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+}
@@ -0,0 +1,252 @@
+/**
+ * An append-only write-ahead log of opaque records, kept as a run of segment files in one directory.
+ * Every record is framed with its length and a CRC32C checksum, and is identified by its log sequence number (LSN),
+ * the log position just past it. Segment files are named after the LSN they start at.
+ *
+ * Appending only frames the record and hands it to the SegmentedLog writer thread, which with SYNC durability
+ * forces each batch it writes to disk at once. Concurrent callers waiting on the log share that one force
+ * (group commit) instead of each paying for their own.
+ *
+ * A crash can leave a torn record at the end of the last segment. Opening the log cuts it off, since nothing
+ * was acknowledged on the strength of it.
+ */
+package com.github.bishopl.pizzatime.wal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+public class WriteAheadLog extends SegmentedLog {
+    /**
+     * The largest record accepted, larger records are refused on append and treated as torn on replay.
+     */
+    public static final int MAX_RECORD_BYTES = 1 << 24;
+
+    private static final int FRAME_HEADER_BYTES = 8;
+
+    private final Durability durability;
+    private final long endLsnAtOpen;
+
+    // Waited on by callers of awaitDurable, signalled after every pass of the writer
+    private final Object progressLock = new Object();
+
+    /**
+     * Opens the write-ahead log in a directory, creating it if needed, and starts its writer thread.
+     * New records go at the end of the last segment, after cutting off any torn record a crash left there.
+     * @param directory the directory holding the segment files
+     * @param durability how far a record must get before awaitDurable returns
+     * @param syncIntervalMillis how often BATCHED and ASYNC logs are forced to disk
+     * @param segmentBytes the size at which the writer starts a new segment
+     * @throws IOException if the log can't be opened
+     */
+    public WriteAheadLog(Path directory, Durability durability, long syncIntervalMillis, long segmentBytes) throws IOException {
+        super(directory, "write-ahead log", ".wal", segmentBytes, FRAME_HEADER_BYTES + 1,
+                durability == Durability.SYNC ? 0 : TimeUnit.MILLISECONDS.toNanos(requirePositive(syncIntervalMillis)));
+        this.durability = durability;
+        this.endLsnAtOpen = getAppendedOffset();
+        startWriter();
+    }
+
+    private static long requirePositive(long syncIntervalMillis) {
+        if (syncIntervalMillis < 1) {
+            throw new IllegalArgumentException("syncIntervalMillis must be positive: " + syncIntervalMillis);
+        }
+        return syncIntervalMillis;
+    }
+
+    /**
+     * Receives records read back from the log.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+
+        /**
+         * Handles one record.
+         * @param lsn the LSN of the record, the log position just past it
+         * @param payload the record as it was appended
+         */
+        void onRecord(long lsn, ByteBuffer payload);
+    }
+
+    /**
+     * Queues a record to be written. Returns straight away unless the writer is MAX_QUEUED_BYTES behind,
+     * wait for the record with awaitDurable. Records are written in the order they are appended.
+     * @param payload the record
+     * @return the LSN of the record
+     * @throws UncheckedIOException if the log has failed, in which case nothing more can be appended
+     * @throws IllegalStateException if the log is closed
+     */
+    public long append(byte[] payload) {
+        if (payload.length == 0 || payload.length > MAX_RECORD_BYTES) {
+            throw new IllegalArgumentException("Record must be between 1 and " + MAX_RECORD_BYTES + " bytes: " + payload.length);
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(payload);
+        byte[] frame = new byte[FRAME_HEADER_BYTES + payload.length];
+        ByteBuffer.wrap(frame).putInt(payload.length).putInt((int) checksum.getValue()).put(payload);
+        return enqueue(frame);
+    }
+
+    /**
+     * Waits until a record is as durable as the log's durability asks for: forced to disk for SYNC,
+     * written to the operating system for BATCHED, and not at all for ASYNC.
+     * @param lsn the LSN of the record, as returned by append
+     * @throws UncheckedIOException if the log failed before the record got there, or the wait was interrupted
+     */
+    public void awaitDurable(long lsn) {
+        if (durability == Durability.ASYNC) {
+            throwIfFailed();
+            return;
+        }
+        await(lsn, durability == Durability.SYNC);
+    }
+
+    /**
+     * Waits until a record is forced to disk, whatever the log's durability. BATCHED and ASYNC logs
+     * are forced every sync interval, so this waits at most about that long.
+     * @param lsn the LSN of the record, as returned by append
+     * @throws UncheckedIOException if the log failed before the record got there, or the wait was interrupted
+     */
+    public void awaitSynced(long lsn) {
+        await(lsn, true);
+    }
+
+    private void await(long lsn, boolean synced) {
+        if (reached(lsn, synced)) {
+            throwIfFailed();
+            return;
+        }
+        synchronized (progressLock) {
+            while (!reached(lsn, synced)) {
+                throwIfFailed();
+                try {
+                    progressLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for the write-ahead log"));
+                }
+            }
+        }
+    }
+
+    private boolean reached(long lsn, boolean synced) {
+        return (synced ? getSyncedOffset() : getWrittenOffset()) >= lsn;
+    }
+
+    @Override
+    protected void onProgress() {
+        synchronized (progressLock) {
+            progressLock.notifyAll();
+        }
+    }
+
+    /**
+     * Reads back every record from a given LSN up to the end of the log as it was when it was opened.
+     * Records appended since are not included, so replay before accepting changes.
+     * @param fromLsn the LSN of a record to start after, 0 to read the whole log
+     * @param handler receives each record in order
+     * @return the number of records read
+     * @throws IOException if a segment can't be read, a segment before the last one is corrupt,
+     *                     or the segments holding fromLsn have been deleted
+     */
+    public long replay(long fromLsn, RecordHandler handler) throws IOException {
+        long[] records = new long[1];
+        RecordHandler counting = (lsn, payload) -> {
+            records[0]++;
+            handler.onRecord(lsn, payload);
+        };
+        long[] segments = segmentStarts();
+        if (segments[0] > fromLsn) {
+            throw new IOException("Write-ahead log " + getDirectory() + " starts at " + segments[0]
+                    + ", records from " + fromLsn + " are gone");
+        }
+        for (int i = 0; i < segments.length && segments[i] < endLsnAtOpen; i++) {
+            long startLsn = segments[i];
+            long endLsn = i + 1 < segments.length ? Math.min(segments[i + 1], endLsnAtOpen) : endLsnAtOpen;
+            if (endLsn <= fromLsn) {
+                continue;
+            }
+            long validEnd = readSegment(segmentPath(startLsn), startLsn, endLsn - startLsn, fromLsn, counting);
+            if (startLsn + validEnd < endLsn) {
+                throw new IOException("Write-ahead log segment " + segmentPath(startLsn) + " is corrupt at byte " + validEnd);
+            }
+        }
+        return records[0];
+    }
+
+    @Override
+    protected long validLength(Path file, long startOffset, long size) throws IOException {
+        return readSegment(file, startOffset, size, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Reads the records of one segment, stopping at the first torn or corrupt frame.
+     * Records before fromLsn are skipped without reading them, since fromLsn is always the end of a record.
+     * @return the number of valid bytes at the start of the segment
+     */
+    private static long readSegment(Path file, long startLsn, long limit, long fromLsn, RecordHandler handler) throws IOException {
+        CRC32C checksum = new CRC32C();
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (fromLsn > startLsn && fromLsn - startLsn <= limit) {
+                position = fromLsn - startLsn;
+                in.skipNBytes(position);
+            }
+            while (limit - position >= FRAME_HEADER_BYTES) {
+                int length = in.readInt();
+                int expected = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES || length > limit - position - FRAME_HEADER_BYTES) {
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                checksum.reset();
+                checksum.update(payload);
+                if ((int) checksum.getValue() != expected) {
+                    break;
+                }
+                position += FRAME_HEADER_BYTES + length;
+                long lsn = startLsn + position;
+                if (handler != null && lsn > fromLsn) {
+                    handler.onRecord(lsn, ByteBuffer.wrap(payload));
+                }
+            }
+        }
+        return position;
+    }
+
+    /****************************
+     * Getters                  *
+     *****************************/
+
+    /**
+     * Returns how far a record must get before awaitDurable returns.
+     * @return the durability of the log
+     */
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Returns the LSN just past the last record appended.
+     * @return the end of the log
+     */
+    public long getEndLsn() {
+        return getAppendedOffset();
+    }
+
+    /**
+     * Returns the LSN up to which the log is known to be forced to disk.
+     * @return the synced LSN
+     */
+    public long getSyncedLsn() {
+        return getSyncedOffset();
+    }
+}
@@ -0,0 +1,171 @@
+package com.github.bishopl.pizzatime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.bishopl.pizzatime.changes.ChangeLog;
+
+public class ChangeLogTest {
+    private static final long SEGMENT_BYTES = 1 << 20;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testReadsWholeRecordsInBatches() throws Exception {
+        try (ChangeLog changeLog = new ChangeLog(tempDir, SEGMENT_BYTES)) {
+            List<String> appended = appendAll(changeLog, 100);
+            // Batches smaller than a few records still end on a record boundary
+            assertEquals(appended, readAll(changeLog, 0, 50));
+            assertEquals(appended, readAll(changeLog, 0, 1 << 20));
+            assertTrue(changeLog.read(changeLog.getEndOffset(), 100).isEmpty());
+        }
+    }
+
+    @Test
+    public void testRecordBiggerThanBatchIsReadWhole() throws Exception {
+        try (ChangeLog changeLog = new ChangeLog(tempDir, SEGMENT_BYTES)) {
+            String big = "x".repeat(10_000);
+            changeLog.append(bytes("small"));
+            awaitWritten(changeLog, changeLog.append(bytes(big)));
+
+            ChangeLog.Batch first = changeLog.read(0, 3);
+            assertEquals(List.of("small"), lines(first));
+            ChangeLog.Batch second = changeLog.read(first.getNextOffset(), 100);
+            assertEquals(List.of(big), lines(second));
+            assertEquals(changeLog.getEndOffset(), second.getNextOffset());
+        }
+    }
+
+    @Test
+    public void testSegmentsRollAndSurviveReopening() throws Exception {
+        List<String> appended;
+        try (ChangeLog changeLog = new ChangeLog(tempDir, 256)) {
+            appended = appendAll(changeLog, 100);
+            // Reads never cross a segment, so the whole log takes several batches even when one would fit it
+            assertTrue(changeLog.read(0, 1 << 20).getNextOffset() < changeLog.getEndOffset());
+        }
+        assertTrue(listSegments().size() > 10);
+
+        // A crash can leave half a record at the end, which is cut off on reopening
+        Path lastSegment = listSegments().get(listSegments().size() - 1);
+        Files.write(lastSegment, bytes("{\"torn"), StandardOpenOption.APPEND);
+        try (ChangeLog changeLog = new ChangeLog(tempDir, 256)) {
+            assertEquals(6, changeLog.getTruncatedBytes());
+            assertEquals(appended, readAll(changeLog, 0, 100));
+            appended.addAll(appendAll(changeLog, 10));
+            assertEquals(appended, readAll(changeLog, 0, 100));
+        }
+    }
+
+    @Test
+    public void testOldSegmentsAreDeletedPastRetainedBytes() throws Exception {
+        try (ChangeLog changeLog = new ChangeLog(tempDir, 256, 1024)) {
+            List<String> appended = appendAll(changeLog, 200);
+            assertTrue(changeLog.getStartOffset() > 0);
+            // The retained bytes, rounded up to whole segments, and the segment being written
+            assertTrue(changeLog.getEndOffset() - changeLog.getStartOffset() <= 1024 + 2 * 256);
+            assertTrue(listSegments().size() <= 8);
+            assertThrows(IllegalArgumentException.class, () -> changeLog.read(0, 100));
+
+            // What is kept is the newest records, still read whole from the start of the log
+            List<String> kept = readAll(changeLog, changeLog.getStartOffset(), 100);
+            assertEquals(appended.subList(appended.size() - kept.size(), appended.size()), kept);
+        }
+    }
+
+    @Test
+    public void testRejectsOffsetsThatAreNotRecords() throws Exception {
+        try (ChangeLog changeLog = new ChangeLog(tempDir, SEGMENT_BYTES)) {
+            appendAll(changeLog, 3);
+            assertThrows(IllegalArgumentException.class, () -> changeLog.read(1, 100));
+            assertThrows(IllegalArgumentException.class, () -> changeLog.read(changeLog.getEndOffset() + 1, 100));
+            assertThrows(IllegalArgumentException.class, () -> changeLog.read(-1, 100));
+            assertThrows(IllegalArgumentException.class, () -> changeLog.append(bytes("two\nlines")));
+        }
+    }
+
+    @Test
+    public void testWaitersRunOnceTheLogGrows() throws Exception {
+        try (ChangeLog changeLog = new ChangeLog(tempDir, SEGMENT_BYTES)) {
+            CountDownLatch woken = new CountDownLatch(1);
+            assertTrue(changeLog.runWhenPast(0, woken::countDown));
+            assertEquals(1, woken.getCount());
+
+            long end = changeLog.append(bytes("first"));
+            assertTrue(woken.await(5, TimeUnit.SECONDS));
+            awaitWritten(changeLog, end);
+            // Already past, so nothing is kept
+            assertFalse(changeLog.runWhenPast(0, () -> fail("Kept a waiter the log is already past")));
+
+            Runnable cancelled = () -> fail("Ran a cancelled waiter");
+            assertTrue(changeLog.runWhenPast(end, cancelled));
+            changeLog.cancel(cancelled);
+            awaitWritten(changeLog, changeLog.append(bytes("second")));
+        }
+    }
+
+    private static List<String> appendAll(ChangeLog changeLog, int count) throws InterruptedException {
+        List<String> appended = new ArrayList<>();
+        long end = 0;
+        for (int i = 0; i < count; i++) {
+            String record = "{\"change\":" + i + ",\"padding\":\"" + "p".repeat(i % 7) + "\"}";
+            end = changeLog.append(bytes(record));
+            appended.add(record);
+        }
+        awaitWritten(changeLog, end);
+        return appended;
+    }
+
+    private static List<String> readAll(ChangeLog changeLog, long offset, int maxBytes) throws IOException {
+        List<String> read = new ArrayList<>();
+        while (true) {
+            ChangeLog.Batch batch = changeLog.read(offset, maxBytes);
+            if (batch.isEmpty()) {
+                return read;
+            }
+            read.addAll(lines(batch));
+            offset = batch.getNextOffset();
+        }
+    }
+
+    private static List<String> lines(ChangeLog.Batch batch) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batch.transferTo(Channels.newChannel(out));
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertTrue(text.endsWith("\n"));
+        return List.of(text.split("\n"));
+    }
+
+    private static void awaitWritten(ChangeLog changeLog, long offset) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (changeLog.getEndOffset() < offset) {
+            assertTrue(System.nanoTime() < deadline, "Change log writer didn't catch up");
+            Thread.sleep(1);
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (var files = Files.list(tempDir)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
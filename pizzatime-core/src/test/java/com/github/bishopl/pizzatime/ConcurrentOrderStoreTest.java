@@ -0,0 +1,109 @@
+package com.github.bishopl.pizzatime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.store.ConcurrentOrderStore;
+import com.github.bishopl.pizzatime.store.LongConcurrentMap;
+
+public class ConcurrentOrderStoreTest {
+    private ConcurrentOrderStore orderStore;
+
+    @BeforeEach
+    public void setUp() {
+        orderStore = new ConcurrentOrderStore();
+    }
+
+    @Test
+    public void testPutAndGet() {
+        PizzaOrder pizzaOrder = new PizzaOrder(42L, new ArrayList<>());
+        assertNull(orderStore.put(pizzaOrder));
+        assertSame(pizzaOrder, orderStore.get(42L));
+        assertTrue(orderStore.contains(42L));
+        assertFalse(orderStore.contains(43L));
+        assertEquals(1, orderStore.size());
+    }
+
+    @Test
+    public void testPutReplacesSameId() {
+        PizzaOrder first = new PizzaOrder(7L, new ArrayList<>());
+        PizzaOrder second = new PizzaOrder(7L, new ArrayList<>());
+        orderStore.put(first);
+        assertSame(first, orderStore.put(second));
+        assertSame(second, orderStore.get(7L));
+        assertEquals(1, orderStore.size());
+    }
+
+    @Test
+    public void testRemove() {
+        orderStore.put(new PizzaOrder(1L, new ArrayList<>()));
+        assertNotNull(orderStore.remove(1L));
+        assertNull(orderStore.get(1L));
+        assertNull(orderStore.remove(1L));
+        assertEquals(0, orderStore.size());
+    }
+
+    @Test
+    public void testManyOrdersSurviveResizeAndRemoval() {
+        LongConcurrentMap<Long> map = new LongConcurrentMap<>(1);
+        for (long i = 0; i < 10_000; i++) {
+            map.put(i, i);
+        }
+        // Remove every other key so backward shifting runs through long probe chains
+        for (long i = 0; i < 10_000; i += 2) {
+            assertEquals(i, map.remove(i));
+        }
+        assertEquals(5_000, map.size());
+        for (long i = 0; i < 10_000; i++) {
+            if (i % 2 == 0) {
+                assertNull(map.get(i));
+            } else {
+                assertEquals(i, map.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testNegativeAndZeroIds() {
+        orderStore.put(new PizzaOrder(0L, new ArrayList<>()));
+        orderStore.put(new PizzaOrder(-1L, new ArrayList<>()));
+        assertTrue(orderStore.contains(0L));
+        assertTrue(orderStore.contains(-1L));
+    }
+
+    @Test
+    public void testConcurrentPuts() throws Exception {
+        int threads = 8;
+        int perThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long base = (long) t * perThread;
+                futures.add(executor.submit(() -> {
+                    for (long id = base; id < base + perThread; id++) {
+                        orderStore.put(new PizzaOrder(id, new ArrayList<>()));
+                        assertNotNull(orderStore.get(id));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(threads * perThread, orderStore.size());
+        for (long id = 0; id < threads * perThread; id++) {
+            assertEquals(id, orderStore.get(id).getId());
+        }
+    }
+}
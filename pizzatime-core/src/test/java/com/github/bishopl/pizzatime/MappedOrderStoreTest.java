@@ -0,0 +1,242 @@
+package com.github.bishopl.pizzatime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.bishopl.pizzatime.model.ArchivedOrder;
+import com.github.bishopl.pizzatime.model.OrderState;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingType;
+import com.github.bishopl.pizzatime.store.MappedOrderArchive;
+import com.github.bishopl.pizzatime.store.MappedOrderStore;
+
+public class MappedOrderStoreTest {
+    private static final int SMALL_CHUNK_BYTES = 1 << 12;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testPutGetRoundTrip() throws IOException {
+        try (MappedOrderStore orderStore = new MappedOrderStore(tempDir.resolve("orders"), SMALL_CHUNK_BYTES)) {
+            Pizza pizza = new Pizza(PizzaSize.LARGE);
+            pizza.addTopping(new PizzaTopping(ToppingType.HAM));
+            List<Pizza> pizzas = new ArrayList<>();
+            pizzas.add(pizza);
+            pizzas.add(null);
+            PizzaOrder pizzaOrder = new PizzaOrder(42L, pizzas);
+            pizzaOrder.bumpVersion();
+
+            assertNull(orderStore.put(pizzaOrder));
+            PizzaOrder stored = orderStore.get(42L);
+            assertNotSame(pizzaOrder, stored);
+            assertOrderEquals(pizzaOrder, stored);
+            assertEquals(pizzaOrder.getLastTouched(), stored.getLastTouched());
+            assertNull(stored.getPizzas().get(1));
+            assertTrue(orderStore.contains(42L));
+            assertFalse(orderStore.contains(43L));
+            assertNull(orderStore.get(43L));
+            assertEquals(1, orderStore.size());
+        }
+    }
+
+    @Test
+    public void testPutReplacesAndRemoveFrees() throws IOException {
+        try (MappedOrderStore orderStore = new MappedOrderStore(tempDir.resolve("orders"), SMALL_CHUNK_BYTES)) {
+            PizzaOrder pizzaOrder = new PizzaOrder(7L, pizzas(3));
+            orderStore.put(pizzaOrder);
+            pizzaOrder.addPizza(new Pizza(PizzaSize.SMALL));
+            pizzaOrder.bumpVersion();
+
+            PizzaOrder replaced = orderStore.put(pizzaOrder);
+            assertEquals(3, replaced.getPizzas().size());
+            assertEquals(4, orderStore.get(7L).getPizzas().size());
+            assertEquals(1, orderStore.size());
+
+            assertEquals(4, orderStore.remove(7L).getPizzas().size());
+            assertNull(orderStore.get(7L));
+            assertNull(orderStore.remove(7L));
+            assertEquals(0, orderStore.size());
+        }
+    }
+
+    @Test
+    public void testLargeOrdersChainContinuationSlots() throws IOException {
+        try (MappedOrderStore orderStore = new MappedOrderStore(tempDir.resolve("orders"), SMALL_CHUNK_BYTES)) {
+            PizzaOrder pizzaOrder = new PizzaOrder(1L, pizzas(MappedOrderStore.PIZZAS_PER_SLOT * 3 + 2));
+            orderStore.put(pizzaOrder);
+            assertOrderEquals(pizzaOrder, orderStore.get(1L));
+
+            // Shrinking frees the continuations, so the next order reuses them instead of growing the file
+            PizzaOrder smaller = new PizzaOrder(1L, pizzas(2));
+            orderStore.put(smaller);
+            long mappedBytes = orderStore.getMappedBytes();
+            orderStore.put(new PizzaOrder(2L, pizzas(MappedOrderStore.PIZZAS_PER_SLOT * 3)));
+            assertEquals(mappedBytes, orderStore.getMappedBytes());
+            assertOrderEquals(smaller, orderStore.get(1L));
+            assertEquals(MappedOrderStore.PIZZAS_PER_SLOT * 3, orderStore.get(2L).getPizzas().size());
+        }
+    }
+
+    @Test
+    public void testGrowsAcrossChunks() throws IOException {
+        int orderCount = 1_000;
+        try (MappedOrderStore orderStore = new MappedOrderStore(tempDir.resolve("orders"), SMALL_CHUNK_BYTES)) {
+            for (long id = 0; id < orderCount; id++) {
+                orderStore.put(new PizzaOrder(id, pizzas((int) (id % 20))));
+            }
+            assertTrue(orderStore.getMappedBytes() > SMALL_CHUNK_BYTES);
+            assertEquals(orderCount, orderStore.size());
+            for (long id = 0; id < orderCount; id++) {
+                assertEquals(id % 20, orderStore.get(id).getPizzas().size());
+            }
+            Set<Long> seen = new HashSet<>();
+            orderStore.forEach(pizzaOrder -> assertTrue(seen.add(pizzaOrder.getId())));
+            assertEquals(orderCount, seen.size());
+        }
+    }
+
+    @Test
+    public void testOrdersSurviveReopen() throws IOException {
+        Path file = tempDir.resolve("orders");
+        PizzaOrder kept = new PizzaOrder(5L, pizzas(MappedOrderStore.PIZZAS_PER_SLOT + 1));
+        kept.checkOut();
+        try (MappedOrderStore orderStore = new MappedOrderStore(file, SMALL_CHUNK_BYTES)) {
+            orderStore.put(new PizzaOrder(4L, pizzas(1)));
+            orderStore.put(kept);
+            orderStore.put(new PizzaOrder(6L, pizzas(2)));
+            orderStore.remove(4L);
+        }
+        try (MappedOrderStore orderStore = new MappedOrderStore(file, SMALL_CHUNK_BYTES)) {
+            assertEquals(2, orderStore.size());
+            assertNull(orderStore.get(4L));
+            assertOrderEquals(kept, orderStore.get(5L));
+            assertEquals(2, orderStore.get(6L).getPizzas().size());
+            assertEquals(0, orderStore.getTornSlots());
+            orderStore.put(new PizzaOrder(7L, pizzas(1)));
+            assertEquals(3, orderStore.size());
+        }
+    }
+
+    @Test
+    public void testRejectsOtherFiles() throws IOException {
+        Path file = tempDir.resolve("not-orders");
+        Files.writeString(file, "pizza");
+        assertThrows(IOException.class, () -> new MappedOrderStore(file, SMALL_CHUNK_BYTES));
+    }
+
+    @Test
+    public void testArchiveKeepsCheckedOutOrders() throws IOException {
+        Path file = tempDir.resolve("archive");
+        PizzaOrder pizzaOrder = new PizzaOrder(9L, pizzas(2));
+        pizzaOrder.checkOut();
+        try (MappedOrderArchive archive = new MappedOrderArchive(new MappedOrderStore(file, SMALL_CHUNK_BYTES))) {
+            archive.put(ArchivedOrder.of(pizzaOrder).withState(OrderState.FULFILLED));
+        }
+        try (MappedOrderArchive archive = new MappedOrderArchive(new MappedOrderStore(file, SMALL_CHUNK_BYTES))) {
+            ArchivedOrder archived = archive.get(9L);
+            assertEquals(OrderState.FULFILLED, archived.getState());
+            assertEquals(pizzaOrder.getVersion() + 1, archived.getVersion());
+            assertEquals(pizzaOrder.getTotalCostCents(), archived.getTotalCostCents());
+            assertEquals(2, archived.getPizzaCount());
+            assertTrue(archive.contains(9L));
+            assertEquals(1, archive.size());
+        }
+    }
+
+    @Test
+    public void testReadersNeverSeeHalfWrittenOrders() throws Exception {
+        int writers = 4;
+        int readers = 4;
+        try (MappedOrderStore orderStore = new MappedOrderStore(tempDir.resolve("orders"), SMALL_CHUNK_BYTES)) {
+            for (long id = 0; id < writers; id++) {
+                orderStore.put(new PizzaOrder(id, pizzas(1)));
+            }
+            AtomicBoolean running = new AtomicBoolean(true);
+            ExecutorService executor = Executors.newFixedThreadPool(writers + readers);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int w = 0; w < writers; w++) {
+                    long id = w;
+                    futures.add(executor.submit(() -> {
+                        // Each write keeps the version equal to the pizza count, readers check the two agree
+                        for (int i = 0; i < 20_000; i++) {
+                            int count = 1 + i % (MappedOrderStore.PIZZAS_PER_SLOT * 3);
+                            PizzaOrder pizzaOrder = PizzaOrder.restore(id, new Date(), pizzas(count), count,
+                                    0, OrderState.OPEN, count);
+                            orderStore.put(pizzaOrder);
+                        }
+                    }));
+                }
+                List<Future<?>> readerFutures = new ArrayList<>();
+                for (int r = 0; r < readers; r++) {
+                    readerFutures.add(executor.submit(() -> {
+                        while (running.get()) {
+                            for (long id = 0; id < writers; id++) {
+                                PizzaOrder pizzaOrder = orderStore.get(id);
+                                assertEquals(pizzaOrder.getVersion(), pizzaOrder.getPizzas().size());
+                                assertEquals(pizzaOrder.getVersion(), pizzaOrder.getTotalCostCents());
+                            }
+                        }
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+                running.set(false);
+                for (Future<?> future : readerFutures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertEquals(writers, orderStore.size());
+        }
+    }
+
+    private static List<Pizza> pizzas(int count) {
+        List<Pizza> pizzas = new ArrayList<>();
+        PizzaSize[] sizes = PizzaSize.values();
+        for (int i = 0; i < count; i++) {
+            Pizza pizza = new Pizza(sizes[i % sizes.length]);
+            if (i % 2 == 0) {
+                pizza.addTopping(new PizzaTopping(ToppingType.OLIVES));
+            }
+            pizzas.add(pizza);
+        }
+        return pizzas;
+    }
+
+    private static void assertOrderEquals(PizzaOrder expected, PizzaOrder actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getDate(), actual.getDate());
+        assertEquals(expected.getTotalCostCents(), actual.getTotalCostCents());
+        assertEquals(expected.getPriceVersion(), actual.getPriceVersion());
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getState(), actual.getState());
+        assertEquals(expected.getPizzas().size(), actual.getPizzas().size());
+        for (int i = 0; i < expected.getPizzas().size(); i++) {
+            Pizza pizza = expected.getPizzas().get(i);
+            assertEquals(pizza == null ? null : pizza.getPackedConfiguration(),
+                    actual.getPizzas().get(i) == null ? null : actual.getPizzas().get(i).getPackedConfiguration());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.github.bishopl.pizzatime;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.bishopl.pizzatime.model.Money;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingAmount;
+import com.github.bishopl.pizzatime.model.ToppingType;
+
+public class MoneyTest {
+
+    @Test
+    public void testFromDecimal() {
+        assertEquals(1250, Money.fromDecimal(new BigDecimal("12.50")));
+        assertEquals(0, Money.fromDecimal(new BigDecimal("0.005")));
+        assertEquals(2, Money.fromDecimal(new BigDecimal("0.015")));
+        assertEquals(1500, Money.multiplierFromDecimal(new BigDecimal("1.5")));
+    }
+
+    @Test
+    public void testMultiplyRoundsHalfEven() {
+        assertEquals(75, Money.multiply(150, 500));
+        assertEquals(225, Money.multiply(150, 1500));
+        // 0.25 * 0.5 = 0.125 rounds to the even cent 0.12, 0.35 * 0.5 = 0.175 rounds to 0.18
+        assertEquals(12, Money.multiply(25, 500));
+        assertEquals(18, Money.multiply(35, 500));
+        assertEquals(-12, Money.multiply(-25, 500));
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals("12.50", Money.format(1250));
+        assertEquals("0.05", Money.format(5));
+        assertEquals("-3.07", Money.format(-307));
+        assertEquals(new BigDecimal("37.00"), Money.toDecimal(3700));
+    }
+
+    @Test
+    public void testRepeatedMultipliersDoNotDrift() {
+        PizzaOrder pizzaOrder = new PizzaOrder();
+        for (int i = 0; i < 1_000; i++) {
+            Pizza pizza = new Pizza(PizzaSize.SMALL, new ArrayList<>());
+            pizza.addTopping(new PizzaTopping(ToppingType.HAM, ToppingAmount.LIGHT));
+            pizza.addTopping(new PizzaTopping(ToppingType.OLIVES, ToppingAmount.EXTRA));
+            pizzaOrder.addPizza(pizza);
+        }
+        // 4.00 + 0.75 + 1.50 per pizza
+        assertEquals(625_000, pizzaOrder.getTotalCostCents());
+    }
+
+    @Test
+    public void testTotalCostSerializedExactly() throws Exception {
+        List<Pizza> pizzas = new ArrayList<>();
+        pizzas.add(new Pizza(PizzaSize.SMALL, List.of(new PizzaTopping(ToppingType.BACON, ToppingAmount.EXTRA))));
+        String json = new ObjectMapper().writeValueAsString(new PizzaOrder(1L, pizzas));
+        assertTrue(json.contains("\"totalCost\":6.25"), json);
+    }
+
+    @Test
+    public void testTotalCostSurvivesRoundTrip() throws Exception {
+        List<Pizza> pizzas = new ArrayList<>();
+        pizzas.add(new Pizza(PizzaSize.LARGE, List.of(new PizzaTopping(ToppingType.HAM, ToppingAmount.LIGHT))));
+        pizzas.add(new Pizza(PizzaSize.SMALL, List.of(new PizzaTopping(ToppingType.BACON, ToppingAmount.EXTRA))));
+        PizzaOrder pizzaOrder = new PizzaOrder(1L, pizzas);
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        PizzaOrder read = objectMapper.readValue(objectMapper.writeValueAsString(pizzaOrder), PizzaOrder.class);
+        assertEquals(pizzaOrder.getTotalCostCents(), read.getTotalCostCents());
+        assertEquals(1234, objectMapper.readValue("{\"totalCost\":12.34}", PizzaOrder.class).getTotalCostCents());
+        assertEquals(1200, objectMapper.readValue("{\"totalCost\":12}", PizzaOrder.class).getTotalCostCents());
+    }
+}
@@ -0,0 +1,48 @@
+package com.github.bishopl.pizzatime;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingAmount;
+import com.github.bishopl.pizzatime.model.ToppingType;
+import com.github.bishopl.pizzatime.pricing.OrderPricing;
+
+public class OrderPricingTest {
+
+    @Test
+    public void testCalculatePriceOfOrder() {
+        List<PizzaTopping> bestToppings = new ArrayList<>();
+        bestToppings.add(new PizzaTopping(ToppingType.CHEESE));
+        bestToppings.add(new PizzaTopping(ToppingType.PINEAPPLES, ToppingAmount.EXTRA));
+        bestToppings.add(new PizzaTopping(ToppingType.BACON));
+        Pizza bestPizza = new Pizza(PizzaSize.SMALL, bestToppings);
+
+        PizzaOrder pizzaOrder = new PizzaOrder();
+        pizzaOrder.addPizza(new Pizza()); // 10.0
+        pizzaOrder.addPizza(bestPizza);   // 8.0
+
+        assertEquals(10.0, OrderPricing.getPricePerPizza(new Pizza()), 0.001);
+        assertEquals(800, OrderPricing.getPricePerPizzaCents(bestPizza));
+        assertEquals(1800, OrderPricing.calculatePriceOfOrderCents(pizzaOrder));
+        assertEquals(18.0, pizzaOrder.getTotalCost(), 0.001);
+    }
+
+    @Test
+    public void testVerifyPriceOfOrderCorrectsCachedTotal() {
+        PizzaOrder pizzaOrder = new PizzaOrder();
+        pizzaOrder.addPizza(new Pizza());
+        assertTrue(OrderPricing.verifyPriceOfOrder(pizzaOrder));
+        assertFalse(OrderPricing.repriceIfStale(pizzaOrder));
+
+        pizzaOrder.setTotalCostCents(1);
+        assertFalse(OrderPricing.verifyPriceOfOrder(pizzaOrder));
+        assertEquals(1000, pizzaOrder.getTotalCostCents());
+    }
+}
@@ -2,6 +2,9 @@ package com.github.bishopl.pizzatime;
 
 import com.github.bishopl.pizzatime.model.Pizza;
 import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingType;
 
 import org.junit.jupiter.api.Test;
 
@@ -38,4 +41,22 @@ public class PizzaOrderTest {
         assertEquals(2, order.getPizzas().size());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testTotalCostFollowsChanges() {
+        PizzaOrder order = new PizzaOrder();
+        Pizza pizza = new Pizza(); // 10.0
+        order.addPizza(pizza);
+        order.addPizza(new Pizza(PizzaSize.SMALL)); // 5.0
+        assertEquals(15.0, order.getTotalCost(), 0.001);
+
+        order.updatePizza(0, p -> p.addTopping(new PizzaTopping(ToppingType.HAM)));
+        assertEquals(16.5, order.getTotalCost(), 0.001);
+
+        order.updatePizza(1, p -> p.setPizzaSize(PizzaSize.LARGE));
+        assertEquals(26.5, order.getTotalCost(), 0.001);
+
+        order.removePizza(pizza);
+        assertEquals(15.0, order.getTotalCost(), 0.001);
+    }
+}
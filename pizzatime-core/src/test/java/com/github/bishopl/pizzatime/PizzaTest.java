@@ -5,6 +5,8 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.List;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import com.github.bishopl.pizzatime.model.Pizza;
 import com.github.bishopl.pizzatime.model.PizzaTopping;
 import com.github.bishopl.pizzatime.model.PizzaSize;
@@ -91,4 +93,64 @@ public class PizzaTest {
         assertTrue(pizza.getToppings().contains(newTopping));
         assertEquals(3, pizza.getToppings().size()); // Cheese is aready on the pizza, so there should be 3 toppings
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSubtotalFollowsChanges() {
+        Pizza pizza = new Pizza(); // medium cheese
+        assertEquals(1000, pizza.getSubtotalCents());
+
+        pizza.addTopping(new PizzaTopping(ToppingType.BACON, ToppingAmount.EXTRA));
+        assertEquals(1225, pizza.getSubtotalCents());
+
+        pizza.addTopping(new PizzaTopping(ToppingType.BACON, ToppingAmount.LIGHT));
+        assertEquals(1075, pizza.getSubtotalCents());
+
+        pizza.setPizzaSize(PizzaSize.LARGE);
+        assertEquals(1575, pizza.getSubtotalCents());
+
+        pizza.removeTopping(new PizzaTopping(ToppingType.CHEESE));
+        assertEquals(1475, pizza.getSubtotalCents());
+
+        long cachedSubtotal = pizza.getSubtotalCents();
+        assertEquals(pizza.reprice(), cachedSubtotal);
+    }
+
+    @Test
+    public void testRemoveMissingToppingKeepsSubtotal() {
+        Pizza pizza = new Pizza(PizzaSize.SMALL);
+        pizza.removeTopping(new PizzaTopping(ToppingType.HAM));
+        assertEquals(500, pizza.getSubtotalCents());
+    }
+
+    @Test
+    public void testJsonShape() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Pizza pizza = new Pizza(PizzaSize.LARGE);
+        pizza.addTopping(new PizzaTopping(ToppingType.OLIVES, ToppingAmount.EXTRA));
+        String json = objectMapper.writeValueAsString(pizza);
+        assertEquals("{\"size\":\"LARGE\",\"toppings\":[{\"type\":\"CHEESE\",\"amount\":\"REGULAR\"},"
+                + "{\"type\":\"OLIVES\",\"amount\":\"EXTRA\"}]}", json);
+
+        Pizza readBack = objectMapper.readValue(json, Pizza.class);
+        assertEquals(pizza.getPackedConfiguration(), readBack.getPackedConfiguration());
+        assertEquals(pizza.getSubtotalCents(), readBack.getSubtotalCents());
+
+        Pizza defaultPizza = objectMapper.readValue("{}", Pizza.class);
+        assertEquals(PizzaSize.MEDIUM, defaultPizza.getPizzaSize());
+        assertEquals(1, defaultPizza.getToppings().size());
+    }
+
+    @Test
+    public void testPackedConfigurationRoundTrip() {
+        Pizza pizza = new Pizza(PizzaSize.SMALL);
+        pizza.addTopping(new PizzaTopping(ToppingType.PINEAPPLES, ToppingAmount.LIGHT));
+        pizza.removeTopping(new PizzaTopping(ToppingType.CHEESE));
+
+        Pizza copy = Pizza.fromPackedConfiguration(pizza.getPackedConfiguration());
+        assertEquals(PizzaSize.SMALL, copy.getPizzaSize());
+        assertEquals(1, copy.getToppings().size());
+        assertEquals(ToppingAmount.LIGHT, copy.getTopping(ToppingType.PINEAPPLES).getToppingAmount());
+        assertNull(copy.getTopping(ToppingType.CHEESE));
+        assertEquals(pizza.getSubtotalCents(), copy.getSubtotalCents());
+    }
+}
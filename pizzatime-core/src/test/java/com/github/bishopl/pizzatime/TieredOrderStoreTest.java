@@ -0,0 +1,153 @@
+package com.github.bishopl.pizzatime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.store.MappedOrderStore;
+import com.github.bishopl.pizzatime.store.TieredOrderStore;
+
+public class TieredOrderStoreTest {
+    private static final int SMALL_CHUNK_BYTES = 1 << 16;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSpillsOverBudgetAndFaultsBackIn() throws IOException {
+        long orderBytes = new PizzaOrder(0L, pizzas(1)).estimateRetainedBytes();
+        try (TieredOrderStore orderStore = openStore(orderBytes * 20)) {
+            for (long id = 0; id < 100; id++) {
+                orderStore.put(new PizzaOrder(id, pizzas(1)));
+            }
+            assertTrue(orderStore.getHotBytes() <= orderStore.getMaxHotBytes());
+            assertTrue(orderStore.getSpills() >= 80);
+            assertEquals(100, orderStore.size());
+            assertEquals(100, orderStore.getHotOrders() + orderStore.getColdOrders());
+
+            long missesBefore = orderStore.getMisses();
+            for (long id = 0; id < 100; id++) {
+                assertTrue(orderStore.contains(id));
+                assertEquals(id, orderStore.get(id).getId());
+            }
+            assertTrue(orderStore.getMisses() > missesBefore);
+            assertTrue(orderStore.getHotBytes() <= orderStore.getMaxHotBytes());
+            assertEquals(100, orderStore.size());
+        }
+    }
+
+    @Test
+    public void testRecentlyReadOrdersStayHot() throws IOException {
+        long orderBytes = new PizzaOrder(0L, pizzas(1)).estimateRetainedBytes();
+        try (TieredOrderStore orderStore = openStore(orderBytes * 20)) {
+            PizzaOrder favourite = new PizzaOrder(1_000L, pizzas(1));
+            orderStore.put(favourite);
+            for (long id = 0; id < 200; id++) {
+                orderStore.put(new PizzaOrder(id, pizzas(1)));
+                // The same object back means a hit, a spilled order would come back decoded
+                assertSame(favourite, orderStore.get(1_000L));
+            }
+            assertEquals(0, orderStore.getMisses());
+            assertEquals(200, orderStore.getHits());
+        }
+    }
+
+    @Test
+    public void testPutAndRemoveReachEitherTier() throws IOException {
+        try (TieredOrderStore orderStore = openStore(0)) {
+            PizzaOrder pizzaOrder = new PizzaOrder(1L, pizzas(1));
+            assertNull(orderStore.put(pizzaOrder));
+            // With no budget every order is spilled as soon as it is put
+            assertEquals(1, orderStore.getColdOrders());
+
+            pizzaOrder.addPizza(new Pizza(PizzaSize.LARGE));
+            assertEquals(1, orderStore.put(pizzaOrder).getPizzas().size());
+            assertEquals(2, orderStore.get(1L).getPizzas().size());
+            assertEquals(1, orderStore.size());
+
+            assertEquals(2, orderStore.remove(1L).getPizzas().size());
+            assertNull(orderStore.get(1L));
+            assertFalse(orderStore.contains(1L));
+            assertEquals(0, orderStore.size());
+        }
+    }
+
+    @Test
+    public void testHotBytesFollowPutBackOrders() throws IOException {
+        try (TieredOrderStore orderStore = openStore(Long.MAX_VALUE)) {
+            PizzaOrder pizzaOrder = new PizzaOrder(1L, pizzas(1));
+            orderStore.put(pizzaOrder);
+            long before = orderStore.getHotBytes();
+            pizzaOrder.addPizza(new Pizza());
+            orderStore.put(pizzaOrder);
+            assertTrue(orderStore.getHotBytes() > before);
+            orderStore.remove(1L);
+            assertEquals(0, orderStore.getHotBytes());
+        }
+    }
+
+    @Test
+    public void testWalkSeesEveryOrderWhileOrdersMove() throws Exception {
+        int orderCount = 2_000;
+        long orderBytes = new PizzaOrder(0L, pizzas(1)).estimateRetainedBytes();
+        try (TieredOrderStore orderStore = openStore(orderBytes * 100)) {
+            for (long id = 0; id < orderCount; id++) {
+                orderStore.put(new PizzaOrder(id, pizzas(1)));
+            }
+            AtomicBoolean running = new AtomicBoolean(true);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> readers = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    readers.add(executor.submit(() -> {
+                        // Random reads keep faulting orders in and spilling others out
+                        while (running.get()) {
+                            assertNotNull(orderStore.get(ThreadLocalRandom.current().nextInt(orderCount)));
+                        }
+                    }));
+                }
+                for (int walk = 0; walk < 20; walk++) {
+                    Set<Long> seen = ConcurrentHashMap.newKeySet();
+                    orderStore.forEach(pizzaOrder -> seen.add(pizzaOrder.getId()));
+                    assertEquals(orderCount, seen.size());
+                }
+                running.set(false);
+                for (Future<?> reader : readers) {
+                    reader.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            assertTrue(orderStore.getSpills() > orderCount);
+            assertEquals(orderCount, orderStore.size());
+        }
+    }
+
+    private TieredOrderStore openStore(long maxHotBytes) throws IOException {
+        return new TieredOrderStore(maxHotBytes, new MappedOrderStore(tempDir.resolve("spilled"), SMALL_CHUNK_BYTES));
+    }
+
+    private static List<Pizza> pizzas(int count) {
+        List<Pizza> pizzas = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            pizzas.add(new Pizza());
+        }
+        return pizzas;
+    }
+}
@@ -0,0 +1,183 @@
+package com.github.bishopl.pizzatime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.bishopl.pizzatime.model.OrderState;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingType;
+import com.github.bishopl.pizzatime.wal.Durability;
+import com.github.bishopl.pizzatime.wal.OrderLogRecord;
+import com.github.bishopl.pizzatime.wal.OrderSnapshots;
+import com.github.bishopl.pizzatime.wal.WriteAheadLog;
+
+public class WriteAheadLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testRecordsReplayInOrderAfterReopening() throws IOException {
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, Durability.SYNC, 10, 1 << 20)) {
+            for (int i = 0; i < 100; i++) {
+                log.awaitDurable(log.append(Integer.toString(i).getBytes()));
+            }
+        }
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, Durability.SYNC, 10, 1 << 20)) {
+            List<String> records = new ArrayList<>();
+            assertEquals(100, log.replay(0, (lsn, payload) -> records.add(new String(payload.array()))));
+            for (int i = 0; i < 100; i++) {
+                assertEquals(Integer.toString(i), records.get(i));
+            }
+            assertEquals(0, log.getTruncatedBytes());
+        }
+    }
+
+    @Test
+    public void testConcurrentWritersShareSyncsAcrossSegments() throws Exception {
+        int threads = 16;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, Durability.SYNC, 10, 4096)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        long lsn = log.append(new byte[40]);
+                        log.awaitDurable(lsn);
+                        assertTrue(log.getSyncedLsn() >= lsn);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            assertTrue(log.getSyncCount() <= threads * perThread);
+        } finally {
+            executor.shutdown();
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertTrue(files.count() > 1);
+        }
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, Durability.SYNC, 10, 4096)) {
+            assertEquals(threads * perThread, log.replay(0, (lsn, payload) -> assertEquals(40, payload.remaining())));
+        }
+    }
+
+    @Test
+    public void testTornTailIsCutOff() throws IOException {
+        long end;
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, Durability.BATCHED, 10, 1 << 20)) {
+            log.append(new byte[] { 1 });
+            end = log.append(new byte[] { 2 });
+            log.awaitDurable(end);
+        }
+        // A crash in the middle of writing a third record
+        Path segment = tempDir.resolve(String.format("%020d.wal", 0));
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 100, 1, 2 }));
+        }
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, Durability.SYNC, 10, 1 << 20)) {
+            assertEquals(6, log.getTruncatedBytes());
+            assertEquals(end, log.getEndLsn());
+            log.awaitDurable(log.append(new byte[] { 3 }));
+        }
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, Durability.SYNC, 10, 1 << 20)) {
+            List<Byte> records = new ArrayList<>();
+            assertEquals(3, log.replay(0, (lsn, payload) -> records.add(payload.get())));
+            assertEquals(List.of((byte) 1, (byte) 2, (byte) 3), records);
+        }
+    }
+
+    @Test
+    public void testOrderRecordRoundTrip() {
+        PizzaOrder order = new PizzaOrder(7, List.of(new Pizza(PizzaSize.LARGE), new Pizza()));
+        order.updatePizza(0, pizza -> pizza.addTopping(new PizzaTopping(ToppingType.HAM)));
+        order.addPizza(null);
+        order.checkOut();
+        order.bumpVersion();
+
+        OrderLogRecord record = OrderLogRecord.decode(ByteBuffer.wrap(OrderLogRecord.encodeOrder(order)));
+        PizzaOrder restored = record.getPizzaOrder();
+        assertFalse(record.isRemoval());
+        assertEquals(7, restored.getId());
+        assertEquals(order.getVersion(), restored.getVersion());
+        assertEquals(OrderState.CHECKED_OUT, restored.getState());
+        assertEquals(order.getTotalCostCents(), restored.getTotalCostCents());
+        assertEquals(order.getDate(), restored.getDate());
+        assertEquals(3, restored.getPizzas().size());
+        assertEquals(order.getPizzas().get(0).getPackedConfiguration(), restored.getPizzas().get(0).getPackedConfiguration());
+        assertNull(restored.getPizzas().get(2));
+
+        OrderLogRecord removal = OrderLogRecord.decode(ByteBuffer.wrap(OrderLogRecord.encodeRemoval(7)));
+        assertTrue(removal.isRemoval());
+        assertEquals(7, removal.getOrderId());
+        assertThrows(IllegalArgumentException.class, () -> OrderLogRecord.decode(ByteBuffer.wrap(new byte[] { 9, 0 })));
+    }
+
+    @Test
+    public void testReplayFromLsnSkipsDeletedSegments() throws IOException {
+        long middle;
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, Durability.SYNC, 10, 256)) {
+            for (int i = 0; i < 50; i++) {
+                log.append(new byte[] { (byte) i });
+            }
+            middle = log.getEndLsn();
+            for (int i = 50; i < 100; i++) {
+                log.append(new byte[] { (byte) i });
+            }
+            log.awaitDurable(log.getEndLsn());
+            assertTrue(log.deleteSegmentsBefore(middle) > 0);
+        }
+        try (WriteAheadLog log = new WriteAheadLog(tempDir, Durability.SYNC, 10, 256)) {
+            List<Byte> records = new ArrayList<>();
+            assertEquals(50, log.replay(middle, (lsn, payload) -> records.add(payload.get())));
+            assertEquals((byte) 50, records.get(0));
+            assertThrows(IOException.class, () -> log.replay(0, (lsn, payload) -> { }));
+        }
+    }
+
+    @Test
+    public void testDamagedSnapshotFallsBackToOlderOne() throws IOException {
+        OrderSnapshots snapshots = new OrderSnapshots(tempDir);
+        List<PizzaOrder> orders = List.of(new PizzaOrder(1, List.of(new Pizza())), new PizzaOrder(2, List.of()));
+        snapshots.write(100, 2, action -> orders.forEach(action));
+        snapshots.write(200, 3, action -> orders.forEach(action));
+        snapshots.write(300, 4, action -> orders.forEach(action));
+        assertEquals(200, snapshots.getOldestKeptLsn());
+
+        List<Long> loaded = new ArrayList<>();
+        OrderSnapshots.Snapshot snapshot = snapshots.load(order -> loaded.add(order.getId()));
+        assertEquals(300, snapshot.lsn());
+        assertEquals(4, snapshot.lastOrderId());
+        assertEquals(2, snapshot.orderCount());
+        assertEquals(List.of(1L, 2L), loaded);
+
+        // Flip a byte in the middle of the newest snapshot
+        Path newest = snapshot.file();
+        byte[] bytes = Files.readAllBytes(newest);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(newest, bytes);
+        loaded.clear();
+        assertEquals(200, snapshots.load(order -> loaded.add(order.getId())).lsn());
+        assertEquals(2, loaded.size());
+    }
+}
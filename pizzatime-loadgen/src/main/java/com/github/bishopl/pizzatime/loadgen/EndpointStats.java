@@ -0,0 +1,94 @@
+/**
+ * Records the latencies and failures of one endpoint in an HDR histogram.
+ * Recording is wait-free, so callbacks on any number of client threads can record at once.
+ */
+package com.github.bishopl.pizzatime.loadgen;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+public class EndpointStats {
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(5);
+
+    private final String name;
+    private final Recorder recorder = new Recorder(HIGHEST_MICROS, 3);
+    private final LongAdder failures = new LongAdder();
+    private Histogram histogram;
+    private long failed;
+
+    /**
+     * Constructs a new EndpointStats.
+     * @param name the name the endpoint is reported under
+     */
+    public EndpointStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a finished request.
+     * @param latencyNanos the time from when the request was due to be sent until its response arrived
+     * @param success false if the request failed or was answered with an error status
+     */
+    public void record(long latencyNanos, boolean success) {
+        recorder.recordValue(Math.min(HIGHEST_MICROS, Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos))));
+        if (!success) {
+            failures.increment();
+        }
+    }
+
+    /**
+     * Throws away everything recorded so far, at the end of the warmup.
+     */
+    public void reset() {
+        recorder.getIntervalHistogram();
+        failures.reset();
+    }
+
+    /**
+     * Takes everything recorded since the last reset, at the end of the run.
+     */
+    public void finish() {
+        histogram = recorder.getIntervalHistogram();
+        failed = failures.sumThenReset();
+    }
+
+    /**
+     * Returns the name the endpoint is reported under.
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the latencies recorded between the reset and finish, in microseconds.
+     * @return the histogram
+     */
+    public Histogram getHistogram() {
+        return histogram;
+    }
+
+    /**
+     * Returns the number of failed requests recorded between the reset and finish.
+     * @return the number of failures
+     */
+    public long getFailures() {
+        return failed;
+    }
+
+    /**
+     * Prints one line of throughput and latency percentiles, in milliseconds.
+     * @param out the stream to print to
+     * @param seconds the length of the recorded run
+     */
+    public void print(PrintStream out, double seconds) {
+        out.printf("%-24s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f%n", name, histogram.getTotalCount(), failed,
+                histogram.getTotalCount() / seconds,
+                histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0);
+    }
+}
@@ -0,0 +1,297 @@
+/**
+ * Replays the ordering page's requests against a running app and reports throughput and latency per endpoint.
+ * Each customer does what pizza.js does: start an order with one default pizza, toggle toppings on and off,
+ * change the size, then check out. Requests are sent asynchronously, so thousands of customers need no threads.
+ *
+ * In the closed model a fixed number of customers each start a new order once their last one is checked out.
+ * In the open model customers arrive at a fixed rate whether or not the app keeps up. When more than the
+ * concurrency are in flight, arrivals wait their turn, and the wait counts towards their first request's latency,
+ * so a stalled app can't hide its queueing from the percentiles.
+ *
+ * Usage: LoadGenerator [--url=http://localhost:8080] [--concurrency=32] [--rate=0] [--warmup=10] [--duration=60]
+ *                      [--toggles=6] [--seed=42]
+ */
+package com.github.bishopl.pizzatime.loadgen;
+
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class LoadGenerator {
+    private static final String[] TOPPINGS = {
+            "CHEESE", "PEPPERONI", "SAUSAGE", "BACON", "HAM", "MUSHROOMS", "OLIVES", "ONIONS", "PEPPERS", "PINEAPPLES" };
+    private static final String[] SIZES = { "SMALL", "MEDIUM", "LARGE" };
+    // Order ids are sent as JSON strings
+    private static final Pattern ORDER_ID = Pattern.compile("\"id\"\\s*:\\s*\"(\\d+)\"");
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadOptions options;
+    private final HttpClient httpClient;
+    private final String ordersUrl;
+    private final EndpointStats createOrder = new EndpointStats("POST /orders");
+    private final EndpointStats addTopping = new EndpointStats("POST .../toppings");
+    private final EndpointStats removeTopping = new EndpointStats("DELETE .../toppings");
+    private final EndpointStats changeSize = new EndpointStats("PATCH .../pizzas/0");
+    private final EndpointStats checkout = new EndpointStats("POST .../checkout");
+    private final List<EndpointStats> endpoints = List.of(createOrder, addTopping, removeTopping, changeSize, checkout);
+    private final AtomicLong seeds;
+    private final LongAdder completedOrders = new LongAdder();
+    private final LongAdder failedOrders = new LongAdder();
+
+    // Customers in flight and, in the open model, the due times of arrivals waiting for one to finish
+    private final Object customersLock = new Object();
+    private final Queue<Long> waitingArrivals = new ArrayDeque<>();
+    private int inFlight;
+    private volatile boolean stopping;
+
+    /**
+     * Constructs a new LoadGenerator.
+     * @param options the settings of the load test
+     */
+    public LoadGenerator(LoadOptions options) {
+        this.options = options;
+        this.ordersUrl = options.getBaseUrl() + "/v1/app/orders";
+        this.seeds = new AtomicLong(options.getSeed());
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        LoadGenerator loadGenerator = new LoadGenerator(options);
+        loadGenerator.run();
+        loadGenerator.print(System.out);
+    }
+
+    /**
+     * Runs the warmup and the recorded run, then waits for the customers still in flight.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void run() throws InterruptedException {
+        long start = System.nanoTime();
+        ScheduledExecutorService arrivals = null;
+        if (options.getArrivalRate() > 0) {
+            arrivals = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "load-arrivals");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long periodNanos = Math.max(1, (long) (1e9 / options.getArrivalRate()));
+            AtomicLong arrival = new AtomicLong();
+            arrivals.scheduleAtFixedRate(() -> arrive(start + arrival.getAndIncrement() * periodNanos),
+                    0, periodNanos, TimeUnit.NANOSECONDS);
+        } else {
+            for (int i = 0; i < options.getConcurrency(); i++) {
+                arrive(System.nanoTime());
+            }
+        }
+
+        TimeUnit.SECONDS.sleep(options.getWarmupSeconds());
+        for (EndpointStats endpoint : endpoints) {
+            endpoint.reset();
+        }
+        completedOrders.reset();
+        failedOrders.reset();
+        TimeUnit.SECONDS.sleep(options.getDurationSeconds());
+        for (EndpointStats endpoint : endpoints) {
+            endpoint.finish();
+        }
+
+        stopping = true;
+        if (arrivals != null) {
+            arrivals.shutdownNow();
+        }
+        awaitCustomers(REQUEST_TIMEOUT.toMillis());
+    }
+
+    /**
+     * Prints the throughput and latency percentiles of each endpoint and of whole orders.
+     * @param out the stream to print to
+     */
+    public void print(PrintStream out) {
+        double seconds = options.getDurationSeconds();
+        out.printf("%s, %s, %d s recorded after %d s warmup%n", options.getBaseUrl(),
+                options.getArrivalRate() > 0
+                        ? "open model at " + options.getArrivalRate() + " orders/s, at most " + options.getConcurrency() + " in flight"
+                        : "closed model with " + options.getConcurrency() + " customers",
+                options.getDurationSeconds(), options.getWarmupSeconds());
+        out.printf("%-24s %9s %7s %10s %9s %9s %9s %9s%n", "endpoint", "requests", "errors", "req/s",
+                "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (EndpointStats endpoint : endpoints) {
+            endpoint.print(out, seconds);
+        }
+        out.printf("orders checked out: %d (%.1f/s), orders failed: %d%n",
+                completedOrders.sum(), completedOrders.sum() / seconds, failedOrders.sum());
+    }
+
+    /**
+     * Returns the stats of every endpoint, in the order the customers call them.
+     * @return the endpoint stats
+     */
+    public List<EndpointStats> getEndpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Returns the number of orders checked out during the recorded run.
+     * @return the number of completed orders
+     */
+    public long getCompletedOrders() {
+        return completedOrders.sum();
+    }
+
+    /**
+     * Returns the number of orders abandoned after a failed request during the recorded run.
+     * @return the number of failed orders
+     */
+    public long getFailedOrders() {
+        return failedOrders.sum();
+    }
+
+    /**
+     * Starts a customer due at a given time, or queues them if the most customers are already in flight.
+     */
+    private void arrive(long dueNanos) {
+        synchronized (customersLock) {
+            if (stopping) {
+                return;
+            }
+            if (inFlight >= options.getConcurrency()) {
+                waitingArrivals.add(dueNanos);
+                return;
+            }
+            inFlight++;
+        }
+        startCustomer(dueNanos);
+    }
+
+    private void startCustomer(long dueNanos) {
+        runOrder(dueNanos).whenComplete((checkedOut, error) -> {
+            if (Boolean.TRUE.equals(checkedOut)) {
+                completedOrders.increment();
+            } else {
+                failedOrders.increment();
+            }
+            Long nextDue;
+            synchronized (customersLock) {
+                if (stopping) {
+                    inFlight--;
+                    customersLock.notifyAll();
+                    return;
+                }
+                nextDue = options.getArrivalRate() > 0 ? waitingArrivals.poll() : Long.valueOf(System.nanoTime());
+                if (nextDue == null) {
+                    inFlight--;
+                    return;
+                }
+            }
+            startCustomer(nextDue);
+        });
+    }
+
+    private void awaitCustomers(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (customersLock) {
+            waitingArrivals.clear();
+            while (inFlight > 0 && System.currentTimeMillis() < deadline) {
+                customersLock.wait(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        }
+    }
+
+    /**
+     * Runs one customer's order from start to checkout.
+     * @param dueNanos when the customer arrived, which the first request's latency is measured from
+     * @return true if the order was checked out, false if a request failed and the order was abandoned
+     */
+    private CompletableFuture<Boolean> runOrder(long dueNanos) {
+        SplittableRandom random = new SplittableRandom(seeds.getAndIncrement());
+        HttpRequest create = json(URI.create(ordersUrl), "POST", "[{}]");
+        return send(createOrder, create, dueNanos).thenCompose(body -> {
+            Matcher matcher = body == null ? null : ORDER_ID.matcher(body);
+            if (matcher == null || !matcher.find()) {
+                return CompletableFuture.completedFuture(false);
+            }
+            String orderUrl = ordersUrl + "/" + matcher.group(1);
+            return runSteps(orderSteps(orderUrl, random), 0);
+        });
+    }
+
+    /**
+     * Builds the requests the page makes after an order is started: each topping toggle adds a topping,
+     * or removes it if it is already on, then the size changes and the order is checked out.
+     */
+    private List<Step> orderSteps(String orderUrl, SplittableRandom random) {
+        URI toppingsUrl = URI.create(orderUrl + "/pizzas/0/toppings");
+        boolean[] selected = new boolean[TOPPINGS.length];
+        List<Step> steps = new ArrayList<>();
+        for (int i = 0; i < options.getToppingToggles(); i++) {
+            int topping = random.nextInt(TOPPINGS.length);
+            String body = "{\"type\":\"" + TOPPINGS[topping] + "\",\"amount\":\"REGULAR\"}";
+            steps.add(selected[topping]
+                    ? new Step(removeTopping, json(toppingsUrl, "DELETE", body))
+                    : new Step(addTopping, json(toppingsUrl, "POST", body)));
+            selected[topping] = !selected[topping];
+        }
+        // The page sends the size as a bare string
+        steps.add(new Step(changeSize, json(URI.create(orderUrl + "/pizzas/0"), "PATCH", SIZES[random.nextInt(SIZES.length)])));
+        steps.add(new Step(checkout, json(URI.create(orderUrl + "/checkout"), "POST", "")));
+        return steps;
+    }
+
+    private CompletableFuture<Boolean> runSteps(List<Step> steps, int index) {
+        if (index == steps.size()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        Step step = steps.get(index);
+        return send(step.endpoint, step.request, System.nanoTime())
+                .thenCompose(body -> body == null ? CompletableFuture.completedFuture(false) : runSteps(steps, index + 1));
+    }
+
+    /**
+     * Sends a request and records its latency.
+     * @return the response body, or null if the request failed or was answered with an error status
+     */
+    private CompletableFuture<String> send(EndpointStats endpoint, HttpRequest request, long dueNanos) {
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).handle((response, error) -> {
+            boolean success = error == null && response.statusCode() < 400;
+            endpoint.record(System.nanoTime() - dueNanos, success);
+            return success ? response.body() : null;
+        });
+    }
+
+    private static HttpRequest json(URI uri, String method, String body) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json;charset=utf-8")
+                .method(method, body.isEmpty() ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private record Step(EndpointStats endpoint, HttpRequest request) {
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Represents the settings of a load test, parsed from "--name=value" arguments.
+ */
+package com.github.bishopl.pizzatime.loadgen;
+
+import java.net.URI;
+
+public class LoadOptions {
+    private URI baseUrl = URI.create("http://localhost:8080");
+    private int concurrency = 32;
+    private double arrivalRate = 0;
+    private long warmupSeconds = 10;
+    private long durationSeconds = 60;
+    private int toppingToggles = 6;
+    private long seed = 42;
+
+    /**
+     * Parses load test settings, keeping the default of any setting that isn't given.
+     * Settings: url, concurrency, rate, warmup, duration, toggles, seed.
+     * @param args the arguments, e.g. "--concurrency=64" "--rate=200"
+     * @return the settings
+     * @throws IllegalArgumentException if an argument is unknown or its value is invalid
+     */
+    public static LoadOptions parse(String... args) {
+        LoadOptions options = new LoadOptions();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            String name = arg.substring(2, equals);
+            String value = arg.substring(equals + 1);
+            try {
+                switch (name) {
+                    case "url" -> options.baseUrl = URI.create(value.endsWith("/") ? value.substring(0, value.length() - 1) : value);
+                    case "concurrency" -> options.concurrency = Integer.parseInt(value);
+                    case "rate" -> options.arrivalRate = Double.parseDouble(value);
+                    case "warmup" -> options.warmupSeconds = Long.parseLong(value);
+                    case "duration" -> options.durationSeconds = Long.parseLong(value);
+                    case "toggles" -> options.toppingToggles = Integer.parseInt(value);
+                    case "seed" -> options.seed = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown setting " + name);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + name + ": " + value, e);
+            }
+        }
+        if (options.concurrency < 1 || options.arrivalRate < 0 || options.warmupSeconds < 0
+                || options.durationSeconds < 1 || options.toppingToggles < 0) {
+            throw new IllegalArgumentException("Settings out of range");
+        }
+        return options;
+    }
+
+    /**
+     * Returns the URL of the app under test, without a trailing slash.
+     * @return the base URL
+     */
+    public URI getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Returns the number of customers in the closed model, or the most customers in flight at once in the open model.
+     * @return the concurrency
+     */
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * Returns the number of new customers arriving per second in the open model, or 0 for the closed model,
+     * where each customer starts a new order as soon as their last one is checked out.
+     * @return the arrival rate
+     */
+    public double getArrivalRate() {
+        return arrivalRate;
+    }
+
+    /**
+     * Returns how long the load runs before anything is recorded.
+     * @return the warmup in seconds
+     */
+    public long getWarmupSeconds() {
+        return warmupSeconds;
+    }
+
+    /**
+     * Returns how long the load is recorded for, after the warmup.
+     * @return the duration in seconds
+     */
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    /**
+     * Returns the number of topping changes each customer makes before changing the size and checking out.
+     * @return the topping toggles per order
+     */
+    public int getToppingToggles() {
+        return toppingToggles;
+    }
+
+    /**
+     * Returns the seed the customers' choices are drawn from.
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+}
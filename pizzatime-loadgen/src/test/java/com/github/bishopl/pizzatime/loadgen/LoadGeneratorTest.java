@@ -0,0 +1,49 @@
+package com.github.bishopl.pizzatime.loadgen;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import com.github.bishopl.pizzatime.PizzatimeApplication;
+
+@SpringBootTest(classes = PizzatimeApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class LoadGeneratorTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void testClosedModelReplaysOrders() throws InterruptedException {
+        LoadGenerator loadGenerator = new LoadGenerator(LoadOptions.parse(
+                "--url=http://localhost:" + port + "/", "--concurrency=4", "--warmup=0", "--duration=2", "--toggles=4"));
+        loadGenerator.run();
+
+        assertTrue(loadGenerator.getCompletedOrders() > 0);
+        assertEquals(0, loadGenerator.getFailedOrders());
+        for (EndpointStats endpoint : loadGenerator.getEndpoints()) {
+            assertEquals(0, endpoint.getFailures(), endpoint.getName());
+        }
+        assertTrue(loadGenerator.getEndpoints().get(0).getHistogram().getTotalCount() > 0);
+    }
+
+    @Test
+    public void testOpenModelArrives() throws InterruptedException {
+        LoadGenerator loadGenerator = new LoadGenerator(LoadOptions.parse(
+                "--url=http://localhost:" + port, "--rate=20", "--warmup=1", "--duration=2"));
+        loadGenerator.run();
+
+        // How many arrive depends on how busy the machine is, so only check that they did and none failed
+        long created = loadGenerator.getEndpoints().get(0).getHistogram().getTotalCount();
+        assertTrue(created > 0, "created " + created);
+        assertEquals(0, loadGenerator.getFailedOrders());
+    }
+
+    @Test
+    public void testParseRejectsUnknownSettings() {
+        assertThrows(IllegalArgumentException.class, () -> LoadOptions.parse("--threads=4"));
+        assertThrows(IllegalArgumentException.class, () -> LoadOptions.parse("--concurrency=0"));
+        assertEquals(250.0, LoadOptions.parse("--rate=250").getArrivalRate(), 0.0);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Streams pizza order changes to reactive subscribers.
+ * Each followed order has one multicast sink, fed by the service's order events. Every subscriber keeps only the latest
+ * undelivered change, so a slow subscriber receives fewer, newer updates instead of a growing backlog,
+ * and a subscriber that cannot keep up never holds back the others.
+ */
+package com.github.bishopl.pizzatime.reactive;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.service.OrderEvent;
+import com.github.bishopl.pizzatime.service.OrderListener;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+
+import jakarta.annotation.PreDestroy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+@Component
+public class ReactiveOrderEvents implements OrderListener {
+    private final PizzaOrderService pizzaOrderService;
+    private final Map<Long, FollowedOrder> followedOrders = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ReactiveOrderEvents(PizzaOrderService pizzaOrderService) {
+        this.pizzaOrderService = pizzaOrderService;
+        pizzaOrderService.addOrderListener(this);
+    }
+
+    /**
+     * Follows the changes of a pizza order. The order's current state comes first, as an UPDATED event,
+     * and the stream completes after the order is fulfilled, deleted or expires.
+     * Non-removal events carry the order's latest state, which covers every change dropped before it.
+     * @param orderId the ID of the pizza order
+     * @return the order's events, or an empty Flux if there is no order with the given ID
+     */
+    public Flux<OrderEvent> follow(long orderId) {
+        return Flux.defer(() -> {
+            Flux<OrderEvent> changes = acquire(orderId).asFlux();
+            PizzaOrder pizzaOrder = pizzaOrderService.getPizzaOrderById(orderId);
+            if (pizzaOrder == null) {
+                release(orderId);
+                return Flux.empty();
+            }
+            return changes
+                    .onBackpressureLatest()
+                    .map(this::latest)
+                    .startWith(new OrderEvent(OrderEvent.Type.UPDATED, pizzaOrder))
+                    .takeUntil(event -> event.isRemoval() || event.getType() == OrderEvent.Type.FULFILLED)
+                    .doFinally(signal -> release(orderId));
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public void onOrderEvent(OrderEvent event) {
+        FollowedOrder followed = followedOrders.get(event.getOrderId());
+        if (followed != null) {
+            // Events of one order are published under its lock, so emissions into one sink never overlap
+            followed.sink.tryEmitNext(event);
+        }
+    }
+
+    /**
+     * Returns the number of orders with at least one follower.
+     * @return the number of followed orders
+     */
+    public int getFollowedOrderCount() {
+        return followedOrders.size();
+    }
+
+    /**
+     * Completes every stream and stops listening to the service.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pizzaOrderService.removeOrderListener(this);
+        for (FollowedOrder followed : followedOrders.values()) {
+            followed.sink.tryEmitComplete();
+        }
+        followedOrders.clear();
+    }
+
+    private OrderEvent latest(OrderEvent event) {
+        if (event.isRemoval()) {
+            return event;
+        }
+        PizzaOrder latest = pizzaOrderService.getPizzaOrderById(event.getOrderId());
+        return latest == null ? event : new OrderEvent(event.getType(), latest);
+    }
+
+    /**
+     * Counts a follower of an order and returns the order's sink, creating it for the first follower.
+     * Followers are counted from here rather than by subscribers, so a sink is never dropped between
+     * a follower getting it and subscribing to it.
+     */
+    private Sinks.Many<OrderEvent> acquire(long orderId) {
+        return followedOrders.compute(orderId, (id, followed) -> {
+            if (followed == null) {
+                followed = new FollowedOrder();
+            }
+            followed.followers++;
+            return followed;
+        }).sink;
+    }
+
+    /**
+     * Stops counting a follower of an order, dropping the order's sink after the last one.
+     */
+    private void release(long orderId) {
+        followedOrders.computeIfPresent(orderId, (id, followed) -> --followed.followers == 0 ? null : followed);
+    }
+
+    /**
+     * An order's sink and its number of followers, only changed inside the map's compute methods.
+     */
+    private static final class FollowedOrder {
+        private final Sinks.Many<OrderEvent> sink = Sinks.many().multicast().directBestEffort();
+        private int followers;
+    }
+}
@@ -0,0 +1,461 @@
+/**
+ * This class serves the "/v1/app/orders" REST API on WebFlux, with the same contract as PizzaOrderController.
+ * Handlers never block an event loop: bodies are decoded before a handler runs, service calls, which can wait
+ * for the write-ahead log, the stores' files or an order's lock, run on the bounded elastic scheduler,
+ * and order events are streamed without holding a thread per subscriber.
+ * Bulk import and export stay on the MVC app, which streams them through blocking InputStreams and OutputStreams.
+ */
+package com.github.bishopl.pizzatime.reactive;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+
+import com.github.bishopl.pizzatime.controller.OrderResponses;
+import com.github.bishopl.pizzatime.model.OrderOperation;
+import com.github.bishopl.pizzatime.model.OrderSummary;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.service.PizzaOrderCounterService;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+import com.github.bishopl.pizzatime.service.StaleOrderVersionException;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+@RestController
+@RequestMapping("/v1/app/orders")
+public class ReactivePizzaOrderController {
+
+    /**
+     * Media type that asks a change endpoint for an OrderSummary instead of the whole order.
+     * The same can be asked for with the query parameter "view=summary".
+     */
+    public static final String SUMMARY_MEDIA_TYPE = OrderResponses.SUMMARY_MEDIA_TYPE;
+
+    private final PizzaOrderService pizzaOrderService;
+    private final PizzaOrderCounterService pizzaOrderCounterService;
+    private final ReactiveOrderEvents reactiveOrderEvents;
+
+    @Autowired
+    public ReactivePizzaOrderController(PizzaOrderService pizzaOrderService, PizzaOrderCounterService pizzaOrderCounterService,
+                                        ReactiveOrderEvents reactiveOrderEvents) {
+        this.pizzaOrderService = pizzaOrderService;
+        this.pizzaOrderCounterService = pizzaOrderCounterService;
+        this.reactiveOrderEvents = reactiveOrderEvents;
+    }
+
+
+    /***************************************
+    * Orders                               *
+    *****************************************/
+
+    /**
+     * Retrieves a pizza order by its ID.
+     *
+     * @param orderId     the ID of the pizza order to retrieve
+     * @param ifNoneMatch the ETag of the version the client already has, if any
+     * @return the pizza order if found, a 304 Not Modified status if the client's version is current,
+     *         or a 404 Not Found status if not found
+     */
+    @GetMapping("/{orderId}")
+    public Mono<ResponseEntity<PizzaOrder>> getPizzaOrderById(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return callService(() -> pizzaOrderService.getPizzaOrderById(orderId))
+                .map(pizzaOrder -> OrderResponses.conditionalResponse(pizzaOrder.getVersion(), ifNoneMatch, pizzaOrder))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Subscribes to a pizza order's changes as Server-Sent Events.
+     * The current state is pushed first, then the latest state after each change, until the order is fulfilled,
+     * deleted or expires. Events are named after the change, e.g. "updated" or "checked_out", and carry the version as id.
+     *
+     * @param orderId the ID of the pizza order to follow
+     * @param view    "summary" to push OrderSummary objects instead of whole orders
+     * @return the event stream, or a 404 Not Found status if not found
+     */
+    @GetMapping(value = "/{orderId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Mono<ResponseEntity<Flux<ServerSentEvent<Object>>>> subscribeToPizzaOrder(
+            @PathVariable Long orderId,
+            @RequestParam(required = false) String view) {
+        boolean summary = OrderResponses.isSummaryView(view);
+        return callService(() -> pizzaOrderService.isValidPizzaOrder(orderId))
+                .map(found -> {
+                    if (!found) {
+                        return ResponseEntity.notFound().<Flux<ServerSentEvent<Object>>>build();
+                    }
+                    Flux<ServerSentEvent<Object>> events = reactiveOrderEvents.follow(orderId)
+                            .map(event -> ServerSentEvent.builder()
+                                    .event(event.getType().name().toLowerCase(Locale.ROOT))
+                                    .id(Long.toString(event.getPizzaOrder().getVersion()))
+                                    .data(summary ? OrderSummary.of(event.getPizzaOrder()) : event.getPizzaOrder())
+                                    .build());
+                    return ResponseEntity.ok(events);
+                });
+    }
+
+    /**
+     * Creates a new pizza order.
+     *
+     * @param pizzaOrder the pizza order to create
+     * @return the created pizza order and a 201 Created status
+     */
+    @PostMapping
+    public Mono<ResponseEntity<PizzaOrder>> createPizzaOrder(@RequestBody List<Pizza> pizzaOrder) {
+        return callService(() -> {
+            long id = pizzaOrderCounterService.getNextOrderNumber();
+            PizzaOrder createdOrder = pizzaOrderService.createPizzaOrder(id, pizzaOrder);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
+        });
+    }
+
+    /**
+     * Checks out a pizza order.
+     *
+     * @param orderId  the ID of the pizza order to check out
+     * @param ifMatch  the ETag of the version the change was made against, if any
+     * @param exchange the exchange, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return the checked out pizza order if found, or a 404 Not Found status if not found
+     */
+    @PostMapping("/{orderId}/checkout")
+    public Mono<ResponseEntity<Object>> checkoutOrder(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            ServerWebExchange exchange) {
+        return change(orderId, ifMatch, () -> pizzaOrderService.checkout(orderId), null, exchange);
+    }
+
+    /**
+     * Marks a checked out pizza order as fulfilled.
+     *
+     * @param orderId  the ID of the pizza order to fulfill
+     * @param ifMatch  the ETag of the version the change was made against, if any
+     * @param exchange the exchange, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return the fulfilled pizza order if found, or a 404 Not Found status if not found
+     */
+    @PostMapping("/{orderId}/fulfill")
+    public Mono<ResponseEntity<Object>> fulfillOrder(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            ServerWebExchange exchange) {
+        return change(orderId, ifMatch, () -> pizzaOrderService.fulfill(orderId), null, exchange);
+    }
+
+    /**
+     * Applies an ordered batch of changes to a pizza order in one request.
+     * Either every change is applied or none is.
+     *
+     * @param orderId    the ID of the pizza order to change
+     * @param operations the changes to apply, in order
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param exchange   the exchange, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return the updated pizza order if found, a 404 Not Found status if not found,
+     *         or a 400 Bad Request status if any change is invalid
+     */
+    @PostMapping("/{orderId}/batch")
+    public Mono<ResponseEntity<Object>> applyBatch(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody List<OrderOperation> operations,
+            ServerWebExchange exchange) {
+        return change(orderId, ifMatch, () -> pizzaOrderService.applyBatch(orderId, operations), null, exchange)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.badRequest().build()));
+    }
+
+    /**
+     * Deletes a pizza order.
+     *
+     * @param orderId the ID of the pizza order to delete
+     * @param ifMatch the ETag of the version the change was made against, if any
+     * @return a 204 No Content status if the pizza order was deleted, or a 404 Not Found status if not found
+     */
+    @DeleteMapping("/{orderId}")
+    public Mono<ResponseEntity<Void>> deletePizzaOrder(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        return callService(() -> pizzaOrderService.ifVersion(orderId, OrderResponses.expectedVersion(ifMatch),
+                        () -> pizzaOrderService.deletePizzaOrder(orderId)))
+                .map(deleted -> Boolean.TRUE.equals(deleted)
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+
+
+    /***************************************
+    * Pizza                                *
+    *****************************************/
+
+    /**
+     * Retrieves all pizzas in an order.
+     *
+     * @param orderId     the ID of the pizza order to retrieve
+     * @param ifNoneMatch the ETag of the version the client already has, if any
+     * @return the pizzas if found, or a 404 Not Found status if not found
+     */
+    @GetMapping("/{orderId}/pizzas")
+    public Mono<ResponseEntity<List<Pizza>>> getPizzas(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return callService(() -> pizzaOrderService.getPizzaOrderById(orderId))
+                .map(pizzaOrder -> OrderResponses.conditionalResponse(pizzaOrder.getVersion(), ifNoneMatch, pizzaOrder.getPizzas()))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Retrieves a pizza by its index.
+     *
+     * @param orderId     the ID of the pizza order to retrieve
+     * @param pizzaIndex  the index of the pizza to retrieve
+     * @param ifNoneMatch the ETag of the version the client already has, if any
+     * @return the pizza if found, or a 404 Not Found status if not found
+     */
+    @GetMapping("/{orderId}/pizzas/{pizzaIndex}")
+    public Mono<ResponseEntity<Pizza>> getPizzaById(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return callService(() -> pizzaOrderService.getPizzaOrderById(orderId))
+                .mapNotNull(pizzaOrder -> {
+                    long version = pizzaOrder.getVersion();
+                    Pizza pizza = OrderResponses.pizzaAt(pizzaOrder, pizzaIndex);
+                    return pizza == null ? null : OrderResponses.conditionalResponse(version, ifNoneMatch, pizza);
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Creates a new pizza.
+     *
+     * @param orderId  the ID of the pizza order to create the pizza in
+     * @param ifMatch  the ETag of the version the change was made against, if any
+     * @param exchange the exchange, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return the updated pizza order if found, or a 404 Not Found status if not found
+     */
+    @PostMapping("/{orderId}/pizzas/{pizzaIndex}")
+    public Mono<ResponseEntity<Object>> createPizza(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            ServerWebExchange exchange) {
+        return change(orderId, ifMatch, () -> pizzaOrderService.createPizza(orderId), OrderResponses.NEWEST_PIZZA, exchange);
+    }
+
+    /**
+     * Deletes a pizza.
+     *
+     * @param orderId    the ID of the pizza order to delete the pizza from
+     * @param pizzaIndex the index of the pizza to delete
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param exchange   the exchange, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return the updated pizza order if found, or a 404 Not Found status if not found
+     */
+    @DeleteMapping("/{orderId}/pizzas/{pizzaIndex}")
+    public Mono<ResponseEntity<Object>> deletePizza(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            ServerWebExchange exchange) {
+        return change(orderId, ifMatch, () -> pizzaOrderService.deletePizza(orderId, pizzaIndex), null, exchange);
+    }
+
+    /**
+     * Updates a pizza's size.
+     *
+     * @param orderId    the ID of the pizza order to update the pizza in
+     * @param pizzaIndex the index of the pizza to update
+     * @param pizzaSize  the new size of the pizza
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param exchange   the exchange, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return the updated pizza order if found, a 404 Not Found status if not found,
+     *         or a 400 Bad Request status if the size is unknown
+     */
+    @PatchMapping("/{orderId}/pizzas/{pizzaIndex}")
+    public Mono<ResponseEntity<Object>> updatePizza(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody String pizzaSize,
+            ServerWebExchange exchange) {
+        PizzaSize size;
+        try {
+            size = PizzaSize.valueOf(pizzaSize);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        return change(orderId, ifMatch, () -> pizzaOrderService.updatePizzaSize(orderId, pizzaIndex, size),
+                pizzaIndex, exchange);
+    }
+
+
+    /***************************************
+    * Topping                              *
+    *****************************************/
+
+    /**
+     * Retrieves all toppings on a pizza.
+     *
+     * @param orderId     the ID of the pizza order to retrieve the pizza from
+     * @param pizzaIndex  the index of the pizza to retrieve the toppings from
+     * @param ifNoneMatch the ETag of the version the client already has, if any
+     * @return the toppings if found, or a 404 Not Found status if not found
+     */
+    @GetMapping("/{orderId}/pizzas/{pizzaIndex}/toppings")
+    public Mono<ResponseEntity<List<PizzaTopping>>> getPizzaToppings(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        return callService(() -> pizzaOrderService.getPizzaOrderById(orderId))
+                .mapNotNull(pizzaOrder -> {
+                    long version = pizzaOrder.getVersion();
+                    Pizza pizza = OrderResponses.pizzaAt(pizzaOrder, pizzaIndex);
+                    return pizza == null ? null : OrderResponses.conditionalResponse(version, ifNoneMatch, pizza.getToppings());
+                })
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Adds a topping to a pizza.
+     *
+     * @param orderId    the ID of the pizza order to add the topping to
+     * @param pizzaIndex the index of the pizza to add the topping to
+     * @param newTopping the topping to add
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param exchange   the exchange, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return the updated pizza order if found, or a 404 Not Found status if not found
+     */
+    @PostMapping("/{orderId}/pizzas/{pizzaIndex}/toppings")
+    public Mono<ResponseEntity<Object>> addPizzaTopping(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody PizzaTopping newTopping,
+            ServerWebExchange exchange) {
+        return change(orderId, ifMatch, () -> pizzaOrderService.addPizzaTopping(orderId, pizzaIndex, newTopping),
+                pizzaIndex, exchange);
+    }
+
+    /**
+     * Removes a topping from a pizza.
+     *
+     * @param orderId        the ID of the pizza order to remove the topping from
+     * @param pizzaIndex     the index of the pizza to remove the topping from
+     * @param removedTopping the topping to remove
+     * @param ifMatch        the ETag of the version the change was made against, if any
+     * @param exchange       the exchange, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return the updated pizza order if found, or a 404 Not Found status if not found
+     */
+    @DeleteMapping("/{orderId}/pizzas/{pizzaIndex}/toppings")
+    public Mono<ResponseEntity<Object>> deletePizzaTopping(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody PizzaTopping removedTopping,
+            ServerWebExchange exchange) {
+        return change(orderId, ifMatch, () -> pizzaOrderService.removePizzaTopping(orderId, pizzaIndex, removedTopping),
+                pizzaIndex, exchange);
+    }
+
+    /**
+     * Updates a pizza's toppings.
+     *
+     * @param orderId         the ID of the pizza order to update the pizza in
+     * @param pizzaIndex      the index of the pizza to update
+     * @param updatedToppings the new toppings of the pizza
+     * @param ifMatch         the ETag of the version the change was made against, if any
+     * @param exchange        the exchange, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return the updated pizza order if found, or a 404 Not Found status if not found
+     */
+    @PatchMapping("/{orderId}/pizzas/{pizzaIndex}/toppings")
+    public Mono<ResponseEntity<Object>> updatePizzaToppings(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody List<PizzaTopping> updatedToppings,
+            ServerWebExchange exchange) {
+        return change(orderId, ifMatch, () -> pizzaOrderService.updatePizzaToppings(orderId, pizzaIndex, updatedToppings),
+                pizzaIndex, exchange);
+    }
+
+
+    /***************************************
+    * Errors                               *
+    *****************************************/
+
+    /**
+     * Rejects changes to orders that are no longer open, and out of order state changes.
+     *
+     * @param e the exception naming the order and its state
+     * @return a ResponseEntity with a 409 Conflict status
+     */
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleOrderState(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    /**
+     * Rejects changes made against a version of the order that is no longer current.
+     *
+     * @param e the exception naming the current version
+     * @return a ResponseEntity with a 412 Precondition Failed status and the current ETag
+     */
+    @ExceptionHandler(StaleOrderVersionException.class)
+    public ResponseEntity<String> handleStaleVersion(StaleOrderVersionException e) {
+        return OrderResponses.staleVersionResponse(e);
+    }
+
+
+    /***************************************
+    * Versions                             *
+    *****************************************/
+
+    /**
+     * Applies a change under an If-Match check when the response is subscribed to,
+     * and answers with the changed pizza order or a 404 Not Found status.
+     */
+    private Mono<ResponseEntity<Object>> change(Long orderId, String ifMatch, Supplier<PizzaOrder> mutation,
+                                                Integer pizzaIndex, ServerWebExchange exchange) {
+        return callService(() -> pizzaOrderService.ifVersion(orderId, OrderResponses.expectedVersion(ifMatch), mutation))
+                .map(pizzaOrder -> orderResponse(pizzaOrder, pizzaIndex, exchange))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Calls the service when the result is subscribed to, off the event loop.
+     * Changes wait for the write-ahead log and stores may read from disk, so service calls can block.
+     */
+    private static <T> Mono<T> callService(Supplier<T> call) {
+        return Mono.fromSupplier(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Returns the changed pizza order with its new ETag.
+     * If the request asks for a summary, only the order's totals and the changed pizza are sent.
+     */
+    private static ResponseEntity<Object> orderResponse(PizzaOrder pizzaOrder, Integer pizzaIndex, ServerWebExchange exchange) {
+        return OrderResponses.orderResponse(pizzaOrder, pizzaIndex, exchange.getRequest().getQueryParams().getFirst("view"),
+                exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT));
+    }
+}
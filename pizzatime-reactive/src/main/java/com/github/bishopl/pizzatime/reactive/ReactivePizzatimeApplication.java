@@ -0,0 +1,20 @@
+/**
+ * Runs the orders API on WebFlux and Netty, on top of the same services, stores and configuration as the MVC app.
+ * Only the service, config and reactive packages are scanned, so the servlet controllers are left out.
+ */
+package com.github.bishopl.pizzatime.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication(scanBasePackages = {
+		"com.github.bishopl.pizzatime.config",
+		"com.github.bishopl.pizzatime.service",
+		"com.github.bishopl.pizzatime.reactive"})
+public class ReactivePizzatimeApplication {
+
+	public static void main(String[] args) {
+		SpringApplication.run(ReactivePizzatimeApplication.class, args);
+	}
+
+}
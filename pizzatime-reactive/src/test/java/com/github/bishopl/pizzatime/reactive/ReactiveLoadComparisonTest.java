@@ -0,0 +1,128 @@
+package com.github.bishopl.pizzatime.reactive;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+/**
+ * Drives the same order workload against the reactive API and, when its URL is given, a running MVC server,
+ * and prints throughput and latency percentiles side by side.
+ * Every client creates an order, then alternates reads and topping changes on it, with many requests in flight at once.
+ * Run with: mvn test -Pbenchmark [-Dpizzatime.compare.mvc-url=http://localhost:8080]
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReactiveLoadComparisonTest {
+    private static final int CLIENTS = 256;
+    private static final int REQUESTS_PER_CLIENT = 100;
+    // Order ids are sent as JSON strings
+    private static final Pattern ORDER_ID = Pattern.compile("\"id\"\\s*:\\s*\"(\\d+)\"");
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    public void testReactiveVersusMvc() {
+        List<String> targets = new ArrayList<>();
+        targets.add("http://localhost:" + port);
+        String mvcUrl = System.getProperty("pizzatime.compare.mvc-url");
+        if (mvcUrl != null && !mvcUrl.isBlank()) {
+            targets.add(mvcUrl);
+        }
+
+        for (String target : targets) {
+            // Warm up the server and the client before measuring
+            run(target, CLIENTS / 4, REQUESTS_PER_CLIENT / 4);
+            long start = System.nanoTime();
+            long[] latencies = run(target, CLIENTS, REQUESTS_PER_CLIENT);
+            long elapsedNanos = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            System.out.printf("%s clients=%d requests=%d %.0f req/s p50=%.2f ms p99=%.2f ms max=%.2f ms%n",
+                    target, CLIENTS, latencies.length, latencies.length * 1e9 / elapsedNanos,
+                    percentile(latencies, 0.50), percentile(latencies, 0.99), latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    /**
+     * Runs every client to completion and returns the latency of each request in nanoseconds.
+     */
+    private long[] run(String target, int clients, int requestsPerClient) {
+        long[] latencies = new long[clients * requestsPerClient];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for (int client = 0; client < clients; client++) {
+            running.add(runClient(target, requestsPerClient, latencies, next, failures));
+        }
+        CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+        assertEquals(0, failures.get(), "failed requests against " + target);
+        return Arrays.copyOf(latencies, next.get());
+    }
+
+    private CompletableFuture<Void> runClient(String target, int requests, long[] latencies,
+                                              AtomicInteger next, AtomicInteger failures) {
+        HttpRequest create = HttpRequest.newBuilder(URI.create(target + "/v1/app/orders"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("[{}]"))
+                .build();
+        return timed(create, latencies, next, failures).thenCompose(body -> {
+            Matcher matcher = ORDER_ID.matcher(body);
+            if (!matcher.find()) {
+                failures.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            }
+            String order = target + "/v1/app/orders/" + matcher.group(1);
+            CompletableFuture<String> chain = CompletableFuture.completedFuture(body);
+            for (int i = 1; i < requests; i++) {
+                HttpRequest request = i % 2 == 0
+                        ? HttpRequest.newBuilder(URI.create(order + "/pizzas/0/toppings?view=summary"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(
+                                        i % 4 == 0 ? "{\"type\":\"HAM\",\"amount\":\"REGULAR\"}"
+                                                : "{\"type\":\"BACON\",\"amount\":\"REGULAR\"}"))
+                                .build()
+                        : HttpRequest.newBuilder(URI.create(order)).GET().build();
+                chain = chain.thenCompose(previous -> timed(request, latencies, next, failures));
+            }
+            return chain.thenApply(last -> null);
+        });
+    }
+
+    private CompletableFuture<String> timed(HttpRequest request, long[] latencies, AtomicInteger next, AtomicInteger failures) {
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()).handle((response, error) -> {
+            latencies[next.getAndIncrement()] = System.nanoTime() - start;
+            if (error != null || response.statusCode() >= 400) {
+                failures.incrementAndGet();
+                return "";
+            }
+            return response.body();
+        });
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
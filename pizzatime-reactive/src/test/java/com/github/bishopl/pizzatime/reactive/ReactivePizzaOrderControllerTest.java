@@ -0,0 +1,137 @@
+package com.github.bishopl.pizzatime.reactive;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.github.bishopl.pizzatime.controller.OrderResponses;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingType;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReactivePizzaOrderControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Test
+    public void testCreateAndGetPizzaOrder() {
+        PizzaOrder created = createOrder();
+
+        String eTag = webTestClient.get().uri("/v1/app/orders/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(Long.toString(created.getId()))
+                .jsonPath("$.pizzas.length()").isEqualTo(1)
+                .returnResult().getResponseHeaders().getETag();
+        assertEquals(OrderResponses.eTagOf(1), eTag);
+
+        webTestClient.get().uri("/v1/app/orders/{id}", created.getId())
+                .header("If-None-Match", eTag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        webTestClient.get().uri("/v1/app/orders/{id}", Long.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testAddToppingWithIfMatch() {
+        PizzaOrder created = createOrder();
+
+        webTestClient.post().uri("/v1/app/orders/{id}/pizzas/0/toppings?view=summary", created.getId())
+                .header("If-Match", OrderResponses.eTagOf(1))
+                .bodyValue(new PizzaTopping(ToppingType.HAM))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", OrderResponses.summaryETagOf(2))
+                .expectBody()
+                .jsonPath("$.version").isEqualTo(2)
+                .jsonPath("$.pizzaIndex").isEqualTo(0)
+                .jsonPath("$.pizzas").doesNotExist();
+
+        webTestClient.post().uri("/v1/app/orders/{id}/pizzas/0/toppings", created.getId())
+                .header("If-Match", OrderResponses.eTagOf(1))
+                .bodyValue(new PizzaTopping(ToppingType.BACON))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED)
+                .expectHeader().valueEquals("ETag", OrderResponses.eTagOf(2));
+
+        // The summary's ETag names the same version, so it can be sent back as is
+        webTestClient.post().uri("/v1/app/orders/{id}/pizzas/0/toppings", created.getId())
+                .header("If-Match", OrderResponses.summaryETagOf(2))
+                .bodyValue(new PizzaTopping(ToppingType.BACON))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", OrderResponses.eTagOf(3));
+    }
+
+    @Test
+    public void testCheckedOutOrderRejectsChanges() {
+        PizzaOrder created = createOrder();
+
+        webTestClient.post().uri("/v1/app/orders/{id}/checkout", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.state").isEqualTo("CHECKED_OUT");
+
+        webTestClient.patch().uri("/v1/app/orders/{id}/pizzas/0", created.getId())
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue(PizzaSize.SMALL.name())
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    public void testEventsFollowOrderUntilDeleted() {
+        PizzaOrder created = createOrder();
+
+        Flux<ServerSentEvent<String>> events = webTestClient.get().uri("/v1/app/orders/{id}/events?view=summary", created.getId())
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {})
+                .getResponseBody();
+
+        StepVerifier.create(events)
+                .assertNext(event -> assertEquals("updated", event.event()))
+                .then(() -> webTestClient.delete().uri("/v1/app/orders/{id}", created.getId())
+                        .exchange()
+                        .expectStatus().isNoContent())
+                .assertNext(event -> assertEquals("deleted", event.event()))
+                .expectComplete()
+                .verify(Duration.ofSeconds(10));
+
+        webTestClient.get().uri("/v1/app/orders/{id}/events", Long.MAX_VALUE)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private PizzaOrder createOrder() {
+        return webTestClient.post().uri("/v1/app/orders")
+                .bodyValue(List.of(new Pizza()))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody(PizzaOrder.class)
+                .returnResult().getResponseBody();
+    }
+}
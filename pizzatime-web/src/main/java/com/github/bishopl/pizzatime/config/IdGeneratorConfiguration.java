@@ -0,0 +1,41 @@
+/**
+ * Spring configuration for the order id generator.
+ * pizzatime.id.generator selects sequential (default), snowflake or block.
+ */
+package com.github.bishopl.pizzatime.config;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.bishopl.pizzatime.id.BlockLeasingIdGenerator;
+import com.github.bishopl.pizzatime.id.OrderIdGenerator;
+import com.github.bishopl.pizzatime.id.SequentialIdGenerator;
+import com.github.bishopl.pizzatime.id.SnowflakeIdGenerator;
+
+@Configuration
+public class IdGeneratorConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(OrderIdGenerator.class)
+    public OrderIdGenerator orderIdGenerator(
+            @Value("${pizzatime.id.generator:sequential}") String generator,
+            @Value("${pizzatime.id.node-id:0}") long nodeId,
+            @Value("${pizzatime.id.lease-file:data/order-id.lease}") String leaseFile,
+            @Value("${pizzatime.id.lease-block-size:1000}") long leaseBlockSize) {
+
+        switch (generator.toLowerCase()) {
+            case "sequential":
+                return new SequentialIdGenerator();
+            case "snowflake":
+                return new SnowflakeIdGenerator(nodeId);
+            case "block":
+                return new BlockLeasingIdGenerator(Path.of(leaseFile), leaseBlockSize, nodeId);
+            default:
+                throw new IllegalArgumentException("Unknown pizzatime.id.generator: " + generator);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * Spring configuration for timing requests to the "/v1" API, see EndpointMetricsFilter.
+ * Only applies to the servlet app, the reactive app shares this package.
+ */
+package com.github.bishopl.pizzatime.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.bishopl.pizzatime.metrics.EndpointMetricsFilter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class MetricsConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<EndpointMetricsFilter> endpointMetricsFilter(MeterRegistry meterRegistry) {
+        FilterRegistrationBean<EndpointMetricsFilter> registration =
+                new FilterRegistrationBean<>(new EndpointMetricsFilter(meterRegistry));
+        registration.addUrlPatterns("/v1/*");
+        return registration;
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Spring configuration for the change feed of order changes.
+ * "pizzatime.changes.dir" turns the feed on, every change is then appended to a change log in that directory,
+ * which starts a new segment file every "pizzatime.changes.segment-bytes" and is kept across restarts.
+ * The oldest segments are deleted once the log holds more than "pizzatime.changes.retained-bytes".
+ * When the write-ahead log is on, a change only goes into the feed once its record there is forced to disk.
+ */
+package com.github.bishopl.pizzatime.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.bishopl.pizzatime.changes.ChangeLog;
+import com.github.bishopl.pizzatime.service.OrderChangeFeed;
+import com.github.bishopl.pizzatime.service.OrderLog;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+
+@Configuration
+public class OrderChangeFeedConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(OrderChangeFeed.class)
+    public OrderChangeFeed orderChangeFeed(PizzaOrderService pizzaOrderService, OrderLog orderLog, ObjectMapper objectMapper,
+                                           @Value("${pizzatime.changes.dir:}") String directory,
+                                           @Value("${pizzatime.changes.segment-bytes:67108864}") long segmentBytes,
+                                           @Value("${pizzatime.changes.retained-bytes:1073741824}") long retainedBytes) throws IOException {
+        if (directory.isBlank()) {
+            return OrderChangeFeed.disabled();
+        }
+        OrderChangeFeed orderChangeFeed = new OrderChangeFeed(new ChangeLog(Path.of(directory), segmentBytes, retainedBytes),
+                orderLog, objectMapper);
+        pizzaOrderService.addOrderListener(orderChangeFeed);
+        return orderChangeFeed;
+    }
+}
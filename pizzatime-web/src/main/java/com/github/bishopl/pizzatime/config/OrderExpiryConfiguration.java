@@ -0,0 +1,26 @@
+/**
+ * Spring configuration for expiring idle pizza orders.
+ * Orders untouched for "pizzatime.orders.idle-ttl-millis" are removed, checked every "pizzatime.orders.expiry-tick-millis".
+ * An idle TTL of 0 keeps orders forever.
+ */
+package com.github.bishopl.pizzatime.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import com.github.bishopl.pizzatime.service.OrderExpiry;
+
+@Configuration
+@EnableScheduling
+public class OrderExpiryConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(OrderExpiry.class)
+    public OrderExpiry orderExpiry(@Value("${pizzatime.orders.idle-ttl-millis:1800000}") long idleTtlMillis,
+                                   @Value("${pizzatime.orders.expiry-tick-millis:1000}") long tickMillis) {
+        return new OrderExpiry(idleTtlMillis, tickMillis);
+    }
+}
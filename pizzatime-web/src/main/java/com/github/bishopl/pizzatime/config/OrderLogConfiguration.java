@@ -0,0 +1,42 @@
+/**
+ * Spring configuration for the write-ahead log of order changes.
+ * "pizzatime.wal.dir" turns the log on, changes are then kept across restarts. "pizzatime.wal.durability" is
+ * sync (default), batched or async, and batched and async logs are forced to disk every "pizzatime.wal.sync-interval-millis".
+ * The log starts a new segment file every "pizzatime.wal.segment-bytes", and segments older than the kept snapshots,
+ * taken every "pizzatime.wal.snapshot-interval-millis", are deleted.
+ */
+package com.github.bishopl.pizzatime.config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.bishopl.pizzatime.service.OrderLog;
+import com.github.bishopl.pizzatime.wal.Durability;
+import com.github.bishopl.pizzatime.wal.WriteAheadLog;
+
+@Configuration
+public class OrderLogConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(OrderLog.class)
+    public OrderLog orderLog(@Value("${pizzatime.wal.dir:}") String directory,
+                             @Value("${pizzatime.wal.durability:sync}") String durability,
+                             @Value("${pizzatime.wal.sync-interval-millis:10}") long syncIntervalMillis,
+                             @Value("${pizzatime.wal.segment-bytes:67108864}") long segmentBytes) throws IOException {
+        if (directory.isBlank()) {
+            return OrderLog.disabled();
+        }
+        Durability walDurability;
+        try {
+            walDurability = Durability.valueOf(durability.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown pizzatime.wal.durability: " + durability);
+        }
+        return new OrderLog(new WriteAheadLog(Path.of(directory), walDurability, syncIntervalMillis, segmentBytes));
+    }
+}
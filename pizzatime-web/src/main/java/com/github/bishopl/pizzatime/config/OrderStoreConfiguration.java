@@ -0,0 +1,77 @@
+/**
+ * Spring configuration for the order store and the archive of checked out orders.
+ * "pizzatime.orders.store" is memory (default), which keeps every order on the heap, mapped, which keeps them
+ * off the heap in memory-mapped files under "pizzatime.orders.store-dir" that are still there after a restart,
+ * or tiered, which keeps recently used open orders on the heap up to "pizzatime.orders.hot-bytes" and spills
+ * the rest to files under the same directory that start out empty on every start.
+ * Any other OrderStore or OrderArchive bean replaces the one declared here.
+ */
+package com.github.bishopl.pizzatime.config;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.bishopl.pizzatime.store.ConcurrentOrderStore;
+import com.github.bishopl.pizzatime.store.MappedOrderArchive;
+import com.github.bishopl.pizzatime.store.MappedOrderStore;
+import com.github.bishopl.pizzatime.store.OrderArchive;
+import com.github.bishopl.pizzatime.store.OrderStore;
+import com.github.bishopl.pizzatime.store.TieredOrderStore;
+
+@Configuration
+public class OrderStoreConfiguration {
+    private static final String OPEN_ORDERS_FILE = "open.orders";
+    private static final String ARCHIVED_ORDERS_FILE = "archived.orders";
+    private static final String SPILLED_ORDERS_FILE = "spilled.orders";
+    private static final String SPILLED_ARCHIVE_FILE = "spilled-archive.orders";
+
+    private enum StoreKind {
+        MEMORY, MAPPED, TIERED
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(OrderStore.class)
+    public OrderStore orderStore(@Value("${pizzatime.orders.store:memory}") String store,
+                                 @Value("${pizzatime.orders.store-dir:data/orders}") String directory,
+                                 @Value("${pizzatime.orders.hot-bytes:268435456}") long hotBytes) throws IOException {
+        return switch (storeKind(store)) {
+            case MEMORY -> new ConcurrentOrderStore();
+            case MAPPED -> new MappedOrderStore(Path.of(directory, OPEN_ORDERS_FILE));
+            case TIERED -> new TieredOrderStore(hotBytes, openEmpty(Path.of(directory, SPILLED_ORDERS_FILE)));
+        };
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(OrderArchive.class)
+    public OrderArchive orderArchive(@Value("${pizzatime.orders.store:memory}") String store,
+                                     @Value("${pizzatime.orders.store-dir:data/orders}") String directory) throws IOException {
+        return switch (storeKind(store)) {
+            case MEMORY -> new OrderArchive();
+            case MAPPED -> new MappedOrderArchive(new MappedOrderStore(Path.of(directory, ARCHIVED_ORDERS_FILE)));
+            // Checked out orders are rarely read again, so under a heap budget they all go to disk
+            case TIERED -> new MappedOrderArchive(openEmpty(Path.of(directory, SPILLED_ARCHIVE_FILE)));
+        };
+    }
+
+    private static StoreKind storeKind(String store) {
+        try {
+            return StoreKind.valueOf(store.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown pizzatime.orders.store: " + store);
+        }
+    }
+
+    /**
+     * Opens a mapped store that only holds what spilled since this start, orders come back through the write-ahead log.
+     */
+    private static MappedOrderStore openEmpty(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        return new MappedOrderStore(file);
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * This class represents the REST API endpoints for administering the pizza shop.
+ * The endpoints are versioned under "/v1/admin".
+ */
+package com.github.bishopl.pizzatime.controller;
+
+import java.io.UncheckedIOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.bishopl.pizzatime.config.PriceCatalog;
+import com.github.bishopl.pizzatime.config.PriceList;
+import com.github.bishopl.pizzatime.model.OrderStats;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+import com.github.bishopl.pizzatime.service.PriceCatalogService;
+
+@RestController
+@RequestMapping("/v1/admin")
+public class AdminController {
+
+    private final PriceCatalogService priceCatalogService;
+    private final PizzaOrderService pizzaOrderService;
+
+    @Autowired
+    public AdminController(PriceCatalogService priceCatalogService, PizzaOrderService pizzaOrderService) {
+        this.priceCatalogService = priceCatalogService;
+        this.pizzaOrderService = pizzaOrderService;
+    }
+
+
+    /***************************************
+    * Prices                               *
+    *****************************************/
+
+    /**
+     * Retrieves the current price catalog.
+     *
+     * @return a ResponseEntity containing the current price catalog
+     */
+    @GetMapping("/prices")
+    public ResponseEntity<PriceCatalog> getPrices() {
+        return ResponseEntity.ok(priceCatalogService.getCurrentCatalog());
+    }
+
+    /**
+     * Changes prices. Orders pick up the new prices the next time they are changed or checked out.
+     *
+     * @param priceList the prices to change, missing entries keep their current price
+     * @return a ResponseEntity containing the new price catalog, or a 400 Bad Request status if a price is invalid
+     */
+    @PutMapping("/prices")
+    public ResponseEntity<PriceCatalog> updatePrices(@RequestBody PriceList priceList) {
+        try {
+            return ResponseEntity.ok(priceCatalogService.update(priceList));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Reloads prices from the configured price file.
+     *
+     * @return a ResponseEntity containing the new price catalog, or a 409 Conflict status if the file can't be loaded
+     */
+    @PostMapping("/prices/reload")
+    public ResponseEntity<PriceCatalog> reloadPrices() {
+        try {
+            return ResponseEntity.ok(priceCatalogService.reload());
+        } catch (IllegalStateException | IllegalArgumentException | UncheckedIOException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+
+    /**
+     * Restores the built-in default prices.
+     *
+     * @return a ResponseEntity containing the new price catalog
+     */
+    @DeleteMapping("/prices")
+    public ResponseEntity<PriceCatalog> restoreDefaultPrices() {
+        return ResponseEntity.ok(priceCatalogService.restoreDefaults());
+    }
+
+
+    /***************************************
+    * Orders                               *
+    *****************************************/
+
+    /**
+     * Retrieves counters for live and expired orders.
+     *
+     * @return a ResponseEntity containing the order statistics
+     */
+    @GetMapping("/orders/stats")
+    public ResponseEntity<OrderStats> getOrderStats() {
+        return ResponseEntity.ok(pizzaOrderService.getOrderStats());
+    }
+}
@@ -0,0 +1,162 @@
+/**
+ * This class represents the REST API endpoint for tailing the change feed, under "/v1/app/changes".
+ * A consumer reads a batch of changes from an offset and gets the offset to read from next in the Next-Offset header.
+ * At the end of the feed a read can wait for new changes: the request goes async, so a waiting consumer takes
+ * no servlet thread, and is dispatched again once changes arrive or the wait is over. A consumer that fell so far
+ * behind that its offset has been deleted from the feed gets a 410 Gone and has to start again from the orders.
+ * Batches are sent straight from the change log's file. When Tomcat can, it sends them with sendfile, so the
+ * changes never pass through the JVM, and otherwise they are copied from the file to the response.
+ */
+package com.github.bishopl.pizzatime.controller;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.github.bishopl.pizzatime.changes.ChangeLog;
+import com.github.bishopl.pizzatime.service.OrderChangeFeed;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/v1/app/changes")
+public class OrderChangeController {
+
+    /**
+     * Response header holding the offset to read from next.
+     */
+    public static final String NEXT_OFFSET_HEADER = "Next-Offset";
+
+    /**
+     * Content type of a batch of changes, one OrderChange of JSON per line.
+     */
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final OrderChangeFeed orderChangeFeed;
+    private final long maxWaitMillis;
+
+    @Autowired
+    public OrderChangeController(OrderChangeFeed orderChangeFeed,
+                                 @Value("${pizzatime.changes.max-wait-millis:30000}") long maxWaitMillis) {
+        this.orderChangeFeed = orderChangeFeed;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Reads a batch of changes from an offset, waiting for new ones if there are none yet.
+     * The batch is sent as NDJSON with a 200 OK status, or a 204 No Content status if the wait ran out first.
+     * An offset the feed no longer keeps gets a 410 Gone status.
+     *
+     * @param offset     the offset to read from, 0 or the Next-Offset of the last batch read
+     * @param maxBytes   the most bytes to send, unless the first change is bigger
+     * @param waitMillis how long to wait for changes at the end of the feed, capped by "pizzatime.changes.max-wait-millis"
+     * @param request    the request, which goes async while waiting
+     * @param response   the response the batch is sent on
+     * @throws IOException if the change log can't be read or the response can't be written
+     */
+    @GetMapping
+    public void getChanges(@RequestParam(defaultValue = "0") long offset,
+                           @RequestParam(defaultValue = "1048576") int maxBytes,
+                           @RequestParam(defaultValue = "0") long waitMillis,
+                           HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!orderChangeFeed.isEnabled()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        ChangeLog changeLog = orderChangeFeed.getChangeLog();
+        if (offset >= 0 && offset < changeLog.getStartOffset()) {
+            response.setStatus(HttpServletResponse.SC_GONE);
+            return;
+        }
+        ChangeLog.Batch batch;
+        try {
+            batch = changeLog.read(offset, maxBytes);
+        } catch (IllegalArgumentException e) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        // A request dispatched again after waiting answers with whatever is there
+        long wait = Math.min(waitMillis, maxWaitMillis);
+        if (batch.isEmpty() && wait > 0 && request.getDispatcherType() != DispatcherType.ASYNC) {
+            awaitChanges(changeLog, offset, wait, request);
+            return;
+        }
+        send(batch, request, response);
+    }
+
+    /**
+     * Puts a request aside until the change log grows past an offset or the wait is over,
+     * then dispatches it again to read the changes.
+     */
+    private static void awaitChanges(ChangeLog changeLog, long offset, long waitMillis, HttpServletRequest request) {
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(waitMillis);
+        AtomicBoolean dispatched = new AtomicBoolean();
+        Runnable dispatch = () -> {
+            if (dispatched.compareAndSet(false, true)) {
+                asyncContext.dispatch();
+            }
+        };
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                changeLog.cancel(dispatch);
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                changeLog.cancel(dispatch);
+                dispatch.run();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                changeLog.cancel(dispatch);
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        if (!changeLog.runWhenPast(offset, dispatch)) {
+            // Changes arrived since the read
+            dispatch.run();
+        }
+    }
+
+    private static void send(ChangeLog.Batch batch, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(NEXT_OFFSET_HEADER, Long.toString(batch.getNextOffset()));
+        if (batch.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(NDJSON);
+        response.setContentLengthLong(batch.getLength());
+        // A request woken from a wait only carries the few changes that just arrived, so it is always copied
+        if (request.getDispatcherType() == DispatcherType.REQUEST && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, batch.getFile().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, batch.getFilePosition());
+            request.setAttribute(SENDFILE_END, batch.getFilePosition() + batch.getLength());
+            return;
+        }
+        batch.transferTo(Channels.newChannel(response.getOutputStream()));
+    }
+}
@@ -0,0 +1,319 @@
+/**
+ * Pushes pizza order changes to Server-Sent Event subscribers.
+ * Subscriptions are held as async SseEmitters, so idle subscribers take no servlet thread.
+ * Changes are coalesced per subscriber: while one push is being written, later changes only mark the subscriber dirty,
+ * and the next push sends the order's latest state. A slow subscriber therefore receives fewer, newer updates,
+ * never a growing backlog, and a subscriber whose write fails is dropped.
+ * Writes block, so each one is bounded: a watchdog drops any subscriber whose write has been outstanding for longer
+ * than the send timeout and interrupts its sender, so stalled clients can't pin the sender pool.
+ */
+package com.github.bishopl.pizzatime.controller;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.github.bishopl.pizzatime.model.OrderSummary;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.service.OrderEvent;
+import com.github.bishopl.pizzatime.service.OrderListener;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+
+import jakarta.annotation.PreDestroy;
+
+@Component
+public class OrderEventBroadcaster implements OrderListener {
+    private final PizzaOrderService pizzaOrderService;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService watchdog;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+    private final Map<Long, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final LongAdder coalescedEvents = new LongAdder();
+    private final LongAdder stalledSubscribers = new LongAdder();
+
+    @Autowired
+    public OrderEventBroadcaster(PizzaOrderService pizzaOrderService,
+                                 @Value("${pizzatime.events.sender-threads:4}") int senderThreads,
+                                 @Value("${pizzatime.events.timeout-millis:1800000}") long timeoutMillis,
+                                 @Value("${pizzatime.events.send-timeout-millis:5000}") long sendTimeoutMillis) {
+        this(pizzaOrderService, Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "order-events");
+            thread.setDaemon(true);
+            return thread;
+        }), timeoutMillis, sendTimeoutMillis);
+    }
+
+    /**
+     * Constructs a new OrderEventBroadcaster that writes pushes on a given executor, with no bound on a write.
+     * @param pizzaOrderService the service whose changes are pushed
+     * @param senders the executor that writes pushes to subscribers
+     * @param timeoutMillis how long a subscription stays open, 0 for no limit
+     */
+    public OrderEventBroadcaster(PizzaOrderService pizzaOrderService, ExecutorService senders, long timeoutMillis) {
+        this(pizzaOrderService, senders, timeoutMillis, 0);
+    }
+
+    /**
+     * Constructs a new OrderEventBroadcaster that writes pushes on a given executor.
+     * @param pizzaOrderService the service whose changes are pushed
+     * @param senders the executor that writes pushes to subscribers
+     * @param timeoutMillis how long a subscription stays open, 0 for no limit
+     * @param sendTimeoutMillis how long one write may take before its subscriber is dropped, 0 for no limit
+     */
+    public OrderEventBroadcaster(PizzaOrderService pizzaOrderService, ExecutorService senders, long timeoutMillis,
+                                 long sendTimeoutMillis) {
+        this.pizzaOrderService = pizzaOrderService;
+        this.senders = senders;
+        this.timeoutMillis = timeoutMillis;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        if (sendTimeoutMillis > 0) {
+            this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "order-events-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long checkMillis = Math.max(1, sendTimeoutMillis / 4);
+            watchdog.scheduleWithFixedDelay(this::dropStalledSubscribers, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.watchdog = null;
+        }
+        pizzaOrderService.addOrderListener(this);
+    }
+
+    /**
+     * Subscribes to changes of a pizza order. The order's current state is pushed first.
+     * @param orderId the ID of the pizza order
+     * @param summary true to push OrderSummary objects, false to push whole orders
+     * @return the emitter to return from the request, or null if there is no order with the given ID
+     */
+    public SseEmitter subscribe(long orderId, boolean summary) {
+        return subscribe(orderId, summary, new SseEmitter(timeoutMillis));
+    }
+
+    /**
+     * Subscribes an existing emitter to changes of a pizza order. The order's current state is pushed first.
+     * @param orderId the ID of the pizza order
+     * @param summary true to push OrderSummary objects, false to push whole orders
+     * @param emitter the emitter to push to
+     * @return the emitter, or null if there is no order with the given ID
+     */
+    public SseEmitter subscribe(long orderId, boolean summary, SseEmitter emitter) {
+        PizzaOrder pizzaOrder = pizzaOrderService.getPizzaOrderById(orderId);
+        if (pizzaOrder == null) {
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(orderId, summary, emitter);
+        subscribers.computeIfAbsent(orderId, id -> new CopyOnWriteArrayList<>()).add(subscriber);
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(error -> unsubscribe(subscriber));
+        subscriber.signal(new OrderEvent(OrderEvent.Type.UPDATED, pizzaOrder));
+        return emitter;
+    }
+
+    @Override
+    public void onOrderEvent(OrderEvent event) {
+        List<Subscriber> orderSubscribers = subscribers.get(event.getOrderId());
+        if (orderSubscribers == null) {
+            return;
+        }
+        for (Subscriber subscriber : orderSubscribers) {
+            subscriber.signal(event);
+        }
+    }
+
+    /**
+     * Returns the number of open subscriptions.
+     * @return the number of subscribers
+     */
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Returns the number of changes folded into a later push instead of being pushed on their own.
+     * @return the number of coalesced events
+     */
+    public long getCoalescedEvents() {
+        return coalescedEvents.sum();
+    }
+
+    /**
+     * Returns the number of subscribers dropped because a write to them took longer than the send timeout.
+     * @return the number of stalled subscribers
+     */
+    public long getStalledSubscribers() {
+        return stalledSubscribers.sum();
+    }
+
+    /**
+     * Closes every subscription and stops the senders.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pizzaOrderService.removeOrderListener(this);
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+        for (List<Subscriber> orderSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : orderSubscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+        senders.shutdownNow();
+    }
+
+    private void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        for (List<Subscriber> orderSubscribers : subscribers.values()) {
+            for (Subscriber subscriber : orderSubscribers) {
+                subscriber.dropIfStalled(now);
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.closed.compareAndSet(false, true)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(subscriber.orderId, (id, orderSubscribers) -> {
+            orderSubscribers.remove(subscriber);
+            return orderSubscribers.isEmpty() ? null : orderSubscribers;
+        });
+    }
+
+    private final class Subscriber {
+        private final long orderId;
+        private final boolean summary;
+        private final SseEmitter emitter;
+        private final AtomicReference<OrderEvent> pending = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // The thread writing to the emitter and when it started, only changed while holding this subscriber
+        private Thread sendingThread;
+        private long sendStartedNanos;
+        private volatile boolean stalled;
+
+        Subscriber(long orderId, boolean summary, SseEmitter emitter) {
+            this.orderId = orderId;
+            this.summary = summary;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Records the latest change and makes sure a push is on its way. Never blocks.
+         */
+        void signal(OrderEvent event) {
+            if (pending.getAndSet(event) != null) {
+                coalescedEvents.increment();
+            }
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                OrderEvent event = pending.getAndSet(null);
+                if (event == null) {
+                    scheduled.set(false);
+                    // A change that arrived after the last check but before the flag was cleared still needs a push
+                    if (pending.get() == null || !scheduled.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                if (closed.get()) {
+                    return;
+                }
+                push(event);
+            }
+        }
+
+        private void push(OrderEvent event) {
+            PizzaOrder pizzaOrder = event.getPizzaOrder();
+            if (!event.isRemoval()) {
+                // Push the newest state, which covers every change coalesced into this push
+                PizzaOrder latest = pizzaOrderService.getPizzaOrderById(orderId);
+                if (latest == null) {
+                    return;
+                }
+                pizzaOrder = latest;
+            }
+            long version = pizzaOrder.getVersion();
+            Object data = summary ? OrderSummary.of(pizzaOrder) : pizzaOrder;
+            try {
+                startSend();
+                try {
+                    emitter.send(SseEmitter.event()
+                            .name(event.getType().name().toLowerCase(Locale.ROOT))
+                            .id(Long.toString(version))
+                            .data(data, MediaType.APPLICATION_JSON));
+                } finally {
+                    endSend();
+                }
+                if (stalled) {
+                    // Dropped by the watchdog, but the write got through in the end
+                    emitter.completeWithError(new IOException("Push to order " + orderId + " subscriber timed out"));
+                    return;
+                }
+                if (event.isRemoval() || event.getType() == OrderEvent.Type.FULFILLED) {
+                    emitter.complete();
+                    unsubscribe(this);
+                }
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+                unsubscribe(this);
+            }
+        }
+
+        private synchronized void startSend() {
+            sendingThread = Thread.currentThread();
+            sendStartedNanos = System.nanoTime();
+        }
+
+        private synchronized void endSend() {
+            sendingThread = null;
+            // Clears an interrupt from dropIfStalled, which only interrupts while this send is running
+            Thread.interrupted();
+        }
+
+        /**
+         * Drops the subscriber if a write to it has been outstanding for longer than the send timeout,
+         * interrupting the write. The emitter is completed by its sender once the write gives up, since
+         * the emitter can't be completed while a write holds it.
+         */
+        void dropIfStalled(long nowNanos) {
+            synchronized (this) {
+                if (sendingThread == null || stalled || nowNanos - sendStartedNanos < sendTimeoutNanos) {
+                    return;
+                }
+                stalled = true;
+                sendingThread.interrupt();
+            }
+            stalledSubscribers.increment();
+            unsubscribe(this);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * Builds the versioned responses of the orders API, shared by the MVC and WebFlux controllers so both keep
+ * the same ETags, conditional requests and summary views.
+ * An ETag is the order's version prefixed with an epoch picked when the app starts. Versions restart at 1 when
+ * orders aren't kept across restarts, and order ids can be handed out again, so a tag from before a restart
+ * could otherwise name a version of a different order and get a wrong 304 or pass an If-Match.
+ * Only plain header and parameter values come in, so nothing here depends on the servlet or reactive stack.
+ */
+package com.github.bishopl.pizzatime.controller;
+
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import com.github.bishopl.pizzatime.model.OrderSummary;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.service.StaleOrderVersionException;
+
+public final class OrderResponses {
+
+    /**
+     * Media type that asks a change endpoint for an OrderSummary instead of the whole order.
+     * The same can be asked for with the query parameter "view=summary".
+     */
+    public static final String SUMMARY_MEDIA_TYPE = "application/vnd.pizzatime.summary+json";
+
+    /**
+     * Pizza index that stands for the last pizza of the changed order, e.g. the one just added.
+     */
+    public static final int NEWEST_PIZZA = -1;
+
+    private static final MediaType SUMMARY = MediaType.parseMediaType(SUMMARY_MEDIA_TYPE);
+    private static final String SUMMARY_TAG_SUFFIX = "-s";
+    // Tells this run's ETags from those of earlier runs
+    private static final String EPOCH_PREFIX = Long.toString(System.currentTimeMillis(), 36) + "-";
+
+    private OrderResponses() {
+    }
+
+    /**
+     * Returns the ETag of a version of a pizza order.
+     * @param version the order's version
+     * @return the quoted, strong ETag, e.g. "lq3k2x1a-2"
+     */
+    public static String eTagOf(long version) {
+        return "\"" + EPOCH_PREFIX + version + "\"";
+    }
+
+    /**
+     * Returns the ETag of the summary of a version of a pizza order.
+     * A summary is a different representation from the whole order, so it can't share the order's strong ETag.
+     * @param version the order's version
+     * @return the quoted, strong ETag, e.g. "lq3k2x1a-2-s"
+     */
+    public static String summaryETagOf(long version) {
+        return "\"" + EPOCH_PREFIX + version + SUMMARY_TAG_SUFFIX + "\"";
+    }
+
+    /**
+     * Returns a 304 Not Modified status if the client already has the current version, or the body with its ETag.
+     * The version must be read before the body, so the body is never older than the ETag sent with it.
+     * @param version     the version of the order the body was read from
+     * @param ifNoneMatch the If-None-Match header, if any
+     * @param body        the body to send if the client's version isn't current
+     * @return the response
+     */
+    public static <T> ResponseEntity<T> conditionalResponse(long version, String ifNoneMatch, T body) {
+        String eTag = eTagOf(version);
+        if (ifNoneMatch != null) {
+            for (String candidate : ifNoneMatch.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(eTag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+                }
+            }
+        }
+        return ResponseEntity.ok().eTag(eTag).body(body);
+    }
+
+    /**
+     * Returns the changed pizza order with its new ETag, or a 404 Not Found status if there is no such order.
+     * If a summary is asked for, only the order's totals and the changed pizza are sent.
+     * @param pizzaOrder the changed order, or null if there is no such order
+     * @param pizzaIndex the index of the changed pizza, NEWEST_PIZZA, or null if no one pizza changed
+     * @param view       the "view" query parameter, if any
+     * @param accept     the Accept header, if any
+     * @return the response
+     */
+    public static ResponseEntity<Object> orderResponse(PizzaOrder pizzaOrder, Integer pizzaIndex, String view, String accept) {
+        if (pizzaOrder == null) {
+            return ResponseEntity.notFound().build();
+        }
+        boolean acceptsSummary = acceptsSummary(accept);
+        if (acceptsSummary || isSummaryView(view)) {
+            if (pizzaIndex != null && pizzaIndex == NEWEST_PIZZA) {
+                pizzaIndex = pizzaOrder.getPizzas().size() - 1;
+            }
+            OrderSummary summary = OrderSummary.of(pizzaOrder, pizzaIndex);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(summaryETagOf(summary.getVersion()));
+            if (acceptsSummary) {
+                builder.contentType(SUMMARY);
+            }
+            return builder.body(summary);
+        }
+        return ResponseEntity.ok().eTag(eTagOf(pizzaOrder.getVersion())).body(pizzaOrder);
+    }
+
+    /**
+     * Returns a 412 Precondition Failed status with the order's current ETag.
+     * @param e the exception naming the current version
+     * @return the response
+     */
+    public static ResponseEntity<String> staleVersionResponse(StaleOrderVersionException e) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).eTag(eTagOf(e.getCurrentVersion())).body(e.getMessage());
+    }
+
+    /**
+     * Checks if a "view" query parameter asks for a summary.
+     * @param view the parameter, if any
+     * @return true for "summary"
+     */
+    public static boolean isSummaryView(String view) {
+        return "summary".equalsIgnoreCase(view);
+    }
+
+    /**
+     * Checks if an Accept header names SUMMARY_MEDIA_TYPE. A header that can't be parsed is ignored.
+     * @param accept the header, if any
+     * @return true if the summary media type is accepted
+     */
+    public static boolean acceptsSummary(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+                if (SUMMARY.equalsTypeAndSubtype(mediaType)) {
+                    return true;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the version named by an If-Match header, or null to skip the check.
+     * An ETag that isn't one of ours, including one from before a restart, can never match,
+     * so it is treated as version 0.
+     * If-Match uses strong comparison, so a weak ETag never matches either.
+     * A summary's ETag names the same version as the whole order's, so either can be sent back.
+     * @param ifMatch the header, if any
+     * @return the expected version, or null
+     */
+    public static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            return 0L;
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        if (!tag.startsWith(EPOCH_PREFIX)) {
+            return 0L;
+        }
+        tag = tag.substring(EPOCH_PREFIX.length());
+        if (tag.endsWith(SUMMARY_TAG_SUFFIX)) {
+            tag = tag.substring(0, tag.length() - SUMMARY_TAG_SUFFIX.length());
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Returns the pizza at an index of an order, or null if there is no such order or pizza.
+     * @param pizzaOrder the order, or null
+     * @param pizzaIndex the index of the pizza
+     * @return the pizza, or null
+     */
+    public static Pizza pizzaAt(PizzaOrder pizzaOrder, int pizzaIndex) {
+        if (pizzaOrder == null) {
+            return null;
+        }
+        List<Pizza> pizzas = pizzaOrder.getPizzas();
+        return pizzaIndex >= 0 && pizzaIndex < pizzas.size() ? pizzas.get(pizzaIndex) : null;
+    }
+}
@@ -0,0 +1,505 @@
+/**
+ * This class represents the REST API endpoints for managing pizza orders.
+ * It provides methods for retrieving, creating, updating, and deleting pizza orders, pizzas, and toppings.
+ * The endpoints are versioned under "/v1/app/orders".
+ */
+package com.github.bishopl.pizzatime.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+
+import com.github.bishopl.pizzatime.model.ImportReport;
+
+import com.github.bishopl.pizzatime.model.OrderOperation;
+import com.github.bishopl.pizzatime.model.OrderState;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.service.OrderExportService;
+import com.github.bishopl.pizzatime.service.OrderImportService;
+import com.github.bishopl.pizzatime.service.PizzaOrderCounterService;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+import com.github.bishopl.pizzatime.service.StaleOrderVersionException;
+
+@RestController
+@RequestMapping("/v1/app/orders")
+public class PizzaOrderController {
+
+    /**
+     * Media type that asks a change endpoint for an OrderSummary instead of the whole order.
+     * The same can be asked for with the query parameter "view=summary".
+     */
+    public static final String SUMMARY_MEDIA_TYPE = OrderResponses.SUMMARY_MEDIA_TYPE;
+
+    private final PizzaOrderService pizzaOrderService;
+    private final PizzaOrderCounterService pizzaOrderCounterService;
+    private final OrderImportService orderImportService;
+    private final OrderExportService orderExportService;
+    private final OrderEventBroadcaster orderEventBroadcaster;
+
+    @Autowired
+    public PizzaOrderController(PizzaOrderService pizzaOrderService, PizzaOrderCounterService pizzaOrderCounterService,
+                                OrderImportService orderImportService, OrderExportService orderExportService,
+                                OrderEventBroadcaster orderEventBroadcaster) {
+        this.pizzaOrderService = pizzaOrderService;
+        this.pizzaOrderCounterService = pizzaOrderCounterService;
+        this.orderImportService = orderImportService;
+        this.orderExportService = orderExportService;
+        this.orderEventBroadcaster = orderEventBroadcaster;
+    }
+
+    
+    
+    
+    /***************************************
+    * Orders                               *
+    *****************************************/
+
+    /**
+     * Retrieves a pizza order by its ID.
+     *
+     * @param orderId     the ID of the pizza order to retrieve
+     * @param ifNoneMatch the ETag of the version the client already has, if any
+     * @return a ResponseEntity containing the pizza order if found, a 304 Not Modified status if the client's
+     *         version is current, or a 404 Not Found status if not found
+     */
+    @GetMapping("/{orderId}")
+    public ResponseEntity<PizzaOrder> getPizzaOrderById(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        PizzaOrder pizzaOrder = pizzaOrderService.getPizzaOrderById(orderId);
+        if (pizzaOrder == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return OrderResponses.conditionalResponse(pizzaOrder.getVersion(), ifNoneMatch, pizzaOrder);
+    }
+
+    /**
+     * Subscribes to a pizza order's changes as Server-Sent Events.
+     * The current state is pushed first, then the latest state after each change, until the order is fulfilled,
+     * deleted or expires. Events are named after the change, e.g. "updated" or "checked_out", and carry the version as id.
+     *
+     * @param orderId the ID of the pizza order to follow
+     * @param view    "summary" to push OrderSummary objects instead of whole orders
+     * @return a ResponseEntity streaming the events, or a 404 Not Found status if not found
+     */
+    @GetMapping(value = "/{orderId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeToPizzaOrder(
+            @PathVariable Long orderId,
+            @RequestParam(required = false) String view) {
+        SseEmitter emitter = orderEventBroadcaster.subscribe(orderId, OrderResponses.isSummaryView(view));
+        if (emitter == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Creates a new pizza order.
+     *
+     * @param pizzaOrder the pizza order to create
+     * @return a ResponseEntity containing the created pizza order and a 201 Created status
+     */
+    @PostMapping
+    public ResponseEntity<PizzaOrder> createPizzaOrder(@RequestBody List<Pizza> pizzaOrder) {
+        long id = pizzaOrderCounterService.getNextOrderNumber();
+        PizzaOrder createdOrder = pizzaOrderService.createPizzaOrder(id, pizzaOrder);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
+    }
+
+    /**
+     * Imports pizza orders in bulk from newline-delimited JSON, one JSON array of pizzas per line.
+     * The body is streamed, so the size of the import is not limited by memory.
+     *
+     * @param body     the NDJSON request body
+     * @param checkout true to check out each imported order straight away, so pre-orders never expire
+     * @return a ResponseEntity containing a report of imported and rejected lines and the import rate
+     * @throws IOException if the request body can't be read
+     */
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<ImportReport> importPizzaOrders(
+            InputStream body,
+            @RequestParam(defaultValue = "false") boolean checkout) throws IOException {
+        return ResponseEntity.ok(orderImportService.importOrders(body, checkout));
+    }
+
+    /**
+     * Exports pizza orders as newline-delimited JSON or CSV.
+     * Orders are streamed to the response one at a time, so the export never holds the whole store in memory.
+     *
+     * @param format "ndjson" or "csv"
+     * @param from   the first order date to include, as yyyy-MM-dd, or all dates if missing
+     * @param to     the last order date to include, as yyyy-MM-dd, or all dates if missing
+     * @param state  the only order state to include, or all states if missing
+     * @return a ResponseEntity streaming the orders, or a 400 Bad Request status if the format is unknown
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPizzaOrders(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) OrderState state) {
+        OrderExportService.Format exportFormat;
+        try {
+            exportFormat = OrderExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        MediaType contentType = exportFormat == OrderExportService.Format.CSV
+                ? new MediaType("text", "csv")
+                : new MediaType("application", "x-ndjson");
+        StreamingResponseBody body = output -> orderExportService.export(output, exportFormat, from, to, state);
+        return ResponseEntity.ok().contentType(contentType).body(body);
+    }
+
+    /**
+     * Updates a pizza order.
+     *
+     * @param orderId    the ID of the pizza order to update
+     * @param pizzaOrder the pizza order to update
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param request    the request, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return a ResponseEntity containing the updated pizza order if found, or a 404 Not Found status if not found
+     */
+    @PostMapping("/{orderId}/checkout")
+    public ResponseEntity<Object> checkoutOrder(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            WebRequest request) {
+        PizzaOrder checkedOutOrder = pizzaOrderService.ifVersion(orderId, OrderResponses.expectedVersion(ifMatch),
+                () -> pizzaOrderService.checkout(orderId));
+
+        return orderResponse(checkedOutOrder, null, request);
+    }
+
+    /**
+     * Marks a checked out pizza order as fulfilled.
+     *
+     * @param orderId the ID of the pizza order to fulfill
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param request    the request, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return a ResponseEntity containing the fulfilled pizza order if found, or a 404 Not Found status if not found
+     */
+    @PostMapping("/{orderId}/fulfill")
+    public ResponseEntity<Object> fulfillOrder(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            WebRequest request) {
+        PizzaOrder fulfilledOrder = pizzaOrderService.ifVersion(orderId, OrderResponses.expectedVersion(ifMatch),
+                () -> pizzaOrderService.fulfill(orderId));
+
+        return orderResponse(fulfilledOrder, null, request);
+    }
+
+    /**
+     * Applies an ordered batch of changes to a pizza order in one request.
+     * Either every change is applied or none is.
+     *
+     * @param orderId    the ID of the pizza order to change
+     * @param operations the changes to apply, in order
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param request    the request, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return a ResponseEntity containing the updated pizza order if found, a 404 Not Found status if not found,
+     *         or a 400 Bad Request status if any change is invalid
+     */
+    @PostMapping("/{orderId}/batch")
+    public ResponseEntity<Object> applyBatch(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody List<OrderOperation> operations,
+            WebRequest request) {
+        try {
+            return orderResponse(pizzaOrderService.ifVersion(orderId, OrderResponses.expectedVersion(ifMatch),
+                    () -> pizzaOrderService.applyBatch(orderId, operations)), null, request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Deletes a pizza order.
+     *
+     * @param orderId the ID of the pizza order to delete
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @return a ResponseEntity with a 204 No Content status if the pizza order was deleted, or a 404 Not Found status if not found
+     */
+    @DeleteMapping("/{orderId}")
+    public ResponseEntity<Void> deletePizzaOrder(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch) {
+        Boolean deleted = pizzaOrderService.ifVersion(orderId, OrderResponses.expectedVersion(ifMatch),
+                () -> pizzaOrderService.deletePizzaOrder(orderId));
+        if (Boolean.TRUE.equals(deleted)) {
+            return ResponseEntity.noContent().build();
+        } else {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+
+    /***************************************
+    * Pizza                                *
+    *****************************************/
+    
+    /**
+     * Retrieves all pizzas in an order
+     *
+     * @param orderId   the ID of the pizza order to retrieve
+     * @param pizzaIndex the index of the pizza to retrieve
+     * @param ifNoneMatch the ETag of the version the client already has, if any
+     * @return a ResponseEntity containing the pizza if found, or a 404 Not Found status if not found
+     */
+    @GetMapping("/{orderId}/pizzas")
+    public ResponseEntity<List<Pizza>> getPizzas(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        PizzaOrder pizzaOrder = pizzaOrderService.getPizzaOrderById(orderId);
+        if (pizzaOrder == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return OrderResponses.conditionalResponse(pizzaOrder.getVersion(), ifNoneMatch, pizzaOrder.getPizzas());
+    }
+
+    /**
+     * Retrieves a pizza by its ID.
+     *
+     * @param orderId   the ID of the pizza order to retrieve
+     * @param pizzaIndex the index of the pizza to retrieve
+     * @param ifNoneMatch the ETag of the version the client already has, if any
+     * @return a ResponseEntity containing the pizza if found, or a 404 Not Found status if not found
+     */
+    @GetMapping("/{orderId}/pizzas/{pizzaIndex}")
+    public ResponseEntity<Pizza> getPizzaById(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+        
+        PizzaOrder pizzaOrder = pizzaOrderService.getPizzaOrderById(orderId);
+        long version = pizzaOrder == null ? 0 : pizzaOrder.getVersion();
+        Pizza pizza = OrderResponses.pizzaAt(pizzaOrder, pizzaIndex);
+        if (pizza == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return OrderResponses.conditionalResponse(version, ifNoneMatch, pizza);
+    }
+
+    /**
+     * Creates a new pizza.
+     *
+     * @param orderId   the ID of the pizza order to create the pizza in
+     * @param pizzaIndex the index of the pizza to create
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param request    the request, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return a ResponseEntity containing the created pizza and a 201 Created status
+     */
+    @PostMapping("/{orderId}/pizzas/{pizzaIndex}")
+    public ResponseEntity<Object> createPizza(
+            @PathVariable Long orderId,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            WebRequest request) {
+        return orderResponse(pizzaOrderService.ifVersion(orderId, OrderResponses.expectedVersion(ifMatch),
+                () -> pizzaOrderService.createPizza(orderId)), OrderResponses.NEWEST_PIZZA, request);
+    }
+
+    /**
+     * Deletes a pizza.
+     *
+     * @param orderId   the ID of the pizza order to delete the pizza from
+     * @param pizzaIndex the index of the pizza to delete
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param request    the request, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return a ResponseEntity containing the updated pizza order if found, or a 404 Not Found status if not found
+     */
+    @DeleteMapping("/{orderId}/pizzas/{pizzaIndex}")
+    public ResponseEntity<Object> deletePizza(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            WebRequest request) {
+        return orderResponse(pizzaOrderService.ifVersion(orderId, OrderResponses.expectedVersion(ifMatch),
+                () -> pizzaOrderService.deletePizza(orderId, pizzaIndex)), null, request);
+    }
+
+    /**
+     * Updates a pizza's size, only attribute we update for now.
+     *
+     * @param orderId   the ID of the pizza order to update the pizza in
+     * @param pizzaIndex the index of the pizza to update
+     * @param pizzaSize the new size of the pizza
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param request    the request, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return a ResponseEntity containing the updated pizza order if found, a 404 Not Found status if not found,
+     *         or a 400 Bad Request status if the size is unknown
+     */
+    @PatchMapping("/{orderId}/pizzas/{pizzaIndex}")
+    public ResponseEntity<Object> updatePizza(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody String pizzaSize,
+            WebRequest request) {
+        PizzaSize size;
+        try {
+            size = PizzaSize.valueOf(pizzaSize);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return orderResponse(pizzaOrderService.ifVersion(orderId, OrderResponses.expectedVersion(ifMatch),
+                () -> pizzaOrderService.updatePizzaSize(orderId, pizzaIndex, size)), pizzaIndex, request);
+    }
+
+
+    /***************************************
+    * Topping                              *
+    *****************************************/
+
+    /**
+     * Retrieves all toppings on a pizza.
+     *
+     * @param orderId   the ID of the pizza order to retrieve the pizza from
+     * @param pizzaIndex the index of the pizza to retrieve the toppings from
+     * @param ifNoneMatch the ETag of the version the client already has, if any
+     * @return a ResponseEntity containing the toppings if found, or a 404 Not Found status if not found
+     */
+    @GetMapping("/{orderId}/pizzas/{pizzaIndex}/toppings")
+    public ResponseEntity<List<PizzaTopping>> getPizzaToppings(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+
+        PizzaOrder pizzaOrder = pizzaOrderService.getPizzaOrderById(orderId);
+        long version = pizzaOrder == null ? 0 : pizzaOrder.getVersion();
+        Pizza pizza = OrderResponses.pizzaAt(pizzaOrder, pizzaIndex);
+        if (pizza == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return OrderResponses.conditionalResponse(version, ifNoneMatch, pizza.getToppings());
+    }
+
+    /**
+     * Adds a topping to a pizza.
+     *
+     * @param orderId   the ID of the pizza order to add the topping to
+     * @param pizzaIndex the index of the pizza to add the topping to
+     * @param newTopping the topping to add
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param request    the request, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return a ResponseEntity containing the updated pizza order if found, or a 404 Not Found status if not found
+     */
+    @PostMapping("/{orderId}/pizzas/{pizzaIndex}/toppings")
+    public ResponseEntity<Object> addPizzaTopping(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody PizzaTopping newTopping,
+            WebRequest request) {
+        return orderResponse(pizzaOrderService.ifVersion(orderId, OrderResponses.expectedVersion(ifMatch),
+                () -> pizzaOrderService.addPizzaTopping(orderId, pizzaIndex, newTopping)), pizzaIndex, request);
+    }
+    
+    /**
+     * Removes a topping from a pizza.
+     *
+     * @param orderId   the ID of the pizza order to remove the topping from
+     * @param pizzaIndex the index of the pizza to remove the topping from
+     * @param removedTopping the topping to remove
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param request    the request, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return a ResponseEntity containing the updated pizza order if found, or a 404 Not Found status if not found
+     */
+    @DeleteMapping("/{orderId}/pizzas/{pizzaIndex}/toppings")
+    public ResponseEntity<Object> deletePizzaTopping(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody PizzaTopping removedTopping,
+            WebRequest request) {
+        return orderResponse(pizzaOrderService.ifVersion(orderId, OrderResponses.expectedVersion(ifMatch),
+                () -> pizzaOrderService.removePizzaTopping(orderId, pizzaIndex, removedTopping)), pizzaIndex, request);
+    }
+    
+    /**
+     * Updates a pizza's toppings.
+     *
+     * @param orderId   the ID of the pizza order to update the pizza in
+     * @param pizzaIndex the index of the pizza to update
+     * @param updatedToppings the new toppings of the pizza
+     * @param ifMatch    the ETag of the version the change was made against, if any
+     * @param request    the request, which asks for an OrderSummary with "view=summary" or SUMMARY_MEDIA_TYPE
+     * @return a ResponseEntity containing the updated pizza order if found, or a 404 Not Found status if not found
+     */
+    @PatchMapping("/{orderId}/pizzas/{pizzaIndex}/toppings")
+    public ResponseEntity<Object> updatePizzaToppings(
+            @PathVariable Long orderId,
+            @PathVariable int pizzaIndex,
+            @RequestHeader(value = "If-Match", required = false) String ifMatch,
+            @RequestBody List<PizzaTopping> updatedToppings,
+            WebRequest request) {
+        return orderResponse(pizzaOrderService.ifVersion(orderId, OrderResponses.expectedVersion(ifMatch),
+                () -> pizzaOrderService.updatePizzaToppings(orderId, pizzaIndex, updatedToppings)), pizzaIndex, request);
+    }
+
+
+    /***************************************
+    * Errors                               *
+    *****************************************/
+
+    /**
+     * Rejects changes to orders that are no longer open, and out of order state changes.
+     *
+     * @param e the exception naming the order and its state
+     * @return a ResponseEntity with a 409 Conflict status
+     */
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleOrderState(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+    }
+
+    /**
+     * Rejects changes made against a version of the order that is no longer current.
+     *
+     * @param e the exception naming the current version
+     * @return a ResponseEntity with a 412 Precondition Failed status and the current ETag
+     */
+    @ExceptionHandler(StaleOrderVersionException.class)
+    public ResponseEntity<String> handleStaleVersion(StaleOrderVersionException e) {
+        return OrderResponses.staleVersionResponse(e);
+    }
+
+
+    /***************************************
+    * Versions                             *
+    *****************************************/
+
+    /**
+     * Returns the changed pizza order with its new ETag, or a 404 Not Found status if there is no such order.
+     */
+    private static ResponseEntity<Object> orderResponse(PizzaOrder pizzaOrder, Integer pizzaIndex, WebRequest request) {
+        return OrderResponses.orderResponse(pizzaOrder, pizzaIndex, request.getParameter("view"), request.getHeader("Accept"));
+    }
+}
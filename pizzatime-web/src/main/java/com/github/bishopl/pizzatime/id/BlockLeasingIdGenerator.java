@@ -0,0 +1,127 @@
+/**
+ * An OrderIdGenerator that leases blocks of sequential ids and records the end of each lease in a local file.
+ * Ids inside a lease are handed out with a single atomic increment, only crossing into a new block touches the file.
+ * After a restart counting resumes at the end of the last lease, so ids are never reused, at the cost of skipping
+ * whatever was left of that lease. A non-zero node id is placed in the high bits to keep instances apart,
+ * which takes ids past 2^53, so the API sends them to clients as strings.
+ */
+package com.github.bishopl.pizzatime.id;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BlockLeasingIdGenerator implements OrderIdGenerator {
+    public static final int NODE_SHIFT = 48;
+    public static final long MAX_NODE_ID = (1L << (63 - NODE_SHIFT)) - 1;
+    private static final long COUNTER_MASK = (1L << NODE_SHIFT) - 1;
+
+    private final Path leaseFile;
+    private final long blockSize;
+    private final long nodeBits;
+    private final long firstCounter;
+    private final AtomicLong nextCounter;
+    private volatile long leaseEnd;
+
+    /**
+     * Constructs a new BlockLeasingIdGenerator, resuming after the lease recorded in the file if there is one.
+     * @param leaseFile the file holding the end of the current lease
+     * @param blockSize the number of ids leased at a time
+     * @param nodeId the id of this instance, from 0 to MAX_NODE_ID
+     */
+    public BlockLeasingIdGenerator(Path leaseFile, long blockSize, long nodeId) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.leaseFile = leaseFile;
+        this.blockSize = blockSize;
+        this.nodeBits = nodeId << NODE_SHIFT;
+        this.firstCounter = readLeaseEnd();
+        this.nextCounter = new AtomicLong(firstCounter);
+        this.leaseEnd = firstCounter;
+    }
+
+    @Override
+    public long nextId() {
+        long counter = nextCounter.getAndIncrement();
+        if (counter >= leaseEnd) {
+            extendLease(counter);
+        }
+        return nodeBits | counter;
+    }
+
+    @Override
+    public long currentId() {
+        long counter = nextCounter.get() - 1;
+        return counter < firstCounter ? 0 : nodeBits | counter;
+    }
+
+    /**
+     * Moves the counter past an id this node issued, in case the lease file was lost.
+     * The next id issued leases a new block if the counter moved past the current lease.
+     */
+    @Override
+    public void advancePast(long orderId) {
+        if ((orderId & ~COUNTER_MASK) == nodeBits) {
+            nextCounter.accumulateAndGet((orderId & COUNTER_MASK) + 1, Math::max);
+        }
+    }
+
+    /**
+     * Leases blocks until the given counter is covered. Only the thread that crosses a block boundary gets here.
+     */
+    private synchronized void extendLease(long counter) {
+        long end = leaseEnd;
+        if (counter < end) {
+            return;
+        }
+        while (counter >= end) {
+            end += blockSize;
+        }
+        writeLeaseEnd(end);
+        leaseEnd = end;
+    }
+
+    private long readLeaseEnd() {
+        try {
+            if (Files.exists(leaseFile)) {
+                return Long.parseLong(Files.readString(leaseFile, StandardCharsets.UTF_8).trim());
+            }
+            return 1;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read id lease file " + leaseFile, e);
+        }
+    }
+
+    /**
+     * Writes the new lease end to a temporary file, forces it to disk and renames it over the old one,
+     * so a crash leaves either the old or the new lease, never a torn one.
+     */
+    private void writeLeaseEnd(long end) {
+        Path tempFile = leaseFile.resolveSibling(leaseFile.getFileName() + ".tmp");
+        try {
+            Path parent = leaseFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.wrap(Long.toString(end).getBytes(StandardCharsets.UTF_8)));
+                channel.force(true);
+            }
+            Files.move(tempFile, leaseFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write id lease file " + leaseFile, e);
+        }
+    }
+}
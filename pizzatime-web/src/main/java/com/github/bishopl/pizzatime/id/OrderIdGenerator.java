@@ -0,0 +1,28 @@
+/**
+ * Hands out unique pizza order ids.
+ * Implementations must be safe to call from concurrent request threads.
+ */
+package com.github.bishopl.pizzatime.id;
+
+public interface OrderIdGenerator {
+
+    /**
+     * Returns a new, unique order id.
+     * @return the next order id
+     */
+    long nextId();
+
+    /**
+     * Returns the most recently issued order id.
+     * @return the most recently issued order id, or 0 if none has been issued
+     */
+    long currentId();
+
+    /**
+     * Makes sure an id that was issued before a restart is never issued again.
+     * Called for every order recovered from disk. Generators whose ids can't repeat across restarts ignore it.
+     * @param orderId an order id that is already taken
+     */
+    default void advancePast(long orderId) {
+    }
+}
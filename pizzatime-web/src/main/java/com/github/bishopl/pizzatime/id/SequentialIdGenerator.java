@@ -0,0 +1,26 @@
+/**
+ * An in-memory OrderIdGenerator counting up from 1.
+ * Ids restart on every launch, so it only suits a single instance without persistent orders.
+ */
+package com.github.bishopl.pizzatime.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SequentialIdGenerator implements OrderIdGenerator {
+    private final AtomicLong orderCount = new AtomicLong();
+
+    @Override
+    public long nextId() {
+        return orderCount.incrementAndGet();
+    }
+
+    @Override
+    public long currentId() {
+        return orderCount.get();
+    }
+
+    @Override
+    public void advancePast(long orderId) {
+        orderCount.accumulateAndGet(orderId, Math::max);
+    }
+}
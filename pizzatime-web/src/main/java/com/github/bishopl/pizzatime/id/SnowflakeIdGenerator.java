@@ -0,0 +1,69 @@
+/**
+ * A Snowflake style OrderIdGenerator.
+ * Each id packs 41 bits of milliseconds since 2024-01-01, 10 bits of node id and 12 bits of sequence, so
+ * instances with different node ids never collide and ids keep increasing across restarts.
+ * When a millisecond runs out of sequence numbers the generator borrows from the next millisecond instead of waiting.
+ * Ids are well past 2^53, so the API sends them to clients as strings.
+ */
+package com.github.bishopl.pizzatime.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+public class SnowflakeIdGenerator implements OrderIdGenerator {
+    public static final long EPOCH = 1704067200000L;
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+    // Timestamp and sequence of the last id, packed as (millis since EPOCH << SEQUENCE_BITS) | sequence
+    private final AtomicLong lastState = new AtomicLong(-1);
+
+    /**
+     * Constructs a new SnowflakeIdGenerator using the system clock.
+     * @param nodeId the id of this instance, from 0 to MAX_NODE_ID
+     */
+    public SnowflakeIdGenerator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs a new SnowflakeIdGenerator.
+     * @param nodeId the id of this instance, from 0 to MAX_NODE_ID
+     * @param clock the source of wall clock milliseconds
+     */
+    public SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public long nextId() {
+        while (true) {
+            long previous = lastState.get();
+            long now = clock.getAsLong() - EPOCH;
+            // If the clock stands still or steps back, keep counting from the last state so ids stay unique
+            long next = now > (previous >> SEQUENCE_BITS) ? now << SEQUENCE_BITS : previous + 1;
+            if (lastState.compareAndSet(previous, next)) {
+                return toId(next);
+            }
+        }
+    }
+
+    @Override
+    public long currentId() {
+        long state = lastState.get();
+        return state < 0 ? 0 : toId(state);
+    }
+
+    private long toId(long state) {
+        long timestamp = state >>> SEQUENCE_BITS;
+        long sequence = state & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Times every request to the "/v1" API by endpoint, method and outcome, into Micrometer timers with histograms.
+ * Timers are created the first time an endpoint is hit and looked up by the matched route pattern afterwards,
+ * which the framework already holds as a constant string, so timing a request takes no lock and allocates nothing.
+ * Requests that go async, such as event streams and exports, are left out: their handler returns long before they end.
+ */
+package com.github.bishopl.pizzatime.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+public class EndpointMetricsFilter extends OncePerRequestFilter {
+    private static final String API_PREFIX = "/v1/";
+    private static final String[] METHODS = { "GET", "POST", "PUT", "PATCH", "DELETE", "OTHER" };
+    private static final String[] OUTCOMES = { "success", "client_error", "server_error" };
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer[]> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new EndpointMetricsFilter.
+     * @param meterRegistry the registry the timers are registered with
+     */
+    public EndpointMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            filterChain.doFilter(request, response);
+            failed = false;
+        } finally {
+            if (!request.isAsyncStarted()) {
+                record(request, failed ? 500 : response.getStatus(), System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, int status, long nanos) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (!(pattern instanceof String uri) || !uri.startsWith(API_PREFIX)) {
+            return;
+        }
+        Timer[] endpointTimers = timers.get(uri);
+        if (endpointTimers == null) {
+            endpointTimers = timers.computeIfAbsent(uri, key -> new Timer[METHODS.length * OUTCOMES.length]);
+        }
+        int index = methodIndex(request.getMethod()) * OUTCOMES.length + (status >= 500 ? 2 : status >= 400 ? 1 : 0);
+        Timer timer = endpointTimers[index];
+        if (timer == null) {
+            // Racing threads register the same meter, which the registry hands back to both
+            timer = Timer.builder("pizzatime.http.requests")
+                    .description("Requests to the pizza order API, by endpoint, method and outcome")
+                    .tag("uri", uri)
+                    .tag("method", METHODS[index / OUTCOMES.length])
+                    .tag("outcome", OUTCOMES[index % OUTCOMES.length])
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+            endpointTimers[index] = timer;
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static int methodIndex(String method) {
+        return switch (method) {
+            case "GET" -> 0;
+            case "POST" -> 1;
+            case "PUT" -> 2;
+            case "PATCH" -> 3;
+            case "DELETE" -> 4;
+            default -> 5;
+        };
+    }
+}
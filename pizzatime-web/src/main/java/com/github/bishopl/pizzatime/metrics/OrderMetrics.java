@@ -0,0 +1,131 @@
+/**
+ * Publishes pizza order metrics to Micrometer, and so to the Actuator metrics and Prometheus endpoints.
+ * Every meter is registered up front. Recording an order event or a pricing time is one lookup in an array
+ * and an increment of a striped counter, with no locks and no allocation on the request thread.
+ * Updates are also counted by operation, once for every operation they applied, so a batch counts each of its changes.
+ * Gauges are only computed when metrics are read, from the service's own counts, so they hold across a restart.
+ * The memory estimate, which walks every order, is cached.
+ */
+package com.github.bishopl.pizzatime.metrics;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.bishopl.pizzatime.model.OrderOperation;
+import com.github.bishopl.pizzatime.model.OrderStats;
+import com.github.bishopl.pizzatime.service.OrderEvent;
+import com.github.bishopl.pizzatime.service.OrderListener;
+import com.github.bishopl.pizzatime.service.PizzaOrderCounterService;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+@Component
+public class OrderMetrics implements OrderListener {
+    private static final OrderEvent.Type[] EVENT_TYPES = OrderEvent.Type.values();
+    private static final OrderOperation.Type[] OPERATION_TYPES = OrderOperation.Type.values();
+
+    private final PizzaOrderService pizzaOrderService;
+    private final Counter[] eventCounters = new Counter[EVENT_TYPES.length];
+    private final Counter[] operationCounters = new Counter[OPERATION_TYPES.length];
+    private final Timer pricingTimer;
+    private final long memoryRefreshMillis;
+    private volatile long memoryBytes;
+    private volatile long memoryEstimatedAt;
+
+    @Autowired
+    public OrderMetrics(MeterRegistry meterRegistry, PizzaOrderService pizzaOrderService,
+                        PizzaOrderCounterService pizzaOrderCounterService,
+                        @Value("${pizzatime.metrics.memory-refresh-millis:30000}") long memoryRefreshMillis) {
+        this.pizzaOrderService = pizzaOrderService;
+        this.memoryRefreshMillis = memoryRefreshMillis;
+
+        for (OrderEvent.Type type : EVENT_TYPES) {
+            eventCounters[type.ordinal()] = Counter.builder("pizzatime.orders.events")
+                    .description("Changes to pizza orders, by kind of change")
+                    .tag("type", type.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        for (OrderOperation.Type type : OPERATION_TYPES) {
+            operationCounters[type.ordinal()] = Counter.builder("pizzatime.orders.operations")
+                    .description("Operations applied to the pizzas of open orders, by operation")
+                    .tag("op", type.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        this.pricingTimer = Timer.builder("pizzatime.pricing")
+                .description("Full recalculations of an order's price, at checkout and after price changes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+
+        Gauge.builder("pizzatime.orders", pizzaOrderService, service -> service.getOrderStats().getLiveOrders())
+                .description("Pizza orders held, by state")
+                .tag("state", "open")
+                .register(meterRegistry);
+        Gauge.builder("pizzatime.orders", pizzaOrderService, OrderMetrics::checkedOutOrders)
+                .description("Pizza orders held, by state")
+                .tag("state", "checked_out")
+                .register(meterRegistry);
+        Gauge.builder("pizzatime.orders", pizzaOrderService, service -> service.getOrderStats().getFulfilledOrders())
+                .description("Pizza orders held, by state")
+                .tag("state", "fulfilled")
+                .register(meterRegistry);
+        Gauge.builder("pizzatime.orders.memory", this, OrderMetrics::estimateMemoryBytes)
+                .description("Estimated heap taken by open and archived pizza orders")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        FunctionCounter.builder("pizzatime.ids.issued", pizzaOrderCounterService, PizzaOrderCounterService::getIssuedCount)
+                .description("Order numbers handed out by the id generator")
+                .register(meterRegistry);
+
+        pizzaOrderService.addOrderListener(this);
+        pizzaOrderService.setPricingTimer(nanos -> pricingTimer.record(nanos, TimeUnit.NANOSECONDS));
+    }
+
+    @Override
+    public void onOrderEvent(OrderEvent event) {
+        eventCounters[event.getType().ordinal()].increment();
+        List<OrderOperation> operations = event.getOperations();
+        for (int i = 0; i < operations.size(); i++) {
+            operationCounters[operations.get(i).getType().ordinal()].increment();
+        }
+    }
+
+    /**
+     * Stops recording, so a closed context leaves nothing registered with the service.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pizzaOrderService.removeOrderListener(this);
+        pizzaOrderService.setPricingTimer(nanos -> { });
+    }
+
+    /**
+     * Returns the archived orders still waiting to be fulfilled, taken from one reading of the stats.
+     */
+    private static double checkedOutOrders(PizzaOrderService service) {
+        OrderStats orderStats = service.getOrderStats();
+        return orderStats.getArchivedOrders() - orderStats.getFulfilledOrders();
+    }
+
+    /**
+     * Returns the estimated heap taken by the orders, walking them again only if the last estimate is too old.
+     */
+    private double estimateMemoryBytes() {
+        long now = System.currentTimeMillis();
+        if (now - memoryEstimatedAt >= memoryRefreshMillis) {
+            memoryBytes = pizzaOrderService.estimateMemoryBytes();
+            memoryEstimatedAt = now;
+        }
+        return memoryBytes;
+    }
+}
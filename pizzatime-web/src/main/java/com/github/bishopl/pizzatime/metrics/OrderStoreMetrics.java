@@ -0,0 +1,54 @@
+/**
+ * Publishes how the tiered order store's heap tier is doing, to size "pizzatime.orders.hot-bytes":
+ * reads served from the heap and faulted in from disk, orders spilled to disk, orders in each tier,
+ * and the heap the hot tier takes against its budget. Registers nothing for any other order store.
+ */
+package com.github.bishopl.pizzatime.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.github.bishopl.pizzatime.store.OrderStore;
+import com.github.bishopl.pizzatime.store.TieredOrderStore;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Component
+public class OrderStoreMetrics {
+
+    @Autowired
+    public OrderStoreMetrics(MeterRegistry meterRegistry, OrderStore orderStore) {
+        if (!(orderStore instanceof TieredOrderStore tieredStore)) {
+            return;
+        }
+        FunctionCounter.builder("pizzatime.orders.tier.reads", tieredStore, TieredOrderStore::getHits)
+                .description("Order reads, by whether the order was on the heap or faulted in from disk")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("pizzatime.orders.tier.reads", tieredStore, TieredOrderStore::getMisses)
+                .description("Order reads, by whether the order was on the heap or faulted in from disk")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("pizzatime.orders.tier.spills", tieredStore, TieredOrderStore::getSpills)
+                .description("Orders spilled to disk to keep the heap tier under its budget")
+                .register(meterRegistry);
+        Gauge.builder("pizzatime.orders.tier.orders", tieredStore, TieredOrderStore::getHotOrders)
+                .description("Open orders held, by tier")
+                .tag("tier", "heap")
+                .register(meterRegistry);
+        Gauge.builder("pizzatime.orders.tier.orders", tieredStore, TieredOrderStore::getColdOrders)
+                .description("Open orders held, by tier")
+                .tag("tier", "disk")
+                .register(meterRegistry);
+        Gauge.builder("pizzatime.orders.tier.heap", tieredStore, TieredOrderStore::getHotBytes)
+                .description("Estimated heap taken by the orders in the heap tier")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("pizzatime.orders.tier.heap.max", tieredStore, TieredOrderStore::getMaxHotBytes)
+                .description("Heap budget of the heap tier")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,191 @@
+/**
+ * The change feed: every change made through PizzaOrderService, appended as one OrderChange line of JSON
+ * to a ChangeLog that downstream systems tail by offset instead of polling orders one by one.
+ * Changes are queued while the order's lock is held, so each order's changes are in the log in the order
+ * they happened. When orders are kept in a write-ahead log, a change waits in the queue until its record there
+ * is forced to disk, since with batched or async durability a crash can still lose it until then, and the feed
+ * must never hold a change the orders don't. The log's writer appends it once it is, so no change waits on the disk.
+ * A disabled OrderChangeFeed records nothing.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.bishopl.pizzatime.changes.ChangeLog;
+import com.github.bishopl.pizzatime.model.OrderChange;
+import com.github.bishopl.pizzatime.wal.WriteAheadLog;
+
+public class OrderChangeFeed implements OrderListener, Closeable {
+    private static final Logger log = LoggerFactory.getLogger(OrderChangeFeed.class);
+
+    private final ChangeLog changeLog;
+    private final OrderLog orderLog;
+    private final ObjectWriter changeWriter;
+    // Changes waiting for their write-ahead log record to be forced to disk, in the order they happened
+    private final Deque<PendingChange> pending = new ArrayDeque<>();
+    private final Runnable drain = this::drain;
+
+    /**
+     * A change as a line of JSON, and the LSN of its write-ahead log record.
+     */
+    private record PendingChange(long lsn, byte[] line) {
+    }
+
+    /**
+     * Constructs a new OrderChangeFeed writing to a change log, for orders that aren't kept in a write-ahead log.
+     * Register it with PizzaOrderService#addOrderListener to start recording changes.
+     * @param changeLog the log to write to, or null to record nothing
+     * @param objectMapper the mapper changes are written as JSON with
+     */
+    public OrderChangeFeed(ChangeLog changeLog, ObjectMapper objectMapper) {
+        this(changeLog, OrderLog.disabled(), objectMapper);
+    }
+
+    /**
+     * Constructs a new OrderChangeFeed writing to a change log once each change is durable in an order log.
+     * Register it with the PizzaOrderService using the same order log to start recording changes.
+     * @param changeLog the log to write to, or null to record nothing
+     * @param orderLog the order log changes are written to first
+     * @param objectMapper the mapper changes are written as JSON with
+     */
+    public OrderChangeFeed(ChangeLog changeLog, OrderLog orderLog, ObjectMapper objectMapper) {
+        this.changeLog = changeLog;
+        this.orderLog = orderLog;
+        this.changeWriter = objectMapper == null ? null : objectMapper.writerFor(OrderChange.class);
+    }
+
+    /**
+     * Returns an OrderChangeFeed that records nothing.
+     * @return a disabled OrderChangeFeed
+     */
+    public static OrderChangeFeed disabled() {
+        return new OrderChangeFeed(null, OrderLog.disabled(), null);
+    }
+
+    /**
+     * Checks if changes are recorded at all.
+     * @return true if there is a change log, false otherwise
+     */
+    public boolean isEnabled() {
+        return changeLog != null;
+    }
+
+    /**
+     * Returns the change log changes are recorded in.
+     * @return the change log, or null if the OrderChangeFeed is disabled
+     */
+    public ChangeLog getChangeLog() {
+        return changeLog;
+    }
+
+    /**
+     * Appends a change to the log, straight away unless it has to wait for its write-ahead log record.
+     * Called right after the change is appended to the order log, on the same thread.
+     * @param event the change
+     * @throws UncheckedIOException if the change can't be written as JSON or the log has failed
+     */
+    @Override
+    public void onOrderEvent(OrderEvent event) {
+        if (changeLog == null) {
+            return;
+        }
+        byte[] line;
+        try {
+            line = changeWriter.writeValueAsBytes(toChange(event, System.currentTimeMillis()));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        long lsn = orderLog.getPendingLsn();
+        if (lsn < 0) {
+            changeLog.append(line);
+            return;
+        }
+        synchronized (pending) {
+            pending.add(new PendingChange(lsn, line));
+            if (pending.size() == 1) {
+                drain();
+            }
+        }
+    }
+
+    /**
+     * Appends every change at the head of the queue whose record is forced to disk, then waits for the next one.
+     * Runs on the write-ahead log's writer thread, so it must not throw.
+     */
+    private void drain() {
+        WriteAheadLog writeAheadLog = orderLog.getWriteAheadLog();
+        synchronized (pending) {
+            PendingChange next;
+            while ((next = pending.peek()) != null) {
+                if (next.lsn() > writeAheadLog.getSyncedLsn()) {
+                    // An LSN is the position just past its record. The wait is not kept if the log
+                    // got there meanwhile, or has closed or failed, in which case the change was lost with it
+                    if (writeAheadLog.runWhenPast(next.lsn() - 1, drain) || next.lsn() > writeAheadLog.getSyncedLsn()) {
+                        return;
+                    }
+                }
+                try {
+                    changeLog.append(next.line());
+                } catch (RuntimeException e) {
+                    log.warn("Change feed failed, dropping {} changes", pending.size(), e);
+                    pending.clear();
+                    return;
+                }
+                pending.poll();
+            }
+        }
+    }
+
+    /**
+     * Turns an order event into the change the feed records for it.
+     * @param event the order event
+     * @param timeMillis when the change was made
+     * @return the change
+     */
+    public static OrderChange toChange(OrderEvent event, long timeMillis) {
+        OrderChange.Type type = switch (event.getType()) {
+            case CREATED -> OrderChange.Type.CREATED;
+            case UPDATED -> OrderChange.typeOf(event.getOperations());
+            case CHECKED_OUT -> OrderChange.Type.CHECKED_OUT;
+            case FULFILLED -> OrderChange.Type.FULFILLED;
+            case DELETED -> OrderChange.Type.DELETED;
+            case EXPIRED -> OrderChange.Type.EXPIRED;
+        };
+        return new OrderChange(type, event.getOrderId(), event.getVersion(), timeMillis, event.getOperations(),
+                event.getPizzaOrder());
+    }
+
+    /**
+     * Closes the change log, after waiting for the changes still queued to be durable and writing every change appended.
+     * @throws IOException if the change log failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (changeLog == null) {
+            return;
+        }
+        PendingChange last;
+        synchronized (pending) {
+            last = pending.peekLast();
+        }
+        if (last != null) {
+            try {
+                orderLog.getWriteAheadLog().awaitSynced(last.lsn());
+            } catch (UncheckedIOException e) {
+                log.warn("Write-ahead log failed, the change feed is missing the changes it lost", e);
+            }
+            drain();
+        }
+        changeLog.close();
+    }
+}
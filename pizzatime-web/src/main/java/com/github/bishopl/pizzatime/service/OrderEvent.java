@@ -0,0 +1,102 @@
+/**
+ * Represents a change to a pizza order, published to every OrderListener.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import java.util.List;
+
+import com.github.bishopl.pizzatime.model.OrderOperation;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+public class OrderEvent {
+
+    /**
+     * The kinds of change to a pizza order.
+     */
+    public enum Type {
+        CREATED,
+        UPDATED,
+        CHECKED_OUT,
+        FULFILLED,
+        DELETED,
+        EXPIRED
+    }
+
+    private final Type type;
+    private final long orderId;
+    private final long version;
+    private final PizzaOrder pizzaOrder;
+    private final List<OrderOperation> operations;
+
+    /**
+     * Constructs a new OrderEvent that applied no operations.
+     * @param type the kind of change
+     * @param pizzaOrder the pizza order after the change, or as it was when it was deleted or expired
+     */
+    public OrderEvent(Type type, PizzaOrder pizzaOrder) {
+        this(type, pizzaOrder, List.of());
+    }
+
+    /**
+     * Constructs a new OrderEvent.
+     * @param type the kind of change
+     * @param pizzaOrder the pizza order after the change, or as it was when it was deleted or expired
+     * @param operations the operations an UPDATED change applied, in order
+     */
+    public OrderEvent(Type type, PizzaOrder pizzaOrder, List<OrderOperation> operations) {
+        this.type = type;
+        this.orderId = pizzaOrder.getId();
+        this.version = pizzaOrder.getVersion();
+        this.pizzaOrder = pizzaOrder;
+        this.operations = operations;
+    }
+
+    /**
+     * Returns the kind of change.
+     * @return the kind of change
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Returns the ID of the changed pizza order.
+     * @return the ID of the pizza order
+     */
+    public long getOrderId() {
+        return orderId;
+    }
+
+    /**
+     * Returns the version of the pizza order right after the change.
+     * @return the version of the pizza order
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the changed pizza order. Changes are swapped in as new objects, so this one stays as it was right
+     * after the change.
+     * @return the pizza order
+     */
+    public PizzaOrder getPizzaOrder() {
+        return pizzaOrder;
+    }
+
+    /**
+     * Returns the operations an UPDATED change applied to the order's pizzas.
+     * @return the operations in the order they were applied, empty for every other kind of change
+     */
+    public List<OrderOperation> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Checks if the change removed the pizza order.
+     * @return true if the pizza order was deleted or expired, false otherwise
+     */
+    public boolean isRemoval() {
+        return type == Type.DELETED || type == Type.EXPIRED;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * The idle expiry policy for pizza orders that are never checked out.
+ * Orders are tracked in a TimingWheel at their last-touch time plus the idle TTL. Touching an order only updates
+ * its last-touch time, when the wheel reaches the old deadline the order is either expired or rescheduled.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+public class OrderExpiry {
+    private static final int WHEEL_SIZE = 4096;
+
+    private final long idleTtlMillis;
+    private final TimingWheel wheel;
+    private final LongAdder expiredOrders = new LongAdder();
+
+    /**
+     * Constructs a new OrderExpiry.
+     * @param idleTtlMillis how long an order may go untouched before it expires, 0 to never expire orders
+     * @param tickMillis the resolution of expiry in milliseconds
+     */
+    public OrderExpiry(long idleTtlMillis, long tickMillis) {
+        this.idleTtlMillis = idleTtlMillis;
+        this.wheel = idleTtlMillis > 0 ? new TimingWheel(tickMillis, WHEEL_SIZE, System.currentTimeMillis()) : null;
+    }
+
+    /**
+     * Returns an OrderExpiry that never expires orders.
+     * @return a disabled OrderExpiry
+     */
+    public static OrderExpiry disabled() {
+        return new OrderExpiry(0, 1);
+    }
+
+    /**
+     * Checks if orders expire at all.
+     * @return true if an idle TTL is set, false otherwise
+     */
+    public boolean isEnabled() {
+        return wheel != null;
+    }
+
+    /**
+     * Returns the idle TTL.
+     * @return the idle TTL in milliseconds, 0 if orders never expire
+     */
+    public long getIdleTtlMillis() {
+        return idleTtlMillis;
+    }
+
+    /**
+     * Starts tracking a pizza order for expiry.
+     * @param pizzaOrder the pizza order to track
+     */
+    public void track(PizzaOrder pizzaOrder) {
+        if (wheel != null) {
+            wheel.schedule(pizzaOrder.getId(), pizzaOrder.getLastTouched() + idleTtlMillis);
+        }
+    }
+
+    /**
+     * Returns the time a pizza order expires if it isn't touched again.
+     * @param pizzaOrder the pizza order
+     * @return the expiry time in milliseconds
+     */
+    public long deadlineOf(PizzaOrder pizzaOrder) {
+        return pizzaOrder.getLastTouched() + idleTtlMillis;
+    }
+
+    /**
+     * Hands every tracked order that came due to the handler.
+     * @param nowMillis the current time in milliseconds
+     * @param handler decides whether each order expires or is rescheduled
+     * @return the number of orders that came due
+     */
+    public int advance(long nowMillis, TimingWheel.DueHandler handler) {
+        return wheel == null ? 0 : wheel.advance(nowMillis, handler);
+    }
+
+    /**
+     * Counts one expired order.
+     */
+    public void recordExpired() {
+        expiredOrders.increment();
+    }
+
+    /**
+     * Returns the number of orders expired since startup.
+     * @return the number of expired orders
+     */
+    public long getExpiredOrders() {
+        return expiredOrders.sum();
+    }
+
+    /**
+     * Returns the number of orders being tracked for expiry.
+     * @return the number of tracked orders
+     */
+    public int getTrackedOrders() {
+        return wheel == null ? 0 : wheel.size();
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * This service class streams pizza orders out as newline-delimited JSON or CSV.
+ * Orders are written one at a time straight to the output stream as the stores are walked,
+ * so exporting does not build a list of orders and does not hold any order locks while writing.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.github.bishopl.pizzatime.model.Money;
+import com.github.bishopl.pizzatime.model.OrderState;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+@Service
+public class OrderExportService {
+
+    /**
+     * The formats orders can be exported in.
+     */
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    /**
+     * The header row of a CSV export.
+     */
+    public static final String CSV_HEADER = "id,date,state,pizzas,totalCost";
+
+    private final PizzaOrderService pizzaOrderService;
+    private final ObjectWriter orderWriter;
+
+    @Autowired
+    public OrderExportService(PizzaOrderService pizzaOrderService, ObjectMapper objectMapper) {
+        this.pizzaOrderService = pizzaOrderService;
+        this.orderWriter = objectMapper.writerFor(PizzaOrder.class).withRootValueSeparator("\n");
+    }
+
+    /**
+     * Writes every order placed within a date range to an output stream.
+     * @param output the stream to write to, left open
+     * @param format the format to write
+     * @param from the first day to include, or null for no lower bound
+     * @param to the last day to include, or null for no upper bound
+     * @param state the only state to include, or null for every state
+     * @return the number of orders written
+     * @throws IOException if the output can't be written
+     */
+    public long export(OutputStream output, Format format, LocalDate from, LocalDate to, OrderState state) throws IOException {
+        ZoneId zone = ZoneId.systemDefault();
+        long fromMillis = from == null ? Long.MIN_VALUE : from.atStartOfDay(zone).toInstant().toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        OrderSink sink = format == Format.CSV ? new CsvSink(output) : new NdjsonSink(output);
+        long[] written = new long[1];
+        try {
+            pizzaOrderService.forEachOrder(pizzaOrder -> {
+                long date = pizzaOrder.getDate().getTime();
+                if (date < fromMillis || date >= toMillis || (state != null && pizzaOrder.getState() != state)) {
+                    return;
+                }
+                try {
+                    sink.write(pizzaOrder);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                written[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        sink.finish();
+        return written[0];
+    }
+
+    private interface OrderSink {
+        void write(PizzaOrder pizzaOrder) throws IOException;
+
+        void finish() throws IOException;
+    }
+
+    private final class NdjsonSink implements OrderSink {
+        private final SequenceWriter writer;
+        private final OutputStream output;
+        private boolean empty = true;
+
+        NdjsonSink(OutputStream output) throws IOException {
+            this.output = output;
+            this.writer = orderWriter.writeValues(output);
+        }
+
+        @Override
+        public void write(PizzaOrder pizzaOrder) throws IOException {
+            writer.write(pizzaOrder);
+            empty = false;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            // The separator only goes between orders, end the last line too
+            writer.flush();
+            if (!empty) {
+                output.write('\n');
+            }
+            output.flush();
+        }
+    }
+
+    private static final class CsvSink implements OrderSink {
+        private final Writer writer;
+
+        CsvSink(OutputStream output) throws IOException {
+            this.writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(PizzaOrder pizzaOrder) throws IOException {
+            writer.write(Long.toString(pizzaOrder.getId()));
+            writer.write(',');
+            writer.write(pizzaOrder.getDate().toInstant().toString());
+            writer.write(',');
+            writer.write(pizzaOrder.getState().name());
+            writer.write(',');
+            writer.write(Integer.toString(pizzaOrder.getPizzas().size()));
+            writer.write(',');
+            writer.write(Money.format(pizzaOrder.getTotalCostCents()));
+            writer.write('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+}
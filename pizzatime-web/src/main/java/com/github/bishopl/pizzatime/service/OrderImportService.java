@@ -0,0 +1,173 @@
+/**
+ * This service class imports pizza orders in bulk from newline-delimited JSON.
+ * Each line holds one order in the same shape as the body of POST /v1/app/orders, a JSON array of pizzas.
+ * Lines are read, parsed, priced and stored one at a time, so memory stays bounded by the longest allowed line
+ * no matter how many orders the input holds.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.github.bishopl.pizzatime.model.ImportReport;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+
+@Service
+public class OrderImportService {
+    /**
+     * The longest line accepted, longer lines are skipped and reported.
+     */
+    public static final int MAX_LINE_LENGTH = 1 << 20;
+
+    /**
+     * The most rejected lines listed in a report, further rejections are only counted.
+     */
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private final PizzaOrderService pizzaOrderService;
+    private final PizzaOrderCounterService pizzaOrderCounterService;
+    private final ObjectReader pizzaListReader;
+
+    @Autowired
+    public OrderImportService(PizzaOrderService pizzaOrderService, PizzaOrderCounterService pizzaOrderCounterService,
+                              ObjectMapper objectMapper) {
+        this.pizzaOrderService = pizzaOrderService;
+        this.pizzaOrderCounterService = pizzaOrderCounterService;
+        this.pizzaListReader = objectMapper.readerFor(new TypeReference<List<Pizza>>() { });
+    }
+
+    /**
+     * Imports one order per line of newline-delimited JSON.
+     * A bad line is rejected on its own and the import carries on with the next one.
+     * @param input the NDJSON input, read as UTF-8
+     * @param checkout true to check out each imported order, moving it straight to the archive
+     * @return a report of the import
+     * @throws IOException if the input can't be read
+     */
+    public ImportReport importOrders(InputStream input, boolean checkout) throws IOException {
+        long start = System.nanoTime();
+        long lineNumber = 0;
+        long linesRead = 0;
+        long imported = 0;
+        long failed = 0;
+        List<ImportReport.LineError> errors = new ArrayList<>();
+
+        Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8);
+        LineReader lines = new LineReader(reader, MAX_LINE_LENGTH);
+        String line;
+        while ((line = lines.next()) != null) {
+            lineNumber++;
+            String error = null;
+            if (lines.wasTruncated()) {
+                error = "Line is longer than " + MAX_LINE_LENGTH + " characters";
+            } else if (line.isBlank()) {
+                continue;
+            } else {
+                try {
+                    importOrder(line, checkout);
+                } catch (IOException | RuntimeException e) {
+                    error = e.getMessage() == null ? e.getClass().getSimpleName() : firstLine(e.getMessage());
+                }
+            }
+            linesRead++;
+            if (error == null) {
+                imported++;
+            } else {
+                failed++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(new ImportReport.LineError(lineNumber, error));
+                }
+            }
+        }
+        return new ImportReport(linesRead, imported, failed, errors, System.nanoTime() - start);
+    }
+
+    private void importOrder(String line, boolean checkout) throws IOException {
+        List<Pizza> pizzas = pizzaListReader.readValue(line);
+        if (pizzas == null) {
+            throw new IllegalArgumentException("Order must be a JSON array of pizzas");
+        }
+        for (Pizza pizza : pizzas) {
+            if (pizza == null) {
+                throw new IllegalArgumentException("Order contains a null pizza");
+            }
+        }
+        long id = pizzaOrderCounterService.getNextOrderNumber();
+        PizzaOrder pizzaOrder = pizzaOrderService.createPizzaOrder(id, pizzas);
+        if (checkout) {
+            pizzaOrderService.checkout(pizzaOrder.getId());
+        }
+    }
+
+    private static String firstLine(String message) {
+        int newline = message.indexOf('\n');
+        return newline < 0 ? message : message.substring(0, newline);
+    }
+
+    /**
+     * Reads lines of at most a given length, skipping the rest of any longer line.
+     */
+    private static final class LineReader {
+        private final Reader reader;
+        private final int maxLength;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean truncated;
+
+        LineReader(Reader reader, int maxLength) {
+            this.reader = reader;
+            this.maxLength = maxLength;
+        }
+
+        /**
+         * Returns the next line without its line terminator, or null at the end of the input.
+         */
+        String next() throws IOException {
+            line.setLength(0);
+            truncated = false;
+            boolean readAny = false;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return readAny ? line.toString() : null;
+                    }
+                }
+                readAny = true;
+                char c = buffer[position++];
+                if (c == '\n') {
+                    int length = line.length();
+                    if (length > 0 && line.charAt(length - 1) == '\r') {
+                        line.setLength(length - 1);
+                    }
+                    return line.toString();
+                }
+                if (line.length() < maxLength) {
+                    line.append(c);
+                } else {
+                    truncated = true;
+                }
+            }
+        }
+
+        boolean wasTruncated() {
+            return truncated;
+        }
+    }
+}
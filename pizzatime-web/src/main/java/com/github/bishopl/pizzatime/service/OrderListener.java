@@ -0,0 +1,16 @@
+/**
+ * Receives every change to pizza orders made through PizzaOrderService.
+ * Listeners are called while the order's lock is held, so they see each order's changes in order,
+ * and they must return quickly and never block.
+ */
+package com.github.bishopl.pizzatime.service;
+
+@FunctionalInterface
+public interface OrderListener {
+
+    /**
+     * Called after a pizza order changes.
+     * @param event the change
+     */
+    void onOrderEvent(OrderEvent event);
+}
@@ -0,0 +1,65 @@
+/**
+ * Striped locks keyed by order id.
+ * Every mutation of an order runs while holding its stripe, so mutations of the same order are applied one at a time
+ * while mutations of different orders almost always run in parallel.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+public class OrderLocks {
+    private final ReentrantLock[] stripes;
+    private final int mask;
+
+    /**
+     * Constructs OrderLocks with enough stripes to keep collisions rare on this machine.
+     */
+    public OrderLocks() {
+        this(Runtime.getRuntime().availableProcessors() * 16);
+    }
+
+    /**
+     * Constructs OrderLocks with a given number of stripes, rounded up to a power of two.
+     * @param stripeCount the number of stripes
+     */
+    public OrderLocks(int stripeCount) {
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[count];
+        this.mask = count - 1;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Runs an action while holding the lock for a given order.
+     * Locks are reentrant, so an action may call back into other locked methods for the same order.
+     * @param orderId the ID of the pizza order
+     * @param action the action to run
+     * @return the result of the action
+     */
+    public <T> T withLock(long orderId, Supplier<T> action) {
+        ReentrantLock lock = stripeFor(orderId);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks if the calling thread holds the lock for a given order, e.g. because it is inside a withLock action.
+     * @param orderId the ID of the pizza order
+     * @return true if the lock is held by the calling thread
+     */
+    public boolean isHeldByCurrentThread(long orderId) {
+        return stripeFor(orderId).isHeldByCurrentThread();
+    }
+
+    private ReentrantLock stripeFor(long orderId) {
+        long h = orderId * 0x9e3779b97f4a7c15L;
+        return stripes[(int) (h ^ (h >>> 32)) & mask];
+    }
+}
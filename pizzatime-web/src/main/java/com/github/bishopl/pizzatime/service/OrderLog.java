@@ -0,0 +1,187 @@
+/**
+ * The durability policy for pizza orders: every change is written to a write-ahead log before it is acknowledged.
+ * PizzaOrderService appends each change while holding the order's lock, so the log holds each order's changes
+ * in the order they happened, then releases the lock and waits for the record to be as durable as the log asks for
+ * before replying. No lock is held through an fsync, so orders sharing a lock stripe never queue behind another
+ * order's wait, and concurrent waits share one fsync through the log's group commit.
+ * Readers and listeners can see a change before it is durable, but its caller is only answered once it is.
+ * Snapshots of every order are kept next to the log, so a restart loads the newest snapshot and only
+ * replays the log after it, and log segments older than every kept snapshot are deleted.
+ * A disabled OrderLog records nothing and orders are lost on restart.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.wal.OrderLogRecord;
+import com.github.bishopl.pizzatime.wal.OrderSnapshots;
+import com.github.bishopl.pizzatime.wal.WriteAheadLog;
+
+public class OrderLog implements Closeable {
+    private final WriteAheadLog writeAheadLog;
+    private final OrderSnapshots orderSnapshots;
+    // The newest record each thread appended and hasn't waited for yet, or -1
+    private final ThreadLocal<long[]> lastAppendedLsn = ThreadLocal.withInitial(() -> new long[] { -1 });
+    private long lastSnapshotLsn = -1;
+
+    /**
+     * Constructs a new OrderLog writing to a write-ahead log, with snapshots in the same directory.
+     * @param writeAheadLog the log to write to, or null to record nothing
+     */
+    public OrderLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+        this.orderSnapshots = writeAheadLog == null ? null : new OrderSnapshots(writeAheadLog.getDirectory());
+    }
+
+    /**
+     * Returns an OrderLog that records nothing.
+     * @return a disabled OrderLog
+     */
+    public static OrderLog disabled() {
+        return new OrderLog(null);
+    }
+
+    /**
+     * Checks if changes are recorded at all.
+     * @return true if there is a write-ahead log, false otherwise
+     */
+    public boolean isEnabled() {
+        return writeAheadLog != null;
+    }
+
+    /**
+     * Returns the write-ahead log changes are recorded in.
+     * @return the write-ahead log, or null if the OrderLog is disabled
+     */
+    public WriteAheadLog getWriteAheadLog() {
+        return writeAheadLog;
+    }
+
+    /**
+     * Appends a pizza order as it is now, without waiting for the record to be durable.
+     * Must be called while holding the order's lock, and followed by awaitAppended once the lock is released.
+     * @param pizzaOrder the changed pizza order
+     * @throws java.io.UncheckedIOException if the log has failed
+     */
+    public void append(PizzaOrder pizzaOrder) {
+        if (writeAheadLog != null) {
+            appended(writeAheadLog.append(OrderLogRecord.encodeOrder(pizzaOrder)));
+        }
+    }
+
+    /**
+     * Appends that a pizza order was deleted or expired, without waiting for the record to be durable.
+     * Must be followed by awaitAppended once the order's lock is released.
+     * @param orderId the ID of the removed pizza order
+     * @throws java.io.UncheckedIOException if the log has failed
+     */
+    public void appendRemoval(long orderId) {
+        if (writeAheadLog != null) {
+            appended(writeAheadLog.append(OrderLogRecord.encodeRemoval(orderId)));
+        }
+    }
+
+    /**
+     * Waits until every record the calling thread appended is as durable as the log asks for.
+     * @throws java.io.UncheckedIOException if the log has failed
+     */
+    public void awaitAppended() {
+        long[] lsn = lastAppendedLsn.get();
+        if (lsn[0] >= 0) {
+            long waitFor = lsn[0];
+            lsn[0] = -1;
+            writeAheadLog.awaitDurable(waitFor);
+        }
+    }
+
+    /**
+     * Returns the newest record the calling thread appended and hasn't waited for with awaitAppended yet.
+     * Listeners told about a change get the LSN of its record this way.
+     * @return the LSN of the record, or -1 if there is none or the OrderLog is disabled
+     */
+    public long getPendingLsn() {
+        return writeAheadLog == null ? -1 : lastAppendedLsn.get()[0];
+    }
+
+    private void appended(long lsn) {
+        long[] lastLsn = lastAppendedLsn.get();
+        lastLsn[0] = Math.max(lastLsn[0], lsn);
+    }
+
+    /**
+     * Reads back every record in the log, oldest first.
+     * @param fromLsn the LSN to start after, 0 to read the whole log
+     * @param action receives each record
+     * @return the number of records read
+     * @throws IOException if the log can't be read
+     */
+    public long replay(long fromLsn, Consumer<OrderLogRecord> action) throws IOException {
+        if (writeAheadLog == null) {
+            return 0;
+        }
+        return writeAheadLog.replay(fromLsn, (lsn, payload) -> action.accept(OrderLogRecord.decode(payload)));
+    }
+
+    /**
+     * Loads every order from the newest snapshot. Replay the log from the snapshot's LSN afterwards.
+     * @param action receives each order in the snapshot
+     * @return the snapshot loaded, or null if there is none
+     * @throws IOException if the snapshot can't be read, or it is ahead of the log
+     */
+    public synchronized OrderSnapshots.Snapshot loadSnapshot(Consumer<PizzaOrder> action) throws IOException {
+        if (writeAheadLog == null) {
+            return null;
+        }
+        OrderSnapshots.Snapshot snapshot = orderSnapshots.load(action);
+        if (snapshot != null) {
+            if (snapshot.lsn() > writeAheadLog.getEndLsn()) {
+                throw new IOException("Snapshot " + snapshot.file() + " is ahead of the write-ahead log, which ends at "
+                        + writeAheadLog.getEndLsn());
+            }
+            lastSnapshotLsn = snapshot.lsn();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Takes a snapshot of every order without holding up changes, then deletes the log segments no kept
+     * snapshot needs. The snapshot starts from the end of the log as it is now, and every change the walk
+     * misses or catches half done is in the log after that point, so replay puts it right.
+     * @param lastOrderId supplies the last order number issued
+     * @param walk passes every pizza order to the consumer it is given
+     * @return the snapshot taken, or null if the log is disabled or hasn't moved since the last snapshot
+     * @throws IOException if the snapshot can't be written
+     */
+    public synchronized OrderSnapshots.Snapshot snapshot(LongSupplier lastOrderId, Consumer<Consumer<PizzaOrder>> walk)
+            throws IOException {
+        if (writeAheadLog == null) {
+            return null;
+        }
+        long lsn = writeAheadLog.getEndLsn();
+        if (lsn == lastSnapshotLsn) {
+            return null;
+        }
+        long orderId = lastOrderId.getAsLong();
+        // The snapshot stands in for the log up to lsn, so that much of the log has to be on disk first
+        writeAheadLog.awaitSynced(lsn);
+        OrderSnapshots.Snapshot snapshot = orderSnapshots.write(lsn, orderId, walk);
+        lastSnapshotLsn = lsn;
+        writeAheadLog.deleteSegmentsBefore(orderSnapshots.getOldestKeptLsn());
+        return snapshot;
+    }
+
+    /**
+     * Writes out and forces everything already recorded, then closes the log.
+     * @throws IOException if the log failed
+     */
+    @Override
+    public void close() throws IOException {
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+    }
+}
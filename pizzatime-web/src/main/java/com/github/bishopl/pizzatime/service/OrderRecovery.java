@@ -0,0 +1,86 @@
+/**
+ * Rebuilds the pizza orders when the app starts, before any request is served.
+ * Orders a persistent order store kept are picked up first. Then the newest snapshot is loaded first, then only the write-ahead log records after it are replayed, oldest first,
+ * and the last image of each order wins. Only then is each open order tracked for expiry, once.
+ * The order number counter is moved past every order number seen, so no number is handed out twice. How long each part took is logged against the number of orders recovered.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.github.bishopl.pizzatime.model.OrderStats;
+import com.github.bishopl.pizzatime.wal.OrderSnapshots;
+import com.github.bishopl.pizzatime.wal.WriteAheadLog;
+
+import jakarta.annotation.PostConstruct;
+
+@Component
+public class OrderRecovery {
+    private static final Logger log = LoggerFactory.getLogger(OrderRecovery.class);
+
+    private final OrderLog orderLog;
+    private final PizzaOrderService pizzaOrderService;
+    private final PizzaOrderCounterService pizzaOrderCounterService;
+
+    @Autowired
+    public OrderRecovery(OrderLog orderLog, PizzaOrderService pizzaOrderService,
+                         PizzaOrderCounterService pizzaOrderCounterService) {
+        this.orderLog = orderLog;
+        this.pizzaOrderService = pizzaOrderService;
+        this.pizzaOrderCounterService = pizzaOrderCounterService;
+    }
+
+    /**
+     * Picks up the orders kept in the order store, loads the newest snapshot into the order service,
+     * then replays the write-ahead log after it.
+     * @return the number of log records replayed
+     * @throws IOException if the snapshot or the log can't be read
+     */
+    @PostConstruct
+    public long recover() throws IOException {
+        long start = System.nanoTime();
+        pizzaOrderCounterService.advancePast(pizzaOrderService.resumeStoredOrders());
+        if (!orderLog.isEnabled()) {
+            pizzaOrderService.trackRecoveredOrders();
+            OrderStats orderStats = pizzaOrderService.getOrderStats();
+            if (orderStats.getLiveOrders() + orderStats.getArchivedOrders() > 0) {
+                log.info("Found {} open and {} archived orders in the order store in {} ms", orderStats.getLiveOrders(),
+                        orderStats.getArchivedOrders(), (System.nanoTime() - start) / 1_000_000);
+            }
+            return 0;
+        }
+        OrderSnapshots.Snapshot snapshot = orderLog.loadSnapshot(pizzaOrderService::restoreOrder);
+        if (snapshot != null) {
+            pizzaOrderCounterService.advancePast(snapshot.lastOrderId());
+        }
+        long snapshotNanos = System.nanoTime() - start;
+
+        long records = orderLog.replay(snapshot == null ? 0 : snapshot.lsn(), record -> {
+            if (record.isRemoval()) {
+                pizzaOrderService.restoreRemoval(record.getOrderId());
+            } else {
+                pizzaOrderService.restoreOrder(record.getPizzaOrder());
+            }
+            pizzaOrderCounterService.advancePast(record.getOrderId());
+        });
+        pizzaOrderService.trackRecoveredOrders();
+        long totalNanos = System.nanoTime() - start;
+
+        WriteAheadLog writeAheadLog = orderLog.getWriteAheadLog();
+        if (writeAheadLog.getTruncatedBytes() > 0) {
+            log.warn("Cut {} torn bytes off the end of the write-ahead log in {}", writeAheadLog.getTruncatedBytes(),
+                    writeAheadLog.getDirectory());
+        }
+        OrderStats orderStats = pizzaOrderService.getOrderStats();
+        log.info("Recovered {} open and {} archived orders in {} ms: {} orders from a snapshot in {} ms, then {} log records in {} ms",
+                orderStats.getLiveOrders(), orderStats.getArchivedOrders(), totalNanos / 1_000_000,
+                snapshot == null ? 0 : snapshot.orderCount(), snapshotNanos / 1_000_000,
+                records, (totalNanos - snapshotNanos) / 1_000_000);
+        return records;
+    }
+}
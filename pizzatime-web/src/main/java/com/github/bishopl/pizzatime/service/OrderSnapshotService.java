@@ -0,0 +1,73 @@
+/**
+ * This service class takes snapshots of every pizza order next to the write-ahead log, so a restart only replays
+ * the log written since the last one. Snapshots are taken every "pizzatime.wal.snapshot-interval-millis" while the
+ * log is moving, and once more on shutdown so a clean restart replays nothing. Changes carry on while a snapshot
+ * is written, see OrderLog#snapshot.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.github.bishopl.pizzatime.wal.OrderSnapshots;
+
+import jakarta.annotation.PreDestroy;
+
+@Service
+public class OrderSnapshotService {
+    private static final Logger log = LoggerFactory.getLogger(OrderSnapshotService.class);
+
+    private final OrderLog orderLog;
+    private final PizzaOrderService pizzaOrderService;
+    private final PizzaOrderCounterService pizzaOrderCounterService;
+
+    @Autowired
+    public OrderSnapshotService(OrderLog orderLog, PizzaOrderService pizzaOrderService,
+                                PizzaOrderCounterService pizzaOrderCounterService) {
+        this.orderLog = orderLog;
+        this.pizzaOrderService = pizzaOrderService;
+        this.pizzaOrderCounterService = pizzaOrderCounterService;
+    }
+
+    /**
+     * Takes a snapshot on Spring's scheduler. A failed snapshot is logged, the log keeps everything it would have covered.
+     */
+    @Scheduled(fixedDelayString = "${pizzatime.wal.snapshot-interval-millis:300000}",
+               initialDelayString = "${pizzatime.wal.snapshot-interval-millis:300000}")
+    public void takeScheduledSnapshot() {
+        try {
+            takeSnapshot();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not take a snapshot of the orders", e);
+        }
+    }
+
+    /**
+     * Takes a snapshot of every pizza order and the order number counter.
+     * @return the snapshot taken, or null if the log is disabled or nothing changed since the last snapshot
+     * @throws IOException if the snapshot can't be written
+     */
+    public OrderSnapshots.Snapshot takeSnapshot() throws IOException {
+        long start = System.nanoTime();
+        OrderSnapshots.Snapshot snapshot = orderLog.snapshot(pizzaOrderCounterService::getCurrentOrderNumber,
+                pizzaOrderService::forEachOrder);
+        if (snapshot != null) {
+            log.info("Took a snapshot of {} orders at log position {} in {} ms", snapshot.orderCount(), snapshot.lsn(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Takes a last snapshot before the log is closed.
+     */
+    @PreDestroy
+    public void shutdown() {
+        takeScheduledSnapshot();
+    }
+}
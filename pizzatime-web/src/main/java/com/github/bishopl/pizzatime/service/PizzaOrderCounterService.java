@@ -0,0 +1,69 @@
+/**
+ * This service class is responsible for handing out pizza order numbers.
+ * The numbers come from a pluggable OrderIdGenerator, by default an in-memory sequence starting at 1.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.github.bishopl.pizzatime.id.OrderIdGenerator;
+import com.github.bishopl.pizzatime.id.SequentialIdGenerator;
+
+@Service
+public class PizzaOrderCounterService {
+    private final OrderIdGenerator orderIdGenerator;
+    private final LongAdder issuedCount = new LongAdder();
+
+    /**
+     * Constructs a new PizzaOrderCounterService counting up from 1 in memory.
+     */
+    public PizzaOrderCounterService() {
+        this(new SequentialIdGenerator());
+    }
+
+    /**
+     * Constructs a new PizzaOrderCounterService backed by a given id generator.
+     * @param orderIdGenerator the generator handing out order numbers
+     */
+    @Autowired
+    public PizzaOrderCounterService(OrderIdGenerator orderIdGenerator) {
+        this.orderIdGenerator = orderIdGenerator;
+    }
+
+    /**
+     * Returns a new, unique order number.
+     * @return the next order number
+     */
+    public long getNextOrderNumber() {
+        long id = orderIdGenerator.nextId();
+        issuedCount.increment();
+        return id;
+    }
+
+    /**
+     * Returns the most recently issued order number.
+     * @return the most recently issued order number, or 0 if none has been issued
+     */
+    public long getCurrentOrderNumber() {
+        return orderIdGenerator.currentId();
+    }
+
+    /**
+     * Makes sure an order number recovered from disk is never handed out again.
+     * @param orderId an order number that is already taken
+     */
+    public void advancePast(long orderId) {
+        orderIdGenerator.advancePast(orderId);
+    }
+
+    /**
+     * Returns how many order numbers this service has handed out since it started.
+     * @return the number of order numbers issued
+     */
+    public long getIssuedCount() {
+        return issuedCount.sum();
+    }
+}
@@ -0,0 +1,824 @@
+/**
+ * This class represents a service for PizzaOrder objects.
+ * Includes methods for creation, modification, and calculating the price of a pizza order.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+import com.github.bishopl.pizzatime.model.ArchivedOrder;
+import com.github.bishopl.pizzatime.model.OrderOperation;
+import com.github.bishopl.pizzatime.model.OrderState;
+import com.github.bishopl.pizzatime.model.OrderStats;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.pricing.OrderPricing;
+import com.github.bishopl.pizzatime.store.ConcurrentOrderStore;
+import com.github.bishopl.pizzatime.store.OrderArchive;
+import com.github.bishopl.pizzatime.store.OrderStore;
+
+@Service
+public class PizzaOrderService {
+    private static final Logger log = LoggerFactory.getLogger(PizzaOrderService.class);
+
+    private final OrderStore orderStore;
+    private final OrderArchive orderArchive;
+    private final OrderLocks orderLocks = new OrderLocks();
+    private final OrderExpiry orderExpiry;
+    private final OrderLog orderLog;
+    private final List<OrderListener> orderListeners = new CopyOnWriteArrayList<>();
+    // Fulfilled orders in the archive, kept up to date as orders are fulfilled or recovered
+    private final AtomicInteger fulfilledOrders = new AtomicInteger();
+    private volatile LongConsumer pricingTimer = nanos -> { };
+
+    /**
+     * Constructs a new PizzaOrderService backed by the default in-memory order store.
+     */
+    public PizzaOrderService() {
+        this(new ConcurrentOrderStore());
+    }
+
+    /**
+     * Constructs a new PizzaOrderService backed by a given order store, where orders never expire.
+     * @param orderStore the store holding the pizza orders
+     */
+    public PizzaOrderService(OrderStore orderStore) {
+        this(orderStore, OrderExpiry.disabled());
+    }
+
+    /**
+     * Constructs a new PizzaOrderService backed by a given order store and expiry policy, where changes are not logged.
+     * @param orderStore the store holding the pizza orders
+     * @param orderExpiry the policy for expiring idle orders
+     */
+    public PizzaOrderService(OrderStore orderStore, OrderExpiry orderExpiry) {
+        this(orderStore, orderExpiry, OrderLog.disabled());
+    }
+
+    /**
+     * Constructs a new PizzaOrderService backed by a given order store, expiry policy and write-ahead log,
+     * with checked out orders archived in memory.
+     * @param orderStore the store holding the pizza orders
+     * @param orderExpiry the policy for expiring idle orders
+     * @param orderLog the log every change is recorded in before it is acknowledged
+     */
+    public PizzaOrderService(OrderStore orderStore, OrderExpiry orderExpiry, OrderLog orderLog) {
+        this(orderStore, new OrderArchive(), orderExpiry, orderLog);
+    }
+
+    /**
+     * Constructs a new PizzaOrderService backed by a given order store, archive, expiry policy and write-ahead log.
+     * @param orderStore the store holding the open pizza orders
+     * @param orderArchive the archive holding the checked out pizza orders
+     * @param orderExpiry the policy for expiring idle orders
+     * @param orderLog the log every change is recorded in before it is acknowledged
+     */
+    @Autowired
+    public PizzaOrderService(OrderStore orderStore, OrderArchive orderArchive, OrderExpiry orderExpiry, OrderLog orderLog) {
+        this.orderStore = orderStore;
+        this.orderArchive = orderArchive;
+        this.orderExpiry = orderExpiry;
+        this.orderLog = orderLog;
+    }
+
+    /****************************
+     * Cost calculation methods *
+     *****************************/
+
+    /**
+     * Calculates the price of a given pizza order from scratch, refreshing every cached subtotal.
+     * @param pizzaOrder the pizza order to calculate the price of
+     * @return the price of the pizza order in cents
+     * @see OrderPricing#calculatePriceOfOrderCents(PizzaOrder)
+     */
+    public static long calculatePriceOfOrderCents(PizzaOrder pizzaOrder) {
+        return OrderPricing.calculatePriceOfOrderCents(pizzaOrder);
+    }
+
+    /**
+     * Calculates the price of a given pizza order from scratch, for callers that still expect a double.
+     * @param pizzaOrder the pizza order to calculate the price of
+     * @return the price of the pizza order
+     * @see OrderPricing#calculatePriceOfOrder(PizzaOrder)
+     */
+    public static double calculatePriceOfOrder(PizzaOrder pizzaOrder) {
+        return OrderPricing.calculatePriceOfOrder(pizzaOrder);
+    }
+
+    /**
+     * Calculates the price of a given pizza from scratch.
+     * @param pizza the pizza to calculate the price of
+     * @return the price of the pizza in cents
+     * @see OrderPricing#getPricePerPizzaCents(Pizza)
+     */
+    public static long getPricePerPizzaCents(Pizza pizza) {
+        return OrderPricing.getPricePerPizzaCents(pizza);
+    }
+
+    /**
+     * Calculates the price of a given pizza from scratch, for callers that still expect a double.
+     * @param pizza the pizza to calculate the price of
+     * @return the price of the pizza
+     * @see OrderPricing#getPricePerPizza(Pizza)
+     */
+    public static double getPricePerPizza(Pizza pizza) {
+        return OrderPricing.getPricePerPizza(pizza);
+    }
+
+    /**
+     * Checks the cached total of a pizza order against a full recalculation, correcting it if they differ.
+     * @param pizzaOrder the pizza order to verify
+     * @return true if the cached total was correct, false otherwise
+     * @see OrderPricing#verifyPriceOfOrder(PizzaOrder)
+     */
+    public static boolean verifyPriceOfOrder(PizzaOrder pizzaOrder) {
+        return OrderPricing.verifyPriceOfOrder(pizzaOrder);
+    }
+
+
+    /****************************
+     * PizzaOrder Methods       *
+     *****************************/
+
+    /**
+     * Returns the pizza order with a given ID.
+     * Open orders come from the order store, checked out orders are decoded from the archive without locking.
+     * @param orderId the ID of the pizza order
+     * @return the pizza order with the given ID
+     */
+    public PizzaOrder getPizzaOrderById(Long orderId) {
+        if (orderId == null) {
+            return null;
+        }
+        PizzaOrder pizzaOrder = orderStore.get(orderId);
+        if (pizzaOrder != null) {
+            orderStore.touch(pizzaOrder);
+            return pizzaOrder;
+        }
+        ArchivedOrder archivedOrder = orderArchive.get(orderId);
+        return archivedOrder == null ? null : archivedOrder.toPizzaOrder();
+    }
+
+    /**
+     * Passes every pizza order to an action, open orders first and then archived ones.
+     * Nothing is locked while the action runs, so a slow action never holds up changes to orders.
+     * Weakly consistent: an order changed during the walk may be seen before or after the change,
+     * and an order checked out during the walk may be seen twice or not at all.
+     * @param action the action to run for each pizza order
+     */
+    public void forEachOrder(Consumer<PizzaOrder> action) {
+        orderStore.forEach(action);
+        orderArchive.forEach(archivedOrder -> action.accept(archivedOrder.toPizzaOrder()));
+    }
+
+    /**
+     * Creates a new pizza order with a given ID and list of pizzas.
+     * @param id
+     * @param pizzaOrder
+     * @return the new pizza order
+     */
+    public PizzaOrder createPizzaOrder(long id, List<Pizza> pizzaOrder) {
+        PizzaOrder newOrder = new PizzaOrder(id, pizzaOrder);
+        orderLog.append(newOrder);
+        orderStore.put(newOrder);
+        orderExpiry.track(newOrder);
+        publish(OrderEvent.Type.CREATED, newOrder);
+        orderLog.awaitAppended();
+        return newOrder;
+    }
+
+    /**
+     * Checks out the pizza order with a given ID. Finishing the order.
+     * The order is priced one last time, frozen, and moved from the order store to the archive.
+     * This happens to a copy, so nothing changes for readers if the checkout can't be logged.
+     * @param orderId the ID of the pizza order
+     * @return the finished pizza order, or null if there is no order with the given ID
+     * @throws IllegalStateException if the order is already checked out
+     */
+    public PizzaOrder checkout(Long orderId) {
+        if (orderId == null) {
+            return null;
+        }
+        return withLockThenAwaitLog(orderId, () -> {
+            PizzaOrder storedOrder = requireOpenOrder(orderId);
+            if (storedOrder == null) {
+                return null;
+            }
+            // Readers hold the stored order without the lock, so it is checked out as a copy
+            PizzaOrder pizzaOrder = storedOrder.copy();
+            long pricingStart = System.nanoTime();
+            calculatePriceOfOrderCents(pizzaOrder);
+            pricingTimer.accept(System.nanoTime() - pricingStart);
+            pizzaOrder.checkOut();
+            pizzaOrder.bumpVersion();
+            orderLog.append(pizzaOrder);
+            // Archive before removing, so readers always find the order in one place or the other
+            orderArchive.put(ArchivedOrder.of(pizzaOrder));
+            orderStore.remove(orderId);
+            publish(OrderEvent.Type.CHECKED_OUT, pizzaOrder);
+            return pizzaOrder;
+        });
+    }
+
+    /**
+     * Marks a checked out pizza order as fulfilled.
+     * @param orderId the ID of the pizza order
+     * @return the fulfilled pizza order, or null if there is no order with the given ID
+     * @throws IllegalStateException if the order is not checked out
+     */
+    public PizzaOrder fulfill(Long orderId) {
+        if (orderId == null) {
+            return null;
+        }
+        return withLockThenAwaitLog(orderId, () -> {
+            PizzaOrder openOrder = orderStore.get(orderId);
+            if (openOrder != null) {
+                throw new IllegalStateException("Pizza order " + orderId + " is " + openOrder.getState());
+            }
+            ArchivedOrder archivedOrder = orderArchive.get(orderId);
+            if (archivedOrder == null) {
+                return null;
+            }
+            if (archivedOrder.getState() != OrderState.CHECKED_OUT) {
+                throw new IllegalStateException("Pizza order " + orderId + " is " + archivedOrder.getState());
+            }
+            ArchivedOrder fulfilledOrder = archivedOrder.withState(OrderState.FULFILLED);
+            PizzaOrder pizzaOrder = fulfilledOrder.toPizzaOrder();
+            orderLog.append(pizzaOrder);
+            orderArchive.put(fulfilledOrder);
+            fulfilledOrders.incrementAndGet();
+            publish(OrderEvent.Type.FULFILLED, pizzaOrder);
+            return pizzaOrder;
+        });
+    }
+
+    /**
+     * Deletes a pizza order with a given ID. Only open orders can be deleted.
+     * @param orderId the ID of the pizza order
+     * @return true if the pizza order was deleted, false otherwise
+     * @throws IllegalStateException if the order is already checked out
+     */
+    public boolean deletePizzaOrder(Long orderId) {
+        if (orderId == null) {
+            return false;
+        }
+        return withLockThenAwaitLog(orderId, () -> {
+            if (requireOpenOrder(orderId) == null) {
+                return false;
+            }
+            orderLog.appendRemoval(orderId);
+            PizzaOrder removedOrder = orderStore.remove(orderId);
+            publish(OrderEvent.Type.DELETED, removedOrder);
+            return true;
+        });
+    }
+
+
+    /****************************
+     * Pizza Methods            *
+     *****************************/
+
+    /**
+     * Returns the list of pizzas for a given pizza order ID.
+     * @param orderId the ID of the pizza order
+     * @return the list of pizzas for the given pizza order ID
+     */
+    public List<Pizza> getPizzas(Long orderId) {
+        return getPizzaOrderById(orderId).getPizzas();
+    }
+
+    /**
+     * Returns the pizza at a given index for a given pizza order ID.
+     * @param orderId the ID of the pizza order
+     * @param pizzaIndex the index of the pizza
+     * @return the pizza at the given index for the given pizza order ID
+     */
+    public Pizza getPizzaById(Long orderId, int pizzaIndex) {
+        List<Pizza> pizzas = getPizzas(orderId);
+        return pizzas.get(pizzaIndex);
+    }
+
+    /**
+     * Creates a new pizza in a given pizza order.
+     * @param orderId the ID of the pizza order
+     * @return the pizza order with the new pizza
+     */
+    public PizzaOrder createPizza(Long orderId) {
+        return mutate(orderId, null, List.of(OrderOperation.addPizza()), thisOrder -> thisOrder.addPizza(new Pizza()));
+    }
+
+    /**
+     * Deletes a pizza from a given pizza order.
+     * @param orderId the ID of the pizza order
+     * @param pizzaIndex the index of the pizza
+     * @return the pizza order with the deleted pizza, or null if there is no such order or pizza
+     */
+    public PizzaOrder deletePizza(Long orderId, int pizzaIndex) {
+        return mutate(orderId, pizzaIndex, List.of(OrderOperation.deletePizza(pizzaIndex)),
+                thisOrder -> thisOrder.removePizza(thisOrder.getPizzas().get(pizzaIndex)));
+    }
+
+    /**
+     * Updates the size of a given pizza in a given pizza order.
+     * @param orderId the ID of the pizza order
+     * @param pizzaIndex the index of the pizza
+     * @param pizzaSize the size to update to
+     * @return the pizza order with the updated pizza size, or null if there is no such order or pizza
+     */
+    public PizzaOrder updatePizzaSize(Long orderId, int pizzaIndex, PizzaSize pizzaSize) {
+        return mutate(orderId, pizzaIndex, List.of(OrderOperation.setSize(pizzaIndex, pizzaSize)),
+                thisOrder -> thisOrder.updatePizza(pizzaIndex, pizza -> pizza.setPizzaSize(pizzaSize)));
+    }
+
+    /****************************
+     * Pizza Topping Methods    *
+     *****************************/
+
+    /**
+     * Returns the list of toppings for a given pizza order ID and pizza index.
+     * @param orderId the ID of the pizza order
+     * @param pizzaIndex the index of the pizza
+     * @return the list of toppings for the given pizza order ID and pizza index
+     */
+    public List<PizzaTopping> getPizzaToppings(Long orderId, int pizzaIndex) {
+        return getPizzaById(orderId, pizzaIndex).getToppings();
+    }
+
+    /**
+     * Adds a topping to a given pizza in a given pizza order.
+     * @param orderId the ID of the pizza order
+     * @param pizzaIndex the index of the pizza
+     * @param newTopping the topping to add
+     * @return the pizza order with the added topping, or null if there is no such order or pizza
+     */
+    public PizzaOrder addPizzaTopping(Long orderId, int pizzaIndex, PizzaTopping newTopping) {
+        return mutate(orderId, pizzaIndex, List.of(OrderOperation.addTopping(pizzaIndex, newTopping)),
+                thisOrder -> thisOrder.updatePizza(pizzaIndex, pizza -> pizza.addTopping(newTopping)));
+    }
+
+    /**
+     * Removes a topping from a given pizza in a given pizza order.
+     * @param orderId the ID of the pizza order
+     * @param pizzaIndex the index of the pizza
+     * @param removedTopping the topping to remove
+     * @return the pizza order with the removed topping, or null if there is no such order or pizza
+     */
+    public PizzaOrder removePizzaTopping(Long orderId, int pizzaIndex, PizzaTopping removedTopping) {
+        return mutate(orderId, pizzaIndex, List.of(OrderOperation.removeTopping(pizzaIndex, removedTopping)),
+                thisOrder -> thisOrder.updatePizza(pizzaIndex, pizza -> pizza.removeTopping(removedTopping)));
+    }
+
+    /**
+     * Updates the toppings for a given pizza in a given pizza order.
+     * @param orderId the ID of the pizza order
+     * @param pizzaIndex the index of the pizza
+     * @param updatedToppings the list of toppings to update
+     * @return the pizza order with the updated toppings, or null if there is no such order or pizza
+     */
+    public PizzaOrder updatePizzaToppings(Long orderId, int pizzaIndex, List<PizzaTopping> updatedToppings) {
+        return mutate(orderId, pizzaIndex, List.of(OrderOperation.setToppings(pizzaIndex, updatedToppings)),
+                thisOrder -> thisOrder.updatePizza(pizzaIndex, pizza -> pizza.setTopping(updatedToppings)));
+    }
+
+    /****************************
+     * Batch Methods            *
+     *****************************/
+
+    /**
+     * Applies an ordered batch of changes to a pizza order, all or nothing.
+     * The whole batch is checked against the order before anything is changed, then applied to a copy that is
+     * swapped in whole, so other requests see either none or all of it.
+     * Each change moves the total by its own price delta, so the batch costs one pricing pass over the changed
+     * pizzas rather than one full reprice per change.
+     * @param orderId the ID of the pizza order
+     * @param operations the changes to apply, in order
+     * @return the changed pizza order, or null if there is no order with the given ID
+     * @throws IllegalArgumentException if any change is invalid, in which case none are applied
+     * @throws IllegalStateException if the order is already checked out
+     */
+    public PizzaOrder applyBatch(Long orderId, List<OrderOperation> operations) {
+        if (operations == null) {
+            throw new IllegalArgumentException("No operations");
+        }
+        return mutate(orderId, null, operations, thisOrder -> {
+            validateBatch(thisOrder, operations);
+            for (OrderOperation operation : operations) {
+                applyOperation(thisOrder, operation);
+            }
+        });
+    }
+
+    /**
+     * Checks every change in a batch against the order as it will be when that change runs.
+     * @param pizzaOrder the pizza order the batch applies to
+     * @param operations the changes to check
+     * @throws IllegalArgumentException if any change is invalid
+     */
+    private static void validateBatch(PizzaOrder pizzaOrder, List<OrderOperation> operations) {
+        // Track which pizzas exist at each step, without touching the real order
+        List<Pizza> pizzas = new ArrayList<>(pizzaOrder.getPizzas());
+        Pizza addedPizza = new Pizza();
+        for (int i = 0; i < operations.size(); i++) {
+            OrderOperation operation = operations.get(i);
+            if (operation == null || operation.getType() == null) {
+                throw new IllegalArgumentException("Operation " + i + " has no op");
+            }
+            if (operation.getType() == OrderOperation.Type.ADD_PIZZA) {
+                pizzas.add(addedPizza);
+                continue;
+            }
+            int pizzaIndex = operation.getPizzaIndex();
+            if (pizzaIndex < 0 || pizzaIndex >= pizzas.size() || pizzas.get(pizzaIndex) == null) {
+                throw new IllegalArgumentException("Operation " + i + " has no pizza at index " + pizzaIndex);
+            }
+            switch (operation.getType()) {
+                case DELETE_PIZZA -> pizzas.remove(pizzaIndex);
+                case SET_SIZE -> {
+                    if (operation.getPizzaSize() == null) {
+                        throw new IllegalArgumentException("Operation " + i + " has no size");
+                    }
+                }
+                case ADD_TOPPING, REMOVE_TOPPING -> requireValidTopping(i, operation.getTopping());
+                case SET_TOPPINGS -> {
+                    if (operation.getToppings() == null) {
+                        throw new IllegalArgumentException("Operation " + i + " has no toppings");
+                    }
+                    for (PizzaTopping topping : operation.getToppings()) {
+                        requireValidTopping(i, topping);
+                    }
+                }
+                default -> throw new IllegalArgumentException("Operation " + i + " has unknown op " + operation.getType());
+            }
+        }
+    }
+
+    private static void requireValidTopping(int operationIndex, PizzaTopping topping) {
+        if (topping == null || topping.getToppingType() == null || topping.getToppingAmount() == null) {
+            throw new IllegalArgumentException("Operation " + operationIndex + " has an incomplete topping");
+        }
+    }
+
+    /**
+     * Applies one validated change to a pizza order.
+     * @param pizzaOrder the pizza order to change
+     * @param operation the change to apply
+     */
+    private static void applyOperation(PizzaOrder pizzaOrder, OrderOperation operation) {
+        int pizzaIndex = operation.getPizzaIndex();
+        switch (operation.getType()) {
+            case ADD_PIZZA -> pizzaOrder.addPizza(new Pizza());
+            case DELETE_PIZZA -> pizzaOrder.removePizza(pizzaOrder.getPizzas().get(pizzaIndex));
+            case SET_SIZE -> pizzaOrder.updatePizza(pizzaIndex, pizza -> pizza.setPizzaSize(operation.getPizzaSize()));
+            case ADD_TOPPING -> pizzaOrder.updatePizza(pizzaIndex, pizza -> pizza.addTopping(operation.getTopping()));
+            case REMOVE_TOPPING -> pizzaOrder.updatePizza(pizzaIndex, pizza -> pizza.removeTopping(operation.getTopping()));
+            case SET_TOPPINGS -> pizzaOrder.updatePizza(pizzaIndex, pizza -> pizza.setTopping(operation.getToppings()));
+        }
+    }
+
+    /**
+     * Recalculates a pizza order from scratch if the price catalog changed since it was last priced,
+     * and reports the time a recalculation took to the pricing timer.
+     * @param pizzaOrder the pizza order to check
+     */
+    private void repriceIfStale(PizzaOrder pizzaOrder) {
+        long start = System.nanoTime();
+        if (OrderPricing.repriceIfStale(pizzaOrder)) {
+            pricingTimer.accept(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Applies a mutation to a pizza order while holding that order's lock.
+     * Mutations of the same order never overlap, mutations of different orders run in parallel.
+     * Each mutation keeps the order total current through the pizza's cached subtotal.
+     * Readers get the stored order without taking the lock, so the change is made to a copy, which is logged
+     * and then swapped in whole. Readers see the order before or after the change, never part way through it,
+     * and a change that can't be logged is simply dropped with its copy.
+     * A change to one pizza checks the pizza is there under the lock, so it can't race a delete of that pizza.
+     * @param orderId the ID of the pizza order
+     * @param pizzaIndex the index of the pizza the change is made to, or null if it isn't made to one pizza
+     * @param operations the operations the change makes, as told to listeners
+     * @param mutation the change to apply
+     * @return the mutated pizza order, or null if there is no order with the given ID or no pizza at the given index
+     */
+    private PizzaOrder mutate(Long orderId, Integer pizzaIndex, List<OrderOperation> operations, Consumer<PizzaOrder> mutation) {
+        if (orderId == null) {
+            return null;
+        }
+        return withLockThenAwaitLog(orderId, () -> {
+            PizzaOrder storedOrder = requireOpenOrder(orderId);
+            if (storedOrder == null) {
+                return null;
+            }
+            if (pizzaIndex != null && (pizzaIndex < 0 || pizzaIndex >= storedOrder.getPizzas().size())) {
+                return null;
+            }
+            PizzaOrder thisOrder = storedOrder.copy();
+            // Cached subtotals are only valid for the catalog version they were priced with
+            repriceIfStale(thisOrder);
+            mutation.accept(thisOrder);
+            repriceIfStale(thisOrder);
+            thisOrder.bumpVersion();
+            thisOrder.touch();
+            orderLog.append(thisOrder);
+            orderStore.put(thisOrder);
+            publish(OrderEvent.Type.UPDATED, thisOrder, operations);
+            return thisOrder;
+        });
+    }
+
+    /**
+     * Runs a change only if a pizza order is still at the version the caller last saw.
+     * The order's lock is held from the version check until the change is done, and the order locks are
+     * reentrant, so the change can be any of this service's mutators and nothing can slip in between.
+     * @param orderId the ID of the pizza order
+     * @param expectedVersion the version the caller last saw, or null to skip the check
+     * @param change the change to run
+     * @return the result of the change, or null if there is no order with the given ID
+     * @throws StaleOrderVersionException if the order has moved past the expected version
+     */
+    public <T> T ifVersion(Long orderId, Long expectedVersion, Supplier<T> change) {
+        if (orderId == null || expectedVersion == null) {
+            return change.get();
+        }
+        return withLockThenAwaitLog(orderId, () -> {
+            long currentVersion;
+            PizzaOrder pizzaOrder = orderStore.get(orderId);
+            if (pizzaOrder != null) {
+                currentVersion = pizzaOrder.getVersion();
+            } else {
+                ArchivedOrder archivedOrder = orderArchive.get(orderId);
+                if (archivedOrder == null) {
+                    return null;
+                }
+                currentVersion = archivedOrder.getVersion();
+            }
+            if (currentVersion != expectedVersion) {
+                throw new StaleOrderVersionException(orderId, expectedVersion, currentVersion);
+            }
+            return change.get();
+        });
+    }
+
+    /**
+     * Runs a change while holding an order's lock, then waits for what it logged to be durable once the lock
+     * is released, so changes of other orders on the same stripe never queue behind an fsync.
+     * A change nested in another one for the same order, e.g. under ifVersion, leaves the wait to the outer one.
+     * @param orderId the ID of the pizza order
+     * @param change the change to run
+     * @return the result of the change
+     */
+    private <T> T withLockThenAwaitLog(long orderId, Supplier<T> change) {
+        if (orderLocks.isHeldByCurrentThread(orderId)) {
+            return orderLocks.withLock(orderId, change);
+        }
+        T result = orderLocks.withLock(orderId, change);
+        orderLog.awaitAppended();
+        return result;
+    }
+
+    /**
+     * Returns the open pizza order with a given ID. Must be called while holding the order's lock.
+     * @param orderId the ID of the pizza order
+     * @return the open pizza order, or null if there is no order with the given ID
+     * @throws IllegalStateException if the order is already checked out
+     */
+    private PizzaOrder requireOpenOrder(long orderId) {
+        PizzaOrder pizzaOrder = orderStore.get(orderId);
+        if (pizzaOrder == null) {
+            ArchivedOrder archivedOrder = orderArchive.get(orderId);
+            if (archivedOrder != null) {
+                throw new IllegalStateException("Pizza order " + orderId + " is " + archivedOrder.getState());
+            }
+        }
+        return pizzaOrder;
+    }
+
+
+    /****************************
+     * Recovery methods         *
+     *****************************/
+
+    /**
+     * Puts back a pizza order recovered from disk, replacing whatever is stored under its ID.
+     * Open orders go back in the order store, any other goes in the archive. The log can hold many images of
+     * one order, so open orders are only tracked for expiry by trackRecoveredOrders once every image is in.
+     * Nothing is logged or published, so only call it before requests are served.
+     * @param pizzaOrder the recovered pizza order
+     */
+    public void restoreOrder(PizzaOrder pizzaOrder) {
+        if (pizzaOrder.getState() == OrderState.OPEN) {
+            orderStore.put(pizzaOrder);
+        } else {
+            ArchivedOrder previous = orderArchive.get(pizzaOrder.getId());
+            if (previous != null && previous.getState() == OrderState.FULFILLED) {
+                fulfilledOrders.decrementAndGet();
+            }
+            if (pizzaOrder.getState() == OrderState.FULFILLED) {
+                fulfilledOrders.incrementAndGet();
+            }
+            orderArchive.put(ArchivedOrder.of(pizzaOrder));
+            orderStore.remove(pizzaOrder.getId());
+        }
+    }
+
+    /**
+     * Picks up the orders a persistent order store kept through a restart. Open orders are tracked for expiry
+     * by trackRecoveredOrders, once the log has been replayed over them. Nothing is logged or published,
+     * so only call it before requests are served.
+     * @return the highest order ID kept, or 0 if there are none
+     */
+    public long resumeStoredOrders() {
+        long[] lastOrderId = new long[1];
+        orderStore.forEach(pizzaOrder -> lastOrderId[0] = Math.max(lastOrderId[0], pizzaOrder.getId()));
+        orderArchive.forEach(archivedOrder -> {
+            if (archivedOrder.getState() == OrderState.FULFILLED) {
+                fulfilledOrders.incrementAndGet();
+            }
+            lastOrderId[0] = Math.max(lastOrderId[0], archivedOrder.getId());
+        });
+        return lastOrderId[0];
+    }
+
+    /**
+     * Tracks every recovered open order for expiry, once each, with its idle time starting from now rather than
+     * from before the restart. Call it once recovery is done and before requests are served.
+     */
+    public void trackRecoveredOrders() {
+        orderStore.forEach(pizzaOrder -> {
+            orderStore.touch(pizzaOrder);
+            orderExpiry.track(pizzaOrder);
+        });
+    }
+
+    /**
+     * Drops a pizza order that was deleted or expired before a restart.
+     * Nothing is logged or published, so only call it before requests are served.
+     * @param orderId the ID of the removed pizza order
+     */
+    public void restoreRemoval(long orderId) {
+        orderStore.remove(orderId);
+    }
+
+
+    /****************************
+     * Listener methods         *
+     *****************************/
+
+    /**
+     * Registers a listener for every change to pizza orders.
+     * @param orderListener the listener to add
+     */
+    public void addOrderListener(OrderListener orderListener) {
+        orderListeners.add(orderListener);
+    }
+
+    /**
+     * Unregisters a listener.
+     * @param orderListener the listener to remove
+     */
+    public void removeOrderListener(OrderListener orderListener) {
+        orderListeners.remove(orderListener);
+    }
+
+    /**
+     * Sets what full recalculations of an order's price are reported to, at checkout and after price changes.
+     * Called on the request thread with the time taken, so it must be cheap and must not block.
+     * @param pricingTimer receives the nanoseconds each recalculation took
+     */
+    public void setPricingTimer(LongConsumer pricingTimer) {
+        this.pricingTimer = pricingTimer;
+    }
+
+    /**
+     * Tells every listener about a change. Called while the order's lock is held, except on creation,
+     * when nobody else can know the order's ID yet. A failing listener is logged and skipped.
+     */
+    private void publish(OrderEvent.Type type, PizzaOrder pizzaOrder) {
+        publish(type, pizzaOrder, List.of());
+    }
+
+    private void publish(OrderEvent.Type type, PizzaOrder pizzaOrder, List<OrderOperation> operations) {
+        if (orderListeners.isEmpty()) {
+            return;
+        }
+        OrderEvent event = new OrderEvent(type, pizzaOrder, operations);
+        for (OrderListener orderListener : orderListeners) {
+            try {
+                orderListener.onOrderEvent(event);
+            } catch (RuntimeException e) {
+                log.warn("Order listener failed on {} of order {}", type, pizzaOrder.getId(), e);
+            }
+        }
+    }
+
+
+    /****************************
+     * Expiry methods           *
+     *****************************/
+
+    /**
+     * Expires orders that have been idle for longer than the idle TTL.
+     * Runs on Spring's scheduler every expiry tick.
+     */
+    @Scheduled(fixedDelayString = "${pizzatime.orders.expiry-tick-millis:1000}")
+    public void expireIdleOrders() {
+        expireIdleOrders(System.currentTimeMillis());
+    }
+
+    /**
+     * Expires orders that have been idle for longer than the idle TTL as of a given time.
+     * Only orders whose deadline came due are looked at, an order touched since it was scheduled is moved to its new deadline.
+     * @param nowMillis the current time in milliseconds
+     * @return the number of orders expired
+     */
+    public int expireIdleOrders(long nowMillis) {
+        int[] expired = new int[1];
+        orderExpiry.advance(nowMillis, orderId -> orderLocks.withLock(orderId, () -> {
+            PizzaOrder pizzaOrder = orderStore.get(orderId);
+            if (pizzaOrder == null) {
+                return TimingWheel.DONE;
+            }
+            long deadline = orderExpiry.deadlineOf(pizzaOrder);
+            if (deadline > nowMillis) {
+                return deadline;
+            }
+            orderLog.appendRemoval(orderId);
+            orderStore.remove(orderId);
+            orderExpiry.recordExpired();
+            publish(OrderEvent.Type.EXPIRED, pizzaOrder);
+            expired[0]++;
+            return TimingWheel.DONE;
+        }));
+        orderLog.awaitAppended();
+        return expired[0];
+    }
+
+    /**
+     * Returns counters for live and expired orders.
+     * @return the current order statistics
+     */
+    public OrderStats getOrderStats() {
+        return new OrderStats(orderStore.size(), orderArchive.size(), fulfilledOrders.get(), orderExpiry.getExpiredOrders(),
+                orderExpiry.getTrackedOrders());
+    }
+
+    /**
+     * Estimates the heap taken by every open and archived order. Stores that keep orders on the heap are walked,
+     * which costs time in proportion to the number of orders, so callers that ask often should cache it.
+     * @return the estimated size in bytes
+     */
+    public long estimateMemoryBytes() {
+        return orderStore.estimateHeapBytes() + orderArchive.estimateHeapBytes();
+    }
+
+
+    /****************************
+     * Validation methods       *
+     *****************************/
+    
+    /**
+     * Checks if a given pizza order ID is valid.
+     * @param orderId the ID of the pizza order to check
+     * @return true if the pizza order ID is valid, false otherwise
+     */
+     public boolean isValidPizzaOrder(long orderId) {
+        return orderStore.contains(orderId) || orderArchive.contains(orderId);
+    }
+    
+    /**
+     * Checks if a given pizza index is valid for a given pizza order ID.
+     * @param orderId the ID of the pizza order to check
+     * @param pizzaIndex the index of the pizza to check
+     * @return true if the pizza index is valid for the given pizza order ID, false otherwise
+     */
+    public boolean isValidPizza(long orderId, int pizzaIndex) {
+        PizzaOrder pizzaOrder = orderStore.get(orderId);
+        int pizzaCount;
+        if (pizzaOrder != null) {
+            pizzaCount = pizzaOrder.getPizzas().size();
+        } else {
+            ArchivedOrder archivedOrder = orderArchive.get(orderId);
+            if (archivedOrder == null) {
+                return false;
+            }
+            pizzaCount = archivedOrder.getPizzaCount();
+        }
+        return pizzaIndex >= 0 && pizzaIndex < pizzaCount;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+/**
+ * This service class loads prices into the PriceCatalog.
+ * Prices come from a JSON price file at startup and whenever a reload is requested, or from the admin endpoint.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.bishopl.pizzatime.config.PriceCatalog;
+import com.github.bishopl.pizzatime.config.PriceList;
+
+import jakarta.annotation.PostConstruct;
+
+@Service
+public class PriceCatalogService {
+    private final ObjectMapper objectMapper;
+    private final Path priceFile;
+
+    @Autowired
+    public PriceCatalogService(ObjectMapper objectMapper, @Value("${pizzatime.prices.file:}") String priceFile) {
+        this.objectMapper = objectMapper;
+        this.priceFile = priceFile.isBlank() ? null : Path.of(priceFile);
+    }
+
+    /**
+     * Loads the price file at startup, if one is configured and present.
+     */
+    @PostConstruct
+    public void loadAtStartup() {
+        if (priceFile != null && Files.exists(priceFile)) {
+            reload();
+        }
+    }
+
+    /**
+     * Returns the catalog that prices are currently read from.
+     * @return the current price catalog
+     */
+    public PriceCatalog getCurrentCatalog() {
+        return PriceCatalog.current();
+    }
+
+    /**
+     * Reads the price file and installs it as a new catalog version.
+     * @return the newly installed catalog
+     * @throws IllegalStateException if no price file is configured
+     */
+    public PriceCatalog reload() {
+        if (priceFile == null) {
+            throw new IllegalStateException("No price file configured, set pizzatime.prices.file");
+        }
+        try {
+            return PriceCatalog.install(objectMapper.readValue(priceFile.toFile(), PriceList.class));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read price file " + priceFile, e);
+        }
+    }
+
+    /**
+     * Installs a price list as a new catalog version.
+     * @param priceList the prices to change, missing entries keep their current price
+     * @return the newly installed catalog
+     */
+    public PriceCatalog update(PriceList priceList) {
+        return PriceCatalog.install(priceList);
+    }
+
+    /**
+     * Installs the built-in default prices as a new catalog version.
+     * @return the newly installed catalog
+     */
+    public PriceCatalog restoreDefaults() {
+        return PriceCatalog.restoreDefaults();
+    }
+}
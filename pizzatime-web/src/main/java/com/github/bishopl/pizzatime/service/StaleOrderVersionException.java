@@ -0,0 +1,27 @@
+/**
+ * Thrown when a change is made against a version of a pizza order that is no longer current.
+ */
+package com.github.bishopl.pizzatime.service;
+
+public class StaleOrderVersionException extends RuntimeException {
+    private final long currentVersion;
+
+    /**
+     * Constructs a new StaleOrderVersionException.
+     * @param orderId the ID of the pizza order
+     * @param expectedVersion the version the change was made against
+     * @param currentVersion the current version of the pizza order
+     */
+    public StaleOrderVersionException(long orderId, long expectedVersion, long currentVersion) {
+        super("Pizza order " + orderId + " is at version " + currentVersion + ", not " + expectedVersion);
+        this.currentVersion = currentVersion;
+    }
+
+    /**
+     * Returns the current version of the pizza order.
+     * @return the current version
+     */
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * A hashed timing wheel of long ids.
+ * Scheduling drops an id into the slot for its deadline, and each tick only looks at the slots that came due,
+ * so both are O(1) no matter how many ids are waiting. Entries remember their deadline, so a deadline further
+ * out than one lap simply stays in its slot until the lap that reaches it.
+ */
+package com.github.bishopl.pizzatime.service;
+
+import java.util.Arrays;
+
+public class TimingWheel {
+    /**
+     * Returned by a DueHandler when an id should not be rescheduled.
+     */
+    public static final long DONE = -1;
+
+    /**
+     * Called for each id whose deadline has passed.
+     */
+    @FunctionalInterface
+    public interface DueHandler {
+        /**
+         * Handles an id that came due.
+         * @param id the id that came due
+         * @return a new deadline to reschedule the id at, or DONE
+         */
+        long onDue(long id);
+    }
+
+    private final long tickMillis;
+    private final Slot[] slots;
+    private final int mask;
+    private volatile long currentTick;
+
+    /**
+     * Constructs a new TimingWheel.
+     * @param tickMillis the length of one tick in milliseconds
+     * @param wheelSize the number of slots, rounded up to a power of two
+     * @param nowMillis the current time in milliseconds
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long nowMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.slots = new Slot[size];
+        this.mask = size - 1;
+        this.currentTick = nowMillis / tickMillis;
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    /**
+     * Schedules an id to come due at a given time.
+     * @param id the id to schedule
+     * @param deadlineMillis the time in milliseconds the id comes due
+     */
+    public void schedule(long id, long deadlineMillis) {
+        while (true) {
+            // Never land in a slot the wheel has already passed on this lap
+            long tick = Math.max(deadlineMillis / tickMillis, currentTick + 1);
+            Slot slot = slots[(int) tick & mask];
+            synchronized (slot) {
+                // The wheel moves currentTick under the slot's lock before draining it, so if the tick is still
+                // ahead here the slot hasn't been drained for it yet. Otherwise the wheel got there first: try again.
+                if (tick > currentTick) {
+                    slot.add(id, deadlineMillis);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the wheel forward to a given time, handing every id that came due to the handler.
+     * Only one thread advances the wheel at a time.
+     * @param nowMillis the current time in milliseconds
+     * @param handler the handler for ids that came due
+     * @return the number of ids that came due
+     */
+    public synchronized int advance(long nowMillis, DueHandler handler) {
+        long nowTick = nowMillis / tickMillis;
+        long fromTick = currentTick + 1;
+        // After a long pause every slot is due at most once, the stored deadlines sort out the rest
+        if (nowTick - fromTick >= slots.length) {
+            fromTick = nowTick - slots.length + 1;
+        }
+        int due = 0;
+        long[] buffer = new long[16];
+        for (long tick = fromTick; tick <= nowTick; tick++) {
+            Slot slot = slots[(int) tick & mask];
+            int count;
+            synchronized (slot) {
+                currentTick = tick;
+                count = slot.drainDue(nowMillis, buffer);
+                while (count < 0) {
+                    buffer = new long[buffer.length * 2];
+                    count = slot.drainDue(nowMillis, buffer);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                long next = handler.onDue(buffer[i]);
+                if (next != DONE) {
+                    schedule(buffer[i], next);
+                }
+            }
+            due += count;
+        }
+        if (nowTick > currentTick) {
+            currentTick = nowTick;
+        }
+        return due;
+    }
+
+    /**
+     * Returns the number of ids waiting in the wheel.
+     * @return the number of scheduled ids
+     */
+    public int size() {
+        int size = 0;
+        for (Slot slot : slots) {
+            synchronized (slot) {
+                size += slot.size;
+            }
+        }
+        return size;
+    }
+
+    private static final class Slot {
+        private long[] ids = new long[4];
+        private long[] deadlines = new long[4];
+        private int size;
+
+        /**
+         * Adds an id, with the slot's lock held.
+         */
+        void add(long id, long deadline) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                deadlines = Arrays.copyOf(deadlines, size * 2);
+            }
+            ids[size] = id;
+            deadlines[size] = deadline;
+            size++;
+        }
+
+        /**
+         * Moves due ids into the buffer and compacts the rest, with the slot's lock held.
+         * Returns -1 without changing anything if the buffer is too small.
+         */
+        int drainDue(long nowMillis, long[] buffer) {
+            int dueCount = 0;
+            for (int i = 0; i < size; i++) {
+                if (deadlines[i] <= nowMillis) {
+                    dueCount++;
+                }
+            }
+            if (dueCount > buffer.length) {
+                return -1;
+            }
+            int kept = 0;
+            int drained = 0;
+            for (int i = 0; i < size; i++) {
+                if (deadlines[i] <= nowMillis) {
+                    buffer[drained++] = ids[i];
+                } else {
+                    ids[kept] = ids[i];
+                    deadlines[kept] = deadlines[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            return drained;
+        }
+    }
+}
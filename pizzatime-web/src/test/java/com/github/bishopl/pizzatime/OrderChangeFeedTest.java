@@ -0,0 +1,243 @@
+package com.github.bishopl.pizzatime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.bishopl.pizzatime.changes.ChangeLog;
+import com.github.bishopl.pizzatime.controller.OrderChangeController;
+import com.github.bishopl.pizzatime.model.OrderChange;
+import com.github.bishopl.pizzatime.model.OrderOperation;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingType;
+import com.github.bishopl.pizzatime.service.OrderChangeFeed;
+import com.github.bishopl.pizzatime.service.OrderExpiry;
+import com.github.bishopl.pizzatime.service.OrderLog;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+import com.github.bishopl.pizzatime.store.ConcurrentOrderStore;
+import com.github.bishopl.pizzatime.wal.Durability;
+import com.github.bishopl.pizzatime.wal.WriteAheadLog;
+
+import jakarta.servlet.DispatcherType;
+
+public class OrderChangeFeedTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PizzaOrderService pizzaOrderService;
+    private OrderChangeFeed orderChangeFeed;
+    private MockMvc mockMvc;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        pizzaOrderService = new PizzaOrderService();
+        orderChangeFeed = new OrderChangeFeed(new ChangeLog(tempDir, 1 << 20), objectMapper);
+        pizzaOrderService.addOrderListener(orderChangeFeed);
+        mockMvc = MockMvcBuilders.standaloneSetup(new OrderChangeController(orderChangeFeed, 5_000)).build();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        orderChangeFeed.close();
+    }
+
+    @Test
+    public void testEveryChangeIsTyped() throws Exception {
+        PizzaTopping bacon = new PizzaTopping(ToppingType.BACON);
+        pizzaOrderService.createPizzaOrder(1, new ArrayList<>(List.of(new Pizza())));
+        pizzaOrderService.createPizza(1L);
+        pizzaOrderService.addPizzaTopping(1L, 0, bacon);
+        pizzaOrderService.removePizzaTopping(1L, 0, bacon);
+        pizzaOrderService.updatePizzaSize(1L, 1, PizzaSize.LARGE);
+        pizzaOrderService.updatePizzaToppings(1L, 1, List.of(bacon));
+        pizzaOrderService.deletePizza(1L, 0);
+        pizzaOrderService.applyBatch(1L, List.of(OrderOperation.addPizza(), OrderOperation.setSize(1, PizzaSize.SMALL)));
+        pizzaOrderService.checkout(1L);
+        pizzaOrderService.fulfill(1L);
+        pizzaOrderService.createPizzaOrder(2, new ArrayList<>(List.of(new Pizza())));
+        pizzaOrderService.deletePizzaOrder(2L);
+
+        List<OrderChange> changes = readAll(0, 1 << 20);
+        assertEquals(List.of(OrderChange.Type.CREATED, OrderChange.Type.PIZZA_ADDED, OrderChange.Type.TOPPING_ADDED,
+                OrderChange.Type.TOPPING_REMOVED, OrderChange.Type.SIZE_CHANGED, OrderChange.Type.TOPPINGS_REPLACED,
+                OrderChange.Type.PIZZA_DELETED, OrderChange.Type.BATCH_APPLIED, OrderChange.Type.CHECKED_OUT,
+                OrderChange.Type.FULFILLED, OrderChange.Type.CREATED, OrderChange.Type.DELETED),
+                changes.stream().map(OrderChange::getType).toList());
+
+        OrderChange sizeChanged = changes.get(4);
+        assertEquals(1, sizeChanged.getOperations().size());
+        assertEquals(PizzaSize.LARGE, sizeChanged.getOperations().get(0).getPizzaSize());
+        assertEquals(PizzaSize.LARGE, sizeChanged.getOrder().getPizzas().get(1).getPizzaSize());
+        assertEquals(2, changes.get(7).getOperations().size());
+        // Versions of one order only ever go up
+        for (int i = 1; i < 10; i++) {
+            assertTrue(changes.get(i).getVersion() > changes.get(i - 1).getVersion());
+        }
+    }
+
+    @Test
+    public void testTailsInBatchesFromAnyOffset() throws Exception {
+        for (long id = 0; id < 50; id++) {
+            pizzaOrderService.createPizzaOrder(id, new ArrayList<>(List.of(new Pizza())));
+        }
+        List<OrderChange> all = readAll(0, 1 << 20);
+        assertEquals(50, all.size());
+        // Small batches take many reads but still only return whole changes
+        List<OrderChange> small = readAll(0, 300);
+        assertEquals(all.stream().map(OrderChange::getOrderId).toList(), small.stream().map(OrderChange::getOrderId).toList());
+
+        MvcResult first = mockMvc.perform(get("/v1/app/changes").param("maxBytes", "300"))
+                .andExpect(status().isOk())
+                .andReturn();
+        long nextOffset = Long.parseLong(first.getResponse().getHeader(OrderChangeController.NEXT_OFFSET_HEADER));
+        assertEquals(50 - parse(first.getResponse().getContentAsString()).size(), readAll(nextOffset, 1 << 20).size());
+
+        mockMvc.perform(get("/v1/app/changes").param("offset", "1")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testWaitingReadIsWokenByNewChange() throws Exception {
+        pizzaOrderService.createPizzaOrder(1, new ArrayList<>(List.of(new Pizza())));
+        long end = awaitWritten();
+
+        MvcResult waiting = mockMvc.perform(get("/v1/app/changes")
+                        .param("offset", Long.toString(end))
+                        .param("waitMillis", "5000"))
+                .andReturn();
+        assertTrue(waiting.getRequest().isAsyncStarted());
+        MockAsyncContext asyncContext = (MockAsyncContext) waiting.getRequest().getAsyncContext();
+        assertNull(asyncContext.getDispatchedPath());
+
+        pizzaOrderService.createPizza(1L);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (asyncContext.getDispatchedPath() == null) {
+            assertTrue(System.nanoTime() < deadline, "Waiting read was never dispatched");
+            Thread.sleep(1);
+        }
+
+        // The container dispatches the request again, which reads the new change without waiting
+        MvcResult woken = mockMvc.perform(get("/v1/app/changes")
+                        .param("offset", Long.toString(end))
+                        .param("waitMillis", "5000")
+                        .with(request -> {
+                            request.setDispatcherType(DispatcherType.ASYNC);
+                            return request;
+                        }))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<OrderChange> changes = parse(woken.getResponse().getContentAsString());
+        assertEquals(OrderChange.Type.PIZZA_ADDED, changes.get(0).getType());
+    }
+
+    @Test
+    public void testChangesWaitForTheWriteAheadLog() throws Exception {
+        try (OrderLog orderLog = new OrderLog(new WriteAheadLog(tempDir.resolve("wal"), Durability.BATCHED, 2_000, 1 << 20));
+             OrderChangeFeed durableFeed = new OrderChangeFeed(new ChangeLog(tempDir.resolve("durable"), 1 << 20),
+                     orderLog, objectMapper)) {
+            PizzaOrderService loggedService = new PizzaOrderService(new ConcurrentOrderStore(), OrderExpiry.disabled(), orderLog);
+            loggedService.addOrderListener(durableFeed);
+            loggedService.createPizzaOrder(1, new ArrayList<>(List.of(new Pizza())));
+            loggedService.createPizza(1L);
+
+            // Batched changes are answered once written, but a crash could still lose them until they are synced
+            assertEquals(0, durableFeed.getChangeLog().getAppendedOffset());
+            WriteAheadLog writeAheadLog = orderLog.getWriteAheadLog();
+            writeAheadLog.awaitSynced(writeAheadLog.getEndLsn());
+            assertTrue(durableFeed.getChangeLog().getAppendedOffset() > 0);
+
+            loggedService.createPizza(1L);
+            durableFeed.close();
+            List<String> lines = Files.readAllLines(tempDir.resolve("durable").resolve(String.format("%020d.changes", 0)));
+            assertEquals(List.of(OrderChange.Type.CREATED, OrderChange.Type.PIZZA_ADDED, OrderChange.Type.PIZZA_ADDED),
+                    parse(String.join("\n", lines)).stream().map(OrderChange::getType).toList());
+        }
+    }
+
+    @Test
+    public void testDeletedOffsetsAreGone() throws Exception {
+        try (OrderChangeFeed smallFeed = new OrderChangeFeed(new ChangeLog(tempDir.resolve("small"), 256, 512), objectMapper)) {
+            pizzaOrderService.addOrderListener(smallFeed);
+            for (long id = 0; id < 20; id++) {
+                pizzaOrderService.createPizzaOrder(id, new ArrayList<>(List.of(new Pizza())));
+            }
+            ChangeLog changeLog = smallFeed.getChangeLog();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (changeLog.getStartOffset() == 0) {
+                assertTrue(System.nanoTime() < deadline, "Change log never deleted a segment");
+                Thread.sleep(1);
+            }
+            MockMvc small = MockMvcBuilders.standaloneSetup(new OrderChangeController(smallFeed, 5_000)).build();
+            small.perform(get("/v1/app/changes")).andExpect(status().isGone());
+            small.perform(get("/v1/app/changes").param("offset", Long.toString(changeLog.getStartOffset())))
+                    .andExpect(status().isOk());
+        }
+    }
+
+    @Test
+    public void testReadAtEndWithoutWaitIsEmpty() throws Exception {
+        mockMvc.perform(get("/v1/app/changes"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(OrderChangeController.NEXT_OFFSET_HEADER, "0"));
+
+        MockMvc disabled = MockMvcBuilders.standaloneSetup(new OrderChangeController(OrderChangeFeed.disabled(), 5_000)).build();
+        disabled.perform(get("/v1/app/changes")).andExpect(status().isNotFound());
+    }
+
+    private List<OrderChange> readAll(long offset, int maxBytes) throws Exception {
+        awaitWritten();
+        List<OrderChange> changes = new ArrayList<>();
+        while (true) {
+            MvcResult result = mockMvc.perform(get("/v1/app/changes")
+                            .param("offset", Long.toString(offset))
+                            .param("maxBytes", Integer.toString(maxBytes)))
+                    .andReturn();
+            if (result.getResponse().getStatus() == 204) {
+                return changes;
+            }
+            assertEquals(200, result.getResponse().getStatus());
+            changes.addAll(parse(result.getResponse().getContentAsString()));
+            offset = Long.parseLong(result.getResponse().getHeader(OrderChangeController.NEXT_OFFSET_HEADER));
+        }
+    }
+
+    private List<OrderChange> parse(String body) throws Exception {
+        List<OrderChange> changes = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            changes.add(objectMapper.readValue(line, OrderChange.class));
+        }
+        return changes;
+    }
+
+    /**
+     * Waits for the log's writer to catch up with every change appended so far.
+     */
+    private long awaitWritten() throws InterruptedException {
+        ChangeLog changeLog = orderChangeFeed.getChangeLog();
+        long appended = changeLog.getAppendedOffset();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (changeLog.getEndOffset() < appended) {
+            assertTrue(System.nanoTime() < deadline, "Change log writer didn't catch up");
+            Thread.sleep(1);
+        }
+        return appended;
+    }
+}
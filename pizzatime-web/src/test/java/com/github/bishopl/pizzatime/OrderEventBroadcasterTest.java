@@ -0,0 +1,197 @@
+package com.github.bishopl.pizzatime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.github.bishopl.pizzatime.controller.OrderEventBroadcaster;
+import com.github.bishopl.pizzatime.model.OrderSummary;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+
+public class OrderEventBroadcasterTest {
+    private PizzaOrderService pizzaOrderService;
+    private ManualExecutor senders;
+    private OrderEventBroadcaster broadcaster;
+
+    @BeforeEach
+    public void setUp() {
+        pizzaOrderService = new PizzaOrderService();
+        senders = new ManualExecutor();
+        broadcaster = new OrderEventBroadcaster(pizzaOrderService, senders, 0);
+        pizzaOrderService.createPizzaOrder(1, new ArrayList<>(List.of(new Pizza())));
+    }
+
+    @Test
+    public void testChangesAreCoalesced() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(1, false, emitter);
+        senders.runAll();
+        assertEquals(1, emitter.sent.size());
+
+        // A slow subscriber only gets the latest state, not every change
+        pizzaOrderService.updatePizzaSize(1L, 0, PizzaSize.LARGE);
+        pizzaOrderService.updatePizzaSize(1L, 0, PizzaSize.SMALL);
+        pizzaOrderService.createPizza(1L);
+        senders.runAll();
+
+        assertEquals(2, emitter.sent.size());
+        PizzaOrder pushed = (PizzaOrder) emitter.sent.get(1);
+        assertEquals(4, pushed.getVersion());
+        assertEquals(2, broadcaster.getCoalescedEvents());
+    }
+
+    @Test
+    public void testSubscriptionEndsWithOrder() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(1, true, emitter);
+        assertEquals(1, broadcaster.getSubscriberCount());
+
+        pizzaOrderService.deletePizzaOrder(1L);
+        senders.runAll();
+
+        assertTrue(emitter.sent.get(emitter.sent.size() - 1) instanceof OrderSummary);
+        assertTrue(emitter.completed);
+        assertEquals(0, broadcaster.getSubscriberCount());
+        assertNull(broadcaster.subscribe(1, true, new RecordingEmitter()));
+    }
+
+    @Test
+    public void testFailedSubscriberIsDropped() {
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.failing = true;
+        broadcaster.subscribe(1, false, emitter);
+        senders.runAll();
+
+        assertEquals(0, broadcaster.getSubscriberCount());
+        pizzaOrderService.createPizza(1L);
+        assertEquals(0, senders.tasks.size());
+    }
+
+    @Test
+    public void testStalledSubscriberIsDropped() throws Exception {
+        ExecutorService sender = Executors.newSingleThreadExecutor();
+        OrderEventBroadcaster bounded = new OrderEventBroadcaster(pizzaOrderService, sender, 0, 50);
+        try {
+            RecordingEmitter stalled = new RecordingEmitter();
+            stalled.stalling = true;
+            bounded.subscribe(1, false, stalled);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!stalled.completedWithError) {
+                assertTrue(System.nanoTime() < deadline, "Stalled subscriber was never dropped");
+                Thread.sleep(1);
+            }
+            assertEquals(0, bounded.getSubscriberCount());
+            assertEquals(1, bounded.getStalledSubscribers());
+
+            // The only sender is free again for other subscribers
+            RecordingEmitter next = new RecordingEmitter();
+            bounded.subscribe(1, false, next);
+            while (next.sent.isEmpty()) {
+                assertTrue(System.nanoTime() < deadline, "Sender is still stuck");
+                Thread.sleep(1);
+            }
+        } finally {
+            bounded.shutdown();
+        }
+    }
+
+    /**
+     * Keeps the objects it is asked to send instead of writing them to a response.
+     */
+    private static class RecordingEmitter extends SseEmitter {
+        final List<Object> sent = new CopyOnWriteArrayList<>();
+        boolean failing;
+        boolean stalling;
+        boolean completed;
+        volatile boolean completedWithError;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (failing) {
+                throw new IOException("Broken pipe");
+            }
+            if (stalling) {
+                // Like a write to a client that stopped reading, which only gives up when interrupted
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    throw new IOException("Interrupted");
+                }
+            }
+            for (DataWithMediaType data : builder.build()) {
+                if (!(data.getData() instanceof String)) {
+                    sent.add(data.getData());
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completedWithError = true;
+        }
+    }
+
+    /**
+     * Runs submitted tasks only when asked, so a test can pile up changes behind a busy subscriber.
+     */
+    private static class ManualExecutor extends AbstractExecutorService {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
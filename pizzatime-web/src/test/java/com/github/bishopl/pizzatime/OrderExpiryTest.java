@@ -0,0 +1,117 @@
+package com.github.bishopl.pizzatime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.service.OrderExpiry;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+import com.github.bishopl.pizzatime.service.TimingWheel;
+import com.github.bishopl.pizzatime.store.ConcurrentOrderStore;
+
+public class OrderExpiryTest {
+
+    private static final long TTL = 60_000;
+    private static final long TICK = 100;
+
+    @Test
+    public void testIdleOrderExpires() {
+        PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), new OrderExpiry(TTL, TICK));
+        PizzaOrder order = service.createPizzaOrder(1, new ArrayList<>());
+        long created = order.getLastTouched();
+
+        assertEquals(0, service.expireIdleOrders(created + TTL - TICK));
+        assertTrue(service.isValidPizzaOrder(1));
+
+        assertEquals(1, service.expireIdleOrders(created + TTL + TICK));
+        assertFalse(service.isValidPizzaOrder(1));
+        assertEquals(1, service.getOrderStats().getExpiredOrders());
+        assertEquals(0, service.getOrderStats().getLiveOrders());
+    }
+
+    @Test
+    public void testTouchedOrderIsRescheduled() {
+        PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), new OrderExpiry(TTL, TICK));
+        PizzaOrder order = service.createPizzaOrder(1, new ArrayList<>());
+        long created = order.getLastTouched();
+        order.setLastTouched(created + TTL / 2);
+
+        assertEquals(0, service.expireIdleOrders(created + TTL + TICK));
+        assertTrue(service.isValidPizzaOrder(1));
+        assertEquals(1, service.getOrderStats().getTrackedOrders());
+
+        assertEquals(1, service.expireIdleOrders(created + TTL + TTL / 2 + TICK));
+        assertFalse(service.isValidPizzaOrder(1));
+    }
+
+    @Test
+    public void testDeletedOrderIsDropped() {
+        PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), new OrderExpiry(TTL, TICK));
+        PizzaOrder order = service.createPizzaOrder(1, new ArrayList<>());
+        service.deletePizzaOrder(1L);
+
+        assertEquals(0, service.expireIdleOrders(order.getLastTouched() + TTL + TICK));
+        assertEquals(0, service.getOrderStats().getTrackedOrders());
+        assertEquals(0, service.getOrderStats().getExpiredOrders());
+    }
+
+    @Test
+    public void testDisabledExpiryKeepsOrders() {
+        PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore());
+        PizzaOrder order = service.createPizzaOrder(1, new ArrayList<>());
+
+        assertEquals(0, service.expireIdleOrders(order.getLastTouched() + 365L * 24 * 3600 * 1000));
+        assertTrue(service.isValidPizzaOrder(1));
+    }
+
+    @Test
+    public void testWheelOnlyFiresDueIds() {
+        TimingWheel wheel = new TimingWheel(10, 8, 0);
+        // 1000 is many laps of an 8-slot wheel away, so it has to survive passing through its slot
+        wheel.schedule(1, 50);
+        wheel.schedule(2, 1000);
+        List<Long> due = new ArrayList<>();
+
+        assertEquals(1, wheel.advance(100, id -> { due.add(id); return TimingWheel.DONE; }));
+        assertEquals(List.of(1L), due);
+        assertEquals(1, wheel.size());
+
+        assertEquals(1, wheel.advance(1000, id -> { due.add(id); return TimingWheel.DONE; }));
+        assertEquals(List.of(1L, 2L), due);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testScheduleRacingAdvanceNeverWaitsALap() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(1, 4096, 0);
+        long[] now = new long[1];
+        Thread advancer = new Thread(() -> {
+            for (long millis = 1; millis <= 4000; millis++) {
+                wheel.advance(millis, id -> TimingWheel.DONE);
+                synchronized (now) {
+                    now[0] = millis;
+                }
+            }
+        });
+        advancer.start();
+        // Deadlines right at the wheel's current time land in the slot it is about to drain
+        for (long id = 0; advancer.isAlive(); id++) {
+            long millis;
+            synchronized (now) {
+                millis = now[0];
+            }
+            wheel.schedule(id, millis + 1);
+        }
+        advancer.join();
+
+        // Two more ticks cover every deadline scheduled, long before the wheel comes round again
+        wheel.advance(4002, id -> TimingWheel.DONE);
+        assertEquals(0, wheel.size());
+    }
+}
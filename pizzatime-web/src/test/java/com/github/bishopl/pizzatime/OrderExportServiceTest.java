@@ -0,0 +1,78 @@
+package com.github.bishopl.pizzatime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.bishopl.pizzatime.model.Money;
+import com.github.bishopl.pizzatime.model.OrderState;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.service.OrderExportService;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+
+public class OrderExportServiceTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private PizzaOrderService pizzaOrderService;
+    private OrderExportService orderExportService;
+
+    @BeforeEach
+    public void setUp() {
+        pizzaOrderService = new PizzaOrderService();
+        orderExportService = new OrderExportService(pizzaOrderService, objectMapper);
+        for (long id = 1; id <= 100; id++) {
+            pizzaOrderService.createPizzaOrder(id, new ArrayList<>(List.of(new Pizza(PizzaSize.LARGE))));
+        }
+        pizzaOrderService.checkout(7L);
+    }
+
+    private String export(OrderExportService.Format format, LocalDate from, LocalDate to, OrderState state) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        orderExportService.export(output, format, from, to, state);
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testExportNdjson() throws IOException {
+        String[] lines = export(OrderExportService.Format.NDJSON, null, null, null).split("\n");
+
+        assertEquals(100, lines.length);
+        long idSum = 0;
+        for (String line : lines) {
+            JsonNode order = objectMapper.readTree(line);
+            idSum += order.get("id").asLong();
+            assertEquals("LARGE", order.get("pizzas").get(0).get("size").asText());
+        }
+        assertEquals(5050, idSum);
+    }
+
+    @Test
+    public void testExportCsvFiltered() throws IOException {
+        String[] lines = export(OrderExportService.Format.CSV, null, null, OrderState.CHECKED_OUT).split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals(OrderExportService.CSV_HEADER, lines[0]);
+        assertTrue(lines[1].startsWith("7,"));
+        String total = Money.format(PizzaOrderService.getPricePerPizzaCents(new Pizza(PizzaSize.LARGE)));
+        assertTrue(lines[1].endsWith(",CHECKED_OUT,1," + total));
+    }
+
+    @Test
+    public void testExportDateRange() throws IOException {
+        LocalDate today = LocalDate.now();
+
+        assertEquals(101, export(OrderExportService.Format.CSV, today, today, null).split("\n").length);
+        assertEquals("", export(OrderExportService.Format.NDJSON, today.plusDays(1), null, null));
+    }
+}
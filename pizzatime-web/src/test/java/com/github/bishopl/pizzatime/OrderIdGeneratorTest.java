@@ -0,0 +1,133 @@
+package com.github.bishopl.pizzatime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.bishopl.pizzatime.id.BlockLeasingIdGenerator;
+import com.github.bishopl.pizzatime.id.OrderIdGenerator;
+import com.github.bishopl.pizzatime.id.SequentialIdGenerator;
+import com.github.bishopl.pizzatime.id.SnowflakeIdGenerator;
+import com.github.bishopl.pizzatime.service.PizzaOrderCounterService;
+
+public class OrderIdGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testSequentialCountsFromOne() {
+        PizzaOrderCounterService counterService = new PizzaOrderCounterService();
+        assertEquals(0, counterService.getCurrentOrderNumber());
+        assertEquals(1, counterService.getNextOrderNumber());
+        assertEquals(2, counterService.getNextOrderNumber());
+        assertEquals(2, counterService.getCurrentOrderNumber());
+    }
+
+    @Test
+    public void testSnowflakeIdsIncreaseAndCurrentMatches() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        assertEquals(0, generator.currentId());
+        long previous = 0;
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            assertEquals(id, generator.currentId());
+            assertEquals(3, (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testSnowflakeSurvivesClockGoingBackwards() {
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+        long first = generator.nextId();
+        clock.addAndGet(-5_000);
+        long second = generator.nextId();
+        assertTrue(second > first);
+    }
+
+    @Test
+    public void testSnowflakeNodesNeverCollide() {
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 1);
+        SnowflakeIdGenerator nodeOne = new SnowflakeIdGenerator(1, clock::get);
+        SnowflakeIdGenerator nodeTwo = new SnowflakeIdGenerator(2, clock::get);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(ids.add(nodeOne.nextId()));
+            assertTrue(ids.add(nodeTwo.nextId()));
+        }
+    }
+
+    @Test
+    public void testSnowflakeRejectsBadNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+
+    @Test
+    public void testBlockLeasingResumesAfterRestart() {
+        Path leaseFile = tempDir.resolve("ids.lease");
+        BlockLeasingIdGenerator generator = new BlockLeasingIdGenerator(leaseFile, 10, 0);
+        assertEquals(0, generator.currentId());
+        long last = 0;
+        for (int i = 0; i < 25; i++) {
+            last = generator.nextId();
+        }
+        assertEquals(25, last);
+        assertEquals(25, generator.currentId());
+
+        BlockLeasingIdGenerator restarted = new BlockLeasingIdGenerator(leaseFile, 10, 0);
+        long next = restarted.nextId();
+        assertTrue(next > last);
+        assertEquals(31, next);
+    }
+
+    @Test
+    public void testBlockLeasingNodeIdInHighBits() {
+        BlockLeasingIdGenerator generator = new BlockLeasingIdGenerator(tempDir.resolve("node.lease"), 100, 5);
+        long id = generator.nextId();
+        assertEquals(5, id >>> BlockLeasingIdGenerator.NODE_SHIFT);
+        assertEquals(1, id & ((1L << BlockLeasingIdGenerator.NODE_SHIFT) - 1));
+    }
+
+    @Test
+    public void testConcurrentIdsAreUnique() throws Exception {
+        assertUniqueUnderConcurrency(new SequentialIdGenerator());
+        assertUniqueUnderConcurrency(new SnowflakeIdGenerator(0));
+        assertUniqueUnderConcurrency(new BlockLeasingIdGenerator(tempDir.resolve("concurrent.lease"), 64, 0));
+    }
+
+    private static void assertUniqueUnderConcurrency(OrderIdGenerator generator) throws Exception {
+        int threads = 8;
+        int perThread = 10_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        assertTrue(ids.add(generator.nextId()));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(threads * perThread, ids.size());
+    }
+}
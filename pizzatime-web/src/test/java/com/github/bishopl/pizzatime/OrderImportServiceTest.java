@@ -0,0 +1,79 @@
+package com.github.bishopl.pizzatime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.bishopl.pizzatime.model.ImportReport;
+import com.github.bishopl.pizzatime.model.OrderState;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.service.OrderImportService;
+import com.github.bishopl.pizzatime.service.PizzaOrderCounterService;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+
+public class OrderImportServiceTest {
+    private PizzaOrderService pizzaOrderService;
+    private OrderImportService orderImportService;
+
+    @BeforeEach
+    public void setUp() {
+        pizzaOrderService = new PizzaOrderService();
+        orderImportService = new OrderImportService(pizzaOrderService, new PizzaOrderCounterService(), new ObjectMapper());
+    }
+
+    private ImportReport importLines(String ndjson, boolean checkout) throws IOException {
+        return orderImportService.importOrders(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), checkout);
+    }
+
+    @Test
+    public void testImportReportsBadLines() throws IOException {
+        String ndjson = "[{\"size\":\"LARGE\",\"toppings\":[{\"type\":\"BACON\",\"amount\":\"EXTRA\"}]}]\n"
+                + "\n"
+                + "not json\n"
+                + "[{\"size\":\"HUGE\",\"toppings\":[]}]\r\n"
+                + "[{\"size\":\"SMALL\",\"toppings\":[]},{\"size\":\"MEDIUM\",\"toppings\":[]}]";
+
+        ImportReport report = importLines(ndjson, false);
+
+        assertEquals(4, report.getLinesRead());
+        assertEquals(2, report.getImported());
+        assertEquals(2, report.getFailed());
+        assertEquals(3, report.getErrors().get(0).getLine());
+        assertEquals(4, report.getErrors().get(1).getLine());
+        assertTrue(report.getOrdersPerSecond() > 0);
+
+        PizzaOrder first = pizzaOrderService.getPizzaOrderById(1L);
+        assertEquals(PizzaSize.LARGE, first.getPizzas().get(0).getPizzaSize());
+        assertTrue(PizzaOrderService.verifyPriceOfOrder(first));
+        assertEquals(2, pizzaOrderService.getPizzaOrderById(2L).getPizzas().size());
+    }
+
+    @Test
+    public void testImportCapsListedErrors() throws IOException {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < OrderImportService.MAX_REPORTED_ERRORS + 10; i++) {
+            ndjson.append("{}\n");
+        }
+
+        ImportReport report = importLines(ndjson.toString(), false);
+
+        assertEquals(OrderImportService.MAX_REPORTED_ERRORS + 10, report.getFailed());
+        assertEquals(OrderImportService.MAX_REPORTED_ERRORS, report.getErrors().size());
+    }
+
+    @Test
+    public void testImportWithCheckout() throws IOException {
+        ImportReport report = importLines("[{\"size\":\"SMALL\",\"toppings\":[]}]\n", true);
+
+        assertEquals(1, report.getImported());
+        assertEquals(OrderState.CHECKED_OUT, pizzaOrderService.getPizzaOrderById(1L).getState());
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.bishopl.pizzatime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.github.bishopl.pizzatime.metrics.EndpointMetricsFilter;
+import com.github.bishopl.pizzatime.metrics.OrderMetrics;
+import com.github.bishopl.pizzatime.metrics.OrderStoreMetrics;
+import com.github.bishopl.pizzatime.model.OrderOperation;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingType;
+import com.github.bishopl.pizzatime.service.PizzaOrderCounterService;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+import com.github.bishopl.pizzatime.store.ConcurrentOrderStore;
+import com.github.bishopl.pizzatime.store.MappedOrderStore;
+import com.github.bishopl.pizzatime.store.TieredOrderStore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class OrderMetricsTest {
+    private MeterRegistry meterRegistry;
+    private PizzaOrderService pizzaOrderService;
+    private PizzaOrderCounterService pizzaOrderCounterService;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        pizzaOrderService = new PizzaOrderService();
+        pizzaOrderCounterService = new PizzaOrderCounterService();
+        new OrderMetrics(meterRegistry, pizzaOrderService, pizzaOrderCounterService, 0);
+    }
+
+    @Test
+    public void testOrderEventsAndGauges() {
+        long first = pizzaOrderCounterService.getNextOrderNumber();
+        long second = pizzaOrderCounterService.getNextOrderNumber();
+        pizzaOrderService.createPizzaOrder(first, List.of(new Pizza()));
+        pizzaOrderService.createPizzaOrder(second, List.of(new Pizza(), new Pizza()));
+        pizzaOrderService.addPizzaTopping(first, 0, new PizzaTopping(ToppingType.HAM));
+        pizzaOrderService.checkout(first);
+
+        assertEquals(2, meterRegistry.get("pizzatime.orders.events").tag("type", "created").counter().count());
+        assertEquals(1, meterRegistry.get("pizzatime.orders.events").tag("type", "updated").counter().count());
+        assertEquals(1, meterRegistry.get("pizzatime.orders.events").tag("type", "checked_out").counter().count());
+        assertEquals(1, meterRegistry.get("pizzatime.orders.operations").tag("op", "add_topping").counter().count());
+        assertEquals(0, meterRegistry.get("pizzatime.orders.operations").tag("op", "set_size").counter().count());
+        assertEquals(1, meterRegistry.get("pizzatime.orders").tag("state", "open").gauge().value());
+        assertEquals(1, meterRegistry.get("pizzatime.orders").tag("state", "checked_out").gauge().value());
+        assertEquals(2, meterRegistry.get("pizzatime.ids.issued").functionCounter().count());
+        assertEquals(1, meterRegistry.get("pizzatime.pricing").timer().count());
+        assertEquals(pizzaOrderService.estimateMemoryBytes(), meterRegistry.get("pizzatime.orders.memory").gauge().value());
+        assertTrue(pizzaOrderService.estimateMemoryBytes() > 0);
+
+        pizzaOrderService.fulfill(first);
+        assertEquals(0, meterRegistry.get("pizzatime.orders").tag("state", "checked_out").gauge().value());
+        assertEquals(1, meterRegistry.get("pizzatime.orders").tag("state", "fulfilled").gauge().value());
+    }
+
+    @Test
+    public void testBatchCountsEachOperation() {
+        pizzaOrderService.createPizzaOrder(1L, List.of(new Pizza()));
+        pizzaOrderService.applyBatch(1L, List.of(OrderOperation.addPizza(), OrderOperation.addPizza(),
+                OrderOperation.setSize(0, PizzaSize.LARGE)));
+
+        assertEquals(1, meterRegistry.get("pizzatime.orders.events").tag("type", "updated").counter().count());
+        assertEquals(2, meterRegistry.get("pizzatime.orders.operations").tag("op", "add_pizza").counter().count());
+        assertEquals(1, meterRegistry.get("pizzatime.orders.operations").tag("op", "set_size").counter().count());
+    }
+
+    @Test
+    public void testArchivedGaugesSurviveRestart() {
+        pizzaOrderService.createPizzaOrder(1L, List.of(new Pizza()));
+        pizzaOrderService.createPizzaOrder(2L, List.of(new Pizza()));
+        pizzaOrderService.checkout(1L);
+        pizzaOrderService.checkout(2L);
+        pizzaOrderService.fulfill(1L);
+
+        // A restarted service recovers the archive without publishing any events
+        MeterRegistry restartedRegistry = new SimpleMeterRegistry();
+        PizzaOrderService restarted = new PizzaOrderService();
+        restarted.restoreOrder(pizzaOrderService.getPizzaOrderById(1L));
+        restarted.restoreOrder(pizzaOrderService.getPizzaOrderById(2L));
+        new OrderMetrics(restartedRegistry, restarted, new PizzaOrderCounterService(), 0);
+
+        assertEquals(1, restartedRegistry.get("pizzatime.orders").tag("state", "checked_out").gauge().value());
+        assertEquals(1, restartedRegistry.get("pizzatime.orders").tag("state", "fulfilled").gauge().value());
+    }
+
+    @Test
+    public void testEndpointTimersByRouteAndOutcome() throws Exception {
+        EndpointMetricsFilter filter = new EndpointMetricsFilter(meterRegistry);
+        for (int status : new int[] { 200, 200, 404 }) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/app/orders/7");
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/v1/app/orders/{orderId}");
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            response.setStatus(status);
+            filter.doFilter(request, response, new MockFilterChain());
+        }
+
+        assertEquals(2, meterRegistry.get("pizzatime.http.requests")
+                .tags("uri", "/v1/app/orders/{orderId}", "method", "GET", "outcome", "success").timer().count());
+        assertEquals(1, meterRegistry.get("pizzatime.http.requests")
+                .tags("uri", "/v1/app/orders/{orderId}", "method", "GET", "outcome", "client_error").timer().count());
+    }
+
+    @Test
+    public void testTieredStoreMetrics(@TempDir Path tempDir) throws IOException {
+        long orderBytes = new PizzaOrder(0L, List.of(new Pizza())).estimateRetainedBytes();
+        try (TieredOrderStore orderStore = new TieredOrderStore(orderBytes * 2, new MappedOrderStore(tempDir.resolve("spilled")))) {
+            PizzaOrderService tieredService = new PizzaOrderService(orderStore);
+            new OrderStoreMetrics(meterRegistry, orderStore);
+            for (long id = 1; id <= 5; id++) {
+                tieredService.createPizzaOrder(id, List.of(new Pizza()));
+            }
+            tieredService.getPizzaOrderById(1L);
+            tieredService.getPizzaOrderById(1L);
+
+            assertEquals(1, meterRegistry.get("pizzatime.orders.tier.reads").tag("result", "miss").functionCounter().count());
+            assertEquals(1, meterRegistry.get("pizzatime.orders.tier.reads").tag("result", "hit").functionCounter().count());
+            assertEquals(orderStore.getSpills(), meterRegistry.get("pizzatime.orders.tier.spills").functionCounter().count());
+            assertEquals(5, meterRegistry.get("pizzatime.orders.tier.orders").tag("tier", "heap").gauge().value()
+                    + meterRegistry.get("pizzatime.orders.tier.orders").tag("tier", "disk").gauge().value());
+            assertTrue(meterRegistry.get("pizzatime.orders.tier.heap").gauge().value()
+                    <= meterRegistry.get("pizzatime.orders.tier.heap.max").gauge().value());
+        }
+    }
+
+    @Test
+    public void testNoTierMetricsForOtherStores() {
+        new OrderStoreMetrics(meterRegistry, new ConcurrentOrderStore());
+        assertNull(meterRegistry.find("pizzatime.orders.tier.reads").meter());
+    }
+}
@@ -0,0 +1,255 @@
+package com.github.bishopl.pizzatime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.github.bishopl.pizzatime.model.OrderState;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingType;
+import com.github.bishopl.pizzatime.service.OrderExpiry;
+import com.github.bishopl.pizzatime.service.OrderLog;
+import com.github.bishopl.pizzatime.service.OrderRecovery;
+import com.github.bishopl.pizzatime.service.OrderSnapshotService;
+import com.github.bishopl.pizzatime.service.PizzaOrderCounterService;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+import com.github.bishopl.pizzatime.store.ConcurrentOrderStore;
+import com.github.bishopl.pizzatime.store.MappedOrderArchive;
+import com.github.bishopl.pizzatime.store.MappedOrderStore;
+import com.github.bishopl.pizzatime.wal.Durability;
+import com.github.bishopl.pizzatime.wal.WriteAheadLog;
+
+public class OrderRecoveryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testOrdersSurviveRestart() throws IOException {
+        PizzaOrder openOrder;
+        try (OrderLog orderLog = openLog(Durability.SYNC)) {
+            PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), OrderExpiry.disabled(), orderLog);
+            PizzaOrderCounterService counterService = new PizzaOrderCounterService();
+            assertEquals(0, new OrderRecovery(orderLog, service, counterService).recover());
+
+            long openId = counterService.getNextOrderNumber();
+            service.createPizzaOrder(openId, new ArrayList<>(List.of(new Pizza())));
+            service.addPizzaTopping(openId, 0, new PizzaTopping(ToppingType.HAM));
+            service.updatePizzaSize(openId, 0, PizzaSize.LARGE);
+            openOrder = service.getPizzaOrderById(openId);
+
+            long fulfilledId = counterService.getNextOrderNumber();
+            service.createPizzaOrder(fulfilledId, new ArrayList<>(List.of(new Pizza(), new Pizza())));
+            service.checkout(fulfilledId);
+            service.fulfill(fulfilledId);
+
+            long deletedId = counterService.getNextOrderNumber();
+            service.createPizzaOrder(deletedId, new ArrayList<>());
+            service.deletePizzaOrder(deletedId);
+        }
+
+        try (OrderLog orderLog = openLog(Durability.SYNC)) {
+            PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), OrderExpiry.disabled(), orderLog);
+            PizzaOrderCounterService counterService = new PizzaOrderCounterService();
+            assertEquals(8, new OrderRecovery(orderLog, service, counterService).recover());
+
+            PizzaOrder recovered = service.getPizzaOrderById(1L);
+            assertEquals(OrderState.OPEN, recovered.getState());
+            assertEquals(openOrder.getVersion(), recovered.getVersion());
+            assertEquals(openOrder.getTotalCostCents(), recovered.getTotalCostCents());
+            assertEquals(PizzaSize.LARGE, recovered.getPizzas().get(0).getPizzaSize());
+            assertNotNull(recovered.getPizzas().get(0).getTopping(ToppingType.HAM));
+            assertEquals(OrderState.FULFILLED, service.getPizzaOrderById(2L).getState());
+            assertFalse(service.isValidPizzaOrder(3));
+            assertEquals(1, service.getOrderStats().getLiveOrders());
+            assertEquals(1, service.getOrderStats().getArchivedOrders());
+
+            // Recovered orders keep working, and new orders never reuse a number
+            service.createPizza(1L);
+            assertEquals(4, counterService.getNextOrderNumber());
+        }
+    }
+
+    @Test
+    public void testAsyncLogKeepsChangesAfterClose() throws IOException {
+        try (OrderLog orderLog = openLog(Durability.ASYNC)) {
+            PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), OrderExpiry.disabled(), orderLog);
+            for (long id = 1; id <= 1000; id++) {
+                service.createPizzaOrder(id, new ArrayList<>(List.of(new Pizza())));
+            }
+        }
+        try (OrderLog orderLog = openLog(Durability.ASYNC)) {
+            PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), OrderExpiry.disabled(), orderLog);
+            new OrderRecovery(orderLog, service, new PizzaOrderCounterService()).recover();
+            assertEquals(1000, service.getOrderStats().getLiveOrders());
+        }
+    }
+
+    @Test
+    public void testSnapshotTakenDuringChangesRecoversWithLogTail() throws Exception {
+        Map<Long, Long> versions = new ConcurrentHashMap<>();
+        try (OrderLog orderLog = openLog(Durability.BATCHED)) {
+            PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), OrderExpiry.disabled(), orderLog);
+            PizzaOrderCounterService counterService = new PizzaOrderCounterService();
+            OrderSnapshotService snapshotService = new OrderSnapshotService(orderLog, service, counterService);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<?>> writers = new ArrayList<>();
+                for (int t = 0; t < 4; t++) {
+                    writers.add(executor.submit(() -> {
+                        for (int i = 0; i < 500; i++) {
+                            long id = counterService.getNextOrderNumber();
+                            service.createPizzaOrder(id, new ArrayList<>(List.of(new Pizza())));
+                            service.addPizzaTopping(id, 0, new PizzaTopping(ToppingType.values()[i % ToppingType.values().length]));
+                            if (i % 3 == 0) {
+                                service.checkout(id);
+                            } else if (i % 3 == 1) {
+                                service.deletePizzaOrder(id);
+                            }
+                        }
+                    }));
+                }
+                // Snapshots race the writers, whatever they miss has to come back from the log
+                while (!writers.stream().allMatch(Future::isDone)) {
+                    snapshotService.takeSnapshot();
+                }
+                for (Future<?> writer : writers) {
+                    writer.get();
+                }
+            } finally {
+                executor.shutdown();
+            }
+            assertNotNull(snapshotService.takeSnapshot());
+            assertNull(snapshotService.takeSnapshot());
+            List<Long> openIds = new ArrayList<>();
+            service.forEachOrder(order -> {
+                versions.put(order.getId(), order.getVersion());
+                if (order.getState() == OrderState.OPEN) {
+                    openIds.add(order.getId());
+                }
+            });
+            // A change after the last snapshot, only in the log
+            service.createPizza(openIds.get(0));
+        }
+
+        try (OrderLog orderLog = openLog(Durability.BATCHED)) {
+            PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), OrderExpiry.disabled(), orderLog);
+            PizzaOrderCounterService counterService = new PizzaOrderCounterService();
+            assertEquals(1, new OrderRecovery(orderLog, service, counterService).recover());
+            assertEquals(2000, counterService.getCurrentOrderNumber());
+            Map<Long, Long> recovered = new ConcurrentHashMap<>();
+            service.forEachOrder(order -> recovered.put(order.getId(), order.getVersion()));
+            assertEquals(versions.size(), recovered.size());
+            int changed = 0;
+            for (Map.Entry<Long, Long> entry : versions.entrySet()) {
+                long difference = recovered.get(entry.getKey()) - entry.getValue();
+                assertTrue(difference == 0 || difference == 1);
+                changed += (int) difference;
+            }
+            assertEquals(1, changed);
+        }
+    }
+
+    @Test
+    public void testReplayedOrderIsTrackedOnce() throws IOException {
+        try (OrderLog orderLog = openLog(Durability.SYNC)) {
+            PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), OrderExpiry.disabled(), orderLog);
+            service.createPizzaOrder(1, new ArrayList<>(List.of(new Pizza())));
+            service.createPizza(1L);
+            service.addPizzaTopping(1L, 0, new PizzaTopping(ToppingType.HAM));
+            service.updatePizzaSize(1L, 1, PizzaSize.LARGE);
+        }
+
+        try (OrderLog orderLog = openLog(Durability.SYNC)) {
+            PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), new OrderExpiry(60_000, 1_000), orderLog);
+            assertEquals(4, new OrderRecovery(orderLog, service, new PizzaOrderCounterService()).recover());
+            assertEquals(1, service.getOrderStats().getTrackedOrders());
+        }
+    }
+
+    @Test
+    public void testChangesThatCannotBeLoggedAreUndone() throws IOException {
+        OrderLog orderLog = openLog(Durability.SYNC);
+        PizzaOrderService service = new PizzaOrderService(new ConcurrentOrderStore(), OrderExpiry.disabled(), orderLog);
+        service.createPizzaOrder(1, new ArrayList<>(List.of(new Pizza())));
+        PizzaOrder read = service.getPizzaOrderById(1L);
+        long totalCost = read.getTotalCostCents();
+        orderLog.close();
+
+        assertThrows(IllegalStateException.class, () -> service.createPizza(1L));
+        assertThrows(IllegalStateException.class, () -> service.updatePizzaSize(1L, 0, PizzaSize.LARGE));
+        assertThrows(IllegalStateException.class, () -> service.checkout(1L));
+        assertThrows(IllegalStateException.class, () -> service.deletePizzaOrder(1L));
+        assertThrows(IllegalStateException.class, () -> service.createPizzaOrder(2, new ArrayList<>()));
+
+        PizzaOrder pizzaOrder = service.getPizzaOrderById(1L);
+        assertEquals(OrderState.OPEN, pizzaOrder.getState());
+        assertEquals(1, pizzaOrder.getVersion());
+        assertEquals(1, pizzaOrder.getPizzas().size());
+        assertEquals(PizzaSize.MEDIUM, pizzaOrder.getPizzas().get(0).getPizzaSize());
+        assertEquals(totalCost, pizzaOrder.getTotalCostCents());
+        // Readers who already held the order never saw the changes either
+        assertSame(read, pizzaOrder);
+        assertFalse(service.isValidPizzaOrder(2));
+    }
+
+    @Test
+    public void testMappedStoreKeepsOrdersWithoutLog() throws IOException {
+        Path openFile = tempDir.resolve("open.orders");
+        Path archivedFile = tempDir.resolve("archived.orders");
+        long openId;
+        PizzaOrder openOrder;
+        try (MappedOrderStore orderStore = new MappedOrderStore(openFile);
+             MappedOrderArchive orderArchive = new MappedOrderArchive(new MappedOrderStore(archivedFile))) {
+            PizzaOrderService service = new PizzaOrderService(orderStore, orderArchive, OrderExpiry.disabled(), OrderLog.disabled());
+            PizzaOrderCounterService counterService = new PizzaOrderCounterService();
+            openId = counterService.getNextOrderNumber();
+            service.createPizzaOrder(openId, new ArrayList<>(List.of(new Pizza())));
+            // Every change has to reach the store, the service only ever holds a decoded copy
+            service.addPizzaTopping(openId, 0, new PizzaTopping(ToppingType.HAM));
+            service.updatePizzaSize(openId, 0, PizzaSize.LARGE);
+            service.createPizza(openId);
+            openOrder = service.getPizzaOrderById(openId);
+            assertEquals(2, openOrder.getPizzas().size());
+
+            long checkedOutId = counterService.getNextOrderNumber();
+            service.createPizzaOrder(checkedOutId, new ArrayList<>(List.of(new Pizza())));
+            service.checkout(checkedOutId);
+        }
+
+        try (MappedOrderStore orderStore = new MappedOrderStore(openFile);
+             MappedOrderArchive orderArchive = new MappedOrderArchive(new MappedOrderStore(archivedFile))) {
+            PizzaOrderService service = new PizzaOrderService(orderStore, orderArchive, new OrderExpiry(60_000, 1_000),
+                    OrderLog.disabled());
+            PizzaOrderCounterService counterService = new PizzaOrderCounterService();
+            assertEquals(0, new OrderRecovery(OrderLog.disabled(), service, counterService).recover());
+
+            PizzaOrder recovered = service.getPizzaOrderById(openId);
+            assertEquals(openOrder.getVersion(), recovered.getVersion());
+            assertEquals(openOrder.getTotalCostCents(), recovered.getTotalCostCents());
+            assertEquals(PizzaSize.LARGE, recovered.getPizzas().get(0).getPizzaSize());
+            assertNotNull(recovered.getPizzas().get(0).getTopping(ToppingType.HAM));
+            assertEquals(OrderState.CHECKED_OUT, service.getPizzaOrderById(2L).getState());
+            assertEquals(1, service.getOrderStats().getTrackedOrders());
+            assertEquals(3, counterService.getNextOrderNumber());
+        }
+    }
+
+    private OrderLog openLog(Durability durability) throws IOException {
+        return new OrderLog(new WriteAheadLog(tempDir, durability, 10, 1 << 20));
+    }
+}
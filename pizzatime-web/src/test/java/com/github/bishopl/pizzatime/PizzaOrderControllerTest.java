@@ -0,0 +1,233 @@
+package com.github.bishopl.pizzatime;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
+
+import com.github.bishopl.pizzatime.controller.OrderEventBroadcaster;
+import com.github.bishopl.pizzatime.controller.OrderResponses;
+import com.github.bishopl.pizzatime.controller.PizzaOrderController;
+import com.github.bishopl.pizzatime.id.SnowflakeIdGenerator;
+import com.github.bishopl.pizzatime.model.OrderOperation;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingAmount;
+import com.github.bishopl.pizzatime.model.ToppingType;
+import com.github.bishopl.pizzatime.service.OrderExportService;
+import com.github.bishopl.pizzatime.service.OrderImportService;
+import com.github.bishopl.pizzatime.service.PizzaOrderCounterService;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+import com.github.bishopl.pizzatime.service.StaleOrderVersionException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+@WebMvcTest(PizzaOrderController.class)
+public class PizzaOrderControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private PizzaOrderCounterService pizzaOrderCounterService;
+
+    @MockBean
+    private PizzaOrderService pizzaOrderService;
+
+    @MockBean
+    private OrderImportService orderImportService;
+
+    @MockBean
+    private OrderExportService orderExportService;
+
+    @MockBean
+    private OrderEventBroadcaster orderEventBroadcaster;
+
+    @BeforeEach
+    public void setUp() {
+        // Version checks run the change they guard, the real check is covered in PizzaOrderServiceTest
+        when(pizzaOrderService.ifVersion(any(), any(), any())).thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+    }
+
+    @Test
+    public void testCreatePizzaOrder() throws Exception {
+        // Arrange
+        objectMapper.enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING);
+        long orderId = 1L;
+        Pizza cheesePizza = new Pizza();
+        ArrayList<PizzaTopping> bestToppings = new ArrayList<>();
+        bestToppings.add(new PizzaTopping(ToppingType.CHEESE));
+        bestToppings.add(new PizzaTopping(ToppingType.PINEAPPLES, ToppingAmount.EXTRA));
+        bestToppings.add(new PizzaTopping(ToppingType.BACON));
+        Pizza bestPizza = new Pizza(PizzaSize.SMALL, bestToppings); 
+        
+        PizzaOrder order = new PizzaOrder(orderId, Arrays.asList(cheesePizza, bestPizza));
+        when(pizzaOrderCounterService.getNextOrderNumber()).thenReturn(orderId);
+        when(pizzaOrderService.createPizzaOrder(orderId, Arrays.asList(cheesePizza, bestPizza))).thenReturn(order);
+
+        // Act
+        mockMvc.perform(post("/v1/app/orders")
+                .accept(MediaType.APPLICATION_JSON)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Arrays.asList(cheesePizza, bestPizza))))
+                .andDo(MockMvcResultHandlers.print())
+                .andExpect(status().isCreated());
+                // .andExpect(jsonPath("$.id").exists())
+                // .andExpect(jsonPath("$.date").exists())
+                // .andExpect(jsonPath("$.pizzas[0].size").value("MEDIUM"))
+                // .andExpect(jsonPath("$.pizzas[0].toppings[0].type").value("CHEESE"))
+                // .andExpect(jsonPath("$.pizzas[0].toppings[0].amount").value("REGULAR"))
+                // .andExpect(jsonPath("$.pizzas[1].size").value("SMALL"))
+                // .andExpect(jsonPath("$.pizzas[1].toppings").isArray())
+                // .andExpect(jsonPath("$.pizzas[1].toppings.length()").value(3))
+                // .andExpect(jsonPath("$.pizzas[1].toppings[0].type").value("CHEESE"))
+                // .andExpect(jsonPath("$.pizzas[1].toppings[0].amount").value("REGULAR"))
+                // .andExpect(jsonPath("$.pizzas[1].toppings[1].type").value("PINEAPPLES"))
+                // .andExpect(jsonPath("$.pizzas[1].toppings[1].amount").value("EXTRA"))
+                // .andExpect(jsonPath("$.pizzas[1].toppings[2].type").value("BACON"))
+                // .andExpect(jsonPath("$.pizzas[1].toppings[2].amount").value("REGULAR"))
+                // .andExpect(jsonPath("$.totalCost").value(18.0));
+
+        // Assert
+        verify(pizzaOrderCounterService).getNextOrderNumber();
+        //verify(pizzaOrderService).createPizzaOrder(orderId, Arrays.asList(cheesePizza, bestPizza));
+    }
+
+    @Test
+    public void testSnowflakeIdsAreSentAsStrings() throws Exception {
+        // Past 2^53, so a JavaScript number would round it to a different order
+        long orderId = new SnowflakeIdGenerator(1023, () -> SnowflakeIdGenerator.EPOCH + 86_400_000L * 365).nextId();
+        assertTrue(orderId > 1L << 53);
+        PizzaOrder order = new PizzaOrder(orderId, Arrays.asList(new Pizza()));
+        when(pizzaOrderCounterService.getNextOrderNumber()).thenReturn(orderId);
+        when(pizzaOrderService.createPizzaOrder(eq(orderId), anyList())).thenReturn(order);
+        when(pizzaOrderService.getPizzaOrderById(orderId)).thenReturn(order);
+        when(pizzaOrderService.createPizza(orderId)).thenReturn(order);
+
+        mockMvc.perform(post("/v1/app/orders").contentType(MediaType.APPLICATION_JSON).content("[{}]"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(Long.toString(orderId)));
+        mockMvc.perform(get("/v1/app/orders/{id}", Long.toString(orderId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(Long.toString(orderId)));
+        mockMvc.perform(post("/v1/app/orders/{id}/pizzas/0?view=summary", Long.toString(orderId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(Long.toString(orderId)));
+    }
+
+    @Test
+    public void testApplyBatch() throws Exception {
+        PizzaOrder order = new PizzaOrder(1L, Arrays.asList(new Pizza(PizzaSize.LARGE)));
+        when(pizzaOrderService.applyBatch(eq(1L), anyList())).thenReturn(order);
+        when(pizzaOrderService.applyBatch(eq(2L), anyList())).thenThrow(new IllegalArgumentException("bad"));
+        when(pizzaOrderService.applyBatch(eq(3L), anyList())).thenThrow(new IllegalStateException("Pizza order 3 is CHECKED_OUT"));
+        String body = objectMapper.writeValueAsString(List.of(OrderOperation.setSize(0, PizzaSize.LARGE)));
+
+        mockMvc.perform(post("/v1/app/orders/1/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pizzas[0].size").value("LARGE"));
+        mockMvc.perform(post("/v1/app/orders/2/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/v1/app/orders/3/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/v1/app/orders/4/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testGetPizzaOrderNotModified() throws Exception {
+        PizzaOrder order = new PizzaOrder(1L, Arrays.asList(new Pizza()));
+        order.bumpVersion();
+        when(pizzaOrderService.getPizzaOrderById(1L)).thenReturn(order);
+
+        mockMvc.perform(get("/v1/app/orders/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", OrderResponses.eTagOf(2)));
+        mockMvc.perform(get("/v1/app/orders/1").header("If-None-Match", OrderResponses.eTagOf(2)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/v1/app/orders/1/pizzas").header("If-None-Match", "W/" + OrderResponses.eTagOf(1) + ", " + OrderResponses.eTagOf(2)))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/v1/app/orders/1/pizzas/0/toppings").header("If-None-Match", OrderResponses.eTagOf(1)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].type").value("CHEESE"));
+        // A tag from before a restart names a version that may belong to a different order now
+        mockMvc.perform(get("/v1/app/orders/1").header("If-None-Match", "\"0-2\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testStaleIfMatch() throws Exception {
+        doThrow(new StaleOrderVersionException(1L, 3L, 4L)).when(pizzaOrderService).ifVersion(eq(1L), eq(3L), any());
+
+        mockMvc.perform(post("/v1/app/orders/1/checkout").header("If-Match", OrderResponses.eTagOf(3)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", OrderResponses.eTagOf(4)));
+    }
+
+    @Test
+    public void testUnknownPizzaSize() throws Exception {
+        mockMvc.perform(patch("/v1/app/orders/1/pizzas/0").content("HUGE"))
+                .andExpect(status().isBadRequest());
+        verify(pizzaOrderService, never()).updatePizzaSize(any(), anyInt(), any());
+    }
+
+    @Test
+    public void testWeakIfMatchNeverMatches() throws Exception {
+        doThrow(new StaleOrderVersionException(1L, 0L, 3L)).when(pizzaOrderService).ifVersion(eq(1L), eq(0L), any());
+
+        mockMvc.perform(post("/v1/app/orders/1/checkout").header("If-Match", "W/" + OrderResponses.eTagOf(3)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string("ETag", OrderResponses.eTagOf(3)));
+        // Nor does a tag from before a restart
+        mockMvc.perform(post("/v1/app/orders/1/checkout").header("If-Match", "\"0-3\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    public void testSummaryResponse() throws Exception {
+        PizzaTopping bacon = new PizzaTopping(ToppingType.BACON, ToppingAmount.EXTRA);
+        PizzaOrder order = new PizzaOrder(1L, Arrays.asList(new Pizza(), new Pizza(PizzaSize.LARGE, List.of(bacon))));
+        when(pizzaOrderService.addPizzaTopping(eq(1L), eq(1), any())).thenReturn(order);
+        String body = objectMapper.writeValueAsString(bacon);
+
+        mockMvc.perform(post("/v1/app/orders/1/pizzas/1/toppings?view=summary").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", OrderResponses.summaryETagOf(1)))
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(jsonPath("$.totalCost").value(order.getTotalCostCents() / 100.0))
+                .andExpect(jsonPath("$.pizzaCount").value(2))
+                .andExpect(jsonPath("$.pizzaIndex").value(1))
+                .andExpect(jsonPath("$.pizza.size").value("LARGE"))
+                .andExpect(jsonPath("$.pizzas").doesNotExist());
+        mockMvc.perform(post("/v1/app/orders/1/pizzas/1/toppings").contentType(MediaType.APPLICATION_JSON).content(body)
+                        .accept(PizzaOrderController.SUMMARY_MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PizzaOrderController.SUMMARY_MEDIA_TYPE))
+                .andExpect(jsonPath("$.pizza.toppings[0].type").value("BACON"));
+        mockMvc.perform(post("/v1/app/orders/1/pizzas/1/toppings").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", OrderResponses.eTagOf(1)))
+                .andExpect(jsonPath("$.pizzas.length()").value(2));
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.bishopl.pizzatime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingAmount;
+import com.github.bishopl.pizzatime.model.ToppingType;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+
+public class PizzaOrderServiceConcurrencyTest {
+    private static final ToppingType[] TOPPING_TYPES = ToppingType.values();
+    private static final ToppingAmount[] TOPPING_AMOUNTS = ToppingAmount.values();
+    private static final PizzaSize[] PIZZA_SIZES = PizzaSize.values();
+
+    private PizzaOrderService pizzaOrderService;
+
+    @BeforeEach
+    public void setUp() {
+        pizzaOrderService = new PizzaOrderService();
+    }
+
+    @Test
+    public void testConcurrentMutationsOfSameOrder() throws Exception {
+        List<Pizza> pizzas = new ArrayList<>();
+        pizzas.add(new Pizza());
+        pizzas.add(new Pizza());
+        pizzaOrderService.createPizzaOrder(1L, pizzas);
+
+        runConcurrently(8, 5_000, (thread, i) -> mutate(1L, thread + i));
+
+        PizzaOrder pizzaOrder = pizzaOrderService.getPizzaOrderById(1L);
+        double cachedTotal = pizzaOrder.getTotalCost();
+        assertEquals(PizzaOrderService.calculatePriceOfOrder(pizzaOrder), cachedTotal, 0.001);
+        for (Pizza pizza : pizzaOrder.getPizzas()) {
+            Set<ToppingType> seen = new HashSet<>();
+            for (PizzaTopping topping : pizza.getToppings()) {
+                assertTrue(seen.add(topping.getToppingType()), "duplicate topping " + topping.getToppingType());
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentMutationsOfDifferentOrders() throws Exception {
+        int threads = 8;
+        for (long id = 0; id < threads; id++) {
+            List<Pizza> pizzas = new ArrayList<>();
+            pizzas.add(new Pizza());
+            pizzaOrderService.createPizzaOrder(id, pizzas);
+        }
+
+        runConcurrently(threads, 5_000, (thread, i) -> mutate(thread, i));
+
+        for (long id = 0; id < threads; id++) {
+            PizzaOrder pizzaOrder = pizzaOrderService.getPizzaOrderById(id);
+            double cachedTotal = pizzaOrder.getTotalCost();
+            assertEquals(PizzaOrderService.calculatePriceOfOrder(pizzaOrder), cachedTotal, 0.001);
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    public void testThroughputScalesWithThreads() throws Exception {
+        int operationsPerThread = 200_000;
+        int maxThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            pizzaOrderService = new PizzaOrderService();
+            for (long id = 0; id < threads; id++) {
+                List<Pizza> pizzas = new ArrayList<>();
+                pizzas.add(new Pizza());
+                pizzaOrderService.createPizzaOrder(id, pizzas);
+            }
+            long start = System.nanoTime();
+            runConcurrently(threads, operationsPerThread, (thread, i) -> mutate(thread, i));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("threads=%d ops/s=%.0f%n", threads, threads * operationsPerThread / seconds);
+        }
+    }
+
+    private void mutate(long orderId, long i) {
+        int pizzaIndex = (int) (i & 1);
+        if (!pizzaOrderService.isValidPizza(orderId, pizzaIndex)) {
+            pizzaIndex = 0;
+        }
+        ToppingType type = TOPPING_TYPES[(int) (i % TOPPING_TYPES.length)];
+        switch ((int) (i % 3)) {
+            case 0 -> pizzaOrderService.addPizzaTopping(orderId, pizzaIndex,
+                    new PizzaTopping(type, TOPPING_AMOUNTS[(int) (i % TOPPING_AMOUNTS.length)]));
+            case 1 -> pizzaOrderService.removePizzaTopping(orderId, pizzaIndex, new PizzaTopping(type));
+            default -> pizzaOrderService.updatePizzaSize(orderId, pizzaIndex, PIZZA_SIZES[(int) (i % PIZZA_SIZES.length)]);
+        }
+    }
+
+    private interface Operation {
+        void run(long thread, long iteration);
+    }
+
+    private static void runConcurrently(int threads, int iterations, Operation operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                long thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (long i = 0; i < iterations; i++) {
+                        operation.run(thread, i);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
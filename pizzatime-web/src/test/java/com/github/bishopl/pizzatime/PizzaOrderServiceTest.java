@@ -6,11 +6,14 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import com.github.bishopl.pizzatime.model.OrderOperation;
+import com.github.bishopl.pizzatime.model.OrderState;
 import com.github.bishopl.pizzatime.model.Pizza;
 import com.github.bishopl.pizzatime.model.PizzaOrder;
 import com.github.bishopl.pizzatime.model.PizzaSize;
@@ -18,6 +21,7 @@ import com.github.bishopl.pizzatime.model.PizzaTopping;
 import com.github.bishopl.pizzatime.model.ToppingAmount;
 import com.github.bishopl.pizzatime.model.ToppingType;
 import com.github.bishopl.pizzatime.service.PizzaOrderService;
+import com.github.bishopl.pizzatime.service.StaleOrderVersionException;
 
 public class PizzaOrderServiceTest {
     private PizzaOrderService pizzaOrderService;
@@ -267,4 +271,143 @@ public class PizzaOrderServiceTest {
         boolean isValid = pizzaOrderService.isValidPizza(1L, 2);
         assertFalse(isValid);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testChangeToMissingPizzaFindsNothing() {
+        pizzaOrderService.createPizzaOrder(1L, new ArrayList<>(List.of(new Pizza())));
+        // The index is checked under the order's lock, so a pizza deleted in between is a miss rather than an error
+        assertNull(pizzaOrderService.deletePizza(1L, 1));
+        assertNull(pizzaOrderService.updatePizzaSize(1L, -1, PizzaSize.LARGE));
+        assertNull(pizzaOrderService.addPizzaTopping(1L, 1, new PizzaTopping(ToppingType.BACON)));
+        assertEquals(1, pizzaOrderService.getPizzaOrderById(1L).getVersion());
+    }
+
+    @Test
+    public void testChangesAreSwappedInWhole() {
+        pizzaOrderService.createPizzaOrder(1L, new ArrayList<>(List.of(new Pizza(PizzaSize.SMALL))));
+        PizzaOrder read = pizzaOrderService.getPizzaOrderById(1L);
+        long readTotal = read.getTotalCostCents();
+
+        PizzaOrder changed = pizzaOrderService.applyBatch(1L, List.of(OrderOperation.addPizza(),
+                OrderOperation.setSize(0, PizzaSize.LARGE)));
+        // A reader holding the order keeps the version it read, with a total that matches its pizzas
+        assertEquals(1, read.getVersion());
+        assertEquals(1, read.getPizzas().size());
+        assertEquals(PizzaSize.SMALL, read.getPizzas().get(0).getPizzaSize());
+        assertEquals(readTotal, read.getTotalCostCents());
+        assertEquals(2, changed.getPizzas().size());
+        assertEquals(changed, pizzaOrderService.getPizzaOrderById(1L));
+    }
+
+    @Test
+    public void testCheckoutArchivesOrder() {
+        List<Pizza> pizzas = new ArrayList<>();
+        pizzas.add(new Pizza(PizzaSize.LARGE));
+        pizzas.add(new Pizza(PizzaSize.SMALL, List.of(new PizzaTopping(ToppingType.BACON, ToppingAmount.EXTRA))));
+        pizzaOrderService.createPizzaOrder(1, pizzas);
+
+        PizzaOrder checkedOut = pizzaOrderService.checkout(1L);
+        assertEquals(OrderState.CHECKED_OUT, checkedOut.getState());
+        assertEquals(0, pizzaOrderService.getOrderStats().getLiveOrders());
+        assertEquals(1, pizzaOrderService.getOrderStats().getArchivedOrders());
+
+        PizzaOrder archived = pizzaOrderService.getPizzaOrderById(1L);
+        assertEquals(OrderState.CHECKED_OUT, archived.getState());
+        assertEquals(checkedOut.getTotalCostCents(), archived.getTotalCostCents());
+        assertEquals(checkedOut.getDate(), archived.getDate());
+        assertEquals(2, archived.getPizzas().size());
+        assertEquals(PizzaSize.SMALL, archived.getPizzas().get(1).getPizzaSize());
+        assertEquals(ToppingAmount.EXTRA, archived.getPizzas().get(1).getTopping(ToppingType.BACON).getToppingAmount());
+        assertTrue(pizzaOrderService.isValidPizza(1, 1));
+    }
+
+    @Test
+    public void testCheckedOutOrderRejectsChanges() {
+        pizzaOrderService.createPizzaOrder(1, new ArrayList<>(List.of(new Pizza())));
+        pizzaOrderService.checkout(1L);
+
+        assertThrows(IllegalStateException.class, () -> pizzaOrderService.createPizza(1L));
+        assertThrows(IllegalStateException.class, () -> pizzaOrderService.updatePizzaSize(1L, 0, PizzaSize.LARGE));
+        assertThrows(IllegalStateException.class, () -> pizzaOrderService.addPizzaTopping(1L, 0, new PizzaTopping(ToppingType.BACON)));
+        assertThrows(IllegalStateException.class, () -> pizzaOrderService.deletePizzaOrder(1L));
+        assertThrows(IllegalStateException.class, () -> pizzaOrderService.checkout(1L));
+        assertThrows(IllegalStateException.class, () -> pizzaOrderService.getPizzaOrderById(1L).addPizza(new Pizza()));
+        assertEquals(PizzaSize.MEDIUM, pizzaOrderService.getPizzaById(1L, 0).getPizzaSize());
+    }
+
+    @Test
+    public void testFulfillOrder() {
+        pizzaOrderService.createPizzaOrder(1, new ArrayList<>());
+        assertThrows(IllegalStateException.class, () -> pizzaOrderService.fulfill(1L));
+        assertNull(pizzaOrderService.fulfill(2L));
+
+        pizzaOrderService.checkout(1L);
+        assertEquals(OrderState.FULFILLED, pizzaOrderService.fulfill(1L).getState());
+        assertEquals(OrderState.FULFILLED, pizzaOrderService.getPizzaOrderById(1L).getState());
+        assertThrows(IllegalStateException.class, () -> pizzaOrderService.fulfill(1L));
+    }
+
+    @Test
+    public void testApplyBatch() {
+        pizzaOrderService.createPizzaOrder(1, new ArrayList<>(List.of(new Pizza())));
+
+        PizzaOrder pizzaOrder = pizzaOrderService.applyBatch(1L, List.of(
+                OrderOperation.setSize(0, PizzaSize.LARGE),
+                OrderOperation.addPizza(),
+                OrderOperation.addTopping(1, new PizzaTopping(ToppingType.BACON, ToppingAmount.EXTRA)),
+                OrderOperation.removeTopping(1, new PizzaTopping(ToppingType.CHEESE)),
+                OrderOperation.deletePizza(0)));
+
+        assertEquals(1, pizzaOrder.getPizzas().size());
+        assertEquals(PizzaSize.MEDIUM, pizzaOrder.getPizzas().get(0).getPizzaSize());
+        assertEquals(1, pizzaOrder.getPizzas().get(0).getToppings().size());
+        assertTrue(PizzaOrderService.verifyPriceOfOrder(pizzaOrder));
+    }
+
+    @Test
+    public void testApplyBatchIsAllOrNothing() {
+        pizzaOrderService.createPizzaOrder(1, new ArrayList<>(List.of(new Pizza())));
+        long totalBefore = pizzaOrderService.getPizzaOrderById(1L).getTotalCostCents();
+
+        // The delete leaves no pizza at index 0 for the last change
+        assertThrows(IllegalArgumentException.class, () -> pizzaOrderService.applyBatch(1L, List.of(
+                OrderOperation.setSize(0, PizzaSize.LARGE),
+                OrderOperation.deletePizza(0),
+                OrderOperation.setSize(0, PizzaSize.SMALL))));
+
+        PizzaOrder pizzaOrder = pizzaOrderService.getPizzaOrderById(1L);
+        assertEquals(1, pizzaOrder.getPizzas().size());
+        assertEquals(PizzaSize.MEDIUM, pizzaOrder.getPizzas().get(0).getPizzaSize());
+        assertEquals(totalBefore, pizzaOrder.getTotalCostCents());
+        assertNull(pizzaOrderService.applyBatch(2L, List.of(OrderOperation.addPizza())));
+    }
+
+    @Test
+    public void testVersionFollowsChanges() {
+        PizzaOrder pizzaOrder = pizzaOrderService.createPizzaOrder(1, new ArrayList<>(List.of(new Pizza())));
+        assertEquals(1, pizzaOrder.getVersion());
+
+        pizzaOrderService.updatePizzaSize(1L, 0, PizzaSize.LARGE);
+        pizzaOrderService.createPizza(1L);
+        assertEquals(3, pizzaOrderService.getPizzaOrderById(1L).getVersion());
+
+        pizzaOrderService.checkout(1L);
+        assertEquals(4, pizzaOrderService.getPizzaOrderById(1L).getVersion());
+        pizzaOrderService.fulfill(1L);
+        assertEquals(5, pizzaOrderService.getPizzaOrderById(1L).getVersion());
+    }
+
+    @Test
+    public void testIfVersion() {
+        pizzaOrderService.createPizzaOrder(1, new ArrayList<>(List.of(new Pizza())));
+
+        PizzaOrder pizzaOrder = pizzaOrderService.ifVersion(1L, 1L, () -> pizzaOrderService.createPizza(1L));
+        assertEquals(2, pizzaOrder.getVersion());
+
+        StaleOrderVersionException e = assertThrows(StaleOrderVersionException.class,
+                () -> pizzaOrderService.ifVersion(1L, 1L, () -> pizzaOrderService.createPizza(1L)));
+        assertEquals(2, e.getCurrentVersion());
+        assertEquals(2, pizzaOrderService.getPizzaOrderById(1L).getPizzas().size());
+        assertNull(pizzaOrderService.ifVersion(2L, 1L, () -> pizzaOrderService.createPizza(2L)));
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.bishopl.pizzatime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import com.github.bishopl.pizzatime.config.PizzaPrices;
+import com.github.bishopl.pizzatime.config.PriceCatalog;
+import com.github.bishopl.pizzatime.config.PriceList;
+import com.github.bishopl.pizzatime.config.ToppingPrices;
+import com.github.bishopl.pizzatime.model.OrderState;
+import com.github.bishopl.pizzatime.model.Pizza;
+import com.github.bishopl.pizzatime.model.PizzaOrder;
+import com.github.bishopl.pizzatime.model.PizzaSize;
+import com.github.bishopl.pizzatime.model.PizzaTopping;
+import com.github.bishopl.pizzatime.model.ToppingAmount;
+import com.github.bishopl.pizzatime.model.ToppingType;
+import com.github.bishopl.pizzatime.pricing.OrderPricing;
+import com.github.bishopl.pizzatime.service.PizzaOrderService;
+
+public class PriceCatalogTest {
+
+    @AfterEach
+    public void tearDown() {
+        PriceCatalog.restoreDefaults();
+    }
+
+    @Test
+    public void testInstallMergesAndBumpsVersion() {
+        PriceCatalog before = PriceCatalog.current();
+        PriceList priceList = new PriceList();
+        priceList.getBasePrices().put(PizzaSize.LARGE, new BigDecimal("16.00"));
+        priceList.getMultipliers().put(ToppingAmount.EXTRA, new BigDecimal("2.0"));
+
+        PriceCatalog after = PriceCatalog.install(priceList);
+
+        assertSame(after, PriceCatalog.current());
+        assertEquals(before.getVersion() + 1, after.getVersion());
+        assertEquals(16.0, PizzaPrices.getBasePrice(PizzaSize.LARGE));
+        assertEquals(9.0, PizzaPrices.getBasePrice(PizzaSize.MEDIUM));
+        assertEquals(3.0, ToppingPrices.getPrice(ToppingType.HAM, ToppingAmount.EXTRA));
+        // The old snapshot never changes
+        assertEquals(1400, before.getBasePriceCents(PizzaSize.LARGE));
+    }
+
+    @Test
+    public void testInvalidPriceRejected() {
+        PriceCatalog before = PriceCatalog.current();
+        PriceList priceList = new PriceList();
+        priceList.getToppingPrices().put(ToppingType.OLIVES, new BigDecimal("-1.00"));
+        assertThrows(IllegalArgumentException.class, () -> PriceCatalog.install(priceList));
+        assertSame(before, PriceCatalog.current());
+    }
+
+    @Test
+    public void testSetPriceInstallsNewVersion() {
+        long version = PriceCatalog.current().getVersion();
+        ToppingPrices.setPrice(ToppingType.OLIVES, 2.0);
+        assertEquals(2.0, ToppingPrices.getPrice(ToppingType.OLIVES));
+        assertEquals(version + 1, PriceCatalog.current().getVersion());
+    }
+
+    @Test
+    public void testOrderRepricedAfterCatalogChange() {
+        PizzaOrderService pizzaOrderService = new PizzaOrderService();
+        List<Pizza> pizzas = new ArrayList<>();
+        pizzas.add(new Pizza()); // 10.0
+        PizzaOrder pizzaOrder = pizzaOrderService.createPizzaOrder(1L, pizzas);
+        assertEquals(PriceCatalog.current().getVersion(), pizzaOrder.getPriceVersion());
+
+        PriceList priceList = new PriceList();
+        priceList.getBasePrices().put(PizzaSize.MEDIUM, new BigDecimal("10.00"));
+        PriceCatalog catalog = PriceCatalog.install(priceList);
+
+        // Changes are swapped in as a new object, so the order before the change keeps its old price
+        pizzaOrder = pizzaOrderService.addPizzaTopping(1L, 0, new PizzaTopping(ToppingType.HAM));
+        assertEquals(12.5, pizzaOrder.getTotalCost(), 0.001);
+        assertEquals(catalog.getVersion(), pizzaOrder.getPriceVersion());
+        assertTrue(PizzaOrderService.verifyPriceOfOrder(pizzaOrder));
+    }
+
+    @Test
+    public void testOrderFromEarlierRunIsRepriced() {
+        List<Pizza> pizzas = new ArrayList<>();
+        pizzas.add(new Pizza()); // 10.0
+        // Priced under the first catalog of an earlier run, at prices this run no longer knows
+        PizzaOrder pizzaOrder = PizzaOrder.restore(1L, new Date(), pizzas, 1234, 1, OrderState.OPEN, 1);
+
+        assertTrue(OrderPricing.repriceIfStale(pizzaOrder));
+        assertEquals(1000, pizzaOrder.getTotalCostCents());
+        assertEquals(PriceCatalog.current().getVersion(), pizzaOrder.getPriceVersion());
+    }
+}